@@ -0,0 +1,172 @@
+package com.concentrix.asset.benchmark;
+
+import com.concentrix.asset.AssetApplication;
+import com.concentrix.asset.enums.DeviceStatus;
+import com.concentrix.asset.enums.DeviceType;
+import com.concentrix.asset.enums.TransactionStatus;
+import com.concentrix.asset.enums.TransactionType;
+import com.concentrix.asset.service.DeviceCountRollupService;
+import com.concentrix.asset.service.SearchIndexService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Khởi động toàn bộ ứng dụng trên H2 in-memory (MySQL mode) và sinh dữ liệu giả lập:
+ * 100k thiết bị có serial, 50k user, 250k transaction với 1M transaction detail.
+ * Dữ liệu được sinh bằng INSERT ... SELECT trên SYSTEM_RANGE nên mất vài chục giây mỗi fork.
+ */
+@State(Scope.Benchmark)
+public class AppFixture {
+    static final int SITES = 4;
+    static final int WAREHOUSES = 12;
+    static final int FLOORS = 40;
+    static final int MODELS_PER_TYPE = 5;
+    static final int USERS = 50_000;
+    static final int DEVICES = 100_000;
+    static final int TRANSACTIONS = 250_000;
+    static final int DETAILS_PER_TRANSACTION = 4;
+    static final int ASSIGNED_ACCESSORIES = 5_000;
+
+    ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        // Truyền dạng command-line để override datasource MySQL trong application.yml
+        context = new SpringApplicationBuilder(AssetApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:ams_bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--server.port=0",
+                "--logging.level.root=WARN");
+        seed(context.getBean(JdbcTemplate.class));
+        context.getBean(DeviceCountRollupService.class).rebuild();
+        context.getBean(SearchIndexService.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    private static void seed(JdbcTemplate jdbc) {
+        jdbc.update("INSERT INTO site (site_id, site_name) SELECT x, 'SITE-' || x FROM SYSTEM_RANGE(1, ?) AS r(x)", SITES);
+        jdbc.update("""
+                INSERT INTO warehouse (warehouse_id, warehouse_name, site_id)
+                SELECT x, 'WH-' || x, MOD(x - 1, ?) + 1 FROM SYSTEM_RANGE(1, ?) AS r(x)
+                """, SITES, WAREHOUSES);
+        jdbc.update("""
+                INSERT INTO floor (floor_id, floor_name, site_id)
+                SELECT x, 'FL-' || x, MOD(x - 1, ?) + 1 FROM SYSTEM_RANGE(1, ?) AS r(x)
+                """, SITES, FLOORS);
+        jdbc.update("""
+                INSERT INTO user (eid, full_name, email, sso, msa, job_title, is_active, role, site_id)
+                SELECT 'E' || x, 'User ' || x, 'user' || x || '@example.com', 'user' || x, 'MSA' || MOD(x, 50),
+                       'Advisor', TRUE, 'OTHER', MOD(x, ?) + 1
+                FROM SYSTEM_RANGE(1, ?) AS r(x)
+                """, SITES, USERS);
+
+        // Model có serial trước (id 1..serialModels), sau đó tới model không serial
+        List<DeviceType> types = new ArrayList<>();
+        Arrays.stream(DeviceType.values()).filter(DeviceType::hasSerial).forEach(types::add);
+        Arrays.stream(DeviceType.values()).filter(t -> !t.hasSerial()).forEach(types::add);
+        List<Object[]> models = new ArrayList<>();
+        for (DeviceType type : types) {
+            for (int i = 1; i <= MODELS_PER_TYPE; i++) {
+                models.add(new Object[]{models.size() + 1, type.name() + " Model " + i, type.name()});
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO model (model_id, model_name, type) VALUES (?, ?, ?)", models);
+        int serialModels = (int) Arrays.stream(DeviceType.values()).filter(DeviceType::hasSerial).count()
+                * MODELS_PER_TYPE;
+        int accessoryModels = models.size() - serialModels;
+
+        // Status xoay vòng theo thứ tự enum; kho/sàn/user gán theo status như dữ liệu thật
+        DeviceStatus[] statuses = DeviceStatus.values();
+        String statusCase = caseOf("MOD(x, " + statuses.length + ")", statuses);
+        String inWarehouse = "MOD(x, " + statuses.length + ") IN (" + DeviceStatus.IN_STOCK.ordinal() + ", "
+                + DeviceStatus.E_WASTE.ordinal() + ", " + DeviceStatus.REPAIR.ordinal() + ")";
+        jdbc.update("""
+                INSERT INTO device (device_id, serial_number, device_name, host_name, seat_number, model_id, status,
+                                    warehouse_id, floor_id, user_id, start_date, end_date)
+                SELECT x, 'SN' || LPAD(x, 7, '0'), 'Device ' || x, 'HOST-' || x, 'SEAT-' || x,
+                       MOD(x, ?) + 1, %s,
+                       CASE WHEN %s THEN MOD(x, ?) + 1 END,
+                       CASE WHEN MOD(x, ?) = ? THEN MOD(x, ?) + 1 END,
+                       CASE WHEN MOD(x, ?) = ? THEN 'E' || (MOD(x, ?) + 1) END,
+                       DATEADD('DAY', -MOD(x, 3000), CURRENT_DATE),
+                       DATEADD('DAY', MOD(x, 800) - 400, CURRENT_DATE)
+                FROM SYSTEM_RANGE(1, ?) AS r(x)
+                """.formatted(statusCase, inWarehouse),
+                serialModels, WAREHOUSES,
+                statuses.length, DeviceStatus.IN_FLOOR.ordinal(), FLOORS,
+                statuses.length, DeviceStatus.ASSIGNED.ordinal(), USERS,
+                DEVICES);
+
+        // Phụ kiện không serial: một Device cho mỗi model, số lượng nằm ở device_warehouse/floor/user
+        jdbc.update("""
+                INSERT INTO device (device_id, device_name, model_id)
+                SELECT ? + x, 'Accessory ' || x, ? + x FROM SYSTEM_RANGE(1, ?) AS r(x)
+                """, DEVICES, serialModels, accessoryModels);
+        jdbc.update("""
+                INSERT INTO device_warehouse (device_id, warehouse_id, quantity)
+                SELECT d.device_id, w.warehouse_id, 10 + MOD(d.device_id * 7 + w.warehouse_id, 90)
+                FROM device d CROSS JOIN warehouse w
+                WHERE d.serial_number IS NULL
+                """);
+        jdbc.update("""
+                INSERT INTO device_floor (device_id, floor_id, quantity)
+                SELECT d.device_id, f.floor_id, 1 + MOD(d.device_id * 3 + f.floor_id, 20)
+                FROM device d CROSS JOIN floor f
+                WHERE d.serial_number IS NULL
+                """);
+        jdbc.update("""
+                INSERT INTO device_user (device_id, eid, quantity)
+                SELECT ? + MOD(x, ?) + 1, 'E' || x, 1 FROM SYSTEM_RANGE(1, ?) AS r(x)
+                """, DEVICES, accessoryModels, ASSIGNED_ACCESSORIES);
+
+        jdbc.update("""
+                INSERT INTO asset_transaction (transaction_id, transaction_type, transaction_status,
+                                               from_warehouse_id, to_warehouse_id, from_floor_id, to_floor_id,
+                                               user_use_id, create_by, created_at, return_date)
+                SELECT x, %s, %s,
+                       MOD(x, ?) + 1, MOD(x + 1, ?) + 1, MOD(x, ?) + 1, MOD(x + 1, ?) + 1,
+                       'E' || (MOD(x, ?) + 1), 'E1',
+                       DATEADD('MINUTE', -x, CURRENT_TIMESTAMP),
+                       DATEADD('DAY', MOD(x, 30) - 10, CURRENT_DATE)
+                FROM SYSTEM_RANGE(1, ?) AS r(x)
+                """.formatted(caseOf("MOD(x, " + TransactionType.values().length + ")", TransactionType.values()),
+                        caseOf("MOD(x, " + TransactionStatus.values().length + ")", TransactionStatus.values())),
+                WAREHOUSES, WAREHOUSES, FLOORS, FLOORS, USERS, TRANSACTIONS);
+        jdbc.update("""
+                INSERT INTO transaction_detail (transaction_id, device_id, quantity)
+                SELECT t.x, ? + MOD(t.x + k.x, ?) + 1, 1 + MOD(t.x, 5)
+                FROM SYSTEM_RANGE(1, ?) AS t(x) CROSS JOIN SYSTEM_RANGE(1, ?) AS k(x)
+                """, DEVICES, accessoryModels, TRANSACTIONS, DETAILS_PER_TRANSACTION);
+    }
+
+    // CASE <expr> WHEN 0 THEN 'A' WHEN 1 THEN 'B' ... END theo thứ tự enum
+    private static String caseOf(String expr, Enum<?>[] values) {
+        StringBuilder sql = new StringBuilder("CASE ").append(expr);
+        for (Enum<?> value : values) {
+            sql.append(" WHEN ").append(value.ordinal()).append(" THEN '").append(value.name()).append('\'');
+        }
+        return sql.append(" END").toString();
+    }
+}
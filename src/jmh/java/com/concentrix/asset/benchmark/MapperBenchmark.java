@@ -0,0 +1,92 @@
+package com.concentrix.asset.benchmark;
+
+import com.concentrix.asset.dto.response.DeviceResponse;
+import com.concentrix.asset.dto.response.TransactionResponse;
+import com.concentrix.asset.dto.response.UserResponse;
+import com.concentrix.asset.entity.AssetTransaction;
+import com.concentrix.asset.entity.Device;
+import com.concentrix.asset.entity.User;
+import com.concentrix.asset.mapper.DeviceMapper;
+import com.concentrix.asset.mapper.TransactionMapper;
+import com.concentrix.asset.mapper.UserMapper;
+import com.concentrix.asset.repository.DeviceRepository;
+import com.concentrix.asset.repository.TransactionRepository;
+import com.concentrix.asset.repository.UserRepository;
+import org.hibernate.Hibernate;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// MapStruct mapper trên một trang 1000 entity đã load sẵn (chỉ đo phần map, không đo query)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class MapperBenchmark {
+    static final int PAGE_SIZE = 1000;
+
+    DeviceMapper deviceMapper;
+    UserMapper userMapper;
+    TransactionMapper transactionMapper;
+
+    List<Device> devices;
+    List<User> users;
+    List<AssetTransaction> transactions;
+
+    @Setup(Level.Trial)
+    public void setUp(AppFixture fixture) {
+        deviceMapper = fixture.bean(DeviceMapper.class);
+        userMapper = fixture.bean(UserMapper.class);
+        transactionMapper = fixture.bean(TransactionMapper.class);
+
+        // Khởi tạo sẵn các collection lazy để mapper chạy được ngoài transaction
+        fixture.bean(TransactionTemplate.class).executeWithoutResult(status -> {
+            devices = fixture.bean(DeviceRepository.class).findAllById(ids(1, PAGE_SIZE));
+            devices.forEach(device -> Hibernate.initialize(device.getPoDetails()));
+            users = fixture.bean(UserRepository.class).findAllById(
+                    IntStream.rangeClosed(1, PAGE_SIZE).mapToObj(i -> "E" + i).toList());
+            transactions = fixture.bean(TransactionRepository.class).findAllById(ids(1, PAGE_SIZE));
+            transactions.forEach(transaction -> Hibernate.initialize(transaction.getDetails()));
+        });
+        if (devices.size() != PAGE_SIZE || users.size() != PAGE_SIZE || transactions.size() != PAGE_SIZE) {
+            throw new IllegalStateException("Fixture thiếu dữ liệu cho MapperBenchmark");
+        }
+    }
+
+    @Benchmark
+    public List<DeviceResponse> toDeviceResponse() {
+        List<DeviceResponse> result = new ArrayList<>(devices.size());
+        for (Device device : devices) {
+            result.add(deviceMapper.toDeviceResponse(device));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<UserResponse> toUserResponse() {
+        List<UserResponse> result = new ArrayList<>(users.size());
+        for (User user : users) {
+            result.add(userMapper.toUserResponse(user));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<TransactionResponse> toTransactionResponse() {
+        List<TransactionResponse> result = new ArrayList<>(transactions.size());
+        for (AssetTransaction transaction : transactions) {
+            result.add(transactionMapper.toTransactionResponse(transaction));
+        }
+        return result;
+    }
+
+    private static List<Integer> ids(int from, int to) {
+        return IntStream.rangeClosed(from, to).boxed().toList();
+    }
+}
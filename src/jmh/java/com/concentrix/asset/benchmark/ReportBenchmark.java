@@ -0,0 +1,78 @@
+package com.concentrix.asset.benchmark;
+
+import com.concentrix.asset.dto.response.SiteDeviceWithoutSerialSummaryResponse;
+import com.concentrix.asset.dto.response.SiteTypeChartResponse;
+import com.concentrix.asset.dto.response.TypeSummaryResponse;
+import com.concentrix.asset.enums.DeviceStatus;
+import com.concentrix.asset.service.ReportService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Các report tổng hợp và export CSV trên dữ liệu của AppFixture
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ReportBenchmark {
+    ReportService reportService;
+
+    @Setup(Level.Trial)
+    public void setUp(AppFixture fixture) {
+        reportService = fixture.bean(ReportService.class);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Integer>> statusSummaryAllSite() {
+        return reportService.getStatusSummaryAllSite();
+    }
+
+    @Benchmark
+    public List<TypeSummaryResponse> withSerialSummaryInStock() {
+        return reportService.getWithSerialSummary(null, DeviceStatus.IN_STOCK, null, null, null, null, null,
+                null, null);
+    }
+
+    @Benchmark
+    public List<SiteDeviceWithoutSerialSummaryResponse> withoutSerialSummaryInStock() {
+        return reportService.getWithoutSerialSummary(DeviceStatus.IN_STOCK, null, null);
+    }
+
+    @Benchmark
+    public List<SiteTypeChartResponse> siteTypeChartWithSerial() {
+        return reportService.getSiteTypeChartWithSerial(DeviceStatus.IN_FLOOR);
+    }
+
+    @Benchmark
+    public List<SiteTypeChartResponse> siteTypeChartWithoutSerial() {
+        return reportService.getSiteTypeChartWithoutSerial(DeviceStatus.IN_STOCK);
+    }
+
+    // Export toàn bộ thiết bị (~100k dòng), bỏ qua chi phí ghi ra mạng
+    @Benchmark
+    public long deviceListCsvAll() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        reportService.writeDeviceListCsv(out, null, null, null, null, null, null, null, null, null);
+        return out.count;
+    }
+
+    static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
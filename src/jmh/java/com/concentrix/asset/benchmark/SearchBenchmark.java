@@ -0,0 +1,50 @@
+package com.concentrix.asset.benchmark;
+
+import com.concentrix.asset.dto.response.SearchResultResponse;
+import com.concentrix.asset.service.SearchIndexService;
+import com.concentrix.asset.service.SearchService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+// Global search (index trigram + load top-K entity) và thời gian dựng lại index
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SearchBenchmark {
+    SearchService searchService;
+    SearchIndexService searchIndexService;
+    TransactionTemplate readOnlyTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp(AppFixture fixture) {
+        searchService = fixture.bean(SearchService.class);
+        searchIndexService = fixture.bean(SearchIndexService.class);
+        readOnlyTransaction = new TransactionTemplate(fixture.bean(TransactionTemplate.class).getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Benchmark
+    public SearchResultResponse search(Query query) {
+        // Request thật chạy trong open-in-view nên mapper được phép đọc collection lazy
+        return readOnlyTransaction.execute(status -> searchService.search(query.value, 20));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void rebuildIndex() {
+        searchIndexService.rebuild();
+    }
+
+    // Tách @Param ra state riêng để rebuildIndex không bị chạy lặp theo từng query
+    @State(Scope.Benchmark)
+    public static class Query {
+        // serial chính xác, tên user, host name phổ biến, query ngắn (quét toàn bộ)
+        @Param({"SN0012345", "user 4217", "host-99", "ab"})
+        String value;
+    }
+}
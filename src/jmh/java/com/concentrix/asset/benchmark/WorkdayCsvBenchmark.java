@@ -0,0 +1,85 @@
+package com.concentrix.asset.benchmark;
+
+import com.concentrix.asset.service.UserService;
+import com.concentrix.asset.service.WorkdayFingerprintService;
+import com.concentrix.asset.service.impl.WorkdayServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đọc và parse file Workday CSV 50k dòng. UserService được thay bằng stub chỉ đếm số record,
+ * nên kết quả chỉ phản ánh phần đọc file + parse, không gồm phần ghi DB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkdayCsvBenchmark {
+    static final int ROWS = 50_000;
+    static final String HEADER = "EMPLOYEE_NUMBER,FULL_NAME,JOB TITLE,EMAIL WORK,MSA,MSA CLIENT,MSA PROGRAM,"
+            + "COMPANY,COST CENTER ID,LOCATION NAME,SUPERVISOR EMAIL ID,EMPLOYEE STATUS";
+
+    Path csv;
+    WorkdayServiceImpl workdayService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        csv = Files.createTempFile("workday-bench", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (int i = 1; i <= ROWS; i++) {
+                writer.write("E" + i + ",\"Nguyen, Van " + i + "\",Advisor,user" + i + "@example.com,MSA" + (i % 50)
+                        + ",Client " + (i % 20) + ",Program " + (i % 100) + ",Concentrix,CC" + (i % 300)
+                        + ",Ho Chi Minh,manager" + (i % 500) + "@example.com," + (i % 25 == 0 ? "Terminated" : "Active"));
+                writer.newLine();
+            }
+        }
+
+        UserService userService = (UserService) Proxy.newProxyInstance(UserService.class.getClassLoader(),
+                new Class<?>[]{UserService.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("importUsers")) {
+                        return Map.of("total", ((List<?>) args[0]).size());
+                    }
+                    if (method.getName().equals("deactivateUsers")) {
+                        return 0;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        // Không có fingerprint nào được lưu: mọi dòng đều được coi là thay đổi
+        WorkdayFingerprintService fingerprintService = (WorkdayFingerprintService) Proxy.newProxyInstance(
+                WorkdayFingerprintService.class.getClassLoader(), new Class<?>[]{WorkdayFingerprintService.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findLastFileHash" -> Optional.empty();
+                    case "findRowHashes" -> Map.of();
+                    case "findMissingEids" -> List.of();
+                    default -> null;
+                });
+        workdayService = new WorkdayServiceImpl(userService, null, fingerprintService);
+        ReflectionTestUtils.setField(workdayService, "workdayFolder", csv.toString());
+        ReflectionTestUtils.setField(workdayService, "chunkSize", 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csv);
+    }
+
+    @Benchmark
+    public Map<String, Object> parseWorkdayCsv() throws Exception {
+        return workdayService.importFromWorkday();
+    }
+}
@@ -0,0 +1,44 @@
+package com.concentrix.asset.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String SITES = "sites";
+    public static final String MODELS = "models";
+    public static final String WAREHOUSES = "warehouses";
+    public static final String FLOORS = "floors";
+    public static final String ACCOUNTS = "accounts";
+    public static final String VENDORS = "vendors";
+
+    @Value("${app.cache.maximum-size}")
+    long maximumSize;
+
+    @Value("${app.cache.expire-after-write}")
+    Duration expireAfterWrite;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
+                SITES, MODELS, WAREHOUSES, FLOORS, ACCOUNTS, VENDORS);
+        // recordStats để Actuator xuất cache.gets (hit/miss), cache.puts, cache.evictions
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats());
+        cacheManager.setAllowNullValues(false);
+        // Evict chỉ chạy sau khi transaction commit, tránh đọc lại dữ liệu cũ vào cache
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
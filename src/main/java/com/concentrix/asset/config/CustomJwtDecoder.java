@@ -1,33 +1,138 @@
 package com.concentrix.asset.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @Slf4j
 public class CustomJwtDecoder implements JwtDecoder {
+
+    static final String CACHE_NAME = "jwtDecode";
+
+    private final JWSVerifier verifier;
+    private final Cache<String, Jwt> cache;
+    private final Timer hitTimer;
+    private final Timer missTimer;
+
+    public CustomJwtDecoder(@Value("${jwt.signerKey}") String signerKey,
+                            @Value("${app.jwt.decode-cache.maximum-size}") long maximumSize,
+                            MeterRegistry meterRegistry) throws JOSEException {
+        this.verifier = new MACVerifier(signerKey.getBytes());
+        // Mỗi token chỉ được giữ trong cache đến đúng thời điểm hết hạn của chính nó
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Jwt>() {
+                    @Override
+                    public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+                        long millis = jwt.getExpiresAt().toEpochMilli() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        this.hitTimer = Timer.builder("jwt.decode").tag("cache", "hit").register(meterRegistry);
+        this.missTimer = Timer.builder("jwt.decode").tag("cache", "miss").register(meterRegistry);
+    }
+
     @Override
     public Jwt decode(String token) throws JwtException {
+        long start = System.nanoTime();
+        String key = digest(token);
+        Jwt cached = cache.getIfPresent(key);
+        if (cached != null && cached.getExpiresAt().isAfter(Instant.now())) {
+            hitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
+        }
+
+        try {
+            Jwt jwt = parseAndVerify(token);
+            cache.put(key, jwt);
+            return jwt;
+        } finally {
+            missTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Jwt parseAndVerify(String token) {
         try {
             SignedJWT signedJWT = SignedJWT.parse(token);
 
+            if (!signedJWT.verify(verifier)) {
+                log.warn("[SECURITY][JWT] Invalid token signature | Token: {}", abbreviate(token));
+                throw new BadJwtException("Invalid token signature");
+            }
+
+            JWTClaimsSet claimsSet = signedJWT.getJWTClaimsSet();
+            if (claimsSet.getIssueTime() == null || claimsSet.getExpirationTime() == null) {
+                throw new BadJwtException("Invalid token");
+            }
+            if (!claimsSet.getExpirationTime().toInstant().isAfter(Instant.now())) {
+                throw new BadJwtException("Token expired");
+            }
+
             // Ensure roles are included in the claims
             return new Jwt(token,
-                    signedJWT.getJWTClaimsSet().getIssueTime().toInstant(),
-                    signedJWT.getJWTClaimsSet().getExpirationTime().toInstant(),
+                    claimsSet.getIssueTime().toInstant(),
+                    claimsSet.getExpirationTime().toInstant(),
                     signedJWT.getHeader().toJSONObject(),
-                    signedJWT.getJWTClaimsSet().getClaims());
+                    claimsSet.getClaims());
 
         } catch (ParseException e) {
             log.warn("[SECURITY][JWT] Invalid token parse attempt. Error: {} | Token: {}", e.getMessage(),
-                    token.length() > 20 ? token.substring(0, 20) + "..." : token);
-            throw new JwtException("Invalid token");
+                    abbreviate(token));
+            throw new BadJwtException("Invalid token");
+        } catch (JOSEException e) {
+            log.warn("[SECURITY][JWT] Token verification error: {}", e.getMessage());
+            throw new BadJwtException("Invalid token");
+        }
+    }
+
+    // Khoá cache là SHA-256 của token để không giữ token gốc làm khoá
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
-}
\ No newline at end of file
+
+    private static String abbreviate(String token) {
+        return token.length() > 20 ? token.substring(0, 20) + "..." : token;
+    }
+}
@@ -1,8 +1,15 @@
 package com.concentrix.asset.config;
 
+import com.concentrix.asset.entity.Device;
 import com.concentrix.asset.entity.User;
 import com.concentrix.asset.enums.Role;
+import com.concentrix.asset.repository.DeviceCountRollupRepository;
+import com.concentrix.asset.repository.DeviceRepository;
 import com.concentrix.asset.repository.UserRepository;
+import com.concentrix.asset.service.DeviceCountRollupService;
+import com.concentrix.asset.service.SearchIndexService;
+import com.concentrix.asset.service.TokenRevocationService;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
@@ -33,4 +40,35 @@ public class DataInitializer {
             }
         };
     }
+
+    // Lần đầu triển khai (bảng rollup rỗng) thì tính lại từ dữ liệu hiện có
+    @Bean
+    CommandLineRunner initDeviceCountRollup(DeviceCountRollupRepository deviceCountRollupRepository,
+                                            DeviceCountRollupService deviceCountRollupService) {
+        return args -> {
+            if (deviceCountRollupRepository.count() == 0) {
+                deviceCountRollupService.rebuild();
+            }
+        };
+    }
+
+    // Dữ liệu cũ dùng id IDENTITY: bộ cấp id theo khối phải bắt đầu sau id lớn nhất hiện có.
+    // Chạy ngay sau khi tạo xong các bean, trước khi web server nhận request (CommandLineRunner chạy sau đó),
+    // để không có thiết bị nào được tạo với id cấp từ 1
+    @Bean
+    SmartInitializingSingleton initDeviceIdGenerator(DeviceRepository deviceRepository) {
+        return () -> deviceRepository.raiseDeviceIdGenerator(
+                (long) deviceRepository.findMaxDeviceId() + Device.ID_ALLOCATION_SIZE + 1);
+    }
+
+    @Bean
+    CommandLineRunner initSearchIndex(SearchIndexService searchIndexService) {
+        return args -> searchIndexService.rebuild();
+    }
+
+    // Trước khi nạp xong, TokenRevocationService kiểm tra token trực tiếp trên DB
+    @Bean
+    CommandLineRunner initTokenRevocation(TokenRevocationService tokenRevocationService) {
+        return args -> tokenRevocationService.reload();
+    }
 }
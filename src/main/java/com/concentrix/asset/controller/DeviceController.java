@@ -3,6 +3,7 @@ package com.concentrix.asset.controller;
 import com.concentrix.asset.dto.ApiResponse;
 import com.concentrix.asset.dto.request.UpdateDeviceRequest;
 import com.concentrix.asset.dto.request.UpdateSeatNumberRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.DeviceMovementHistoryResponse;
 import com.concentrix.asset.dto.response.DeviceResponse;
 import com.concentrix.asset.enums.DeviceStatus;
@@ -51,6 +52,21 @@ public class DeviceController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/filter/scroll")
+    public ResponseEntity<ApiResponse<CursorPageResponse<DeviceResponse>>> scrollDevice(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "100") int size,
+            @RequestParam(value = "modelId", required = false) Integer modelId,
+            @RequestParam(value = "search", required = false) String search,
+            @RequestParam(value = "status", required = false) DeviceStatus status,
+            @RequestParam(value = "type", required = false) DeviceType type) {
+        ApiResponse<CursorPageResponse<DeviceResponse>> response = ApiResponse.<CursorPageResponse<DeviceResponse>>builder()
+                .message("Filter device successfully")
+                .data(deviceService.scrollDevices(search, type, modelId, status, cursor, size))
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/types")
     public ResponseEntity<ApiResponse<List<String>>> getDeviceTypes() {
         List<String> types = deviceService.getAllDeviceTypes();
@@ -82,6 +98,20 @@ public class DeviceController {
         return ResponseEntity.ok(response);
     }
 
+    // Mới nhất trước, gửi lại nextCursor để lấy các di chuyển cũ hơn
+    @GetMapping("/{serialNumber}/history/scroll")
+    public ResponseEntity<ApiResponse<CursorPageResponse<DeviceMovementHistoryResponse>>> scrollDeviceMovementHistory(
+            @PathVariable String serialNumber,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "50") int size) {
+        ApiResponse<CursorPageResponse<DeviceMovementHistoryResponse>> response = ApiResponse
+                .<CursorPageResponse<DeviceMovementHistoryResponse>>builder()
+                .message("Get device movement history successfully")
+                .data(deviceService.scrollDeviceMovementHistory(serialNumber, cursor, size))
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
     @PatchMapping
     public ResponseEntity<ApiResponse<DeviceResponse>> updateDevice(
             @Valid @RequestBody UpdateDeviceRequest request) {
@@ -2,23 +2,33 @@ package com.concentrix.asset.controller;
 
 import com.concentrix.asset.dto.ApiResponse;
 import com.concentrix.asset.dto.response.DeviceResponse;
+import com.concentrix.asset.dto.response.LowStockResponse;
+import com.concentrix.asset.dto.response.RollupDiffResponse;
 import com.concentrix.asset.dto.response.SiteDeviceWithoutSerialSummaryResponse;
 import com.concentrix.asset.dto.response.SiteTypeChartResponse;
 import com.concentrix.asset.dto.response.TypeSummaryResponse;
 import com.concentrix.asset.enums.DeviceStatus;
 import com.concentrix.asset.enums.DeviceType;
+import com.concentrix.asset.service.DeviceCountRollupService;
+import com.concentrix.asset.service.LowStockService;
 import com.concentrix.asset.service.ReportService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/report")
@@ -27,6 +37,20 @@ import java.util.Map;
 public class ReportController {
 
         ReportService reportService;
+        DeviceCountRollupService deviceCountRollupService;
+        LowStockService lowStockService;
+
+        static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+        // Đánh giá low stock theo yêu cầu (cùng logic với job gửi mail hằng tuần)
+        @GetMapping("/low-stock")
+        public ResponseEntity<ApiResponse<List<LowStockResponse>>> getLowStockDevices() {
+                ApiResponse<List<LowStockResponse>> response = ApiResponse.<List<LowStockResponse>>builder()
+                                .message("Get low stock devices successfully")
+                                .data(lowStockService.getLowStockDevices())
+                                .build();
+                return ResponseEntity.ok(response);
+        }
 
         @GetMapping("/status-summary")
         public ResponseEntity<Map<String, Map<String, Integer>>> getStatusSummaryAllSite() {
@@ -114,7 +138,7 @@ public class ReportController {
         }
 
         @GetMapping("/device-list/csv")
-        public ResponseEntity<byte[]> getDeviceListCsvForReport(
+        public void getDeviceListCsvForReport(
                         @RequestParam(value = "siteId", required = false) Integer siteId,
                         @RequestParam(value = "status", required = false) DeviceStatus status,
                         @RequestParam(value = "ownerId", required = false) Integer ownerId,
@@ -123,21 +147,49 @@ public class ReportController {
                         @RequestParam(value = "type", required = false) DeviceType type,
                         @RequestParam(value = "modelId", required = false) Integer modelId,
                         @RequestParam(value = "isOutOfWarranty", required = false) Boolean isOutOfWarranty,
-                        @RequestParam(value = "ageRange", required = false) String ageRange) {
-
-                byte[] csvData = reportService.generateDeviceListCsv(
-                                siteId, status, floorId, ownerId, accountId, type, modelId, isOutOfWarranty, ageRange);
+                        @RequestParam(value = "ageRange", required = false) String ageRange,
+                        @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+                        HttpServletResponse response) throws IOException {
 
                 String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-                String filename = "device_list_report_" + timestamp + ".csv";
+                String filename = "device_list_report_" + timestamp + (gzip ? ".csv.gz" : ".csv");
+
+                response.setContentType(gzip ? "application/gzip" : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+                response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                                ContentDisposition.attachment().filename(filename).build().toString());
 
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-                headers.setContentDispositionFormData("attachment", filename);
-                headers.setContentLength(csvData.length);
+                // Ghi trực tiếp ra response (chunked), không dựng toàn bộ file trong bộ nhớ
+                OutputStream outputStream = gzip
+                                ? new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER_SIZE)
+                                : response.getOutputStream();
+                reportService.writeDeviceListCsv(outputStream,
+                                siteId, status, floorId, ownerId, accountId, type, modelId, isOutOfWarranty, ageRange);
+                if (outputStream instanceof GZIPOutputStream gzipOutputStream) {
+                        gzipOutputStream.finish();
+                }
+                response.flushBuffer();
+        }
 
-                return ResponseEntity.ok()
-                                .headers(headers)
-                                .body(csvData);
+        @PreAuthorize("hasRole('ADMIN')")
+        @PostMapping("/rollup/rebuild")
+        public ResponseEntity<ApiResponse<Integer>> rebuildDeviceCountRollup() {
+                int rows = deviceCountRollupService.rebuild();
+                ApiResponse<Integer> response = ApiResponse.<Integer>builder()
+                                .message("Rebuild device count rollup successfully")
+                                .data(rows)
+                                .build();
+                return ResponseEntity.ok(response);
+        }
+
+        @PreAuthorize("hasRole('ADMIN')")
+        @GetMapping("/rollup/check")
+        public ResponseEntity<ApiResponse<List<RollupDiffResponse>>> checkDeviceCountRollup() {
+                List<RollupDiffResponse> result = deviceCountRollupService.check();
+                ApiResponse<List<RollupDiffResponse>> response = ApiResponse.<List<RollupDiffResponse>>builder()
+                                .message(result.isEmpty() ? "Device count rollup is consistent"
+                                                : "Device count rollup has " + result.size() + " mismatched buckets")
+                                .data(result)
+                                .build();
+                return ResponseEntity.ok(response);
         }
 }
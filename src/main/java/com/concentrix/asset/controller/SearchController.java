@@ -28,13 +28,15 @@ public class SearchController {
      * Search across all devices and users in the system.
      *
      * @param query The search keyword (serial, name, email, eid, ...)
+     * @param limit Maximum number of users and of devices returned, best matches first
      * @return SearchResultResponse (list or detail)
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<SearchResultResponse>> search(@RequestParam("q") String query) {
+    public ResponseEntity<ApiResponse<SearchResultResponse>> search(@RequestParam("q") String query,
+                                                                    @RequestParam(value = "limit", defaultValue = "20") int limit) {
 
         ApiResponse<SearchResultResponse> result = ApiResponse.<SearchResultResponse>builder()
-                .data(searchService.search(query))
+                .data(searchService.search(query, limit))
                 .message("Search results for query: " + query)
                 .build();
         return ResponseEntity.ok(result);
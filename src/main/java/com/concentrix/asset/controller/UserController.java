@@ -4,6 +4,7 @@ import com.concentrix.asset.dto.ApiResponse;
 import com.concentrix.asset.dto.request.CreateUserRequest;
 import com.concentrix.asset.dto.request.UpdateUserRequest;
 import com.concentrix.asset.dto.request.UserImportRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.DeviceBorrowingInfoResponse;
 import com.concentrix.asset.dto.response.TransactionItemsResponse;
 import com.concentrix.asset.dto.response.TransactionResponse;
@@ -79,6 +80,20 @@ public class UserController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/filter/scroll")
+    public ResponseEntity<ApiResponse<CursorPageResponse<UserResponse>>> scrollUser(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Role role,
+            @RequestParam(required = false) Integer accountId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        ApiResponse<CursorPageResponse<UserResponse>> response = ApiResponse.<CursorPageResponse<UserResponse>>builder()
+                .message("Get all users successfully")
+                .data(userService.scrollUser(search, role, accountId, cursor, size))
+                .build();
+        return ResponseEntity.ok(response);
+    }
+
     @PatchMapping
     public ResponseEntity<ApiResponse<UserResponse>> updateUser(@Valid @RequestBody UpdateUserRequest request) {
         ApiResponse<UserResponse> response = ApiResponse.<UserResponse>builder()
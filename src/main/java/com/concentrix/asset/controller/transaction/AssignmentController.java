@@ -5,6 +5,7 @@ import com.concentrix.asset.dto.request.CreateAssignmentRequest;
 import com.concentrix.asset.dto.request.LaptopBadgeRequest;
 import com.concentrix.asset.dto.response.AssetHandoverResponse;
 import com.concentrix.asset.dto.response.AssignmentResponse;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.service.transaction.AssignmentService;
 import jakarta.mail.MessagingException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -67,6 +68,20 @@ public class AssignmentController {
         return ResponseEntity.ok(apiResponse);
     }
 
+    @GetMapping("/filter/scroll")
+    public ResponseEntity<ApiResponse<CursorPageResponse<AssignmentResponse>>> scrollAssignment(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate toDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        ApiResponse<CursorPageResponse<AssignmentResponse>> apiResponse = ApiResponse.<CursorPageResponse<AssignmentResponse>>builder()
+                .message("Filter transaction assignment successful")
+                .data(assignmentService.scrollAssignments(search, fromDate, toDate, cursor, size))
+                .build();
+        return ResponseEntity.ok(apiResponse);
+    }
+
     @GetMapping("/{assignmentId}/handover-form")
     public ResponseEntity<AssetHandoverResponse> getAssetHandoverByAssignmentId(@PathVariable Integer assignmentId) {
         AssetHandoverResponse response = assignmentService.getAssetHandoverByAssignmentId(assignmentId);
@@ -2,6 +2,7 @@ package com.concentrix.asset.controller.transaction;
 
 import com.concentrix.asset.dto.ApiResponse;
 import com.concentrix.asset.dto.request.CreateDisposalRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.DisposalResponse;
 import com.concentrix.asset.service.transaction.DisposalService;
 import jakarta.validation.Valid;
@@ -57,4 +58,18 @@ public class DisposalController {
                 .build();
         return ResponseEntity.ok(apiResponse);
     }
+
+    @GetMapping("/filter/scroll")
+    public ResponseEntity<ApiResponse<CursorPageResponse<DisposalResponse>>> scrollDisposal(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate toDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        ApiResponse<CursorPageResponse<DisposalResponse>> apiResponse = ApiResponse.<CursorPageResponse<DisposalResponse>>builder()
+                .message("Filter transaction disposal successful")
+                .data(disposalService.scrollDisposals(search, fromDate, toDate, cursor, size))
+                .build();
+        return ResponseEntity.ok(apiResponse);
+    }
 }
\ No newline at end of file
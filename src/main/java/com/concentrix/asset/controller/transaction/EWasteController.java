@@ -2,6 +2,7 @@ package com.concentrix.asset.controller.transaction;
 
 import com.concentrix.asset.dto.ApiResponse;
 import com.concentrix.asset.dto.request.CreateEWasteRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.EWasteResponse;
 import com.concentrix.asset.service.transaction.EWasteService;
 import jakarta.validation.Valid;
@@ -57,4 +58,18 @@ public class EWasteController {
                 .build();
         return ResponseEntity.ok(apiResponse);
     }
+
+    @GetMapping("/filter/scroll")
+    public ResponseEntity<ApiResponse<CursorPageResponse<EWasteResponse>>> scrollEWaste(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate toDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        ApiResponse<CursorPageResponse<EWasteResponse>> apiResponse = ApiResponse.<CursorPageResponse<EWasteResponse>>builder()
+                .message("Filter transaction e_waste successful")
+                .data(ewasteService.scrollEWastes(search, fromDate, toDate, cursor, size))
+                .build();
+        return ResponseEntity.ok(apiResponse);
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.concentrix.asset.controller.transaction;
 
 import com.concentrix.asset.dto.ApiResponse;
 import com.concentrix.asset.dto.request.CreateRepairRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.RepairResponse;
 import com.concentrix.asset.service.transaction.RepairService;
 import jakarta.validation.Valid;
@@ -59,4 +60,18 @@ public class RepairController {
         return ResponseEntity.ok(apiResponse);
     }
 
+    @GetMapping("/filter/scroll")
+    public ResponseEntity<ApiResponse<CursorPageResponse<RepairResponse>>> scrollRepair(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate toDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        ApiResponse<CursorPageResponse<RepairResponse>> apiResponse = ApiResponse.<CursorPageResponse<RepairResponse>>builder()
+                .message("Filter transaction repair successful")
+                .data(repairService.scrollRepairs(search, fromDate, toDate, cursor, size))
+                .build();
+        return ResponseEntity.ok(apiResponse);
+    }
+
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.concentrix.asset.controller.transaction;
 
 import com.concentrix.asset.dto.ApiResponse;
 import com.concentrix.asset.dto.request.CreateReturnFromFloorRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.ReturnFromFloorResponse;
 import com.concentrix.asset.service.transaction.ReturnFromFloorService;
 import jakarta.validation.Valid;
@@ -57,4 +58,18 @@ public class ReturnFromFloorController {
                 .build();
         return ResponseEntity.ok(apiResponse);
     }
+
+    @GetMapping("/filter/scroll")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ReturnFromFloorResponse>>> scrollReturnFromFloor(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate toDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        ApiResponse<CursorPageResponse<ReturnFromFloorResponse>> apiResponse = ApiResponse.<CursorPageResponse<ReturnFromFloorResponse>>builder()
+                .message("Filter transaction return from floor successful")
+                .data(returnFromFloorService.scrollReturnFromFloors(search, fromDate, toDate, cursor, size))
+                .build();
+        return ResponseEntity.ok(apiResponse);
+    }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.concentrix.asset.controller.transaction;
 
 import com.concentrix.asset.dto.ApiResponse;
 import com.concentrix.asset.dto.request.CreateReturnFromRepairRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.ReturnFromRepairResponse;
 import com.concentrix.asset.service.transaction.ReturnFromRepairService;
 import jakarta.validation.Valid;
@@ -57,4 +58,18 @@ public class ReturnFromRepairController {
                 .build();
         return ResponseEntity.ok(apiResponse);
     }
+
+    @GetMapping("/filter/scroll")
+    public ResponseEntity<ApiResponse<CursorPageResponse<ReturnFromRepairResponse>>> scrollReturnFromRepair(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate toDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        ApiResponse<CursorPageResponse<ReturnFromRepairResponse>> apiResponse = ApiResponse.<CursorPageResponse<ReturnFromRepairResponse>>builder()
+                .message("Filter transaction return from repair successful")
+                .data(returnFromRepairService.scrollReturnFromRepairs(search, fromDate, toDate, cursor, size))
+                .build();
+        return ResponseEntity.ok(apiResponse);
+    }
 }
\ No newline at end of file
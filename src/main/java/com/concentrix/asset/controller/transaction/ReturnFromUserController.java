@@ -3,6 +3,7 @@ package com.concentrix.asset.controller.transaction;
 import com.concentrix.asset.dto.ApiResponse;
 import com.concentrix.asset.dto.request.CreateReturnFromUserRequest;
 import com.concentrix.asset.dto.response.AssetHandoverResponse;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.ReturnFromUserResponse;
 import com.concentrix.asset.service.transaction.ReturnFromUserService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -65,6 +66,20 @@ public class ReturnFromUserController {
                 return ResponseEntity.ok(apiResponse);
         }
 
+        @GetMapping("/filter/scroll")
+        public ResponseEntity<ApiResponse<CursorPageResponse<ReturnFromUserResponse>>> scrollReturnFromUser(
+                        @RequestParam(required = false) String search,
+                        @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate fromDate,
+                        @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate toDate,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "100") int size) {
+                ApiResponse<CursorPageResponse<ReturnFromUserResponse>> apiResponse = ApiResponse.<CursorPageResponse<ReturnFromUserResponse>>builder()
+                                .message("Filter transaction return from user successful")
+                                .data(returnFromUserService.scrollReturnFromUsers(search, fromDate, toDate, cursor, size))
+                                .build();
+                return ResponseEntity.ok(apiResponse);
+        }
+
         @GetMapping("/{id}/handover-form")
         public ResponseEntity<ApiResponse<AssetHandoverResponse>> getHandoverFormById(
                         @PathVariable Integer id) {
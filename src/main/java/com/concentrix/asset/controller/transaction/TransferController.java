@@ -2,6 +2,7 @@ package com.concentrix.asset.controller.transaction;
 
 import com.concentrix.asset.dto.ApiResponse;
 import com.concentrix.asset.dto.request.CreateTransferRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.TransferResponse;
 import com.concentrix.asset.service.transaction.TransferService;
 import jakarta.validation.Valid;
@@ -65,6 +66,20 @@ public class TransferController {
         return ResponseEntity.ok(apiResponse);
     }
 
+    @GetMapping("/filter/scroll")
+    public ResponseEntity<ApiResponse<CursorPageResponse<TransferResponse>>> scrollTransfer(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate toDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        ApiResponse<CursorPageResponse<TransferResponse>> apiResponse = ApiResponse.<CursorPageResponse<TransferResponse>>builder()
+                .message("Filter transaction transfer site successful")
+                .data(transferService.scrollTransfers(search, fromDate, toDate, cursor, size))
+                .build();
+        return ResponseEntity.ok(apiResponse);
+    }
+
     @GetMapping("/pending")
     public ResponseEntity<ApiResponse<Page<TransferResponse>>> filterTransfersSitePending(
             @PageableDefault(size = 10, page = 0, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
@@ -2,6 +2,7 @@ package com.concentrix.asset.controller.transaction;
 
 import com.concentrix.asset.dto.ApiResponse;
 import com.concentrix.asset.dto.request.CreateTransferFloorRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.TransferFloorResponse;
 import com.concentrix.asset.service.transaction.TransferFloorService;
 import jakarta.validation.Valid;
@@ -57,4 +58,18 @@ public class TransferFloorController {
                 .build();
         return ResponseEntity.ok(apiResponse);
     }
+
+    @GetMapping("/filter/scroll")
+    public ResponseEntity<ApiResponse<CursorPageResponse<TransferFloorResponse>>> scrollTransferFloor(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate toDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        ApiResponse<CursorPageResponse<TransferFloorResponse>> apiResponse = ApiResponse.<CursorPageResponse<TransferFloorResponse>>builder()
+                .message("Filter transaction transfer floor successful")
+                .data(transferFloorService.scrollTransferFloors(search, fromDate, toDate, cursor, size))
+                .build();
+        return ResponseEntity.ok(apiResponse);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.concentrix.asset.dto;
+
+import com.concentrix.asset.dto.response.TransactionItemsResponse;
+import com.concentrix.asset.enums.TransactionStatus;
+import com.concentrix.asset.enums.TransactionType;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Read model cho màn hình danh sách transaction: chỉ chứa các cột mà response cần,
+ * tên field trùng với AssetTransaction để các mapper map thẳng sang response.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TransactionView {
+
+    Integer transactionId;
+    TransactionType transactionType;
+    TransactionStatus transactionStatus;
+    WarehouseRef fromWarehouse;
+    WarehouseRef toWarehouse;
+    FloorRef fromFloor;
+    FloorRef toFloor;
+    UserRef userUse;
+    UserRef createdBy;
+    UserRef confirmedBy;
+    LocalDateTime createdAt;
+    LocalDateTime updatedAt;
+    String note;
+    LocalDate returnDate;
+    List<TransactionItemsResponse> items;
+    List<String> images;
+
+    @Getter
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    public static class WarehouseRef {
+        Integer warehouseId;
+        String warehouseName;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    public static class FloorRef {
+        Integer floorId;
+        String floorName;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    public static class UserRef {
+        String eid;
+        String fullName;
+    }
+}
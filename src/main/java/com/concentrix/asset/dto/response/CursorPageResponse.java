@@ -0,0 +1,33 @@
+package com.concentrix.asset.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Một trang của phân trang keyset: không có tổng số bản ghi,
+ * client gửi lại {@code nextCursor} để lấy trang kế tiếp.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CursorPageResponse<T> {
+    List<T> content;
+    int size;
+    boolean hasNext;
+    String nextCursor;
+
+    public <R> CursorPageResponse<R> map(Function<? super T, ? extends R> mapper) {
+        return CursorPageResponse.<R>builder()
+                .content(content.stream().<R>map(mapper).toList())
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+}
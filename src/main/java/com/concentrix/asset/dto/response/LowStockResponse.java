@@ -29,5 +29,6 @@ public class LowStockResponse {
         DeviceType type;
         Integer total;
         Integer available;
+        Double threshold;
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.concentrix.asset.dto.response;
+
+import com.concentrix.asset.enums.DeviceStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE)
+public class RollupDiffResponse {
+
+    Integer siteId;
+    Integer warehouseId;
+    Integer floorId;
+    Integer modelId;
+    DeviceStatus status;
+    Boolean serialized;
+    Integer rollupQuantity;
+    Integer liveQuantity;
+}
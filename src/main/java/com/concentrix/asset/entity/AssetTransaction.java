@@ -12,6 +12,7 @@ import java.util.List;
 
 /**
  * Entity đại diện cho phiếu giao dịch (transaction slip/header).
+ * Mọi quan hệ đều LAZY; màn hình chi tiết và biên bản bàn giao nạp qua entity graph tương ứng.
  */
 @Setter
 @Getter
@@ -20,7 +21,34 @@ import java.util.List;
 @Entity
 @Builder
 @FieldDefaults(level = AccessLevel.PRIVATE)
-@Table(name = "asset_transaction")
+@NamedEntityGraph(name = "AssetTransaction.detail", attributeNodes = {
+        @NamedAttributeNode("fromWarehouse"),
+        @NamedAttributeNode("toWarehouse"),
+        @NamedAttributeNode("fromFloor"),
+        @NamedAttributeNode("toFloor"),
+        @NamedAttributeNode("userUse"),
+        @NamedAttributeNode("createdBy"),
+        @NamedAttributeNode("confirmedBy"),
+        @NamedAttributeNode(value = "details", subgraph = "details"),
+}, subgraphs = {
+        @NamedSubgraph(name = "details", attributeNodes = @NamedAttributeNode(value = "device", subgraph = "device")),
+        @NamedSubgraph(name = "device", attributeNodes = @NamedAttributeNode("model")),
+})
+@NamedEntityGraph(name = "AssetTransaction.handover", attributeNodes = {
+        @NamedAttributeNode(value = "fromWarehouse", subgraph = "warehouse"),
+        @NamedAttributeNode(value = "toWarehouse", subgraph = "warehouse"),
+        @NamedAttributeNode("userUse"),
+        @NamedAttributeNode("createdBy"),
+        @NamedAttributeNode(value = "details", subgraph = "details"),
+}, subgraphs = {
+        @NamedSubgraph(name = "warehouse", attributeNodes = @NamedAttributeNode("site")),
+        @NamedSubgraph(name = "details", attributeNodes = @NamedAttributeNode(value = "device", subgraph = "device")),
+        @NamedSubgraph(name = "device", attributeNodes = @NamedAttributeNode("model")),
+})
+@Table(name = "asset_transaction", indexes = {
+        // Phục vụ phân trang keyset (createdAt, transactionId) theo từng loại transaction
+        @Index(name = "idx_transaction_type_created_at", columnList = "transactionType, createdAt, transactionId"),
+})
 public class AssetTransaction {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -30,23 +58,23 @@ public class AssetTransaction {
     @Column(nullable = false)
     TransactionType transactionType;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "to_warehouse_id")
     Warehouse toWarehouse;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "from_warehouse_id")
     Warehouse fromWarehouse;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_use_id")
     User userUse;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "from_floor_id")
     Floor fromFloor;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "to_floor_id")
     Floor toFloor;
 
@@ -60,11 +88,11 @@ public class AssetTransaction {
     @Column
     LocalDateTime updatedAt;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "create_by")
     User createdBy;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "confirmed_by")
     User confirmedBy;
 
@@ -1,6 +1,7 @@
 package com.concentrix.asset.entity;
 
 import com.concentrix.asset.enums.DeviceStatus;
+import com.concentrix.asset.listener.SearchIndexListener;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
@@ -17,16 +18,29 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@NamedEntityGraph(name = "Device.response", attributeNodes = {
+        @NamedAttributeNode("model"),
+        @NamedAttributeNode("currentUser"),
+        @NamedAttributeNode(value = "currentFloor", subgraph = "location"),
+        @NamedAttributeNode(value = "currentWarehouse", subgraph = "location"),
+}, subgraphs = @NamedSubgraph(name = "location", attributeNodes = @NamedAttributeNode("site")))
 @Table(indexes = {
         @Index(name = "idx_device_serial_number", columnList = "serialNumber"),
         @Index(name = "idx_device_status", columnList = "status"),
         @Index(name = "idx_device_model_id", columnList = "model_id"),
 })
 @Builder
+@EntityListeners(SearchIndexListener.class)
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class Device {
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Cấp id theo khối từ bảng id_generator để INSERT nhiều thiết bị (phiếu PO) được gom lô;
+    // IDENTITY buộc Hibernate INSERT ngay từng dòng để lấy id
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "device_id")
+    @TableGenerator(name = "device_id", table = "id_generator", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "device", allocationSize = Device.ID_ALLOCATION_SIZE)
     Integer deviceId;
 
     @Column(unique = true)
@@ -50,19 +64,19 @@ public class Device {
     @Column
     LocalDate endDate; //Thời gian kết thúc bảo hành
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "model_id")
     Model model;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "warehouse_id")
     Warehouse currentWarehouse;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "floor_id")
     Floor currentFloor;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     User currentUser;
 
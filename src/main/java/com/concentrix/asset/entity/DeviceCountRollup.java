@@ -0,0 +1,54 @@
+package com.concentrix.asset.entity;
+
+import com.concentrix.asset.enums.DeviceStatus;
+import com.concentrix.asset.enums.DeviceType;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+// Bảng tổng hợp số lượng thiết bị, được cập nhật cùng transaction nghiệp vụ.
+// siteId/warehouseId/floorId = 0 khi thiết bị không gắn với site/kho/sàn (ASSIGNED, ON_THE_MOVE, ...)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "device_count_rollup", indexes = {
+        @Index(name = "idx_rollup_status_serialized", columnList = "status, serialized"),
+})
+@IdClass(DeviceCountRollupId.class)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DeviceCountRollup {
+
+    @Id
+    @Column(nullable = false)
+    Integer siteId;
+
+    @Id
+    @Column(nullable = false)
+    Integer warehouseId;
+
+    @Id
+    @Column(nullable = false)
+    Integer floorId;
+
+    @Id
+    @Column(nullable = false)
+    Integer modelId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    DeviceStatus status;
+
+    @Id
+    @Column(nullable = false)
+    Boolean serialized;
+
+    @Enumerated(EnumType.STRING)
+    DeviceType type;
+
+    @Column(nullable = false)
+    Integer quantity;
+}
@@ -0,0 +1,20 @@
+package com.concentrix.asset.entity;
+
+import com.concentrix.asset.enums.DeviceStatus;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DeviceCountRollupId implements Serializable {
+    Integer siteId;
+    Integer warehouseId;
+    Integer floorId;
+    Integer modelId;
+    DeviceStatus status;
+    Boolean serialized;
+}
@@ -0,0 +1,81 @@
+package com.concentrix.asset.entity;
+
+import com.concentrix.asset.enums.EmailStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+// Email chờ gửi: lưu vào DB trong transaction của nghiệp vụ, worker gửi sau nên restart không mất email
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, nextAttemptAt")
+})
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Long id;
+
+    // Khoá chống gửi trùng khi job chạy lại, ví dụ REMIND_RETURN:{eid}:{date}
+    @Column(unique = true, length = 191)
+    String dedupKey;
+
+    // Danh sách địa chỉ không giới hạn độ dài (ví dụ cc cả nhóm IT) để việc xếp hàng không lỗi vì quá cột
+    @Column(nullable = false, columnDefinition = "TEXT")
+    String recipients;
+
+    @Column(columnDefinition = "TEXT")
+    String cc;
+
+    @Column(columnDefinition = "TEXT")
+    String bcc;
+
+    @Column(nullable = false, length = 500)
+    String subject;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "LONGTEXT")
+    String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    EmailStatus status;
+
+    @Column(nullable = false)
+    int attempts;
+
+    @Column(nullable = false)
+    LocalDateTime nextAttemptAt;
+
+    // Hạn giữ của worker đang gửi; quá hạn (worker chết giữa chừng) thì email được nhận lại
+    @Column
+    LocalDateTime lockedUntil;
+
+    @Column(length = 1000)
+    String lastError;
+
+    @Column
+    LocalDateTime createdAt;
+
+    @Column
+    LocalDateTime sentAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (status == null) {
+            status = EmailStatus.PENDING;
+        }
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.concentrix.asset.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Checkpoint đầy đủ của snapshot (chế độ delta) tại một ngày, lưu dạng cột đã nén:
+// bitset deviceId + cột status + cột siteId (xem SnapshotDeltaServiceImpl)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "snapshot_checkpoint")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SnapshotCheckpoint {
+
+    @Id
+    LocalDate checkpointDate;
+
+    @Column(nullable = false)
+    Integer deviceCount;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "LONGBLOB")
+    byte[] data;
+
+    @Column
+    LocalDateTime createdAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        createdAt = LocalDateTime.now();
+    }
+}
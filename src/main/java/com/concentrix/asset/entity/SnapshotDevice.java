@@ -13,13 +13,15 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "snapshot_device")
+@Table(name = "snapshot_device", indexes = {
+        @Index(name = "idx_snapshot_date_site_status", columnList = "snapshotDate, site_id, status"),
+})
 @IdClass(SnapshotDeviceId.class)
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class SnapshotDevice {
 
     @Id
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "device_id", nullable = false)
     Device device;
 
@@ -27,7 +29,7 @@ public class SnapshotDevice {
     @Column(nullable = false)
     LocalDate snapshotDate;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "site_id")
     Site site;
 
@@ -0,0 +1,37 @@
+package com.concentrix.asset.entity;
+
+import com.concentrix.asset.enums.DeviceStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDate;
+
+// Nhật ký thay đổi snapshot (chế độ delta): chỉ ghi khi status/site của thiết bị khác lần snapshot trước.
+// status = null nghĩa là thiết bị không còn nằm trong snapshot từ ngày changeDate.
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "snapshot_device_delta", indexes = {
+        @Index(name = "idx_snapshot_delta_change_date", columnList = "changeDate"),
+})
+@IdClass(SnapshotDeviceDeltaId.class)
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SnapshotDeviceDelta {
+
+    @Id
+    @Column(nullable = false)
+    Integer deviceId;
+
+    @Id
+    @Column(nullable = false)
+    LocalDate changeDate;
+
+    @Enumerated(EnumType.STRING)
+    DeviceStatus status;
+
+    Integer siteId;
+}
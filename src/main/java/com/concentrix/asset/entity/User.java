@@ -1,6 +1,7 @@
 package com.concentrix.asset.entity;
 
 import com.concentrix.asset.enums.Role;
+import com.concentrix.asset.listener.SearchIndexListener;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
@@ -17,6 +18,7 @@ import java.util.List;
 @AllArgsConstructor
 @Entity
 @Builder
+@EntityListeners(SearchIndexListener.class)
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class User {
 
@@ -66,19 +68,19 @@ public class User {
     @Enumerated(EnumType.STRING)
     Role role;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "account_id")
     Account account;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "site_id")
     Site site;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "create_by_eid")
     User createdBy;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "update_by_eid")
     User updatedBy;
 
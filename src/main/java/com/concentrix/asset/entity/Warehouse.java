@@ -25,7 +25,7 @@ public class Warehouse {
     @Column
     String warehouseName;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "site_id")
     Site site;
 
@@ -0,0 +1,40 @@
+package com.concentrix.asset.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+// Mỗi lần import Workday thành công lưu lại hash nội dung file, để lần chạy sau bỏ qua nếu HR chưa đổi file
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "workday_import_file")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class WorkdayImportFile {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Integer id;
+
+    @Column
+    String fileName;
+
+    @Column(nullable = false, length = 64)
+    String fileHash;
+
+    @Column
+    Integer rowCount;
+
+    @Column
+    LocalDateTime importedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        importedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,34 @@
+package com.concentrix.asset.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+// Hash của dòng Workday đã import gần nhất cho từng nhân viên (không có FK tới user)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "workday_row_fingerprint")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class WorkdayRowFingerprint {
+
+    @Id
+    String eid;
+
+    @Column(nullable = false, length = 64)
+    String rowHash;
+
+    @Column
+    LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
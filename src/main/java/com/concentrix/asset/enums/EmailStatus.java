@@ -0,0 +1,8 @@
+package com.concentrix.asset.enums;
+
+public enum EmailStatus {
+    PENDING, // Chờ gửi (lần đầu hoặc chờ retry)
+    SENDING, // Đã được worker nhận, đang gửi
+    SENT, // Gửi thành công
+    DEAD, // Hết số lần thử hoặc lỗi không thể gửi lại
+}
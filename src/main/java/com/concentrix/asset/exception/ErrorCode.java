@@ -184,6 +184,7 @@ public enum ErrorCode {
 
     // Date validation errors
     INVALID_DATE_RANGE(21410, HttpStatus.BAD_REQUEST, "fromDate must be before toDate"),
+    INVALID_CURSOR(21411, HttpStatus.BAD_REQUEST, "Invalid pagination cursor '{}'"),
 
     // Repair entity errors
     REPAIR_NOT_FOUND(22001, HttpStatus.NOT_FOUND, "Repair with ID '{}' not found"),
@@ -0,0 +1,42 @@
+package com.concentrix.asset.listener;
+
+import com.concentrix.asset.entity.Device;
+import com.concentrix.asset.entity.User;
+import com.concentrix.asset.service.SearchIndexService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Giữ search index đồng bộ với mọi thao tác ghi User/Device (service, import Workday, ...).
+ * Dùng ObjectProvider vì listener được Hibernate lấy ra trong lúc khởi tạo EntityManagerFactory.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
+public class SearchIndexListener {
+    ObjectProvider<SearchIndexService> searchIndexService;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        if (entity instanceof User user) {
+            searchIndexService.getObject().indexUser(user);
+        } else if (entity instanceof Device device) {
+            searchIndexService.getObject().indexDevice(device);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof User user) {
+            searchIndexService.getObject().removeUser(user);
+        } else if (entity instanceof Device device) {
+            searchIndexService.getObject().removeDevice(device);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.concentrix.asset.mapper;
 
+import com.concentrix.asset.dto.TransactionView;
 import com.concentrix.asset.dto.request.CreateAssignmentRequest;
 import com.concentrix.asset.dto.response.AssetHandoverResponse;
 import com.concentrix.asset.dto.response.AssignmentResponse;
@@ -27,6 +28,9 @@ public interface AssignmentMapper {
     })
     AssignmentResponse toAssignmentResponse(AssetTransaction transaction);
 
+    // Danh sách (filter): map từ read model, items/images đã được nạp sẵn theo trang
+    AssignmentResponse toAssignmentResponse(TransactionView view);
+
     @Mappings(value = {
             @Mapping(target = "itPerson", source = "createdBy.fullName"),
             @Mapping(target = "location", source = "assetTransaction", qualifiedByName = "mapLocation"),
@@ -1,5 +1,6 @@
 package com.concentrix.asset.mapper;
 
+import com.concentrix.asset.dto.TransactionView;
 import com.concentrix.asset.dto.request.CreateDisposalRequest;
 import com.concentrix.asset.dto.response.DisposalResponse;
 import com.concentrix.asset.entity.AssetTransaction;
@@ -20,4 +21,7 @@ public interface DisposalMapper {
             @Mapping(target = "createdBy", source = "createdBy")
     })
     DisposalResponse toDisposalResponse(AssetTransaction transaction);
+
+    // Danh sách (filter): map từ read model, items/images đã được nạp sẵn theo trang
+    DisposalResponse toDisposalResponse(TransactionView view);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.concentrix.asset.mapper;
 
+import com.concentrix.asset.dto.TransactionView;
 import com.concentrix.asset.dto.request.CreateEWasteRequest;
 import com.concentrix.asset.dto.response.EWasteResponse;
 import com.concentrix.asset.entity.AssetTransaction;
@@ -20,4 +21,7 @@ public interface EWasteMapper {
             @Mapping(target = "createdBy", source = "createdBy"),
     })
     EWasteResponse toEWasteResponse(AssetTransaction transaction);
+
+    // Danh sách (filter): map từ read model, items/images đã được nạp sẵn theo trang
+    EWasteResponse toEWasteResponse(TransactionView view);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.concentrix.asset.mapper;
 
+import com.concentrix.asset.dto.TransactionView;
 import com.concentrix.asset.dto.request.CreateRepairRequest;
 import com.concentrix.asset.dto.response.RepairResponse;
 import com.concentrix.asset.entity.AssetTransaction;
@@ -22,4 +23,7 @@ public interface RepairMapper {
     })
     RepairResponse toRepairResponse(AssetTransaction transaction);
 
+    // Danh sách (filter): map từ read model, items/images đã được nạp sẵn theo trang
+    RepairResponse toRepairResponse(TransactionView view);
+
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.concentrix.asset.mapper;
 
+import com.concentrix.asset.dto.TransactionView;
 import com.concentrix.asset.dto.request.CreateReturnFromFloorRequest;
 import com.concentrix.asset.dto.response.ReturnFromFloorResponse;
 import com.concentrix.asset.entity.AssetTransaction;
@@ -22,4 +23,7 @@ public interface ReturnFromFloorMapper {
             @Mapping(target = "createdBy", source = "createdBy")
     })
     ReturnFromFloorResponse toReturnFromFloorResponse(AssetTransaction transaction);
+
+    // Danh sách (filter): map từ read model, items/images đã được nạp sẵn theo trang
+    ReturnFromFloorResponse toReturnFromFloorResponse(TransactionView view);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.concentrix.asset.mapper;
 
+import com.concentrix.asset.dto.TransactionView;
 import com.concentrix.asset.dto.request.CreateReturnFromRepairRequest;
 import com.concentrix.asset.dto.response.ReturnFromRepairResponse;
 import com.concentrix.asset.entity.AssetTransaction;
@@ -20,4 +21,7 @@ public interface ReturnFromRepairMapper {
             @Mapping(target = "createdBy", source = "createdBy")
     })
     ReturnFromRepairResponse toReturnFromRepairResponse(AssetTransaction transaction);
+
+    // Danh sách (filter): map từ read model, items/images đã được nạp sẵn theo trang
+    ReturnFromRepairResponse toReturnFromRepairResponse(TransactionView view);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.concentrix.asset.mapper;
 
+import com.concentrix.asset.dto.TransactionView;
 import com.concentrix.asset.dto.request.CreateReturnFromUserRequest;
 import com.concentrix.asset.dto.response.ReturnFromUserResponse;
 import com.concentrix.asset.entity.AssetTransaction;
@@ -23,4 +24,7 @@ public interface ReturnFromUserMapper {
             @Mapping(target = "images", source = "images", qualifiedByName = "mapImages")
     })
     ReturnFromUserResponse toReturnFromUserResponse(AssetTransaction transaction);
+
+    // Danh sách (filter): map từ read model, items/images đã được nạp sẵn theo trang
+    ReturnFromUserResponse toReturnFromUserResponse(TransactionView view);
 }
\ No newline at end of file
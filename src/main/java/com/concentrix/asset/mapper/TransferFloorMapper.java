@@ -1,5 +1,6 @@
 package com.concentrix.asset.mapper;
 
+import com.concentrix.asset.dto.TransactionView;
 import com.concentrix.asset.dto.request.CreateTransferFloorRequest;
 import com.concentrix.asset.dto.response.TransferFloorResponse;
 import com.concentrix.asset.entity.AssetTransaction;
@@ -22,4 +23,7 @@ public interface TransferFloorMapper {
             @Mapping(target = "createdBy", source = "createdBy")
     })
     TransferFloorResponse toTransferFloorResponse(AssetTransaction transaction);
+
+    // Danh sách (filter): map từ read model, items/images đã được nạp sẵn theo trang
+    TransferFloorResponse toTransferFloorResponse(TransactionView view);
 }
\ No newline at end of file
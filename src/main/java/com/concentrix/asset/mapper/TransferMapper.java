@@ -1,5 +1,6 @@
 package com.concentrix.asset.mapper;
 
+import com.concentrix.asset.dto.TransactionView;
 import com.concentrix.asset.dto.request.CreateTransferRequest;
 import com.concentrix.asset.dto.response.TransferResponse;
 import com.concentrix.asset.entity.AssetTransaction;
@@ -21,4 +22,8 @@ public interface TransferMapper {
     @Mapping(target = "items", source = "details", qualifiedByName = "mapItems")
     @Mapping(target = "status", source = "transactionStatus")
     TransferResponse toTransferResponse(AssetTransaction transaction);
+
+    // Danh sách (filter): map từ read model, items/images đã được nạp sẵn theo trang
+    @Mapping(target = "status", source = "transactionStatus")
+    TransferResponse toTransferResponse(TransactionView view);
 }
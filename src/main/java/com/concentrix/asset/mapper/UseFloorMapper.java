@@ -1,5 +1,6 @@
 package com.concentrix.asset.mapper;
 
+import com.concentrix.asset.dto.TransactionView;
 import com.concentrix.asset.dto.request.CreateUseFloorRequest;
 import com.concentrix.asset.dto.response.UseFloorResponse;
 import com.concentrix.asset.entity.AssetTransaction;
@@ -22,4 +23,7 @@ public interface UseFloorMapper {
             @Mapping(target = "createdBy", source = "createdBy")
     })
     UseFloorResponse toUseFloorResponse(AssetTransaction transaction);
+
+    // Danh sách (filter): map từ read model, items/images đã được nạp sẵn theo trang
+    UseFloorResponse toUseFloorResponse(TransactionView view);
 }
\ No newline at end of file
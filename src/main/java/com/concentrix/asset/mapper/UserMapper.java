@@ -30,6 +30,7 @@ public interface UserMapper {
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     @Mapping(target = "account", source = "msaClient", qualifiedByName = "msaClientToAccount")
+    @Mapping(target = "active", source = "isActive")
     User updateUser(@MappingTarget User user, UserImportRequest request);
 
 }
\ No newline at end of file
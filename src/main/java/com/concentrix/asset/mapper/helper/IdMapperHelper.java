@@ -1,5 +1,6 @@
 package com.concentrix.asset.mapper.helper;
 
+import com.concentrix.asset.config.CacheConfig;
 import com.concentrix.asset.entity.Account;
 import com.concentrix.asset.entity.Site;
 import com.concentrix.asset.entity.User;
@@ -12,6 +13,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.mapstruct.Named;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -25,12 +27,14 @@ public class IdMapperHelper {
     UserRepository userRepository;
 
     @Named("siteIdToSite")
+    @Cacheable(CacheConfig.SITES)
     public Site siteIdToSite(Integer siteId) {
         return siteRepository.findById(siteId)
                 .orElseThrow(() -> new CustomException(ErrorCode.SITE_NOT_FOUND, siteId));
     }
 
     @Named("accountIdToAccount")
+    @Cacheable(cacheNames = CacheConfig.ACCOUNTS, condition = "#accountId != null")
     public Account getAccountById(Integer accountId) {
         if (accountId == null) {
             return null;
@@ -1,5 +1,6 @@
 package com.concentrix.asset.mapper.helper;
 
+import com.concentrix.asset.config.CacheConfig;
 import com.concentrix.asset.dto.response.POResponse;
 import com.concentrix.asset.dto.response.TransactionItemsResponse;
 import com.concentrix.asset.entity.*;
@@ -14,6 +15,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.experimental.NonFinal;
 import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -33,14 +35,16 @@ public class TransactionMapperHelper {
     String uploadHandoverPath;
 
     @Named("warehouseIdToWarehouse")
+    @Cacheable(CacheConfig.WAREHOUSES)
     public Warehouse warehouseIdToWarehouse(Integer warehouseId) {
-        return warehouseRepository.findById(warehouseId)
+        return warehouseRepository.findWithSiteByWarehouseId(warehouseId)
                 .orElseThrow(() -> new CustomException(ErrorCode.WAREHOUSE_NOT_FOUND, warehouseId));
     }
 
     @Named("floorIdToFloor")
+    @Cacheable(CacheConfig.FLOORS)
     public Floor floorIdToFloor(Integer floorId) {
-        return floorRepository.findById(floorId)
+        return floorRepository.findWithSiteByFloorId(floorId)
                 .orElseThrow(() -> new CustomException(ErrorCode.FLOOR_NOT_FOUND, floorId));
     }
 
@@ -88,6 +92,7 @@ public class TransactionMapperHelper {
 
 
     @Named("vendorIdToVendor")
+    @Cacheable(CacheConfig.VENDORS)
     public Vendor vendorIdToVendor(Integer vendorId) {
         return vendorRepository.findById(vendorId)
                 .orElseThrow(() -> new CustomException(ErrorCode.VENDOR_NOT_FOUND, vendorId));
@@ -0,0 +1,181 @@
+package com.concentrix.asset.repository;
+
+import com.concentrix.asset.entity.DeviceCountRollup;
+import com.concentrix.asset.entity.DeviceCountRollupId;
+import com.concentrix.asset.enums.DeviceStatus;
+import com.concentrix.asset.enums.DeviceType;
+import com.concentrix.asset.enums.TransactionType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DeviceCountRollupRepository extends JpaRepository<DeviceCountRollup, DeviceCountRollupId> {
+
+    // Cộng dồn delta vào một bucket, tạo mới nếu chưa có (atomic ở phía DB)
+    @Modifying
+    @Query(value = """
+                INSERT INTO device_count_rollup
+                    (site_id, warehouse_id, floor_id, model_id, status, serialized, type, quantity)
+                VALUES (:siteId, :warehouseId, :floorId, :modelId, :status, :serialized, :type, :delta)
+                ON DUPLICATE KEY UPDATE quantity = quantity + :delta
+            """, nativeQuery = true)
+    int upsertQuantity(@Param("siteId") Integer siteId,
+                       @Param("warehouseId") Integer warehouseId,
+                       @Param("floorId") Integer floorId,
+                       @Param("modelId") Integer modelId,
+                       @Param("status") String status,
+                       @Param("serialized") boolean serialized,
+                       @Param("type") String type,
+                       @Param("delta") int delta);
+
+    @Modifying
+    @Query("UPDATE DeviceCountRollup r SET r.type = :type WHERE r.modelId = :modelId")
+    int updateTypeOfModel(@Param("modelId") Integer modelId, @Param("type") DeviceType type);
+
+    // Bucket của kho còn ghi site khác site hiện tại của kho
+    @Query("SELECT r FROM DeviceCountRollup r WHERE r.warehouseId = :warehouseId AND r.siteId <> :siteId")
+    List<DeviceCountRollup> findOtherSiteOfWarehouse(@Param("warehouseId") Integer warehouseId,
+                                                     @Param("siteId") Integer siteId);
+
+    @Modifying
+    @Query("DELETE FROM DeviceCountRollup r WHERE r.warehouseId = :warehouseId AND r.siteId <> :siteId")
+    int deleteOtherSiteOfWarehouse(@Param("warehouseId") Integer warehouseId, @Param("siteId") Integer siteId);
+
+    // Bucket gắn sàn lấy site theo sàn chỉ khi không gắn kho (warehouseId = 0)
+    @Query("""
+                SELECT r FROM DeviceCountRollup r
+                WHERE r.floorId = :floorId AND r.warehouseId = 0 AND r.siteId <> :siteId
+            """)
+    List<DeviceCountRollup> findOtherSiteOfFloor(@Param("floorId") Integer floorId,
+                                                 @Param("siteId") Integer siteId);
+
+    @Modifying
+    @Query("""
+                DELETE FROM DeviceCountRollup r
+                WHERE r.floorId = :floorId AND r.warehouseId = 0 AND r.siteId <> :siteId
+            """)
+    int deleteOtherSiteOfFloor(@Param("floorId") Integer floorId, @Param("siteId") Integer siteId);
+
+    // Tổng theo (status, serialized) cho status summary
+    @Query("""
+                SELECT r.status, r.serialized, COALESCE(SUM(r.quantity), 0)
+                FROM DeviceCountRollup r
+                GROUP BY r.status, r.serialized
+            """)
+    List<Object[]> sumGroupByStatus_Serialized();
+
+    // Tổng gom nhóm theo (site, type, model) của một status, cùng dạng row với các query report
+    @Query("""
+                SELECT r.siteId, r.type, r.modelId, COALESCE(SUM(r.quantity), 0)
+                FROM DeviceCountRollup r
+                WHERE r.status = :status
+                  AND r.serialized = :serialized
+                  AND (:type IS NULL OR r.type = :type)
+                  AND (:modelId IS NULL OR r.modelId = :modelId)
+                GROUP BY r.siteId, r.type, r.modelId
+            """)
+    List<Object[]> sumGroupBySite_Type_Model(@Param("status") DeviceStatus status,
+                                             @Param("serialized") boolean serialized,
+                                             @Param("type") DeviceType type,
+                                             @Param("modelId") Integer modelId);
+
+    // Tổng gom nhóm theo (site, type) của một status, dùng cho chart site/type
+    @Query("""
+                SELECT r.siteId, r.type, COALESCE(SUM(r.quantity), 0)
+                FROM DeviceCountRollup r
+                WHERE r.status = :status
+                  AND r.serialized = :serialized
+                GROUP BY r.siteId, r.type
+            """)
+    List<Object[]> sumGroupBySite_Type(@Param("status") DeviceStatus status,
+                                       @Param("serialized") boolean serialized);
+
+    // ===== Tính lại từ dữ liệu gốc (dùng cho rebuild và kiểm tra lệch) =====
+
+    // Thiết bị có serial: [warehouseSiteId, floorSiteId, warehouseId, floorId, type, modelId, status, count]
+    @Query("""
+                SELECT ws.siteId, fs.siteId, w.warehouseId, f.floorId, m.type, m.modelId, d.status, COUNT(d)
+                FROM Device d
+                JOIN d.model m
+                LEFT JOIN d.currentWarehouse w
+                LEFT JOIN w.site ws
+                LEFT JOIN d.currentFloor f
+                LEFT JOIN f.site fs
+                WHERE d.serialNumber IS NOT NULL
+                  AND d.status IS NOT NULL
+                GROUP BY ws.siteId, fs.siteId, w.warehouseId, f.floorId, m.type, m.modelId, d.status
+            """)
+    List<Object[]> liveCountSerialized();
+
+    // Tồn kho không serial: [siteId, warehouseId, type, modelId, quantity]
+    @Query("""
+                SELECT s.siteId, w.warehouseId, m.type, m.modelId, COALESCE(SUM(dw.quantity), 0)
+                FROM DeviceWarehouse dw
+                JOIN dw.warehouse w
+                LEFT JOIN w.site s
+                JOIN dw.device d
+                JOIN d.model m
+                WHERE d.serialNumber IS NULL
+                GROUP BY s.siteId, w.warehouseId, m.type, m.modelId
+            """)
+    List<Object[]> liveSumInStock();
+
+    // Trên sàn không serial: [siteId, floorId, type, modelId, quantity]
+    @Query("""
+                SELECT s.siteId, f.floorId, m.type, m.modelId, COALESCE(SUM(df.quantity), 0)
+                FROM DeviceFloor df
+                JOIN df.floor f
+                LEFT JOIN f.site s
+                JOIN df.device d
+                JOIN d.model m
+                WHERE d.serialNumber IS NULL
+                GROUP BY s.siteId, f.floorId, m.type, m.modelId
+            """)
+    List<Object[]> liveSumInFloor();
+
+    // Đang cấp cho user không serial: [type, modelId, quantity]
+    @Query("""
+                SELECT m.type, m.modelId, COALESCE(SUM(du.quantity), 0)
+                FROM DeviceUser du
+                JOIN du.device d
+                JOIN d.model m
+                WHERE d.serialNumber IS NULL
+                GROUP BY m.type, m.modelId
+            """)
+    List<Object[]> liveSumAssigned();
+
+    // Tổng quantity không serial theo loại transaction: [siteId, warehouseId, type, modelId, quantity]
+    // (site/kho lấy theo fromWarehouse)
+    @Query("""
+                SELECT s.siteId, w.warehouseId, m.type, m.modelId, COALESCE(SUM(td.quantity), 0)
+                FROM TransactionDetail td
+                JOIN td.transaction t
+                LEFT JOIN t.fromWarehouse w
+                LEFT JOIN w.site s
+                JOIN td.device d
+                JOIN d.model m
+                WHERE d.serialNumber IS NULL
+                  AND t.transactionType = :transactionType
+                GROUP BY s.siteId, w.warehouseId, m.type, m.modelId
+            """)
+    List<Object[]> liveSumByTransactionType(@Param("transactionType") TransactionType transactionType);
+
+    // Đang vận chuyển không serial: [type, modelId, quantity]
+    @Query("""
+                SELECT m.type, m.modelId, COALESCE(SUM(td.quantity), 0)
+                FROM TransactionDetail td
+                JOIN td.transaction t
+                JOIN td.device d
+                JOIN d.model m
+                WHERE d.serialNumber IS NULL
+                  AND t.transactionType = 'TRANSFER_SITE'
+                  AND t.transactionStatus IN ('PENDING', 'APPROVED')
+                GROUP BY m.type, m.modelId
+            """)
+    List<Object[]> liveSumOnTheMove();
+}
@@ -4,27 +4,57 @@ import com.concentrix.asset.entity.DeviceFloor;
 import com.concentrix.asset.entity.DeviceFloorId;
 import com.concentrix.asset.enums.DeviceType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DeviceFloorRepository extends JpaRepository<DeviceFloor, DeviceFloorId> {
-    Optional<DeviceFloor> findByDevice_DeviceIdAndFloor_FloorId(Integer deviceId, Integer floorId);
+    // Trừ số lượng trên sàn atomic: chỉ update khi còn đủ, trả về số dòng bị ảnh hưởng
+    @Modifying
+    @Query(value = """
+               UPDATE device_floor SET quantity = quantity - :qty
+               WHERE floor_id = :floorId AND device_id = :deviceId AND quantity >= :qty
+            """, nativeQuery = true)
+    int decrementIfAvailable(@Param("floorId") Integer floorId,
+                             @Param("deviceId") Integer deviceId,
+                             @Param("qty") int qty);
+
+    @Modifying
+    @Query(value = """
+               INSERT INTO device_floor (floor_id, device_id, quantity)
+               VALUES (:floorId, :deviceId, :qty)
+               ON DUPLICATE KEY UPDATE quantity = quantity + :qty
+            """, nativeQuery = true)
+    int increment(@Param("floorId") Integer floorId,
+                  @Param("deviceId") Integer deviceId,
+                  @Param("qty") int qty);
+
+    @Query(value = "SELECT quantity FROM device_floor WHERE floor_id = :floorId AND device_id = :deviceId",
+            nativeQuery = true)
+    Optional<Integer> findQuantity(@Param("floorId") Integer floorId, @Param("deviceId") Integer deviceId);
 
     @Query("""
                SELECT COALESCE(SUM(df.quantity), 0) FROM DeviceFloor df
                WHERE df.device.serialNumber IS NULL
+                 AND (:siteId IS NULL OR df.floor.site.siteId = :siteId)
+                 AND (:type IS NULL OR df.device.model.type = :type)
+                 AND (:modelId IS NULL OR df.device.model.modelId = :modelId)
             """)
-    Integer sumDeviceInFloor();
+    Integer sumDeviceBySite_Type_Model(Integer siteId, DeviceType type, Integer modelId);
 
     @Query("""
-               SELECT COALESCE(SUM(df.quantity), 0) FROM DeviceFloor df
+               SELECT df.floor.site.siteId, df.device.model.type, df.device.model.modelId,
+                      COALESCE(SUM(df.quantity), 0)
+               FROM DeviceFloor df
                WHERE df.device.serialNumber IS NULL
-                 AND (:siteId IS NULL OR df.floor.site.siteId = :siteId)
                  AND (:type IS NULL OR df.device.model.type = :type)
                  AND (:modelId IS NULL OR df.device.model.modelId = :modelId)
+               GROUP BY df.floor.site.siteId, df.device.model.type, df.device.model.modelId
             """)
-    Integer sumDeviceBySite_Type_Model(Integer siteId, DeviceType type, Integer modelId);
+    List<Object[]> sumDeviceGroupBySite_Type_Model(DeviceType type, Integer modelId);
 }
\ No newline at end of file
@@ -4,21 +4,33 @@ import com.concentrix.asset.entity.Device;
 import com.concentrix.asset.entity.User;
 import com.concentrix.asset.enums.DeviceStatus;
 import com.concentrix.asset.enums.DeviceType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpecificationExecutor<Device> {
 
+        // Các query report trả về Stream: đọc theo từng lô (cần useCursorFetch=true với MySQL)
+        String REPORT_FETCH_SIZE = "500";
+
         Optional<Device> findBySerialNumber(String serialNumber);
 
         Optional<Device> findBySerialNumberContaining(String serialNumber);
@@ -29,20 +41,82 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
 
         Optional<Device> findFirstByModel_ModelId(Integer modelId);
 
-        Integer countByStatusAndSerialNumberIsNotNull(DeviceStatus status);
+        // Chi tiết và danh sách phân trang: nạp sẵn model, người dùng, vị trí và site cho DeviceResponse
+        @EntityGraph("Device.response")
+        Optional<Device> findDetailByDeviceId(Integer deviceId);
 
-        List<Device> findAllBySerialNumberIsNotNull();
+        @Override
+        @EntityGraph("Device.response")
+        Page<Device> findAll(Specification<Device> spec, Pageable pageable);
 
-        Optional<Device> findBySeatNumber(String seatNumber);
+        @EntityGraph(attributePaths = "model")
+        List<Device> findAllWithModelByDeviceIdIn(Collection<Integer> deviceIds);
+
+        // Resolve serial hàng loạt cho các transaction, fetch luôn các quan hệ cần kiểm tra để tránh N+1
+        @Query("""
+                            SELECT d FROM Device d
+                            LEFT JOIN FETCH d.model
+                            LEFT JOIN FETCH d.currentWarehouse
+                            LEFT JOIN FETCH d.currentFloor
+                            LEFT JOIN FETCH d.currentUser
+                            WHERE d.serialNumber IN :serialNumbers
+                        """)
+        List<Device> findAllBySerialNumberIn(@Param("serialNumbers") Collection<String> serialNumbers);
 
+        // Thiết bị đầu tiên (deviceId nhỏ nhất) của mỗi model, tương đương findFirstByModel_ModelId cho nhiều model
         @Query("""
                             SELECT d FROM Device d
-                            WHERE
-                                LOWER(d.serialNumber) LIKE LOWER(CONCAT('%', :q, '%'))
-                                OR LOWER(d.hostName) LIKE LOWER(CONCAT('%', :q, '%'))
-                                OR LOWER(d.seatNumber) LIKE LOWER(CONCAT('%', :q, '%'))
+                            LEFT JOIN FETCH d.model
+                            WHERE d.deviceId IN (
+                                SELECT MIN(d2.deviceId) FROM Device d2
+                                WHERE d2.model.modelId IN :modelIds
+                                GROUP BY d2.model.modelId
+                            )
+                        """)
+        List<Device> findFirstOfEachModel(@Param("modelIds") Collection<Integer> modelIds);
+
+        Optional<Device> findBySeatNumber(String seatNumber);
+
+        // Chỉ lấy các cột cần cho search index, tránh load entity cùng các quan hệ EAGER
+        @Query("""
+                            SELECT d.deviceId, d.serialNumber, d.deviceName, d.hostName, d.seatNumber, m.modelName
+                            FROM Device d LEFT JOIN d.model m
+                        """)
+        List<Object[]> findAllSearchFields();
+
+        @Query("""
+                            SELECT d.deviceId, d.serialNumber, d.deviceName, d.hostName, d.seatNumber, m.modelName
+                            FROM Device d JOIN d.model m
+                            WHERE m.modelId = :modelId
+                        """)
+        List<Object[]> findSearchFieldsByModelId(@Param("modelId") Integer modelId);
+
+        // Trạng thái hiện tại cho snapshot (chế độ delta): [deviceId, status, siteId]
+        // site lấy theo kho nếu có, không thì theo sàn (giống snapshotDataDevice)
+        @Query("""
+                            SELECT d.deviceId, d.status,
+                                   CASE WHEN w IS NOT NULL THEN ws.siteId ELSE fs.siteId END
+                            FROM Device d
+                            LEFT JOIN d.currentWarehouse w LEFT JOIN w.site ws
+                            LEFT JOIN d.currentFloor f LEFT JOIN f.site fs
+                            WHERE d.serialNumber IS NOT NULL
                         """)
-        List<Device> searchDevices(@Param("q") String q);
+        List<Object[]> findSnapshotStates();
+
+        // [deviceId, type]; không lọc serial vì snapshot cũ có thể chứa thiết bị đã bị xoá serial
+        @Query("""
+                            SELECT d.deviceId, m.type
+                            FROM Device d JOIN d.model m
+                        """)
+        List<Object[]> findDeviceTypes();
+
+        // [deviceId, serialNumber, deviceName, modelName, type]
+        @Query("""
+                            SELECT d.deviceId, d.serialNumber, d.deviceName, m.modelName, m.type
+                            FROM Device d LEFT JOIN d.model m
+                            WHERE d.deviceId IN :ids
+                        """)
+        List<Object[]> findSnapshotInfoByIds(@Param("ids") Collection<Integer> ids);
 
         @Query("""
                             select distinct u
@@ -59,15 +133,18 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                         """)
         Page<User> findUsersWithDevices(Pageable pageable);
 
+        // Đếm asset IN_STOCK gom nhóm theo (type, model, site) trong một query
         @Query("""
-                            SELECT COUNT(d)
+                            SELECT m.type, m.modelId, s.siteId, COUNT(d)
                             FROM Device d
+                            JOIN d.model m
+                            JOIN d.currentWarehouse w
+                            JOIN w.site s
                             WHERE d.status = 'IN_STOCK'
                               AND d.serialNumber IS NOT NULL
-
-                              AND (:type IS NULL OR d.model.type = :type)
-                              AND (:siteId IS NULL OR d.currentWarehouse.site.siteId = :siteId)
-                              AND (:modelId IS NULL OR d.model.modelId = :modelId)
+                              AND (:type IS NULL OR m.type = :type)
+                              AND (:siteId IS NULL OR s.siteId = :siteId)
+                              AND (:modelId IS NULL OR m.modelId = :modelId)
                               AND (
                                     :isOutOfWarranty IS NULL
                                  OR (:isOutOfWarranty = true  AND (d.endDate IS NULL OR d.endDate > CURRENT_DATE))
@@ -79,9 +156,9 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                                 OR (:startDate IS NULL AND :endDate IS NOT NULL AND d.startDate <= :endDate)
                                 OR (:startDate IS NOT NULL AND :endDate IS NOT NULL AND d.startDate BETWEEN :startDate AND :endDate)
                                 )
-
+                            GROUP BY m.type, m.modelId, s.siteId
                         """)
-        int countAssetInStock(
+        List<Object[]> countAssetInStockGroupByType_Model_Site(
                         @Param("siteId") Integer siteId,
                         @Param("type") DeviceType type,
                         @Param("modelId") Integer modelId,
@@ -89,20 +166,22 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                         @Param("startDate") LocalDate startDate,
                         @Param("endDate") LocalDate endDate);
 
+        // Đếm asset E_WASTE gom nhóm theo (type, model, site) trong một query
         @Query("""
-                            SELECT COUNT(d)
+                            SELECT m.type, m.modelId, s.siteId, COUNT(d)
                             FROM Device d
-                            WHERE (:type IS NULL OR d.model.type = :type)
-                              AND (:siteId IS NULL OR d.currentWarehouse.site.siteId = :siteId)
-                              AND (:modelId IS NULL OR d.model.modelId = :modelId)
-                              AND d.status = 'E_WASTE'
+                            JOIN d.model m
+                            JOIN d.currentWarehouse w
+                            JOIN w.site s
+                            WHERE d.status = 'E_WASTE'
                               AND d.serialNumber IS NOT NULL
+                              AND (:type IS NULL OR m.type = :type)
+                              AND (:siteId IS NULL OR s.siteId = :siteId)
+                              AND (:modelId IS NULL OR m.modelId = :modelId)
                               AND (
                                     :isOutOfWarranty IS NULL
-                                 OR (:isOutOfWarranty = true
-                                     AND (d.endDate IS NULL OR d.endDate > CURRENT_DATE))
-                                 OR (:isOutOfWarranty = false
-                                     AND d.endDate IS NOT NULL AND d.endDate <= CURRENT_DATE)
+                                 OR (:isOutOfWarranty = true  AND (d.endDate IS NULL OR d.endDate > CURRENT_DATE))
+                                 OR (:isOutOfWarranty = false AND d.endDate IS NOT NULL AND d.endDate <= CURRENT_DATE)
                               )
                               AND (
                                 (:startDate IS NULL AND :endDate IS NULL)
@@ -110,9 +189,9 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                                 OR (:startDate IS NULL AND :endDate IS NOT NULL AND d.startDate <= :endDate)
                                 OR (:startDate IS NOT NULL AND :endDate IS NOT NULL AND d.startDate BETWEEN :startDate AND :endDate)
                                 )
-
+                            GROUP BY m.type, m.modelId, s.siteId
                         """)
-        int countAssetEWaste(
+        List<Object[]> countAssetEWasteGroupByType_Model_Site(
                         @Param("siteId") Integer siteId,
                         @Param("type") DeviceType type,
                         @Param("modelId") Integer modelId,
@@ -120,35 +199,37 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                         @Param("startDate") LocalDate startDate,
                         @Param("endDate") LocalDate endDate);
 
+        // Đếm asset IN_FLOOR gom nhóm theo (type, model, site) trong một query
         @Query("""
-                            SELECT COUNT(d) FROM Device d
-                            LEFT JOIN d.currentFloor cf
-                            LEFT JOIN cf.site s
+                            SELECT m.type, m.modelId, s.siteId, COUNT(d)
+                            FROM Device d
+                            JOIN d.model m
+                            JOIN d.currentFloor cf
+                            JOIN cf.site s
                             LEFT JOIN cf.account a
                             LEFT JOIN a.owner o
-                            LEFT JOIN d.model m
-                            WHERE (:siteId IS NULL OR s.siteId = :siteId)
-                              AND d.status = 'IN_FLOOR'
+                            WHERE d.status = 'IN_FLOOR'
                               AND d.serialNumber IS NOT NULL
+                              AND (:siteId IS NULL OR s.siteId = :siteId)
                               AND (:ownerId IS NULL OR o.eid = :ownerId)
                               AND (:accountId IS NULL OR a.accountId = :accountId)
                               AND (:floorId IS NULL OR cf.floorId = :floorId)
                               AND (:type IS NULL OR m.type = :type)
                               AND (:modelId IS NULL OR m.modelId = :modelId)
                               AND (
-                                :isOutOfWarranty IS NULL
-                                OR (:isOutOfWarranty = true AND (d.endDate IS NULL OR d.endDate > CURRENT_DATE))
-                                OR (:isOutOfWarranty = false AND d.endDate IS NOT NULL AND d.endDate <= CURRENT_DATE)
-                                )
+                                    :isOutOfWarranty IS NULL
+                                 OR (:isOutOfWarranty = true  AND (d.endDate IS NULL OR d.endDate > CURRENT_DATE))
+                                 OR (:isOutOfWarranty = false AND d.endDate IS NOT NULL AND d.endDate <= CURRENT_DATE)
+                              )
                               AND (
                                 (:startDate IS NULL AND :endDate IS NULL)
                                 OR (:startDate IS NOT NULL AND :endDate IS NULL AND d.startDate > :startDate)
                                 OR (:startDate IS NULL AND :endDate IS NOT NULL AND d.startDate <= :endDate)
                                 OR (:startDate IS NOT NULL AND :endDate IS NOT NULL AND d.startDate BETWEEN :startDate AND :endDate)
                                 )
-
+                            GROUP BY m.type, m.modelId, s.siteId
                         """)
-        int countAssetInFloor(
+        List<Object[]> countAssetInFloorGroupByType_Model_Site(
                         @Param("siteId") Integer siteId,
                         @Param("ownerId") Integer ownerId,
                         @Param("accountId") Integer accountId,
@@ -159,26 +240,29 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                         @Param("startDate") LocalDate startDate,
                         @Param("endDate") LocalDate endDate);
 
+        // Đếm asset theo status (không phân site) gom nhóm theo (type, model)
         @Query("""
-                            SELECT COUNT(d) FROM Device d
+                            SELECT m.type, m.modelId, COUNT(d)
+                            FROM Device d
+                            JOIN d.model m
                             WHERE d.status = :status
-                              AND (:type IS NULL OR d.model.type = :type)
-                              AND (:modelId IS NULL OR d.model.modelId = :modelId)
                               AND d.serialNumber IS NOT NULL
+                              AND (:type IS NULL OR m.type = :type)
+                              AND (:modelId IS NULL OR m.modelId = :modelId)
+                              AND (
+                                    :isOutOfWarranty IS NULL
+                                 OR (:isOutOfWarranty = true  AND (d.endDate IS NULL OR d.endDate > CURRENT_DATE))
+                                 OR (:isOutOfWarranty = false AND d.endDate IS NOT NULL AND d.endDate <= CURRENT_DATE)
+                              )
                               AND (
-                                  :isOutOfWarranty IS NULL
-                                  OR (:isOutOfWarranty = true AND (d.endDate IS NULL OR d.endDate > CURRENT_DATE))
-                                  OR (:isOutOfWarranty = false AND d.endDate IS NOT NULL AND d.endDate <= CURRENT_DATE)
-                                )
-                             AND (
                                 (:startDate IS NULL AND :endDate IS NULL)
                                 OR (:startDate IS NOT NULL AND :endDate IS NULL AND d.startDate > :startDate)
                                 OR (:startDate IS NULL AND :endDate IS NOT NULL AND d.startDate <= :endDate)
                                 OR (:startDate IS NOT NULL AND :endDate IS NOT NULL AND d.startDate BETWEEN :startDate AND :endDate)
                                 )
-
+                            GROUP BY m.type, m.modelId
                         """)
-        int countAssetByStatus(
+        List<Object[]> countAssetByStatusGroupByType_Model(
                         @Param("status") DeviceStatus status,
                         @Param("type") DeviceType type,
                         @Param("modelId") Integer modelId,
@@ -186,6 +270,8 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                         @Param("startDate") LocalDate startDate,
                         @Param("endDate") LocalDate endDate);
 
+        @EntityGraph("Device.response")
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = REPORT_FETCH_SIZE))
         @Query("""
                             SELECT d FROM Device d
                             WHERE d.status = 'IN_STOCK'
@@ -209,7 +295,7 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
 
 
                         """)
-        List<Device> findDevicesInStockForReport(
+        Stream<Device> findDevicesInStockForReport(
                         @Param("siteId") Integer siteId,
                         @Param("type") DeviceType type,
                         @Param("modelId") Integer modelId,
@@ -217,6 +303,8 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                         @Param("startDate") LocalDate startDate,
                         @Param("endDate") LocalDate endDate);
 
+        @EntityGraph("Device.response")
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = REPORT_FETCH_SIZE))
         @Query("""
                             SELECT d FROM Device d
                             WHERE d.status = 'E_WASTE'
@@ -237,7 +325,7 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                                 )
 
                         """)
-        List<Device> findDevicesEWasteForReport(
+        Stream<Device> findDevicesEWasteForReport(
                         @Param("siteId") Integer siteId,
                         @Param("type") DeviceType type,
                         @Param("modelId") Integer modelId,
@@ -245,6 +333,8 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                         @Param("startDate") LocalDate startDate,
                         @Param("endDate") LocalDate endDate);
 
+        @EntityGraph("Device.response")
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = REPORT_FETCH_SIZE))
         @Query("""
                             SELECT d
                             FROM Device d
@@ -275,7 +365,7 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                                 )
 
                         """)
-        List<Device> findDevicesInFloorForReport(
+        Stream<Device> findDevicesInFloorForReport(
                         @Param("siteId") Integer siteId,
                         @Param("floorId") Integer floorId,
                         @Param("ownerId") Integer ownerId,
@@ -286,6 +376,8 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                         @Param("startDate") LocalDate startDate,
                         @Param("endDate") LocalDate endDate);
 
+        @EntityGraph("Device.response")
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = REPORT_FETCH_SIZE))
         @Query("""
                                                                           SELECT d FROM Device d
                                                                           WHERE d.status = :status
@@ -305,7 +397,7 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                         )
 
                         """)
-        List<Device> findDevicesStatusForReport(
+        Stream<Device> findDevicesStatusForReport(
                         @Param("status") DeviceStatus status,
                         @Param("type") DeviceType type,
                         @Param("modelId") Integer modelId,
@@ -313,6 +405,8 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                         @Param("startDate") LocalDate startDate,
                         @Param("endDate") LocalDate endDate);
 
+        @EntityGraph("Device.response")
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = REPORT_FETCH_SIZE))
         @Query("""
                             SELECT d FROM Device d
                             LEFT JOIN d.model m
@@ -339,7 +433,7 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                                 OR (:startDate IS NOT NULL AND :endDate IS NOT NULL AND d.startDate BETWEEN :startDate AND :endDate)
                               )
                         """)
-        List<Device> findAllDevicesForReport(
+        Stream<Device> findAllDevicesForReport(
                         @Param("siteId") Integer siteId,
                         @Param("floorId") Integer floorId,
                         @Param("ownerId") Integer ownerId,
@@ -350,14 +444,25 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                         @Param("startDate") LocalDate startDate,
                         @Param("endDate") LocalDate endDate);
 
+        // Tổng thiết bị có serial đang dùng/trong kho theo type, toàn hệ thống (một query cho mọi type)
         @Query("""
-                            SELECT COUNT(d)
+                            SELECT d.model.type, COUNT(d)
                                 FROM Device d
-                                    WHERE d.model.type = :type
-                                    AND d.status IN ('IN_STOCK', 'IN_FLOOR', 'ON_THE_MOVE', 'ASSIGNED')
+                                    WHERE d.status IN ('IN_STOCK', 'IN_FLOOR', 'ON_THE_MOVE', 'ASSIGNED')
                                     AND d.serialNumber IS NOT NULL
+                                GROUP BY d.model.type
                         """)
-        Integer totalDeviceInUseAndInStock(DeviceType type);
+        List<Object[]> countInUseAndInStockGroupByType();
+
+        // Số thiết bị có serial IN_STOCK theo (site của kho, type)
+        @Query("""
+                            SELECT d.currentWarehouse.site.siteId, d.model.type, COUNT(d)
+                                FROM Device d
+                                    WHERE d.status = 'IN_STOCK'
+                                    AND d.serialNumber IS NOT NULL
+                                GROUP BY d.currentWarehouse.site.siteId, d.model.type
+                        """)
+        List<Object[]> countInStockGroupBySite_Type();
 
         /**
          * Kiểm tra xem serial number đã tồn tại chưa
@@ -396,4 +501,16 @@ public interface DeviceRepository extends JpaRepository<Device, Integer>, JpaSpe
                         """)
         List<Device> findBySite(@Param("siteId") Integer siteId);
 
+        @Query("SELECT COALESCE(MAX(d.deviceId), 0) FROM Device d")
+        int findMaxDeviceId();
+
+        // Đẩy bộ cấp id của Device lên tối thiểu nextVal (không bao giờ lùi lại)
+        @Modifying
+        @Transactional
+        @Query(value = """
+                            INSERT INTO id_generator (name, next_val) VALUES ('device', :nextVal)
+                                ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, :nextVal)
+                        """, nativeQuery = true)
+        void raiseDeviceIdGenerator(@Param("nextVal") long nextVal);
+
 }
\ No newline at end of file
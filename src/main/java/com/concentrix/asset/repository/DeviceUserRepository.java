@@ -5,6 +5,8 @@ import com.concentrix.asset.entity.DeviceUserId;
 import com.concentrix.asset.entity.User;
 import com.concentrix.asset.enums.DeviceType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -14,7 +16,28 @@ import java.util.Optional;
 @Repository
 public interface DeviceUserRepository extends JpaRepository<DeviceUser, DeviceUserId> {
 
-    Optional<DeviceUser> findByDevice_DeviceIdAndUser_Eid(Integer deviceId, String userEid);
+    // Trừ số lượng user đang mượn atomic: chỉ update khi còn đủ, trả về số dòng bị ảnh hưởng
+    @Modifying
+    @Query(value = """
+                    UPDATE device_user SET quantity = quantity - :qty
+                    WHERE eid = :eid AND device_id = :deviceId AND quantity >= :qty
+            """, nativeQuery = true)
+    int decrementIfAvailable(@Param("eid") String eid,
+                             @Param("deviceId") Integer deviceId,
+                             @Param("qty") int qty);
+
+    @Modifying
+    @Query(value = """
+                    INSERT INTO device_user (eid, device_id, quantity)
+                    VALUES (:eid, :deviceId, :qty)
+                    ON DUPLICATE KEY UPDATE quantity = quantity + :qty
+            """, nativeQuery = true)
+    int increment(@Param("eid") String eid,
+                  @Param("deviceId") Integer deviceId,
+                  @Param("qty") int qty);
+
+    @Query(value = "SELECT quantity FROM device_user WHERE eid = :eid AND device_id = :deviceId", nativeQuery = true)
+    Optional<Integer> findQuantity(@Param("eid") String eid, @Param("deviceId") Integer deviceId);
 
     List<DeviceUser> findAllByUser_Eid(String eid);
 
@@ -27,16 +50,20 @@ public interface DeviceUserRepository extends JpaRepository<DeviceUser, DeviceUs
 
     @Query("""
                     SELECT COALESCE(SUM(du.quantity), 0) FROM DeviceUser du
-                    WHERE du.device.serialNumber IS NULL
+                            WHERE du.device.serialNumber IS NULL
+                                    AND (:type IS NULL OR du.device.model.type = :type)
+                                    AND (:modelId IS NULL OR du.device.model.modelId = :modelId)
             """)
-    Integer sumDeviceAssigned();
+    Integer sumDeviceAssignedByType_Model(DeviceType type, Integer modelId);
 
     @Query("""
-                    SELECT COALESCE(SUM(du.quantity), 0) FROM DeviceUser du
+                    SELECT du.device.model.type, du.device.model.modelId, COALESCE(SUM(du.quantity), 0)
+                    FROM DeviceUser du
                             WHERE du.device.serialNumber IS NULL
                                     AND (:type IS NULL OR du.device.model.type = :type)
                                     AND (:modelId IS NULL OR du.device.model.modelId = :modelId)
+                    GROUP BY du.device.model.type, du.device.model.modelId
             """)
-    Integer sumDeviceAssignedByType_Model(DeviceType type, Integer modelId);
+    List<Object[]> sumDeviceAssignedGroupByType_Model(DeviceType type, Integer modelId);
 
 }
\ No newline at end of file
@@ -4,10 +4,12 @@ import com.concentrix.asset.entity.DeviceWarehouse;
 import com.concentrix.asset.entity.DeviceWarehouseId;
 import com.concentrix.asset.enums.DeviceType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,6 +17,31 @@ public interface DeviceWarehouseRepository extends JpaRepository<DeviceWarehouse
 
     Optional<DeviceWarehouse> findByWarehouse_WarehouseIdAndDevice_DeviceId(Integer warehouseId, Integer deviceId);
 
+    // Trừ kho atomic: chỉ update khi còn đủ số lượng, trả về số dòng bị ảnh hưởng (0 = không có/không đủ)
+    @Modifying
+    @Query(value = """
+                UPDATE device_warehouse SET quantity = quantity - :qty
+                WHERE warehouse_id = :warehouseId AND device_id = :deviceId AND quantity >= :qty
+            """, nativeQuery = true)
+    int decrementIfAvailable(@Param("warehouseId") Integer warehouseId,
+                             @Param("deviceId") Integer deviceId,
+                             @Param("qty") int qty);
+
+    // Cộng kho atomic, tạo dòng mới nếu chưa có
+    @Modifying
+    @Query(value = """
+                INSERT INTO device_warehouse (warehouse_id, device_id, quantity)
+                VALUES (:warehouseId, :deviceId, :qty)
+                ON DUPLICATE KEY UPDATE quantity = quantity + :qty
+            """, nativeQuery = true)
+    int increment(@Param("warehouseId") Integer warehouseId,
+                  @Param("deviceId") Integer deviceId,
+                  @Param("qty") int qty);
+
+    @Query(value = "SELECT quantity FROM device_warehouse WHERE warehouse_id = :warehouseId AND device_id = :deviceId",
+            nativeQuery = true)
+    Optional<Integer> findQuantity(@Param("warehouseId") Integer warehouseId, @Param("deviceId") Integer deviceId);
+
     // Lấy total device without serial in stock theo site, model, type
     @Query("""
                 SELECT COALESCE(SUM(dw.quantity), 0)
@@ -28,8 +55,18 @@ public interface DeviceWarehouseRepository extends JpaRepository<DeviceWarehouse
             @Param("type") DeviceType type,
             @Param("modelId") Integer modelId);
 
-    @Query("SELECT COALESCE(SUM(dw.quantity), 0) FROM DeviceWarehouse dw")
-    int sumAllStock();
+    // Tổng stock gom nhóm theo (site, type, model) trong một query
+    @Query("""
+                SELECT dw.warehouse.site.siteId, dw.device.model.type, dw.device.model.modelId,
+                       COALESCE(SUM(dw.quantity), 0)
+                FROM DeviceWarehouse dw
+                WHERE (:type IS NULL OR dw.device.model.type = :type)
+                  AND (:modelId IS NULL OR dw.device.model.modelId = :modelId)
+                GROUP BY dw.warehouse.site.siteId, dw.device.model.type, dw.device.model.modelId
+            """)
+    List<Object[]> sumStockGroupBySite_Type_Model(
+            @Param("type") DeviceType type,
+            @Param("modelId") Integer modelId);
 
     @Query("""
                 SELECT COALESCE(SUM(dw.quantity), 0) FROM DeviceWarehouse dw
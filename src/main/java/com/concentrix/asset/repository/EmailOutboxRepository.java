@@ -0,0 +1,51 @@
+package com.concentrix.asset.repository;
+
+import com.concentrix.asset.entity.EmailOutbox;
+import com.concentrix.asset.enums.EmailStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    boolean existsByDedupKey(String dedupKey);
+
+    // Email đến hạn gửi, hoặc đang SENDING nhưng worker giữ đã quá hạn (crash giữa chừng)
+    @Query("SELECT e.id FROM EmailOutbox e " +
+            "WHERE (e.status = com.concentrix.asset.enums.EmailStatus.PENDING AND e.nextAttemptAt <= :now) " +
+            "OR (e.status = com.concentrix.asset.enums.EmailStatus.SENDING AND e.lockedUntil < :now) " +
+            "ORDER BY e.nextAttemptAt, e.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Nhận email bằng UPDATE có điều kiện: chỉ một worker/instance nhận được mỗi email
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = com.concentrix.asset.enums.EmailStatus.SENDING, e.lockedUntil = :lockedUntil " +
+            "WHERE e.id = :id AND ((e.status = com.concentrix.asset.enums.EmailStatus.PENDING AND e.nextAttemptAt <= :now) " +
+            "OR (e.status = com.concentrix.asset.enums.EmailStatus.SENDING AND e.lockedUntil < :now))")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = com.concentrix.asset.enums.EmailStatus.SENT, e.sentAt = :sentAt, " +
+            "e.attempts = e.attempts + 1, e.lockedUntil = null, e.lastError = null WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    // Trả email về hàng đợi mà không tính là một lần thử (ví dụ bị giới hạn tần suất theo người nhận)
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = com.concentrix.asset.enums.EmailStatus.PENDING, " +
+            "e.nextAttemptAt = :nextAttemptAt, e.lockedUntil = null WHERE e.id = :id")
+    int defer(@Param("id") Long id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.attempts = e.attempts + 1, " +
+            "e.nextAttemptAt = :nextAttemptAt, e.lockedUntil = null, e.lastError = :lastError WHERE e.id = :id")
+    int markFailed(@Param("id") Long id, @Param("status") EmailStatus status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("lastError") String lastError);
+}
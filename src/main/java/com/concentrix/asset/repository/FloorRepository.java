@@ -3,15 +3,20 @@ package com.concentrix.asset.repository;
 import com.concentrix.asset.entity.Floor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface FloorRepository extends JpaRepository<Floor, Integer>, JpaSpecificationExecutor<Floor> {
     Page<Floor> findAllBySite_SiteId(Integer siteId, Pageable pageable);
 
     List<Floor> findAllBySite_SiteId(Integer siteId);
+
+    @EntityGraph(attributePaths = {"site", "account"})
+    Optional<Floor> findWithSiteByFloorId(Integer floorId);
 }
\ No newline at end of file
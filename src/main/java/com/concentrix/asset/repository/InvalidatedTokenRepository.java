@@ -2,7 +2,15 @@ package com.concentrix.asset.repository;
 
 import com.concentrix.asset.entity.InvalidatedToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Date;
 
 public interface InvalidatedTokenRepository extends JpaRepository<InvalidatedToken, String> {
 
+    @Modifying
+    @Query("DELETE FROM InvalidatedToken t WHERE t.expiryTime < :now")
+    int deleteAllByExpiryTimeBefore(@Param("now") Date now);
 }
@@ -1,7 +1,9 @@
 package com.concentrix.asset.repository;
 
+import com.concentrix.asset.config.CacheConfig;
 import com.concentrix.asset.entity.Model;
 import com.concentrix.asset.enums.DeviceType;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
@@ -14,5 +16,11 @@ public interface ModelRepository extends JpaRepository<Model, Integer>, JpaSpeci
 
     Optional<Model> findByModelName(String modelName);
 
+    // Model theo type dùng trong các report, cache lại (evict khi ghi ở ModelServiceImpl)
+    @Cacheable(CacheConfig.MODELS)
     List<Model> findByType(DeviceType type);
+
+    @Override
+    @Cacheable(CacheConfig.MODELS)
+    List<Model> findAll();
 }
\ No newline at end of file
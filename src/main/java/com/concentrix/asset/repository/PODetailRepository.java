@@ -7,5 +7,4 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 public interface PODetailRepository extends JpaRepository<PODetail, PODetailId> {
-    PODetail findByDevice_DeviceIdAndDevice_SerialNumberNotNull(Integer deviceId);
 }
\ No newline at end of file
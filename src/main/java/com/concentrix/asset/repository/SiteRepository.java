@@ -1,10 +1,18 @@
 package com.concentrix.asset.repository;
 
+import com.concentrix.asset.config.CacheConfig;
 import com.concentrix.asset.entity.Site;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface SiteRepository extends JpaRepository<Site, Integer> {
     Optional<Site> findBySiteName(String siteName);
+
+    // Danh sách site dùng trong mọi report, cache lại (evict khi ghi ở SiteServiceImpl)
+    @Override
+    @Cacheable(CacheConfig.SITES)
+    List<Site> findAll();
 }
@@ -0,0 +1,14 @@
+package com.concentrix.asset.repository;
+
+import com.concentrix.asset.entity.SnapshotCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface SnapshotCheckpointRepository extends JpaRepository<SnapshotCheckpoint, LocalDate> {
+
+    Optional<SnapshotCheckpoint> findFirstByCheckpointDateLessThanEqualOrderByCheckpointDateDesc(LocalDate date);
+}
@@ -0,0 +1,31 @@
+package com.concentrix.asset.repository;
+
+import com.concentrix.asset.entity.SnapshotDeviceDelta;
+import com.concentrix.asset.entity.SnapshotDeviceDeltaId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SnapshotDeviceDeltaRepository extends JpaRepository<SnapshotDeviceDelta, SnapshotDeviceDeltaId> {
+
+    // Các thay đổi trong khoảng (after, upTo], theo thứ tự ngày. after = null: từ đầu.
+    // Mỗi dòng: [deviceId, status, siteId]
+    @Query("""
+            SELECT d.deviceId, d.status, d.siteId
+            FROM SnapshotDeviceDelta d
+            WHERE (:after IS NULL OR d.changeDate > :after)
+              AND d.changeDate <= :upTo
+            ORDER BY d.changeDate
+            """)
+    List<Object[]> findChangesBetween(@Param("after") LocalDate after, @Param("upTo") LocalDate upTo);
+
+    @Modifying
+    @Query("DELETE FROM SnapshotDeviceDelta d WHERE d.changeDate = :changeDate")
+    int deleteByChangeDate(@Param("changeDate") LocalDate changeDate);
+}
@@ -5,6 +5,7 @@ import com.concentrix.asset.enums.DeviceStatus;
 import com.concentrix.asset.enums.DeviceType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -31,4 +32,65 @@ public interface SnapshotDeviceRepository
                         @Param("status") DeviceStatus status,
                         @Param("type") DeviceType type);
 
-}
\ No newline at end of file
+        // Thiết bị có trong snapshot :date nhưng không có trong snapshot :otherDate (cùng bộ lọc site/status/type).
+        // Anti-join bằng NOT EXISTS trên khóa (device, snapshotDate), chỉ trả về các dòng chênh lệch.
+        // Mỗi dòng: [serialNumber, deviceName, modelName, type, status, siteName]
+        @Query("""
+                        SELECT d.serialNumber, d.deviceName, m.modelName, m.type, sd.status, s.siteName
+                        FROM SnapshotDevice sd
+                        JOIN sd.device d
+                        LEFT JOIN d.model m
+                        LEFT JOIN sd.site s
+                        WHERE sd.snapshotDate = :date
+                          AND (:siteId IS NULL OR s.siteId = :siteId)
+                          AND (:status IS NULL OR sd.status = :status)
+                          AND (:type IS NULL OR m.type = :type)
+                          AND NOT EXISTS (
+                              SELECT 1 FROM SnapshotDevice other
+                              LEFT JOIN other.site os
+                              WHERE other.device = sd.device
+                                AND other.snapshotDate = :otherDate
+                                AND (:siteId IS NULL OR os.siteId = :siteId)
+                                AND (:status IS NULL OR other.status = :status)
+                          )
+                        ORDER BY d.deviceId
+                        """)
+        List<Object[]> findDevicesMissingInOtherSnapshot(
+                        @Param("date") LocalDate date,
+                        @Param("otherDate") LocalDate otherDate,
+                        @Param("siteId") Integer siteId,
+                        @Param("status") DeviceStatus status,
+                        @Param("type") DeviceType type);
+
+        // Chụp snapshot bằng một câu INSERT ... SELECT phía DB, không load Device lên bộ nhớ.
+        // site lấy theo kho nếu có, không thì theo sàn (giống cách tính cũ trên entity)
+        @Modifying
+        @Query(value = """
+                        INSERT INTO snapshot_device (device_id, snapshot_date, site_id, status)
+                        SELECT d.device_id, :date,
+                               CASE WHEN d.warehouse_id IS NOT NULL THEN w.site_id ELSE f.site_id END,
+                               d.status
+                        FROM device d
+                        LEFT JOIN warehouse w ON w.warehouse_id = d.warehouse_id
+                        LEFT JOIN floor f ON f.floor_id = d.floor_id
+                        WHERE d.serial_number IS NOT NULL
+                        """, nativeQuery = true)
+        int insertSnapshotFromDevices(@Param("date") LocalDate date);
+
+        // Ngày gần nhất <= :date có snapshot đầy đủ (null nếu chưa có)
+        @Query("SELECT MAX(sd.snapshotDate) FROM SnapshotDevice sd WHERE sd.snapshotDate <= :date")
+        LocalDate findLatestSnapshotDate(@Param("date") LocalDate date);
+
+        // Snapshot đầy đủ của một ngày, không load entity. Mỗi dòng: [deviceId, status, siteId]
+        @Query("""
+                        SELECT sd.device.deviceId, sd.status, s.siteId
+                        FROM SnapshotDevice sd
+                        LEFT JOIN sd.site s
+                        WHERE sd.snapshotDate = :date
+                        """)
+        List<Object[]> findStatesByDate(@Param("date") LocalDate date);
+
+        @Modifying
+        @Query("DELETE FROM SnapshotDevice sd WHERE sd.snapshotDate = :date")
+        int deleteBySnapshotDate(@Param("date") LocalDate date);
+}
@@ -3,11 +3,14 @@ package com.concentrix.asset.repository;
 import com.concentrix.asset.entity.TransactionDetail;
 import com.concentrix.asset.entity.TransactionDetailId;
 import com.concentrix.asset.enums.DeviceType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,7 +18,53 @@ public interface TransactionDetailRepository extends JpaRepository<TransactionDe
 
     TransactionDetail findFirstByDevice_DeviceIdOrderByTransaction_TransactionIdDesc(Integer deviceId);
 
-    List<TransactionDetail> findAllByDevice_DeviceIdOrderByTransaction_TransactionIdAsc(Integer deviceId);
+    // Lịch sử di chuyển theo serial, mới nhất trước, gộp cả dòng nhập từ PO (sortKey = 0, transactionType NULL, luôn nằm cuối).
+    // UNION đặt trong subquery để ORDER BY và limit áp dụng cho cả hai nhánh.
+    // [sortKey, transactionType, createdAt, poCreatedAt, createdByEid, createdByName, userUseName,
+    //  fromWarehouseName, toWarehouseName, fromFloorName, toFloorName, vendorName]
+    @Query("""
+            SELECT h.sortKey, h.transactionType, h.createdAt, h.poCreatedAt, h.createdByEid, h.createdByName,
+                   h.userUseName, h.fromWarehouseName, h.toWarehouseName, h.fromFloorName, h.toFloorName, h.vendorName
+            FROM (
+                SELECT t.transactionId AS sortKey,
+                       CAST(t.transactionType AS String) AS transactionType,
+                       t.createdAt AS createdAt,
+                       CAST(NULL AS LocalDate) AS poCreatedAt,
+                       cb.eid AS createdByEid,
+                       cb.fullName AS createdByName,
+                       uu.fullName AS userUseName,
+                       fw.warehouseName AS fromWarehouseName,
+                       tw.warehouseName AS toWarehouseName,
+                       ff.floorName AS fromFloorName,
+                       tf.floorName AS toFloorName,
+                       CAST(NULL AS String) AS vendorName
+                FROM TransactionDetail td
+                JOIN td.transaction t
+                LEFT JOIN t.createdBy cb
+                LEFT JOIN t.userUse uu
+                LEFT JOIN t.fromWarehouse fw
+                LEFT JOIN t.toWarehouse tw
+                LEFT JOIN t.fromFloor ff
+                LEFT JOIN t.toFloor tf
+                WHERE td.device.serialNumber = :serialNumber
+                  AND (:beforeKey IS NULL OR t.transactionId < :beforeKey)
+                UNION ALL
+                SELECT 0, CAST(NULL AS String), CAST(NULL AS LocalDateTime), po.createdAt, pcb.eid, pcb.fullName,
+                       CAST(NULL AS String), CAST(NULL AS String), pw.warehouseName,
+                       CAST(NULL AS String), CAST(NULL AS String), v.vendorName
+                FROM PODetail pd
+                JOIN pd.purchaseOrder po
+                LEFT JOIN po.createdBy pcb
+                LEFT JOIN po.warehouse pw
+                LEFT JOIN po.vendor v
+                WHERE pd.device.serialNumber = :serialNumber
+                  AND (:beforeKey IS NULL OR :beforeKey > 0)
+            ) h
+            ORDER BY h.sortKey DESC
+            """)
+    List<Object[]> findMovementHistory(@Param("serialNumber") String serialNumber,
+                                       @Param("beforeKey") Integer beforeKey,
+                                       Limit limit);
 
     List<TransactionDetail> findAllByDevice_DeviceIdAndTransaction_UserUse_Eid(Integer deviceId, String eid);
 
@@ -34,6 +83,41 @@ public interface TransactionDetailRepository extends JpaRepository<TransactionDe
             """)
     List<Object[]> getDeviceAndQuantityByEid(@Param("eid") String eid);
 
+    // Các dòng item (transactionId, deviceId, deviceName, modelName, serialNumber, quantity) của cả một trang transaction
+    @Query("""
+                SELECT td.transaction.transactionId, d.deviceId, d.deviceName, m.modelName, d.serialNumber, td.quantity
+                FROM TransactionDetail td
+                JOIN td.device d
+                LEFT JOIN d.model m
+                WHERE td.transaction.transactionId IN :transactionIds
+                ORDER BY td.transaction.transactionId, d.deviceId
+            """)
+    List<Object[]> findItemRowsByTransactionIdIn(@Param("transactionIds") Collection<Integer> transactionIds);
+
+    // Số lượng còn phải trả theo (user, device): ASSIGNMENT có hạn trả <= :date trừ toàn bộ RETURN_FROM_USER,
+    // chỉ trả về các cặp còn dương. Chỉ xét user có ít nhất một ASSIGNMENT đến hạn.
+    @Query("""
+                SELECT t.userUse.eid, td.device.deviceId,
+                       SUM(CASE
+                               WHEN t.transactionType = 'ASSIGNMENT' THEN td.quantity
+                               ELSE -td.quantity
+                           END)
+                FROM TransactionDetail td
+                JOIN td.transaction t
+                WHERE ((t.transactionType = 'ASSIGNMENT' AND t.returnDate <= :date)
+                       OR t.transactionType = 'RETURN_FROM_USER')
+                  AND t.userUse.eid IN (
+                        SELECT a.userUse.eid FROM AssetTransaction a
+                        WHERE a.transactionType = 'ASSIGNMENT' AND a.returnDate <= :date)
+                GROUP BY t.userUse.eid, td.device.deviceId
+                HAVING SUM(CASE
+                               WHEN t.transactionType = 'ASSIGNMENT' THEN td.quantity
+                               ELSE -td.quantity
+                           END) > 0
+                ORDER BY t.userUse.eid, td.device.deviceId
+            """)
+    List<Object[]> findPendingReturnQuantities(@Param("date") LocalDate date);
+
     // Lấy total device without serial floor in)
     @Query("""
                 SELECT COALESCE(SUM(td.quantity), 0) FROM TransactionDetail td
@@ -165,38 +249,6 @@ public interface TransactionDetailRepository extends JpaRepository<TransactionDe
             """)
     Integer sumAllReturnFromFloor();
 
-    // Tổng quantity DISPOSAL cho tất cả site
-    @Query("""
-                SELECT COALESCE(SUM(td.quantity), 0) FROM TransactionDetail td
-                WHERE (td.device.serialNumber IS NULL)
-                  AND td.transaction.transactionType = 'DISPOSAL'
-            """)
-    Integer sumAllDisposal();
-
-    // Tổng quantity E_WASTE cho tất cả site
-    @Query("""
-                SELECT COALESCE(SUM(td.quantity), 0) FROM TransactionDetail td
-                WHERE (td.device.serialNumber IS NULL)
-                  AND td.transaction.transactionType = 'E_WASTE'
-            """)
-    Integer sumAllEWaste();
-
-    // Tổng quantity REPAIR cho tất cả site
-    @Query("""
-                SELECT COALESCE(SUM(td.quantity), 0) FROM TransactionDetail td
-                WHERE (td.device.serialNumber IS NULL)
-                  AND td.transaction.transactionType = 'REPAIR'
-            """)
-    Integer sumAllRepair();
-
-    // Tổng quantity RETURN_FROM_REPAIR cho tất cả site
-    @Query("""
-                SELECT COALESCE(SUM(td.quantity), 0) FROM TransactionDetail td
-                WHERE (td.device.serialNumber IS NULL)
-                  AND td.transaction.transactionType = 'RETURN_FROM_REPAIR'
-            """)
-    Integer sumAllReturnFromRepair();
-
     // Tổng quantity ASSIGNMENT cho tất cả site
     @Query("""
                 SELECT COALESCE(SUM(td.quantity), 0) FROM TransactionDetail td
@@ -213,12 +265,18 @@ public interface TransactionDetailRepository extends JpaRepository<TransactionDe
             """)
     Integer sumAllReturnFromUser();
 
-    // Lấy total device without serial on_the-move
+    // Tổng on_the_move gom nhóm theo (type, model)
     @Query("""
-                SELECT COALESCE(SUM(td.quantity), 0) FROM TransactionDetail td
+                SELECT td.device.model.type, td.device.model.modelId, COALESCE(SUM(td.quantity), 0)
+                FROM TransactionDetail td
                 WHERE (td.device.serialNumber IS NULL)
+                  AND (:type IS NULL OR td.device.model.type = :type)
+                  AND (:modelId IS NULL OR td.device.model.modelId = :modelId)
                   AND td.transaction.transactionType = 'TRANSFER_SITE'
                   AND td.transaction.transactionStatus IN ('PENDING', 'APPROVED')
+                GROUP BY td.device.model.type, td.device.model.modelId
             """)
-    Integer sumAllOnTheMove();
+    List<Object[]> sumOnTheMoveGroupByType_Model(
+            @Param("type") DeviceType type,
+            @Param("modelId") Integer modelId);
 }
\ No newline at end of file
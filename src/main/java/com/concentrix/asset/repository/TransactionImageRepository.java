@@ -3,10 +3,22 @@ package com.concentrix.asset.repository;
 import com.concentrix.asset.entity.TransactionImage;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface TransactionImageRepository extends JpaRepository<TransactionImage, Integer>, JpaSpecificationExecutor<TransactionImage> {
 
-
+    // (transactionId, imageName) của cả một trang transaction trong một query
+    @Query("""
+                SELECT i.assetTransaction.transactionId, i.imageName
+                FROM TransactionImage i
+                WHERE i.assetTransaction.transactionId IN :transactionIds
+                ORDER BY i.transactionImageId
+            """)
+    List<Object[]> findImageNamesByTransactionIdIn(@Param("transactionIds") Collection<Integer> transactionIds);
 }
\ No newline at end of file
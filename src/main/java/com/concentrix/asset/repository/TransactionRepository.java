@@ -1,16 +1,15 @@
 package com.concentrix.asset.repository;
 
 import com.concentrix.asset.entity.AssetTransaction;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 
 @Repository
@@ -18,20 +17,13 @@ public interface TransactionRepository extends JpaRepository<AssetTransaction, I
 
     List<AssetTransaction> findAllByUserUse_Eid(String eid);
 
-    @Query("SELECT t FROM AssetTransaction t WHERE t.transactionType = 'TRANSFER_SITE' " +
-            "AND t.transactionStatus IN ('PENDING', 'APPROVED') ")
-    Page<AssetTransaction> findPendingOrApprovedTransfers(Pageable pageable);
+    // Màn hình chi tiết phiếu: header, các bên liên quan và danh sách thiết bị trong một query
+    @EntityGraph("AssetTransaction.detail")
+    Optional<AssetTransaction> findDetailByTransactionId(Integer transactionId);
 
-    @Query("""
-           SELECT t FROM AssetTransaction t
-           WHERE t.userUse IS NOT NULL
-             AND (
-                  (t.transactionType = TransactionType.ASSIGNMENT
-                       AND t.returnDate <= :date)
-                  OR t.transactionType = RETURN_FROM_USER
-                 )
-           """)
-    List<AssetTransaction> findTransactionForReminder(@Param("date") LocalDate date);
+    // Biên bản bàn giao: thêm site của kho để in địa chỉ
+    @EntityGraph("AssetTransaction.handover")
+    Optional<AssetTransaction> findHandoverByTransactionId(Integer transactionId);
 
     @Query("""
             SELECT t
@@ -39,6 +31,7 @@ public interface TransactionRepository extends JpaRepository<AssetTransaction, I
             WHERE t.images IS EMPTY
                 AND t.transactionType in ('ASSIGNMENT', 'RETURN_FROM_USER')
             """)
+    @EntityGraph(attributePaths = {"createdBy", "userUse", "fromWarehouse.site", "toWarehouse.site"})
     List<AssetTransaction> findTransactionsWithoutImages();
 
 }
\ No newline at end of file
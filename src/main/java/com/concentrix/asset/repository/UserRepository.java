@@ -4,8 +4,11 @@ import com.concentrix.asset.entity.User;
 import com.concentrix.asset.enums.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,5 +32,14 @@ public interface UserRepository extends JpaRepository<User, String>, JpaSpecific
             """)
     List<String> findEmailByRoleAndSiteId(Role role, Integer siteId);
 
+    // Chỉ lấy các cột cần cho search index, tránh load entity cùng các quan hệ EAGER
+    @Query("SELECT u.eid, u.email, u.fullName, u.sso, u.msa FROM User u")
+    List<Object[]> findAllSearchFields();
+
+    // Bulk update: không load entity, chỉ đổi user đang active
+    @Modifying
+    @Query("UPDATE User u SET u.isActive = false, u.updatedAt = CURRENT_TIMESTAMP WHERE u.eid IN :eids AND u.isActive = true")
+    int deactivateAllByEidIn(@Param("eids") Collection<String> eids);
+
 
 }
\ No newline at end of file
@@ -3,13 +3,19 @@ package com.concentrix.asset.repository;
 import com.concentrix.asset.entity.Warehouse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface WarehouseRepository extends JpaRepository<Warehouse, Integer>, JpaSpecificationExecutor<Warehouse> {
     Page<Warehouse> findAll(Pageable pageable);
 
     List<Warehouse> findAllBySite_SiteId(Integer siteId);
+
+    // Bản ghi được giữ trong cache sau khi đóng session nên phải nạp sẵn site
+    @EntityGraph(attributePaths = "site")
+    Optional<Warehouse> findWithSiteByWarehouseId(Integer warehouseId);
 }
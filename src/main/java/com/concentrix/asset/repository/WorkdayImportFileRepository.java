@@ -0,0 +1,13 @@
+package com.concentrix.asset.repository;
+
+import com.concentrix.asset.entity.WorkdayImportFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface WorkdayImportFileRepository extends JpaRepository<WorkdayImportFile, Integer> {
+
+    Optional<WorkdayImportFile> findFirstByOrderByIdDesc();
+}
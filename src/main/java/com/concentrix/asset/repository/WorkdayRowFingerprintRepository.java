@@ -0,0 +1,22 @@
+package com.concentrix.asset.repository;
+
+import com.concentrix.asset.entity.WorkdayRowFingerprint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WorkdayRowFingerprintRepository extends JpaRepository<WorkdayRowFingerprint, String> {
+
+    @Query("SELECT f.eid FROM WorkdayRowFingerprint f")
+    List<String> findAllEids();
+
+    @Modifying
+    @Query("DELETE FROM WorkdayRowFingerprint f WHERE f.eid IN :eids")
+    int deleteAllByEidIn(@Param("eids") Collection<String> eids);
+}
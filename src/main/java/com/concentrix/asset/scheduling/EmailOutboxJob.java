@@ -0,0 +1,31 @@
+package com.concentrix.asset.scheduling;
+
+import com.concentrix.asset.service.EmailService;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class EmailOutboxJob {
+
+    EmailService emailService;
+
+    // Lấy email đến hạn trong outbox và gửi; lần chạy sau chỉ bắt đầu khi lần trước xong
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval}")
+    public void dispatchOutbox() {
+        try {
+            int sent = emailService.dispatchDue();
+            if (sent > 0) {
+                log.info("[SCHEDULER] Email outbox dispatched {} email(s)", sent);
+            }
+        } catch (Exception e) {
+            log.error("[SCHEDULER] [ERROR] Email outbox dispatch failed", e);
+        }
+    }
+}
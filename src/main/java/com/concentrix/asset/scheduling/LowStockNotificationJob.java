@@ -120,7 +120,7 @@ public class LowStockNotificationJob {
                     .append(" (").append(total).append(")</td>");
 
             for (String site : siteNames) {
-                String cellValue = "> 4-5%"; // mặc định là không có
+                String cellValue = "> threshold"; // mặc định là không có
                 Map<String, Integer> bySite = availableMap.get(key);
                 boolean hasData = false;
                 if (bySite != null && bySite.containsKey(site)) {
@@ -0,0 +1,29 @@
+package com.concentrix.asset.scheduling;
+
+import com.concentrix.asset.service.TokenRevocationService;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class PurgeInvalidatedTokenJob {
+
+    TokenRevocationService tokenRevocationService;
+
+    // Chạy mỗi giờ: token đã hết hạn thì bị verifyToken từ chối trước, không cần giữ trong danh sách thu hồi
+    @Scheduled(cron = "0 15 * * * *")
+    public void purgeExpiredTokens() {
+        try {
+            int deleted = tokenRevocationService.purgeExpired();
+            log.info("[SCHEDULER] Purged {} expired invalidated tokens", deleted);
+        } catch (Exception e) {
+            log.error("[SCHEDULER] [ERROR] Failed to purge expired invalidated tokens", e);
+        }
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -53,7 +54,9 @@ public class RemindReturnAssetJob {
             String html = buildReturnReminderHtml(user, deviceRemaining);
             try {
                 String subject = "[AMS_VN] Asset Return Reminder - Auto Notification";
-                emailService.sendEmail(user.getEmail(), subject, html, null, List.of(alertSystemEmail, localITEmail));
+                // Job chạy lại trong ngày (restart, chạy tay) không gửi nhắc trùng cho cùng người dùng
+                emailService.sendEmail(user.getEmail(), subject, html, null, List.of(alertSystemEmail, localITEmail),
+                        "REMIND_RETURN:" + user.getEid() + ":" + LocalDate.now());
             } catch (Exception e) {
                 log.error("[SCHEDULER] Failed to send email to {}: {}", user.getEmail(), e.getMessage());
             }
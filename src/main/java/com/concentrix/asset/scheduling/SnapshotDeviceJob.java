@@ -29,8 +29,10 @@ public class SnapshotDeviceJob {
     @Scheduled(cron = "0 30 23 * * *")
     public void snapshotDataDevice() throws MessagingException {
         try{
-            snapshotDeviceService.snapshotDataDevice();
-            log.info("[SCHEDULER] [SUCCESS] Snapshot data device successfully");
+            long start = System.currentTimeMillis();
+            int rows = snapshotDeviceService.snapshotDataDevice();
+            log.info("[SCHEDULER] [SUCCESS] Snapshot data device successfully: {} rows in {} ms",
+                    rows, System.currentTimeMillis() - start);
         }
         catch (Exception e){
             log.error("[SCHEDULER] [ERROR] Failed to snapshot data device", e);
@@ -34,7 +34,14 @@ public class UpdateWorkdayJob {
     public void updateWorkday() throws MessagingException {
         try {
             var result = workdayService.importFromWorkday();
-            log.info("[Workday][Import] created={}, updated={}", result.get("created"), result.get("updated"));
+            if (result.containsKey("status")) {
+                log.info("[Workday][Import] {}: {}", result.get("status"), result.get("reason"));
+                return;
+            }
+            log.info("[Workday][Import] created={}, updated={}, unchanged={}, deactivated={}, rejected={} | parse={}ms, prefetch={}ms, write={}ms, total={}ms",
+                    result.get("created"), result.get("updated"), result.get("unchanged"), result.get("deactivated"),
+                    result.get("rejected"), result.get("parseMs"), result.get("prefetchMs"), result.get("writeMs"),
+                    result.get("totalMs"));
         } catch (Exception e) {
             log.error("[Workday][Import][ERROR] {}", e.getMessage(), e);
             String subject = "Workday Import Error";
@@ -0,0 +1,36 @@
+package com.concentrix.asset.service;
+
+import com.concentrix.asset.dto.response.RollupDiffResponse;
+import com.concentrix.asset.entity.Device;
+import com.concentrix.asset.entity.Floor;
+import com.concentrix.asset.entity.Warehouse;
+import com.concentrix.asset.enums.DeviceStatus;
+
+import java.util.List;
+
+public interface DeviceCountRollupService {
+
+    // Thiết bị có serial: gọi trước khi thay đổi status/vị trí
+    void removeSerialDevice(Device device);
+
+    // Thiết bị có serial: gọi sau khi đã cập nhật status/vị trí
+    void addSerialDevice(Device device);
+
+    // Không serial, gắn với kho: IN_STOCK, E_WASTE
+    void adjustInWarehouse(Device device, DeviceStatus status, Warehouse warehouse, int delta);
+
+    // Không serial, gắn với sàn: IN_FLOOR
+    void adjustInFloor(Device device, Floor floor, int delta);
+
+    // Không serial, không gắn site: ASSIGNED, ON_THE_MOVE, DISPOSED, REPAIR
+    void adjust(Device device, DeviceStatus status, int delta);
+
+    // Kho/sàn đã đổi site: chuyển các bucket đang gắn site cũ sang site hiện tại
+    void relocateWarehouse(Warehouse warehouse);
+
+    void relocateFloor(Floor floor);
+
+    int rebuild();
+
+    List<RollupDiffResponse> check();
+}
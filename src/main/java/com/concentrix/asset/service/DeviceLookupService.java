@@ -0,0 +1,39 @@
+package com.concentrix.asset.service;
+
+import com.concentrix.asset.dto.request.TransactionItem;
+import com.concentrix.asset.entity.Device;
+
+import java.util.*;
+
+public interface DeviceLookupService {
+
+    // Load một lần toàn bộ serial (item có serial) và model (item chỉ có modelId) của request
+    DeviceLookup resolve(List<TransactionItem> items);
+
+    DeviceLookup resolve(Collection<String> serialNumbers, Collection<Integer> modelIds);
+
+    // Kết quả resolve, dùng thay cho findBySerialNumber / findFirstByModel_ModelId trong vòng lặp item
+    final class DeviceLookup {
+        // MySQL so sánh serial không phân biệt hoa thường nên map cũng vậy
+        final Map<String, Device> bySerialNumber = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        final Map<Integer, Device> byModelId = new HashMap<>();
+
+        public DeviceLookup(Collection<Device> serialDevices, Collection<Device> modelDevices) {
+            serialDevices.forEach(device -> bySerialNumber.put(device.getSerialNumber(), device));
+            modelDevices.forEach(this::addModelDevice);
+        }
+
+        public Optional<Device> findBySerialNumber(String serialNumber) {
+            return Optional.ofNullable(serialNumber).map(bySerialNumber::get);
+        }
+
+        public Optional<Device> findFirstByModelId(Integer modelId) {
+            return Optional.ofNullable(modelId).map(byModelId::get);
+        }
+
+        // Device không serial vừa được tạo trong cùng request (PO) để các item sau dùng lại
+        public void addModelDevice(Device device) {
+            byModelId.putIfAbsent(device.getModel().getModelId(), device);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.concentrix.asset.service;
 
 import com.concentrix.asset.dto.request.UpdateDeviceRequest;
 import com.concentrix.asset.dto.request.UpdateSeatNumberRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.DeviceBorrowingInfoResponse;
 import com.concentrix.asset.dto.response.DeviceMovementHistoryResponse;
 import com.concentrix.asset.dto.response.DeviceResponse;
@@ -22,8 +23,14 @@ public interface DeviceService {
     Page<DeviceResponse> filterDevices(String search, DeviceType type, Integer modelId, DeviceStatus status,
                                        Pageable pageable);
 
+    CursorPageResponse<DeviceResponse> scrollDevices(String search, DeviceType type, Integer modelId, DeviceStatus status,
+                                                     String cursor, int size);
+
     List<DeviceMovementHistoryResponse> getDeviceMovementHistoryBySerial(String serialNumber);
 
+    CursorPageResponse<DeviceMovementHistoryResponse> scrollDeviceMovementHistory(String serialNumber, String cursor,
+                                                                                  int size);
+
     List<DeviceBorrowingInfoResponse.DeviceInfo> getBorrowingDevicesByUser(String eid);
 
     Page<DeviceBorrowingInfoResponse> getUsersBorrowingDevice(Pageable pageable);
@@ -0,0 +1,20 @@
+package com.concentrix.asset.service;
+
+import com.concentrix.asset.entity.EmailOutbox;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// Ghi nhận trạng thái email trong outbox; mỗi lời gọi là một transaction ngắn, không giữ transaction khi gửi SMTP
+public interface EmailOutboxService {
+
+    List<EmailOutbox> claimDue(int limit);
+
+    void markSent(Collection<Long> ids);
+
+    // permanent = true: lỗi không thể gửi lại (địa chỉ sai...), chuyển thẳng sang DEAD
+    void markFailed(EmailOutbox email, String error, boolean permanent);
+
+    void defer(Long id, LocalDateTime nextAttemptAt);
+}
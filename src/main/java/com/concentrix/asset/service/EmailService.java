@@ -6,6 +6,13 @@ import java.util.List;
 
 public interface EmailService {
 
+    // Lưu email vào outbox (cùng transaction với nghiệp vụ gọi), worker gửi sau
     void sendEmail(String to, String subject, String body, List<String> cc, List<String> bcc) throws MessagingException;
 
+    // Như trên, bỏ qua nếu đã có email với cùng dedupKey (job chạy lại không gửi trùng)
+    void sendEmail(String to, String subject, String body, List<String> cc, List<String> bcc, String dedupKey);
+
+    // Gửi các email đến hạn trong outbox, trả về số email gửi thành công
+    int dispatchDue();
+
 }
@@ -7,6 +7,8 @@ import com.concentrix.asset.dto.response.TypeSummaryResponse;
 import com.concentrix.asset.enums.DeviceStatus;
 import com.concentrix.asset.enums.DeviceType;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -29,7 +31,7 @@ public interface ReportService {
 
         List<SiteTypeChartResponse> getSiteTypeChartWithoutSerial(DeviceStatus status);
 
-        byte[] generateDeviceListCsv(
+        void writeDeviceListCsv(OutputStream outputStream,
                         Integer siteId, DeviceStatus status, Integer floorId, Integer ownerId, Integer accountId,
-                        DeviceType type, Integer modelId, Boolean isOutOfWarranty, String ageRange);
+                        DeviceType type, Integer modelId, Boolean isOutOfWarranty, String ageRange) throws IOException;
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.concentrix.asset.service;
+
+import com.concentrix.asset.entity.Device;
+import com.concentrix.asset.entity.User;
+
+import java.util.List;
+
+public interface SearchIndexService {
+
+    // Nạp lại toàn bộ index từ DB (khởi động ứng dụng)
+    void rebuild();
+
+    // Các thay đổi chỉ được áp dụng vào index sau khi transaction commit
+    void indexUser(User user);
+
+    void removeUser(User user);
+
+    void indexDevice(Device device);
+
+    void removeDevice(Device device);
+
+    // Đổi tên model thì các device thuộc model đó phải được index lại
+    void reindexDevicesOfModel(Integer modelId);
+
+    // Trả về eid theo thứ tự xếp hạng, tối đa limit phần tử
+    List<String> searchUserIds(String query, int limit);
+
+    // Trả về deviceId theo thứ tự xếp hạng, tối đa limit phần tử
+    List<Integer> searchDeviceIds(String query, int limit);
+}
@@ -3,5 +3,5 @@ package com.concentrix.asset.service;
 import com.concentrix.asset.dto.response.SearchResultResponse;
 
 public interface SearchService {
-    SearchResultResponse search(String query);
+    SearchResultResponse search(String query, int limit);
 }
\ No newline at end of file
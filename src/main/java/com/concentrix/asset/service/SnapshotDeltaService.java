@@ -0,0 +1,20 @@
+package com.concentrix.asset.service;
+
+import com.concentrix.asset.enums.DeviceStatus;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+public interface SnapshotDeltaService {
+
+    // Trạng thái của một thiết bị trong snapshot
+    record DeviceState(DeviceStatus status, Integer siteId) {
+    }
+
+    // Ghi các thay đổi của ngày date so với snapshot trước đó (chạy lại trong ngày thì ghi đè).
+    // Tạo checkpoint nếu đã đến hạn. Trả về số dòng delta đã ghi.
+    int record(LocalDate date);
+
+    // Dựng lại snapshot tại ngày date: deviceId -> trạng thái
+    Map<Integer, DeviceState> reconstruct(LocalDate date);
+}
@@ -10,7 +10,8 @@ import java.time.LocalDate;
 
 public interface SnapshotDeviceService {
 
-    void snapshotDataDevice();
+    // Trả về số dòng đã ghi (full: số thiết bị, delta: số thay đổi)
+    int snapshotDataDevice();
 
     CompareDataResponse getDataCompare(LocalDate fromDate, LocalDate toDate, String groupBy, Integer siteId,
                                        DeviceStatus status, DeviceType type);
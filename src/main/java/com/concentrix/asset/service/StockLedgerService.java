@@ -0,0 +1,29 @@
+package com.concentrix.asset.service;
+
+import com.concentrix.asset.entity.Device;
+import com.concentrix.asset.entity.Floor;
+import com.concentrix.asset.entity.User;
+import com.concentrix.asset.entity.Warehouse;
+
+/**
+ * Cập nhật số lượng thiết bị không serial (DeviceWarehouse/DeviceFloor/DeviceUser) bằng một câu UPDATE
+ * có điều kiện ở phía DB thay vì đọc entity - sửa - save, nên hai request đồng thời không ghi đè nhau
+ * và không trừ quá số lượng đang có. Không cập nhật rollup, service gọi vẫn tự gọi DeviceCountRollupService.
+ */
+public interface StockLedgerService {
+
+    // Ném DEVICE_NOT_FOUND_IN_WAREHOUSE hoặc STOCK_OUT nếu không trừ được
+    void takeFromWarehouse(Device device, Warehouse warehouse, int quantity);
+
+    void addToWarehouse(Device device, Warehouse warehouse, int quantity);
+
+    // Ném DEVICE_NOT_FOUND_IN_FLOOR hoặc DEVICE_NOT_ENOUGH_IN_FLOOR nếu không trừ được
+    void takeFromFloor(Device device, Floor floor, int quantity);
+
+    void addToFloor(Device device, Floor floor, int quantity);
+
+    // Ném INVALID_DEVICE_USER hoặc RETURN_QUANTITY_EXCEEDS_BORROWED nếu không trừ được
+    void takeFromUser(Device device, User user, int quantity);
+
+    void addToUser(Device device, User user, int quantity);
+}
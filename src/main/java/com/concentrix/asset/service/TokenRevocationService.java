@@ -0,0 +1,17 @@
+package com.concentrix.asset.service;
+
+import java.util.Date;
+
+// Danh sách token đã bị thu hồi (logout/refresh), giữ trong bộ nhớ để không phải query DB mỗi lần kiểm tra
+public interface TokenRevocationService {
+
+    // Nạp lại toàn bộ token chưa hết hạn từ bảng invalidated_token
+    void reload();
+
+    boolean isRevoked(String tokenId);
+
+    void revoke(String tokenId, Date expiryTime);
+
+    // Xoá token đã hết hạn khỏi DB và bộ nhớ, trả về số dòng đã xoá trong DB
+    int purgeExpired();
+}
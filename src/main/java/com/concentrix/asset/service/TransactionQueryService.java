@@ -0,0 +1,17 @@
+package com.concentrix.asset.service;
+
+import com.concentrix.asset.dto.TransactionView;
+import com.concentrix.asset.dto.response.CursorPageResponse;
+import com.concentrix.asset.entity.AssetTransaction;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+// Đọc danh sách transaction dạng projection cho các màn hình filter, không load entity
+public interface TransactionQueryService {
+
+    Page<TransactionView> findAll(Specification<AssetTransaction> spec, Pageable pageable);
+
+    // Phân trang keyset, mới nhất trước; cursor null là trang đầu
+    CursorPageResponse<TransactionView> scroll(Specification<AssetTransaction> spec, String cursor, int size);
+}
@@ -3,6 +3,7 @@ package com.concentrix.asset.service;
 import com.concentrix.asset.dto.request.CreateUserRequest;
 import com.concentrix.asset.dto.request.UpdateUserRequest;
 import com.concentrix.asset.dto.request.UserImportRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.TransactionItemsResponse;
 import com.concentrix.asset.dto.response.TransactionResponse;
 import com.concentrix.asset.dto.response.UserResponse;
@@ -11,6 +12,7 @@ import com.concentrix.asset.enums.Role;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -25,8 +27,13 @@ public interface UserService {
 
     Page<UserResponse> filterUser(String search, Role role, Integer accountId, Pageable pageable);
 
+    CursorPageResponse<UserResponse> scrollUser(String search, Role role, Integer accountId, String cursor, int size);
+
     Map<String, Object> importUsers(List<UserImportRequest> importRequests);
 
+    // Đánh dấu inactive các nhân viên không còn trong Workday, trả về số user bị đổi
+    int deactivateUsers(Collection<String> eids);
+
     List<TransactionResponse> getUserTransactions(String eid);
 
     List<TransactionItemsResponse> getUserTransactionItems(Integer transactionId);
@@ -0,0 +1,28 @@
+package com.concentrix.asset.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+// Lưu fingerprint của file và của từng dòng Workday đã import, để lần import sau chỉ xử lý phần thay đổi
+public interface WorkdayFingerprintService {
+
+    Optional<String> findLastFileHash();
+
+    void recordFile(String fileName, String fileHash, int rowCount);
+
+    // eid -> hash đã lưu (eid chưa từng import thì không có trong map)
+    Map<String, String> findRowHashes(Collection<String> eids);
+
+    void saveRowHashes(Map<String, String> rowHashes);
+
+    // Các eid đã từng import nhưng không còn trong file hiện tại
+    List<String> findMissingEids(Set<String> currentEids);
+
+    // Số eid đã từng import (mẫu số khi giới hạn tỉ lệ deactivate)
+    long countRowHashes();
+
+    void deleteRowHashes(Collection<String> eids);
+}
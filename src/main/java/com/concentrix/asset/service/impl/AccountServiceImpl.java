@@ -1,5 +1,6 @@
 package com.concentrix.asset.service.impl;
 
+import com.concentrix.asset.config.CacheConfig;
 import com.concentrix.asset.dto.request.CreateAccountRequest;
 import com.concentrix.asset.dto.request.UpdateAccountRequest;
 import com.concentrix.asset.dto.response.AccountResponse;
@@ -19,6 +20,7 @@ import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -26,6 +28,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -65,6 +68,7 @@ public class AccountServiceImpl implements AccountService {
     }
 
     @Override
+    @CacheEvict(cacheNames = {CacheConfig.ACCOUNTS, CacheConfig.FLOORS}, allEntries = true)
     public AccountResponse updateAccount(UpdateAccountRequest request) {
 
         Account account = accountRepository.findById(request.getAccountId())
@@ -97,8 +101,11 @@ public class AccountServiceImpl implements AccountService {
 
         // Update device host name
         if (request.getAccountCode() != null) {
-            List<Device> devices = deviceRepository.findDevicesInFloorForReport (
-                    null, null, null, account.getAccountId(), null, null, null, null, null);
+            List<Device> devices;
+            try (Stream<Device> stream = deviceRepository.findDevicesInFloorForReport(
+                    null, null, null, account.getAccountId(), null, null, null, null, null)) {
+                devices = stream.toList();
+            }
 
             for (Device device : devices) {
                 device.setHostName(deviceService.generateHostNameForDesktop(device, device.getCurrentFloor()));
@@ -4,14 +4,13 @@ import com.concentrix.asset.dto.request.ChangePasswordRequest;
 import com.concentrix.asset.dto.request.LoginRequest;
 import com.concentrix.asset.dto.response.LoginResponse;
 import com.concentrix.asset.dto.response.RefreshResponse;
-import com.concentrix.asset.entity.InvalidatedToken;
 import com.concentrix.asset.entity.User;
 import com.concentrix.asset.enums.Role;
 import com.concentrix.asset.exception.CustomException;
 import com.concentrix.asset.exception.ErrorCode;
-import com.concentrix.asset.repository.InvalidatedTokenRepository;
 import com.concentrix.asset.repository.UserRepository;
 import com.concentrix.asset.service.AuthenticationService;
+import com.concentrix.asset.service.TokenRevocationService;
 import com.concentrix.asset.service.UserService;
 import com.nimbusds.jose.*;
 import com.nimbusds.jose.crypto.MACSigner;
@@ -48,7 +47,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     UserRepository userRepository;
     PasswordEncoder passwordEncoder;
     UserService userService;
-    InvalidatedTokenRepository invalidatedTokenRepository;
+    TokenRevocationService tokenRevocationService;
 
     @NonFinal
     @Value("${jwt.signerKey}")
@@ -207,11 +206,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     }
 
     private void invalidateToken(String tokenId, Date expiryTime) {
-        InvalidatedToken invalidatedToken = InvalidatedToken.builder()
-                .id(tokenId)
-                .expiryTime(expiryTime)
-                .build();
-        invalidatedTokenRepository.save(invalidatedToken);
+        tokenRevocationService.revoke(tokenId, expiryTime);
         log.info("[AUTHENTICATION SERVICE] Token invalidated: {}", tokenId);
     }
 
@@ -285,7 +280,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
                 throw new CustomException(ErrorCode.TOKEN_EXPIRED);
             }
 
-            if (invalidatedTokenRepository.existsById(signedJWT.getJWTClaimsSet().getJWTID())) {
+            if (tokenRevocationService.isRevoked(signedJWT.getJWTClaimsSet().getJWTID())) {
                 log.warn("[AUTHENTICATION SERVICE] Token already invalidated: {}",
                         signedJWT.getJWTClaimsSet().getJWTID());
                 throw new CustomException(ErrorCode.TOKEN_ALREADY_INVALIDATED);
@@ -0,0 +1,322 @@
+package com.concentrix.asset.service.impl;
+
+import com.concentrix.asset.dto.response.RollupDiffResponse;
+import com.concentrix.asset.entity.*;
+import com.concentrix.asset.enums.DeviceStatus;
+import com.concentrix.asset.enums.DeviceType;
+import com.concentrix.asset.enums.TransactionType;
+import com.concentrix.asset.repository.DeviceCountRollupRepository;
+import com.concentrix.asset.service.DeviceCountRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
+public class DeviceCountRollupServiceImpl implements DeviceCountRollupService {
+
+    // Giá trị thay cho site/kho/sàn khi bucket không gắn vị trí
+    static final int NONE = 0;
+
+    // Khoá resource giữ các delta chưa ghi của transaction hiện tại
+    static final Object PENDING_KEY = new Object();
+
+    static final Comparator<DeviceCountRollup> BUCKET_ORDER = Comparator
+            .comparing(DeviceCountRollup::getSiteId)
+            .thenComparing(DeviceCountRollup::getWarehouseId)
+            .thenComparing(DeviceCountRollup::getFloorId)
+            .thenComparing(DeviceCountRollup::getModelId)
+            .thenComparing(DeviceCountRollup::getStatus)
+            .thenComparing(DeviceCountRollup::getSerialized);
+
+    DeviceCountRollupRepository deviceCountRollupRepository;
+
+    @Override
+    public void removeSerialDevice(Device device) {
+        adjustSerialDevice(device, -1);
+    }
+
+    @Override
+    public void addSerialDevice(Device device) {
+        adjustSerialDevice(device, 1);
+    }
+
+    @Override
+    public void adjustInWarehouse(Device device, DeviceStatus status, Warehouse warehouse, int delta) {
+        upsert(siteIdOf(warehouse), warehouse != null ? warehouse.getWarehouseId() : NONE, NONE,
+                device, status, false, delta);
+    }
+
+    @Override
+    public void adjustInFloor(Device device, Floor floor, int delta) {
+        upsert(siteIdOf(floor), NONE, floor != null ? floor.getFloorId() : NONE,
+                device, DeviceStatus.IN_FLOOR, false, delta);
+    }
+
+    @Override
+    public void adjust(Device device, DeviceStatus status, int delta) {
+        upsert(NONE, NONE, NONE, device, status, false, delta);
+    }
+
+    @Override
+    public void relocateWarehouse(Warehouse warehouse) {
+        int siteId = siteIdOf(warehouse);
+        moveToSite(deviceCountRollupRepository.findOtherSiteOfWarehouse(warehouse.getWarehouseId(), siteId), siteId);
+        deviceCountRollupRepository.deleteOtherSiteOfWarehouse(warehouse.getWarehouseId(), siteId);
+    }
+
+    @Override
+    public void relocateFloor(Floor floor) {
+        int siteId = siteIdOf(floor);
+        moveToSite(deviceCountRollupRepository.findOtherSiteOfFloor(floor.getFloorId(), siteId), siteId);
+        deviceCountRollupRepository.deleteOtherSiteOfFloor(floor.getFloorId(), siteId);
+    }
+
+    // Ghi số lượng sang khoá mới bằng upsert nên bucket trùng khoá ở site mới được cộng dồn
+    private void moveToSite(List<DeviceCountRollup> buckets, int siteId) {
+        for (DeviceCountRollup bucket : buckets) {
+            write(DeviceCountRollup.builder()
+                    .siteId(siteId)
+                    .warehouseId(bucket.getWarehouseId())
+                    .floorId(bucket.getFloorId())
+                    .modelId(bucket.getModelId())
+                    .status(bucket.getStatus())
+                    .serialized(bucket.getSerialized())
+                    .type(bucket.getType())
+                    .quantity(bucket.getQuantity())
+                    .build());
+        }
+        if (!buckets.isEmpty()) {
+            log.info("[ROLLUP] Moved {} bucket(s) to site {}", buckets.size(), siteId);
+        }
+    }
+
+    // Xoá toàn bộ rollup và tính lại từ dữ liệu gốc
+    @Override
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        Map<DeviceCountRollupId, DeviceCountRollup> live = computeLive();
+
+        deviceCountRollupRepository.deleteAllInBatch();
+        int rows = 0;
+        for (DeviceCountRollup bucket : live.values()) {
+            if (bucket.getQuantity() == 0)
+                continue;
+            deviceCountRollupRepository.upsertQuantity(bucket.getSiteId(), bucket.getWarehouseId(),
+                    bucket.getFloorId(), bucket.getModelId(), bucket.getStatus().name(), bucket.getSerialized(),
+                    bucket.getType() != null ? bucket.getType().name() : null, bucket.getQuantity());
+            rows++;
+        }
+        log.info("[ROLLUP] Rebuilt device_count_rollup: {} rows in {} ms", rows,
+                System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    // So sánh rollup hiện tại với dữ liệu tính lại, trả về các bucket bị lệch
+    @Override
+    @Transactional(readOnly = true)
+    public List<RollupDiffResponse> check() {
+        Map<DeviceCountRollupId, DeviceCountRollup> live = computeLive();
+        Map<DeviceCountRollupId, Integer> stored = new HashMap<>();
+        for (DeviceCountRollup bucket : deviceCountRollupRepository.findAll()) {
+            stored.merge(idOf(bucket), bucket.getQuantity(), Integer::sum);
+        }
+
+        Set<DeviceCountRollupId> keys = new HashSet<>(stored.keySet());
+        keys.addAll(live.keySet());
+
+        List<RollupDiffResponse> diffs = new ArrayList<>();
+        for (DeviceCountRollupId key : keys) {
+            int rollupQuantity = stored.getOrDefault(key, 0);
+            int liveQuantity = live.containsKey(key) ? live.get(key).getQuantity() : 0;
+            if (rollupQuantity != liveQuantity) {
+                diffs.add(RollupDiffResponse.builder()
+                        .siteId(key.getSiteId())
+                        .warehouseId(key.getWarehouseId())
+                        .floorId(key.getFloorId())
+                        .modelId(key.getModelId())
+                        .status(key.getStatus())
+                        .serialized(key.getSerialized())
+                        .rollupQuantity(rollupQuantity)
+                        .liveQuantity(liveQuantity)
+                        .build());
+            }
+        }
+        diffs.sort(Comparator.comparing(RollupDiffResponse::getSiteId)
+                .thenComparing(RollupDiffResponse::getModelId)
+                .thenComparing(RollupDiffResponse::getStatus));
+        if (!diffs.isEmpty()) {
+            log.warn("[ROLLUP] device_count_rollup lệch {} bucket so với dữ liệu gốc", diffs.size());
+        }
+        return diffs;
+    }
+
+    // Bucket của thiết bị serial: site lấy theo kho hoặc sàn hiện tại
+    private void adjustSerialDevice(Device device, int delta) {
+        if (device.getStatus() == null)
+            return;
+        Warehouse warehouse = device.getCurrentWarehouse();
+        Floor floor = device.getCurrentFloor();
+        int siteId = warehouse != null ? siteIdOf(warehouse) : siteIdOf(floor);
+        upsert(siteId, warehouse != null ? warehouse.getWarehouseId() : NONE,
+                floor != null ? floor.getFloorId() : NONE,
+                device, device.getStatus(), true, delta);
+    }
+
+    // Bucket không serial chỉ tính device có serialNumber IS NULL, giống các query report
+    private void upsert(int siteId, int warehouseId, int floorId, Device device, DeviceStatus status,
+            boolean serialized, int delta) {
+        Model model = device.getModel();
+        if (model == null || delta == 0 || serialized != (device.getSerialNumber() != null))
+            return;
+        DeviceCountRollup change = DeviceCountRollup.builder()
+                .siteId(siteId)
+                .warehouseId(warehouseId)
+                .floorId(floorId)
+                .modelId(model.getModelId())
+                .status(status)
+                .serialized(serialized)
+                .type(model.getType())
+                .quantity(delta)
+                .build();
+
+        Map<DeviceCountRollupId, DeviceCountRollup> pending = pendingChanges();
+        if (pending == null) {
+            write(change);
+            return;
+        }
+        pending.merge(idOf(change), change, (current, added) -> {
+            current.setQuantity(current.getQuantity() + added.getQuantity());
+            return current;
+        });
+    }
+
+    /**
+     * Delta của cùng một bucket trong một transaction được cộng dồn và ghi một lần trước khi commit,
+     * thay vì một câu upsert (kèm auto flush) cho mỗi thiết bị của phiếu.
+     * Trả về null khi không có transaction, lúc đó delta được ghi ngay.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<DeviceCountRollupId, DeviceCountRollup> pendingChanges() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return null;
+        Map<DeviceCountRollupId, DeviceCountRollup> pending =
+                (Map<DeviceCountRollupId, DeviceCountRollup>) TransactionSynchronizationManager.getResource(PENDING_KEY);
+        if (pending != null)
+            return pending;
+
+        Map<DeviceCountRollupId, DeviceCountRollup> changes = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(PENDING_KEY, changes);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // Ghi theo thứ tự khoá cố định để các transaction đồng thời không khoá chéo nhau
+                changes.values().stream()
+                        .filter(change -> change.getQuantity() != 0)
+                        .sorted(BUCKET_ORDER)
+                        .forEach(DeviceCountRollupServiceImpl.this::write);
+                changes.clear();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_KEY);
+            }
+        });
+        return changes;
+    }
+
+    private void write(DeviceCountRollup change) {
+        deviceCountRollupRepository.upsertQuantity(change.getSiteId(), change.getWarehouseId(),
+                change.getFloorId(), change.getModelId(), change.getStatus().name(), change.getSerialized(),
+                change.getType() != null ? change.getType().name() : null, change.getQuantity());
+    }
+
+    private Map<DeviceCountRollupId, DeviceCountRollup> computeLive() {
+        Map<DeviceCountRollupId, DeviceCountRollup> live = new HashMap<>();
+
+        for (Object[] row : deviceCountRollupRepository.liveCountSerialized()) {
+            Integer siteId = row[0] != null ? (Integer) row[0] : (Integer) row[1];
+            addLive(live, siteId, (Integer) row[2], (Integer) row[3], (DeviceType) row[4], (Integer) row[5],
+                    (DeviceStatus) row[6], true, row[7]);
+        }
+        for (Object[] row : deviceCountRollupRepository.liveSumInStock()) {
+            addLive(live, (Integer) row[0], (Integer) row[1], null, (DeviceType) row[2], (Integer) row[3],
+                    DeviceStatus.IN_STOCK, false, row[4]);
+        }
+        for (Object[] row : deviceCountRollupRepository.liveSumInFloor()) {
+            addLive(live, (Integer) row[0], null, (Integer) row[1], (DeviceType) row[2], (Integer) row[3],
+                    DeviceStatus.IN_FLOOR, false, row[4]);
+        }
+        for (Object[] row : deviceCountRollupRepository.liveSumByTransactionType(TransactionType.E_WASTE)) {
+            addLive(live, (Integer) row[0], (Integer) row[1], null, (DeviceType) row[2], (Integer) row[3],
+                    DeviceStatus.E_WASTE, false, row[4]);
+        }
+        for (Object[] row : deviceCountRollupRepository.liveSumAssigned()) {
+            addLive(live, null, null, null, (DeviceType) row[0], (Integer) row[1],
+                    DeviceStatus.ASSIGNED, false, row[2]);
+        }
+        for (Object[] row : deviceCountRollupRepository.liveSumOnTheMove()) {
+            addLive(live, null, null, null, (DeviceType) row[0], (Integer) row[1],
+                    DeviceStatus.ON_THE_MOVE, false, row[2]);
+        }
+        for (Object[] row : deviceCountRollupRepository.liveSumByTransactionType(TransactionType.DISPOSAL)) {
+            addLive(live, null, null, null, (DeviceType) row[2], (Integer) row[3],
+                    DeviceStatus.DISPOSED, false, row[4]);
+        }
+        // REPAIR = tổng gửi sửa - tổng nhận về
+        for (Object[] row : deviceCountRollupRepository.liveSumByTransactionType(TransactionType.REPAIR)) {
+            addLive(live, null, null, null, (DeviceType) row[2], (Integer) row[3],
+                    DeviceStatus.REPAIR, false, row[4]);
+        }
+        for (Object[] row : deviceCountRollupRepository
+                .liveSumByTransactionType(TransactionType.RETURN_FROM_REPAIR)) {
+            addLive(live, null, null, null, (DeviceType) row[2], (Integer) row[3],
+                    DeviceStatus.REPAIR, false, -((Number) row[4]).intValue());
+        }
+        return live;
+    }
+
+    private void addLive(Map<DeviceCountRollupId, DeviceCountRollup> live, Integer siteId, Integer warehouseId,
+            Integer floorId, DeviceType type, Integer modelId, DeviceStatus status, boolean serialized,
+            Object quantity) {
+        DeviceCountRollupId id = new DeviceCountRollupId(
+                siteId != null ? siteId : NONE,
+                warehouseId != null ? warehouseId : NONE,
+                floorId != null ? floorId : NONE,
+                modelId, status, serialized);
+        DeviceCountRollup bucket = live.computeIfAbsent(id, k -> DeviceCountRollup.builder()
+                .siteId(k.getSiteId())
+                .warehouseId(k.getWarehouseId())
+                .floorId(k.getFloorId())
+                .modelId(k.getModelId())
+                .status(k.getStatus())
+                .serialized(k.getSerialized())
+                .type(type)
+                .quantity(0)
+                .build());
+        bucket.setQuantity(bucket.getQuantity() + ((Number) quantity).intValue());
+    }
+
+    private DeviceCountRollupId idOf(DeviceCountRollup bucket) {
+        return new DeviceCountRollupId(bucket.getSiteId(), bucket.getWarehouseId(), bucket.getFloorId(),
+                bucket.getModelId(), bucket.getStatus(), bucket.getSerialized());
+    }
+
+    private int siteIdOf(Warehouse warehouse) {
+        return warehouse != null && warehouse.getSite() != null ? warehouse.getSite().getSiteId() : NONE;
+    }
+
+    private int siteIdOf(Floor floor) {
+        return floor != null && floor.getSite() != null ? floor.getSite().getSiteId() : NONE;
+    }
+}
@@ -0,0 +1,44 @@
+package com.concentrix.asset.service.impl;
+
+import com.concentrix.asset.dto.request.TransactionItem;
+import com.concentrix.asset.entity.Device;
+import com.concentrix.asset.repository.DeviceRepository;
+import com.concentrix.asset.service.DeviceLookupService;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
+public class DeviceLookupServiceImpl implements DeviceLookupService {
+
+    DeviceRepository deviceRepository;
+
+    @Override
+    public DeviceLookup resolve(List<TransactionItem> items) {
+        Set<String> serialNumbers = new HashSet<>();
+        Set<Integer> modelIds = new HashSet<>();
+        for (TransactionItem item : items) {
+            if (item.getSerialNumber() != null && !item.getSerialNumber().isEmpty()) {
+                // Có service tra cứu bằng serial đã trim, có service dùng nguyên giá trị
+                serialNumbers.add(item.getSerialNumber());
+                serialNumbers.add(item.getSerialNumber().trim());
+            } else if (item.getModelId() != null) {
+                modelIds.add(item.getModelId());
+            }
+        }
+        return resolve(serialNumbers, modelIds);
+    }
+
+    @Override
+    public DeviceLookup resolve(Collection<String> serialNumbers, Collection<Integer> modelIds) {
+        List<Device> serialDevices = serialNumbers.isEmpty() ? List.of()
+                : deviceRepository.findAllBySerialNumberIn(serialNumbers);
+        List<Device> modelDevices = modelIds.isEmpty() ? List.of()
+                : deviceRepository.findFirstOfEachModel(modelIds);
+        return new DeviceLookup(serialDevices, modelDevices);
+    }
+}
@@ -2,30 +2,37 @@ package com.concentrix.asset.service.impl;
 
 import com.concentrix.asset.dto.request.UpdateDeviceRequest;
 import com.concentrix.asset.dto.request.UpdateSeatNumberRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.DeviceBorrowingInfoResponse;
 import com.concentrix.asset.dto.response.DeviceMovementHistoryResponse;
 import com.concentrix.asset.dto.response.DeviceResponse;
 import com.concentrix.asset.entity.*;
 import com.concentrix.asset.enums.DeviceStatus;
 import com.concentrix.asset.enums.DeviceType;
+import com.concentrix.asset.enums.TransactionType;
 import com.concentrix.asset.exception.CustomException;
 import com.concentrix.asset.exception.ErrorCode;
 import com.concentrix.asset.mapper.DeviceMapper;
 import com.concentrix.asset.repository.*;
+import com.concentrix.asset.service.DeviceCountRollupService;
 import com.concentrix.asset.service.DeviceService;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -38,12 +45,12 @@ public class DeviceServiceImpl implements DeviceService {
     DeviceMapper deviceMapper;
     ModelRepository modelRepository;
     TransactionDetailRepository transactionDetailRepository;
-    PODetailRepository poDetailRepository;
     DeviceUserRepository deviceUserRepository;
+    DeviceCountRollupService deviceCountRollupService;
 
     @Override
     public DeviceResponse getDeviceById(Integer deviceId) {
-        return deviceRepository.findById(deviceId)
+        return deviceRepository.findDetailByDeviceId(deviceId)
                 .map(deviceMapper::toDeviceResponse)
                 .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND, deviceId));
     }
@@ -51,7 +58,7 @@ public class DeviceServiceImpl implements DeviceService {
     @Override
     public DeviceResponse updateDevice(UpdateDeviceRequest request) {
 
-        Device device = deviceRepository.findById(request.getDeviceId())
+        Device device = deviceRepository.findDetailByDeviceId(request.getDeviceId())
                 .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND, request.getDeviceId()));
 
         modelRepository.findById(request.getModelId())
@@ -64,8 +71,11 @@ public class DeviceServiceImpl implements DeviceService {
             }
         }
 
+        // Model/serial có thể đổi nên chuyển thiết bị sang bucket rollup mới
+        deviceCountRollupService.removeSerialDevice(device);
         deviceMapper.updateDevice(device, request);
         device = deviceRepository.save(device);
+        deviceCountRollupService.addSerialDevice(device);
         return deviceMapper.toDeviceResponse(device);
 
     }
@@ -73,7 +83,34 @@ public class DeviceServiceImpl implements DeviceService {
     @Override
     public Page<DeviceResponse> filterDevices(String search, DeviceType type, Integer modelId, DeviceStatus status,
             Pageable pageable) {
-        return deviceRepository.findAll((root, query, cb) -> {
+        return deviceRepository.findAll(filterSpecification(search, type, modelId, status), pageable)
+                .map(deviceMapper::toDeviceResponse);
+    }
+
+    /**
+     * Phân trang keyset theo deviceId tăng dần: WHERE deviceId > cursor ... LIMIT size + 1, không OFFSET và không count.
+     */
+    @Override
+    public CursorPageResponse<DeviceResponse> scrollDevices(String search, DeviceType type, Integer modelId,
+            DeviceStatus status, String cursor, int size) {
+        int limit = KeysetCursor.limit(size);
+        String[] position = KeysetCursor.decode(cursor, 1);
+        Specification<Device> spec = filterSpecification(search, type, modelId, status);
+        if (position != null) {
+            Integer lastDeviceId = KeysetCursor.parseInt(position[0], cursor);
+            spec = spec.and((root, query, cb) -> cb.greaterThan(root.get("deviceId"), lastDeviceId));
+        }
+        // project(...) được áp dụng như fetch graph: nạp cùng các quan hệ như entity graph Device.response
+        List<Device> devices = deviceRepository.findBy(spec,
+                q -> q.project("model", "currentUser", "currentFloor.site", "currentWarehouse.site")
+                        .sortBy(Sort.by("deviceId")).limit(limit + 1).all());
+        return KeysetCursor.page(devices, limit, device -> new Object[]{device.getDeviceId()})
+                .map(deviceMapper::toDeviceResponse);
+    }
+
+    private Specification<Device> filterSpecification(String search, DeviceType type, Integer modelId,
+            DeviceStatus status) {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
             if (search != null && !search.trim().isEmpty()) {
@@ -109,56 +146,63 @@ public class DeviceServiceImpl implements DeviceService {
             predicates.add(cb.isNotNull(root.get("serialNumber")));
 
             return cb.and(predicates.toArray(new Predicate[0]));
-        }, pageable).map(deviceMapper::toDeviceResponse);
+        };
     }
 
     @Override
     public List<DeviceMovementHistoryResponse> getDeviceMovementHistoryBySerial(String serialNumber) {
-        Device device = deviceRepository.findBySerialNumber(serialNumber)
-                .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND, serialNumber));
-        // final LocalDate purchaseDate;
-        PODetail poDetail = poDetailRepository.findByDevice_DeviceIdAndDevice_SerialNumberNotNull(device.getDeviceId());
-        // if (poDetail != null && poDetail.getPurchaseOrder() != null) {
-        // purchaseDate = poDetail.getPurchaseOrder().getCreatedAt();
-        // } else {
-        // purchaseDate = null;
-        // }
-        List<TransactionDetail> details = transactionDetailRepository
-                .findAllByDevice_DeviceIdOrderByTransaction_TransactionIdAsc(device.getDeviceId());
-        DeviceMovementHistoryResponse.UserResponse poUser = null;
-        if (poDetail != null && poDetail.getPurchaseOrder() != null
-                && poDetail.getPurchaseOrder().getCreatedBy() != null) {
-            poUser = DeviceMovementHistoryResponse.UserResponse.builder()
-                    .eid(poDetail.getPurchaseOrder().getCreatedBy().getEid())
-                    .fullName(poDetail.getPurchaseOrder().getCreatedBy().getFullName())
-                    .build();
-        }
-        List<DeviceMovementHistoryResponse> history = details.stream()
-                .map(TransactionDetail::getTransaction)
-                .map(tx -> DeviceMovementHistoryResponse.builder()
-                        .description(buildTransactionDescription(tx))
-                        .createdAt(tx.getCreatedAt())
-                        .createdBy(tx.getCreatedBy() != null ? DeviceMovementHistoryResponse.UserResponse.builder()
-                                .eid(tx.getCreatedBy().getEid())
-                                .fullName(tx.getCreatedBy().getFullName())
-                                .build() : null)
-                        .build())
-                .collect(Collectors.toList());
-        // Bổ sung PO movement đầu tiên nếu có
-        if (poDetail != null && poDetail.getPurchaseOrder() != null) {
-            PurchaseOrder po = poDetail.getPurchaseOrder();
-            String poDesc = "Purchased from vendor " + (po.getVendor() != null ? po.getVendor().getVendorName() : "")
-                    + " for warehouse " + (po.getWarehouse() != null ? po.getWarehouse().getWarehouseName() : "");
-            DeviceMovementHistoryResponse poMovement = DeviceMovementHistoryResponse.builder()
-                    .description(poDesc)
-                    .createdAt(po.getCreatedAt() != null ? po.getCreatedAt().atStartOfDay() : null)
-                    .createdBy(poUser)
-                    .build();
-            history.add(0, poMovement);
+        List<Object[]> rows = transactionDetailRepository.findMovementHistory(serialNumber, null, Limit.unlimited());
+        requireDeviceWhenEmpty(rows, serialNumber);
+        // Query trả về mới nhất trước, API này giữ thứ tự cũ: PO đầu tiên rồi các phiếu theo thứ tự tạo
+        List<DeviceMovementHistoryResponse> history = new ArrayList<>(rows.size());
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            history.add(toMovementHistory(rows.get(i)));
         }
         return history;
     }
 
+    @Override
+    public CursorPageResponse<DeviceMovementHistoryResponse> scrollDeviceMovementHistory(String serialNumber,
+            String cursor, int size) {
+        int limit = KeysetCursor.limit(size);
+        String[] position = KeysetCursor.decode(cursor, 1);
+        Integer beforeKey = position != null ? KeysetCursor.parseInt(position[0], cursor) : null;
+        List<Object[]> rows = transactionDetailRepository.findMovementHistory(serialNumber, beforeKey,
+                Limit.of(limit + 1));
+        if (position == null) {
+            requireDeviceWhenEmpty(rows, serialNumber);
+        }
+        return KeysetCursor.page(rows, limit, row -> new Object[]{row[0]})
+                .map(this::toMovementHistory);
+    }
+
+    // Lịch sử rỗng có thể do serial không tồn tại: chỉ khi đó mới cần thêm một query kiểm tra
+    private void requireDeviceWhenEmpty(List<Object[]> rows, String serialNumber) {
+        if (rows.isEmpty() && !deviceRepository.existsBySerialNumber(serialNumber)) {
+            throw new CustomException(ErrorCode.DEVICE_NOT_FOUND, serialNumber);
+        }
+    }
+
+    private DeviceMovementHistoryResponse toMovementHistory(Object[] row) {
+        boolean purchase = row[1] == null;
+        String description = purchase
+                ? "Purchased from vendor " + (row[11] != null ? row[11] : "")
+                        + " for warehouse " + (row[8] != null ? row[8] : "")
+                : buildTransactionDescription(TransactionType.valueOf((String) row[1]), (String) row[6],
+                        (String) row[7], (String) row[8], (String) row[9], (String) row[10]);
+        LocalDateTime createdAt = purchase
+                ? (row[3] != null ? ((LocalDate) row[3]).atStartOfDay() : null)
+                : (LocalDateTime) row[2];
+        return DeviceMovementHistoryResponse.builder()
+                .description(description)
+                .createdAt(createdAt)
+                .createdBy(row[4] == null ? null : DeviceMovementHistoryResponse.UserResponse.builder()
+                        .eid((String) row[4])
+                        .fullName((String) row[5])
+                        .build())
+                .build();
+    }
+
     @Override
     public List<DeviceBorrowingInfoResponse.DeviceInfo> getBorrowingDevicesByUser(String eid) {
 
@@ -372,70 +416,71 @@ public class DeviceServiceImpl implements DeviceService {
         return hostName.toString();
     }
 
-    private String buildTransactionDescription(AssetTransaction tx) {
+    private String buildTransactionDescription(TransactionType type, String userUse, String fromWarehouse,
+            String toWarehouse, String fromFloor, String toFloor) {
         StringBuilder sb = new StringBuilder();
-        switch (tx.getTransactionType()) {
+        switch (type) {
             case ASSIGNMENT:
                 sb.append("Assigned to user ");
-                if (tx.getUserUse() != null)
-                    sb.append(tx.getUserUse().getFullName());
-                if (tx.getToWarehouse() != null)
-                    sb.append(" from warehouse ").append(tx.getToWarehouse().getWarehouseName());
+                if (userUse != null)
+                    sb.append(userUse);
+                if (toWarehouse != null)
+                    sb.append(" from warehouse ").append(toWarehouse);
                 break;
             case REPAIR:
                 sb.append("Sent for repair at warehouse ");
-                if (tx.getToWarehouse() != null)
-                    sb.append(tx.getToWarehouse().getWarehouseName());
+                if (toWarehouse != null)
+                    sb.append(toWarehouse);
                 break;
             case RETURN_FROM_REPAIR:
                 sb.append("Returned from repair to warehouse ");
-                if (tx.getToWarehouse() != null)
-                    sb.append(tx.getToWarehouse().getWarehouseName());
+                if (toWarehouse != null)
+                    sb.append(toWarehouse);
                 break;
             case TRANSFER_SITE:
                 sb.append("Transferred from warehouse ");
-                if (tx.getFromWarehouse() != null)
-                    sb.append(tx.getFromWarehouse().getWarehouseName());
+                if (fromWarehouse != null)
+                    sb.append(fromWarehouse);
                 sb.append(" to warehouse ");
-                if (tx.getToWarehouse() != null)
-                    sb.append(tx.getToWarehouse().getWarehouseName());
+                if (toWarehouse != null)
+                    sb.append(toWarehouse);
                 break;
             case TRANSFER_FLOOR:
                 sb.append("Moved from floor ");
-                if (tx.getFromFloor() != null)
-                    sb.append(tx.getFromFloor().getFloorName());
+                if (fromFloor != null)
+                    sb.append(fromFloor);
                 sb.append(" to floor ");
-                if (tx.getToFloor() != null)
-                    sb.append(tx.getToFloor().getFloorName());
+                if (toFloor != null)
+                    sb.append(toFloor);
                 break;
             case USE_FLOOR:
                 sb.append("Deployed for use at floor ");
-                if (tx.getToFloor() != null)
-                    sb.append(tx.getToFloor().getFloorName());
+                if (toFloor != null)
+                    sb.append(toFloor);
                 break;
             case RETURN_FROM_USER:
                 sb.append("Returned from user ");
-                if (tx.getUserUse() != null)
-                    sb.append(tx.getUserUse().getFullName());
-                if (tx.getToWarehouse() != null)
-                    sb.append(" to warehouse ").append(tx.getToWarehouse().getWarehouseName());
+                if (userUse != null)
+                    sb.append(userUse);
+                if (toWarehouse != null)
+                    sb.append(" to warehouse ").append(toWarehouse);
                 break;
             case RETURN_FROM_FLOOR:
                 sb.append("Returned from floor ");
-                if (tx.getFromFloor() != null)
-                    sb.append(tx.getFromFloor().getFloorName());
-                if (tx.getToWarehouse() != null)
-                    sb.append(" to warehouse ").append(tx.getToWarehouse().getWarehouseName());
+                if (fromFloor != null)
+                    sb.append(fromFloor);
+                if (toWarehouse != null)
+                    sb.append(" to warehouse ").append(toWarehouse);
                 break;
             case E_WASTE:
                 sb.append("Moved to e-waste at warehouse ");
-                if (tx.getToWarehouse() != null)
-                    sb.append(tx.getToWarehouse().getWarehouseName());
+                if (toWarehouse != null)
+                    sb.append(toWarehouse);
                 break;
             case DISPOSAL:
                 sb.append("Disposed at warehouse ");
-                if (tx.getToWarehouse() != null)
-                    sb.append(tx.getToWarehouse().getWarehouseName());
+                if (toWarehouse != null)
+                    sb.append(toWarehouse);
                 break;
             default:
                 sb.append("Other transaction");
@@ -0,0 +1,92 @@
+package com.concentrix.asset.service.impl;
+
+import com.concentrix.asset.entity.EmailOutbox;
+import com.concentrix.asset.enums.EmailStatus;
+import com.concentrix.asset.repository.EmailOutboxRepository;
+import com.concentrix.asset.service.EmailOutboxService;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+
+    EmailOutboxRepository emailOutboxRepository;
+
+    @NonFinal
+    @Value("${app.mail.outbox.lease}")
+    Duration lease;
+
+    @NonFinal
+    @Value("${app.mail.outbox.max-attempts}")
+    int maxAttempts;
+
+    @NonFinal
+    @Value("${app.mail.outbox.retry-delay}")
+    Duration retryDelay;
+
+    @NonFinal
+    @Value("${app.mail.outbox.max-retry-delay}")
+    Duration maxRetryDelay;
+
+    @Override
+    public List<EmailOutbox> claimDue(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lockedUntil = now.plus(lease);
+        List<Long> claimed = new ArrayList<>();
+        for (Long id : emailOutboxRepository.findDueIds(now, PageRequest.of(0, limit))) {
+            if (emailOutboxRepository.claim(id, now, lockedUntil) == 1) {
+                claimed.add(id);
+            }
+        }
+        return claimed.isEmpty() ? List.of() : emailOutboxRepository.findAllById(claimed);
+    }
+
+    @Override
+    public void markSent(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            emailOutboxRepository.markSent(ids, LocalDateTime.now());
+        }
+    }
+
+    @Override
+    public void markFailed(EmailOutbox email, String error, boolean permanent) {
+        int attempts = email.getAttempts() + 1;
+        String lastError = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        if (permanent || attempts >= maxAttempts) {
+            emailOutboxRepository.markFailed(email.getId(), EmailStatus.DEAD, LocalDateTime.now(), lastError);
+            log.error("[EMAIL][DEAD] Email {} to [{}] moved to dead letter after {} attempt(s): {}",
+                    email.getId(), email.getRecipients(), attempts, lastError);
+            return;
+        }
+        // Backoff luỹ thừa: retryDelay, 2x, 4x... tối đa maxRetryDelay
+        Duration delay = retryDelay.multipliedBy(1L << Math.min(attempts - 1, 20));
+        if (delay.compareTo(maxRetryDelay) > 0) {
+            delay = maxRetryDelay;
+        }
+        emailOutboxRepository.markFailed(email.getId(), EmailStatus.PENDING, LocalDateTime.now().plus(delay), lastError);
+        log.warn("[EMAIL][RETRY] Email {} to [{}] failed (attempt {}), retry in {}: {}",
+                email.getId(), email.getRecipients(), attempts, delay, lastError);
+    }
+
+    @Override
+    public void defer(Long id, LocalDateTime nextAttemptAt) {
+        emailOutboxRepository.defer(id, nextAttemptAt);
+    }
+}
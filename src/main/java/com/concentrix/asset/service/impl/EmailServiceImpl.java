@@ -1,23 +1,30 @@
 package com.concentrix.asset.service.impl;
 
+import com.concentrix.asset.entity.EmailOutbox;
+import com.concentrix.asset.repository.EmailOutboxRepository;
+import com.concentrix.asset.service.EmailOutboxService;
 import com.concentrix.asset.service.EmailService;
-import jakarta.mail.AuthenticationFailedException;
 import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Future;
 
 @Service
 @Slf4j
@@ -25,56 +32,224 @@ import java.util.List;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class EmailServiceImpl implements EmailService {
 
+    static final long RATE_WINDOW_MILLIS = 60_000;
+
+    // Trùng dedupKey (hai job cùng qua bước kiểm tra) thì giữ dòng cũ thay vì lỗi unique
+    static final String ENQUEUE_SQL = """
+            INSERT INTO email_outbox (dedup_key, recipients, cc, bcc, subject, body, status, attempts, next_attempt_at, created_at)
+            VALUES (:dedupKey, :recipients, :cc, :bcc, :subject, :body, 'PENDING', 0, :now, :now)
+            ON DUPLICATE KEY UPDATE id = id
+            """;
+
     JavaMailSender mailSender;
+    EmailOutboxRepository emailOutboxRepository;
+    NamedParameterJdbcTemplate jdbcTemplate;
+    EmailOutboxService emailOutboxService;
+    ThreadPoolTaskExecutor emailOutboxExecutor;
+
+    // Thời điểm gửi gần đây theo từng người nhận (to), dùng cho giới hạn số email mỗi phút
+    Map<String, Deque<Long>> recentSendsByRecipient = new HashMap<>();
+
+    @NonFinal
+    @Value("${app.mail.outbox.batch-size}")
+    int batchSize;
+
+    @NonFinal
+    @Value("${app.mail.outbox.session-size}")
+    int sessionSize;
+
+    @NonFinal
+    @Value("${app.mail.outbox.per-recipient-per-minute}")
+    int perRecipientPerMinute;
 
     @Override
-    @Async
-    @Retryable(
-            retryFor = {MessagingException.class, MailException.class, RuntimeException.class},
-            maxAttempts = 4,
-            backoff = @Backoff(delay = 2000, multiplier = 2)
-    )
     public void sendEmail(String to,
                           String subject,
                           String body,
                           List<String> cc,
-                          List<String> bcc) throws MessagingException {
+                          List<String> bcc) {
+        sendEmail(to, subject, body, cc, bcc, null);
+    }
+
+    /**
+     * Ghi outbox bằng JDBC trên connection của transaction nghiệp vụ nên email chỉ được gửi khi nghiệp vụ commit.
+     * Không đi qua proxy @Transactional hay Hibernate: câu INSERT lỗi chỉ hỏng chính nó, không đánh dấu
+     * rollback-only cho transaction của nghiệp vụ (nghiệp vụ bắt lỗi thì vẫn commit được).
+     */
+    @Override
+    public void sendEmail(String to, String subject, String body, List<String> cc, List<String> bcc, String dedupKey) {
+        if (to == null || splitAddresses(to).length == 0) {
+            log.warn("[EMAIL][SKIP] No recipient for email with subject [{}]", subject);
+            return;
+        }
+        if (dedupKey != null && emailOutboxRepository.existsByDedupKey(dedupKey)) {
+            log.info("[EMAIL][SKIP] Email [{}] already queued", dedupKey);
+            return;
+        }
+        jdbcTemplate.update(ENQUEUE_SQL, new MapSqlParameterSource()
+                .addValue("dedupKey", dedupKey)
+                .addValue("recipients", to)
+                .addValue("cc", joinAddresses(cc))
+                .addValue("bcc", joinAddresses(bcc))
+                .addValue("subject", subject)
+                .addValue("body", body)
+                .addValue("now", LocalDateTime.now()));
+        log.info("[EMAIL][QUEUED] Email to [{}] with subject [{}], cc [{}], bcc [{}]", to, subject, cc, bcc);
+    }
+
+    /**
+     * Nhận các email đến hạn, bỏ lại những email vượt giới hạn theo người nhận,
+     * rồi chia thành từng nhóm gửi chung một kết nối SMTP trên pool {@code emailOutboxExecutor}.
+     */
+    @Override
+    public synchronized int dispatchDue() {
+        List<EmailOutbox> claimed = emailOutboxService.claimDue(batchSize);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        List<EmailOutbox> ready = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        recentSendsByRecipient.values().forEach(sends -> prune(sends, now));
+        recentSendsByRecipient.values().removeIf(Deque::isEmpty);
+        for (EmailOutbox email : claimed) {
+            long waitMillis = reserve(email, now);
+            if (waitMillis > 0) {
+                emailOutboxService.defer(email.getId(), LocalDateTime.now().plusNanos(waitMillis * 1_000_000));
+            } else {
+                ready.add(email);
+            }
+        }
+
+        List<List<EmailOutbox>> sessions = new ArrayList<>();
+        for (int i = 0; i < ready.size(); i += sessionSize) {
+            sessions.add(ready.subList(i, Math.min(i + sessionSize, ready.size())));
+        }
+        if (sessions.isEmpty()) {
+            return 0;
+        }
+
+        List<Future<Integer>> futures = sessions.stream()
+                .map(session -> emailOutboxExecutor.submit(() -> sendSession(session)))
+                .toList();
+        int sent = 0;
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            // ✅ Nếu "to" là chuỗi có nhiều email cách nhau bằng dấu phẩy
-            String[] toArray = Arrays.stream(to.split(","))
-                    .map(String::trim)
-                    .filter(s -> !s.isEmpty())
-                    .toArray(String[]::new);
-            helper.setTo(toArray);
-
-            helper.setFrom("itvn_noreply@concentrix.com");
-            helper.setTo(toArray);
-            helper.setSubject(subject);
-            helper.setText(body, true);
-
-            if (cc != null && !cc.isEmpty()) {
-                helper.setCc(cc.toArray(new String[0]));
+            for (Future<Integer> future : futures) {
+                sent += future.get();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Email chưa ghi nhận kết quả sẽ được nhận lại khi hết lease
+            log.error("[EMAIL][DISPATCH_ERROR] Unexpected error while dispatching outbox: {}", e.getMessage(), e);
+        }
+        return sent;
+    }
 
-            if (bcc != null && !bcc.isEmpty()) {
-                helper.setBcc(bcc.toArray(new String[0]));
+    // Gửi một nhóm email trên cùng một kết nối SMTP, trả về số email gửi thành công
+    private int sendSession(List<EmailOutbox> session) {
+        Map<MimeMessage, EmailOutbox> messages = new IdentityHashMap<>();
+        for (EmailOutbox email : session) {
+            try {
+                messages.put(toMimeMessage(email), email);
+            } catch (MessagingException e) {
+                emailOutboxService.markFailed(email, "Invalid message: " + e.getMessage(), true);
             }
+        }
+        if (messages.isEmpty()) {
+            return 0;
+        }
 
-            mailSender.send(message);
-            log.info("[EMAIL][SUCCESS] Email sent successfully to [{}] with subject [{}], cc [{}], bcc [{}]", to, subject, cc, bcc);
+        Map<Object, Exception> failed = Map.of();
+        try {
+            mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failed = e.getFailedMessages();
+        } catch (MailException e) {
+            // Lỗi kết nối/xác thực: cả nhóm chưa gửi được
+            log.error("[EMAIL][SEND_ERROR] SMTP session failed: {}", e.getMessage(), e);
+            failed = new IdentityHashMap<>();
+            for (MimeMessage message : messages.keySet()) {
+                failed.put(message, e);
+            }
+        }
 
-        } catch (AuthenticationFailedException e) {
-            log.error("[EMAIL][AUTH_ERROR] Authentication failed for recipient [{}]. Error: {}", to, e.getMessage(), e);
-            throw e; // để Retryable xử lý retry
-        } catch (MessagingException | MailException e) {
-            log.error("[EMAIL][SEND_ERROR] Failed to send email to [{}]. Error: {}", to, e.getMessage(), e);
-            throw e;
-        } catch (Exception e) {
-            log.error("[EMAIL][UNEXPECTED_ERROR] Unexpected error while sending email to [{}]. Error: {}", to, e.getMessage(), e);
-            throw new RuntimeException("Unable to send email: " + e.getMessage(), e);
+        List<Long> sentIds = new ArrayList<>();
+        for (Map.Entry<MimeMessage, EmailOutbox> entry : messages.entrySet()) {
+            Exception error = failed.get(entry.getKey());
+            if (error == null) {
+                sentIds.add(entry.getValue().getId());
+            } else {
+                emailOutboxService.markFailed(entry.getValue(), error.getMessage(), isPermanent(error));
+            }
+        }
+        emailOutboxService.markSent(sentIds);
+        if (!sentIds.isEmpty()) {
+            log.info("[EMAIL][SUCCESS] Sent {} email(s) over one SMTP session: {}", sentIds.size(), sentIds);
+        }
+        return sentIds.size();
+    }
+
+    private MimeMessage toMimeMessage(EmailOutbox email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setFrom("itvn_noreply@concentrix.com");
+        helper.setTo(splitAddresses(email.getRecipients()));
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), true);
+
+        if (email.getCc() != null && !email.getCc().isEmpty()) {
+            helper.setCc(splitAddresses(email.getCc()));
         }
+
+        if (email.getBcc() != null && !email.getBcc().isEmpty()) {
+            helper.setBcc(splitAddresses(email.getBcc()));
+        }
+        return message;
+    }
+
+    // Trả về 0 và ghi nhận lượt gửi nếu mọi người nhận còn hạn mức, ngược lại trả về số ms cần chờ
+    private long reserve(EmailOutbox email, long now) {
+        String[] recipients = splitAddresses(email.getRecipients());
+        long waitMillis = 0;
+        for (String recipient : recipients) {
+            Deque<Long> sends = recentSendsByRecipient.get(recipient.toLowerCase());
+            if (sends != null && sends.size() >= perRecipientPerMinute) {
+                waitMillis = Math.max(waitMillis, sends.peekFirst() + RATE_WINDOW_MILLIS - now);
+            }
+        }
+        if (waitMillis > 0) {
+            return waitMillis;
+        }
+        for (String recipient : recipients) {
+            recentSendsByRecipient.computeIfAbsent(recipient.toLowerCase(), k -> new ArrayDeque<>()).addLast(now);
+        }
+        return 0;
+    }
+
+    private static void prune(Deque<Long> sends, long now) {
+        while (!sends.isEmpty() && sends.peekFirst() <= now - RATE_WINDOW_MILLIS) {
+            sends.pollFirst();
+        }
+    }
+
+    // Địa chỉ sai/không tồn tại: gửi lại cũng không thành công
+    private static boolean isPermanent(Exception error) {
+        return error instanceof SendFailedException sendFailed
+                && sendFailed.getInvalidAddresses() != null
+                && sendFailed.getInvalidAddresses().length > 0;
+    }
+
+    // "to" có thể là chuỗi nhiều email cách nhau bằng dấu phẩy
+    private static String[] splitAddresses(String addresses) {
+        return Arrays.stream(addresses.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private static String joinAddresses(List<String> addresses) {
+        return addresses == null || addresses.isEmpty() ? null : String.join(",", addresses);
     }
 }
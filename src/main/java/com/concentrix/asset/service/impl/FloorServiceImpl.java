@@ -1,5 +1,6 @@
 package com.concentrix.asset.service.impl;
 
+import com.concentrix.asset.config.CacheConfig;
 import com.concentrix.asset.dto.request.CreateFloorRequest;
 import com.concentrix.asset.dto.request.UpdateFloorRequest;
 import com.concentrix.asset.dto.response.FloorResponse;
@@ -11,11 +12,13 @@ import com.concentrix.asset.mapper.FloorMapper;
 import com.concentrix.asset.repository.DeviceRepository;
 import com.concentrix.asset.repository.FloorRepository;
 import com.concentrix.asset.repository.SiteRepository;
+import com.concentrix.asset.service.DeviceCountRollupService;
 import com.concentrix.asset.service.DeviceService;
 import com.concentrix.asset.service.FloorService;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -23,6 +26,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -34,6 +39,7 @@ public class FloorServiceImpl implements FloorService {
     SiteRepository siteRepository;
     DeviceRepository deviceRepository;
     DeviceService deviceService;
+    DeviceCountRollupService deviceCountRollupService;
 
     @Override
     public FloorResponse getFloorById(Integer floorId) {
@@ -50,17 +56,26 @@ public class FloorServiceImpl implements FloorService {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.FLOORS, allEntries = true)
     public FloorResponse updateFloor(UpdateFloorRequest request) {
         Floor floor = floorRepository.findById(request.getFloorId())
                 .orElseThrow(() -> new CustomException(ErrorCode.FLOOR_NOT_FOUND, request.getFloorId()));
+        Integer oldSiteId = floor.getSite() != null ? floor.getSite().getSiteId() : null;
         floorMapper.updateFloor(floor, request);
         floor = floorRepository.save(floor);
 
+        // Rollup lưu site_id trong khoá: đổi site của sàn thì chuyển bucket theo cùng transaction
+        if (!Objects.equals(oldSiteId, floor.getSite() != null ? floor.getSite().getSiteId() : null)) {
+            deviceCountRollupService.relocateFloor(floor);
+        }
+
         // Update device host name
         if (request.getAccountId() != null) {
-            List<Device> devices = deviceRepository.findDevicesInFloorForReport(
-                    null, floor.getFloorId(), null, null, null, null, null, null, null
-            );
+            List<Device> devices;
+            try (Stream<Device> stream = deviceRepository.findDevicesInFloorForReport(
+                    null, floor.getFloorId(), null, null, null, null, null, null, null)) {
+                devices = stream.toList();
+            }
             for (Device device : devices) {
                 device.setHostName(deviceService.generateHostNameForDesktop(device, floor));
             }
@@ -0,0 +1,76 @@
+package com.concentrix.asset.service.impl;
+
+import com.concentrix.asset.dto.response.CursorPageResponse;
+import com.concentrix.asset.exception.CustomException;
+import com.concentrix.asset.exception.ErrorCode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Mã hoá vị trí keyset (giá trị các cột sắp xếp của bản ghi cuối trang) thành cursor opaque cho client.
+ */
+final class KeysetCursor {
+
+    static final int MAX_SIZE = 5000;
+    static final String SEPARATOR = "|";
+
+    private KeysetCursor() {
+    }
+
+    static int limit(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    static String encode(Object... keys) {
+        StringBuilder raw = new StringBuilder();
+        for (Object key : keys) {
+            if (!raw.isEmpty()) {
+                raw.append(SEPARATOR);
+            }
+            raw.append(key);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Trả về null khi không có cursor (trang đầu tiên)
+    static String[] decode(String cursor, int keyCount) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            String[] keys = raw.split("\\" + SEPARATOR, keyCount);
+            if (keys.length != keyCount) {
+                throw new CustomException(ErrorCode.INVALID_CURSOR, cursor);
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new CustomException(ErrorCode.INVALID_CURSOR, cursor);
+        }
+    }
+
+    static Integer parseInt(String key, String cursor) {
+        try {
+            return Integer.valueOf(key);
+        } catch (NumberFormatException e) {
+            throw new CustomException(ErrorCode.INVALID_CURSOR, cursor);
+        }
+    }
+
+    /**
+     * {@code rows} được lấy với limit + 1 bản ghi: bản ghi dư chỉ dùng để biết còn trang sau hay không.
+     */
+    static <T> CursorPageResponse<T> page(List<T> rows, int limit, Function<T, Object[]> keys) {
+        boolean hasNext = rows.size() > limit;
+        List<T> content = hasNext ? rows.subList(0, limit) : rows;
+        return CursorPageResponse.<T>builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? encode(keys.apply(content.get(content.size() - 1))) : null)
+                .build();
+    }
+}
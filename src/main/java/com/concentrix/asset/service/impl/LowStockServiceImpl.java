@@ -7,17 +7,19 @@ import com.concentrix.asset.repository.*;
 import com.concentrix.asset.service.LowStockService;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.function.ObjDoubleConsumer;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
-@Transactional
+@Transactional(readOnly = true)
 @FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
 public class LowStockServiceImpl implements LowStockService {
 
@@ -28,91 +30,119 @@ public class LowStockServiceImpl implements LowStockService {
     DeviceFloorRepository deviceFloorRepository;
     TransactionDetailRepository transactionDetailRepository;
 
-    final double LOW_STOCK_THRESHOLD_WITH_SERIAL = 0.04;
-    final double LOW_STOCK_THRESHOLD_WITHOUT_SERIAL = 0.05;
+    // TYPE=ratio, các type có trong danh sách mới được đánh giá
+    @NonFinal
+    @Value("${app.low-stock.thresholds}")
+    List<String> thresholds;
 
+    // SITE_NAME.TYPE=ratio, ghi đè ngưỡng của type cho riêng một site
+    @NonFinal
+    @Value("${app.low-stock.site-thresholds:}")
+    List<String> siteThresholds;
+
+    @NonFinal
+    @Value("${app.low-stock.excluded-sites:}")
+    List<String> excludedSites;
+
+    /**
+     * Low stock khi available tại site / tổng toàn hệ thống của type <= ngưỡng.
+     * Tổng toàn hệ thống tính một lần cho mọi type; available của mọi site lấy bằng query gom nhóm theo (site, type).
+     */
     @Override
     public List<LowStockResponse> getLowStockDevices() {
-        List<LowStockResponse> result = new ArrayList<>();
+        Map<DeviceType, Double> typeThresholds = new LinkedHashMap<>();
+        for (String entry : thresholds) {
+            parseThreshold(entry, (key, ratio) -> typeThresholds.put(DeviceType.valueOf(key), ratio));
+        }
+        Map<String, Map<DeviceType, Double>> thresholdsBySite = new HashMap<>();
+        for (String entry : siteThresholds) {
+            parseThreshold(entry, (key, ratio) -> {
+                int dot = key.lastIndexOf('.');
+                thresholdsBySite.computeIfAbsent(key.substring(0, dot).trim().toLowerCase(), k -> new EnumMap<>(DeviceType.class))
+                        .put(DeviceType.valueOf(key.substring(dot + 1).trim()), ratio);
+            });
+        }
 
-        try {
-            List<Site> sites = siteRepository.findAll();
-
-            List<DeviceType> typesWithoutSerial = List.of(
-                    DeviceType.DONGLE, DeviceType.MOUSE, DeviceType.KEYBOARD,
-                    DeviceType.UBIKEY, DeviceType.HEADSET
-            );
-            List<DeviceType> typesWithSerial = List.of(
-                    DeviceType.LAPTOP, DeviceType.MACBOOK, DeviceType.MONITOR
-            );
-
-            for (Site site : sites) {
-                try {
-                    if (site.getSiteName().equalsIgnoreCase("po"))
-                        continue;
-                    // Xử lý cho loại có serial
-                    List<LowStockResponse.LowStockType> lowStockTypes = new ArrayList<>();
-                    for (DeviceType type : typesWithSerial) {
-                        try {
-                            int total = deviceRepository.totalDeviceInUseAndInStock(type);
-                            int available = deviceRepository.countAssetInStock(site.getSiteId(), type, null, null, null, null);
-
-                            if (total > 0 && available / (double) total <= LOW_STOCK_THRESHOLD_WITH_SERIAL) {
-                                lowStockTypes.add(LowStockResponse.LowStockType.builder()
-                                        .type(type)
-                                        .total(total)
-                                        .available(available)
-                                        .build());
-                            }
-                            log.info("[LOW STOCK SERVICE] Low stock (WITH SERIAL) for siteId {} and deviceType {}: {}-{}",
-                                    site.getSiteId(), type, available , (double) total);
-                        } catch (Exception e) {
-                            log.error("[LOW STOCK SERVICE] Error calculating low stock (WITH SERIAL) for siteId {} and deviceType {}: {}",
-                                    site.getSiteId(), type, e.getMessage(), e);
-                        }
-                    }
-
-                    for (DeviceType type : typesWithoutSerial) {
-                        try {
-                            int totalInFloor = deviceFloorRepository.sumDeviceBySite_Type_Model(null, type, null);
-                            int totalAssigned = deviceUserRepository.sumDeviceAssignedByType_Model(type, null);
-                            int totalInStock = deviceWarehouseRepository.sumStockBySite_Type_Model(null, type, null);
-                            int totalOnTheMove = transactionDetailRepository.sumOnTheMove(type, null);
-
-                            int total = totalInFloor + totalAssigned + totalInStock + totalOnTheMove;
-
-                            int totalInStockOnSite = deviceWarehouseRepository.sumStockBySite_Type_Model(site.getSiteId(), type, null);
-
-                            if (total > 0 && totalInStockOnSite / (double) total <= LOW_STOCK_THRESHOLD_WITHOUT_SERIAL) {
-                                lowStockTypes.add(LowStockResponse.LowStockType.builder()
-                                        .type(type)
-                                        .total(total)
-                                        .available(totalInStockOnSite)
-                                        .build());
-                            }
-                            log.info("[LOW STOCK SERVICE] Low stock (WITHOUT SERIAL) for siteId {} and deviceType {}: {}-{}",
-                                    site.getSiteId(), type, totalInStockOnSite, (double) total);
-                        } catch (Exception e) {
-                            log.error("[LOW STOCK SERVICE] Error calculating low stock (WITHOUT SERIAL) for siteId {} and deviceType {}: {}",
-                                    site.getSiteId(), type, e.getMessage(), e);
-                        }
-                    }
-                    if (!lowStockTypes.isEmpty()) {
-                        result.add(LowStockResponse.builder()
-                                .siteId(site.getSiteId())
-                                .siteName(site.getSiteName())
-                                .lowStockTypes(lowStockTypes)
-                                .build());
-                    }
-                } catch (Exception e) {
-                    log.error("[LOW STOCK SERVICE] Error processing site {}: {}", site.getSiteId(), e.getMessage(), e);
+        // Tổng toàn hệ thống: có serial = đang dùng + trong kho; không serial = floor + user + kho + đang chuyển site
+        Map<DeviceType, Integer> serialTotals = new EnumMap<>(DeviceType.class);
+        Map<DeviceType, Integer> nonSerialTotals = new EnumMap<>(DeviceType.class);
+        for (Object[] row : deviceRepository.countInUseAndInStockGroupByType()) {
+            serialTotals.merge((DeviceType) row[0], ((Number) row[1]).intValue(), Integer::sum);
+        }
+        for (Object[] row : deviceFloorRepository.sumDeviceGroupBySite_Type_Model(null, null)) {
+            nonSerialTotals.merge((DeviceType) row[1], ((Number) row[3]).intValue(), Integer::sum);
+        }
+        for (Object[] row : deviceUserRepository.sumDeviceAssignedGroupByType_Model(null, null)) {
+            nonSerialTotals.merge((DeviceType) row[0], ((Number) row[2]).intValue(), Integer::sum);
+        }
+        for (Object[] row : transactionDetailRepository.sumOnTheMoveGroupByType_Model(null, null)) {
+            nonSerialTotals.merge((DeviceType) row[0], ((Number) row[2]).intValue(), Integer::sum);
+        }
+
+        // Available theo (site, type): có serial = thiết bị IN_STOCK, không serial = tồn kho
+        Map<Integer, Map<DeviceType, Integer>> serialAvailable = new HashMap<>();
+        Map<Integer, Map<DeviceType, Integer>> nonSerialAvailable = new HashMap<>();
+        for (Object[] row : deviceRepository.countInStockGroupBySite_Type()) {
+            serialAvailable.computeIfAbsent((Integer) row[0], k -> new EnumMap<>(DeviceType.class))
+                    .merge((DeviceType) row[1], ((Number) row[2]).intValue(), Integer::sum);
+        }
+        for (Object[] row : deviceWarehouseRepository.sumStockGroupBySite_Type_Model(null, null)) {
+            int quantity = ((Number) row[3]).intValue();
+            nonSerialTotals.merge((DeviceType) row[1], quantity, Integer::sum);
+            nonSerialAvailable.computeIfAbsent((Integer) row[0], k -> new EnumMap<>(DeviceType.class))
+                    .merge((DeviceType) row[1], quantity, Integer::sum);
+        }
+
+        Set<String> excluded = new HashSet<>();
+        excludedSites.forEach(name -> excluded.add(name.trim().toLowerCase()));
+
+        List<LowStockResponse> result = new ArrayList<>();
+        for (Site site : siteRepository.findAll()) {
+            String siteKey = site.getSiteName().trim().toLowerCase();
+            if (excluded.contains(siteKey))
+                continue;
+            Map<DeviceType, Double> overrides = thresholdsBySite.getOrDefault(siteKey, Map.of());
+
+            List<LowStockResponse.LowStockType> lowStockTypes = new ArrayList<>();
+            for (Map.Entry<DeviceType, Double> entry : typeThresholds.entrySet()) {
+                DeviceType type = entry.getKey();
+                double threshold = overrides.getOrDefault(type, entry.getValue());
+                int total = (type.hasSerial() ? serialTotals : nonSerialTotals).getOrDefault(type, 0);
+                int available = (type.hasSerial() ? serialAvailable : nonSerialAvailable)
+                        .getOrDefault(site.getSiteId(), Map.of()).getOrDefault(type, 0);
+
+                if (total > 0 && available / (double) total <= threshold) {
+                    lowStockTypes.add(LowStockResponse.LowStockType.builder()
+                            .type(type)
+                            .total(total)
+                            .available(available)
+                            .threshold(threshold)
+                            .build());
                 }
+                log.debug("[LOW STOCK SERVICE] siteId {} deviceType {}: {}/{} (threshold {})",
+                        site.getSiteId(), type, available, total, threshold);
+            }
+            if (!lowStockTypes.isEmpty()) {
+                result.add(LowStockResponse.builder()
+                        .siteId(site.getSiteId())
+                        .siteName(site.getSiteName())
+                        .lowStockTypes(lowStockTypes)
+                        .build());
             }
-        } catch (Exception e) {
-            log.error("[LOW STOCK SERVICE] Unexpected error in getLowStockDevices: {}", e.getMessage(), e);
         }
 
+        log.info("[LOW STOCK SERVICE] {} site(s) have low stock", result.size());
         return result;
     }
 
-}
\ No newline at end of file
+    private static void parseThreshold(String entry, ObjDoubleConsumer<String> consumer) {
+        if (entry == null || entry.isBlank())
+            return;
+        int eq = entry.indexOf('=');
+        try {
+            consumer.accept(entry.substring(0, eq).trim().toUpperCase(), Double.parseDouble(entry.substring(eq + 1).trim()));
+        } catch (RuntimeException e) {
+            log.error("[LOW STOCK SERVICE] Invalid low stock threshold entry '{}', ignored", entry);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.concentrix.asset.service.impl;
 
+import com.concentrix.asset.config.CacheConfig;
 import com.concentrix.asset.dto.request.CreateModelRequest;
 import com.concentrix.asset.dto.request.UpdateModelRequest;
 import com.concentrix.asset.dto.response.ModelResponse;
@@ -8,11 +9,14 @@ import com.concentrix.asset.enums.DeviceType;
 import com.concentrix.asset.exception.CustomException;
 import com.concentrix.asset.exception.ErrorCode;
 import com.concentrix.asset.mapper.ModelMapper;
+import com.concentrix.asset.repository.DeviceCountRollupRepository;
 import com.concentrix.asset.repository.ModelRepository;
 import com.concentrix.asset.service.ModelService;
+import com.concentrix.asset.service.SearchIndexService;
 import com.concentrix.asset.service.TypeService;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -32,6 +36,8 @@ public class ModelServiceImpl implements ModelService {
     ModelRepository modelRepository;
     ModelMapper modelMapper;
     TypeService typeService;
+    DeviceCountRollupRepository deviceCountRollupRepository;
+    SearchIndexService searchIndexService;
 
     @Override
     public ModelResponse getModelById(Integer id) {
@@ -42,6 +48,7 @@ public class ModelServiceImpl implements ModelService {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.MODELS, allEntries = true)
     public ModelResponse createModel(CreateModelRequest request) {
         if (modelRepository.findByModelName(request.getModelName()).isPresent()) {
             throw new CustomException(ErrorCode.MODEL_ALREADY_EXISTS, request.getModelName());
@@ -53,6 +60,7 @@ public class ModelServiceImpl implements ModelService {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.MODELS, allEntries = true)
     public ModelResponse updateModel(UpdateModelRequest request) {
         Model model = modelRepository.findById(request.getModelId())
                 .orElseThrow(() -> new CustomException(ErrorCode.MODEL_NOT_FOUND, request.getModelId()));
@@ -64,6 +72,10 @@ public class ModelServiceImpl implements ModelService {
 
         modelMapper.updateModel(model, request);
         model = modelRepository.save(model);
+        // Giữ type trong rollup đồng bộ với model
+        deviceCountRollupRepository.updateTypeOfModel(model.getModelId(), model.getType());
+        // Tên model nằm trong search index của device
+        searchIndexService.reindexDevicesOfModel(model.getModelId());
         return modelMapper.toModelResponse(model);
     }
 
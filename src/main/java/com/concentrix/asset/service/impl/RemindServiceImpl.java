@@ -1,8 +1,10 @@
 package com.concentrix.asset.service.impl;
 
 import com.concentrix.asset.entity.*;
-import com.concentrix.asset.enums.TransactionType;
+import com.concentrix.asset.repository.DeviceRepository;
+import com.concentrix.asset.repository.TransactionDetailRepository;
 import com.concentrix.asset.repository.TransactionRepository;
+import com.concentrix.asset.repository.UserRepository;
 import com.concentrix.asset.service.RemindService;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
@@ -11,9 +13,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 @Service
 @Slf4j
@@ -23,6 +24,9 @@ import java.util.stream.Collectors;
 public class RemindServiceImpl implements RemindService {
 
     TransactionRepository transactionRepository;
+    TransactionDetailRepository transactionDetailRepository;
+    UserRepository userRepository;
+    DeviceRepository deviceRepository;
 
     @Override
     public Map<User, Map<Device, Integer>> calculatePendingReturnsForAllUsers() {
@@ -31,62 +35,32 @@ public class RemindServiceImpl implements RemindService {
 
         log.info("[RETURN-REMIND] Bắt đầu tính toán pending returns, today={}, threshold={}", today, threshold);
 
-        // Lấy cả ASSIGNMENT (có hạn <= threshold) và RETURN_FROM_USER
-        List<AssetTransaction> allTransactions =
-                transactionRepository.findTransactionForReminder(threshold);
+        // DB tính sẵn ASSIGNMENT (hạn <= threshold) - RETURN_FROM_USER theo (user, device), chỉ trả về phần còn dương
+        List<Object[]> rows = transactionDetailRepository.findPendingReturnQuantities(threshold);
 
-        log.info("[RETURN-REMIND] Lấy được {} transactions từ DB để xử lý", allTransactions.size());
-
-        // Nhóm theo user
-        Map<User, List<AssetTransaction>> userTxs = allTransactions.stream()
-                .collect(Collectors.groupingBy(AssetTransaction::getUserUse));
-
-        Map<User, Map<Device, Integer>> result = new HashMap<>();
-        log.info("[RETURN-REMIND] Có {} user(s) cần kiểm tra pending returns", userTxs.size());
-
-        for (Map.Entry<User, List<AssetTransaction>> entry : userTxs.entrySet()) {
-            User user = entry.getKey();
-            List<AssetTransaction> txs = entry.getValue();
-
-            log.debug("[RETURN-REMIND] Đang xử lý user={} có {} transactions", user.getEmail(), txs.size());
-
-            Map<Device, Integer> assigned = new HashMap<>();
-            Map<Device, Integer> returned = new HashMap<>();
-
-            for (AssetTransaction tx : txs) {
-                log.trace("[RETURN-REMIND] User={} TxId={} type={} details={}",
-                        user.getEmail(), tx.getTransactionId(), tx.getTransactionType(), tx.getDetails().size());
-
-                for (TransactionDetail detail : tx.getDetails()) {
-                    Device device = detail.getDevice();
-                    int qty = detail.getQuantity();
-
-                    if (tx.getTransactionType() == TransactionType.ASSIGNMENT) {
-                        assigned.merge(device, qty, Integer::sum);
-                        log.trace("   + Gán device={} qty={} -> totalAssigned={}",
-                                device.getDeviceId(), qty, assigned.get(device));
-                    } else if (tx.getTransactionType() == TransactionType.RETURN_FROM_USER) {
-                        returned.merge(device, qty, Integer::sum);
-                        log.trace("   + Trả device={} qty={} -> totalReturned={}",
-                                device.getDeviceId(), qty, returned.get(device));
-                    }
-                }
-            }
-
-            // Tính còn lại = ASSIGNMENT - RETURN
-            Map<Device, Integer> remaining = assigned.entrySet().stream()
-                    .map(e -> Map.entry(e.getKey(), e.getValue() - returned.getOrDefault(e.getKey(), 0)))
-                    .filter(e -> e.getValue() > 0) // chỉ giữ device còn giữ
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        log.info("[RETURN-REMIND] Lấy được {} cặp user/device còn pending từ DB", rows.size());
+        if (rows.isEmpty()) {
+            return Map.of();
+        }
 
-            if (!remaining.isEmpty()) {
-                log.info("[RETURN-REMIND] User={} còn {} device(s) pending", user.getEmail(), remaining.size());
-                remaining.forEach((dev, qty) ->
-                        log.info("   -> Device={} remainQty={}", dev.getDeviceId(), qty));
-                result.put(user, remaining);
-            } else {
-                log.debug("[RETURN-REMIND] User={} không còn device nào pending", user.getEmail());
-            }
+        Set<String> eids = new HashSet<>();
+        Set<Integer> deviceIds = new HashSet<>();
+        for (Object[] row : rows) {
+            eids.add((String) row[0]);
+            deviceIds.add((Integer) row[1]);
+        }
+        Map<String, User> users = userRepository.findAllById(eids).stream()
+                .collect(Collectors.toMap(User::getEid, Function.identity()));
+        Map<Integer, Device> devices = deviceRepository.findAllWithModelByDeviceIdIn(deviceIds).stream()
+                .collect(Collectors.toMap(Device::getDeviceId, Function.identity()));
+
+        Map<User, Map<Device, Integer>> result = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            User user = users.get((String) row[0]);
+            Device device = devices.get((Integer) row[1]);
+            int remaining = ((Number) row[2]).intValue();
+            result.computeIfAbsent(user, u -> new LinkedHashMap<>()).put(device, remaining);
+            log.info("   -> User={} Device={} remainQty={}", user.getEmail(), device.getDeviceId(), remaining);
         }
 
         log.info("[RETURN-REMIND] Hoàn tất tính toán. Tổng user có pending = {}", result.size());
@@ -10,15 +10,19 @@ import com.concentrix.asset.mapper.DeviceMapper;
 import com.concentrix.asset.repository.*;
 import com.concentrix.asset.service.ReportService;
 import com.concentrix.asset.service.TypeService;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -36,33 +40,36 @@ public class ReportServiceImpl implements ReportService {
     TypeService typeService;
     DeviceFloorRepository deviceFloorRepository;
     DeviceUserRepository deviceUserRepository;
+    DeviceCountRollupRepository deviceCountRollupRepository;
+    EntityManager entityManager;
+
+    static final int CSV_BUFFER_SIZE = 64 * 1024;
+    static final int CSV_CLEAR_INTERVAL = 500;
+    // Số dòng report map cùng lúc; nên bằng hibernate.default_batch_fetch_size
+    static final int REPORT_MAP_CHUNK = 100;
+    // Main type có serial hiển thị riêng trên chart site/type, còn lại gộp vào OTHER
+    static final List<DeviceType> CHART_MAIN_TYPES_WITH_SERIAL = List.of(
+            DeviceType.MONITOR, DeviceType.DESKTOP, DeviceType.LAPTOP,
+            DeviceType.IMAC, DeviceType.MACBOOK, DeviceType.MAC_MINI);
+    static final String CHART_OTHER_TYPE = "OTHER";
 
     @Override
     public Map<String, Map<String, Integer>> getStatusSummaryAllSite() {
         Map<String, Map<String, Integer>> result = new LinkedHashMap<>();
 
-        for (DeviceStatus status : DeviceStatus.values()) {
-            int withSerial = deviceRepository.countByStatusAndSerialNumberIsNotNull(status);
-
-            int withoutSerial = switch (status) {
-                case IN_STOCK -> deviceWarehouseRepository.sumAllStock();
-
-                case IN_FLOOR -> deviceFloorRepository.sumDeviceInFloor();
-
-                case ON_THE_MOVE -> transactionDetailRepository.sumAllOnTheMove();
-
-                case DISPOSED -> transactionDetailRepository.sumAllDisposal();
-
-                case E_WASTE -> transactionDetailRepository.sumAllEWaste();
-
-                case REPAIR -> transactionDetailRepository.sumAllRepair()
-                        - transactionDetailRepository.sumAllReturnFromRepair();
-                case ASSIGNED -> deviceUserRepository.sumDeviceAssigned();
+        // Đọc từ bảng rollup: một query GROUP BY (status, serialized) thay vì SUM trên toàn bộ lịch sử
+        Map<DeviceStatus, Integer> withSerialByStatus = new EnumMap<>(DeviceStatus.class);
+        Map<DeviceStatus, Integer> withoutSerialByStatus = new EnumMap<>(DeviceStatus.class);
+        for (Object[] row : deviceCountRollupRepository.sumGroupByStatus_Serialized()) {
+            Map<DeviceStatus, Integer> target = Boolean.TRUE.equals(row[1]) ? withSerialByStatus
+                    : withoutSerialByStatus;
+            target.merge((DeviceStatus) row[0], ((Number) row[2]).intValue(), Integer::sum);
+        }
 
-            };
+        for (DeviceStatus status : DeviceStatus.values()) {
             Map<String, Integer> statusMap = new HashMap<>();
-            statusMap.put("withSerial", withSerial);
-            statusMap.put("withoutSerial", withoutSerial);
+            statusMap.put("withSerial", withSerialByStatus.getOrDefault(status, 0));
+            statusMap.put("withoutSerial", withoutSerialByStatus.getOrDefault(status, 0));
             result.put(status.name(), statusMap);
         }
         return result;
@@ -72,49 +79,21 @@ public class ReportServiceImpl implements ReportService {
     public List<SiteDeviceWithoutSerialSummaryResponse> getWithoutSerialSummary(DeviceStatus status,
             DeviceType type, Integer modelId) {
         List<DeviceType> types = (type != null) ? List.of(type) : Arrays.asList(DeviceType.values());
+        Map<DeviceType, List<Model>> modelsByType = getModelsByType(type);
         List<SiteDeviceWithoutSerialSummaryResponse> result = new ArrayList<>();
 
+        // Một query GROUP BY (site, type, model) trên bảng rollup
+        List<Object[]> rows = deviceCountRollupRepository.sumGroupBySite_Type_Model(status, false, type, modelId);
+
         switch (status) {
             case IN_STOCK, IN_FLOOR, E_WASTE -> {
+                Map<Integer, Map<Integer, Integer>> quantityBySite = toQuantityBySiteAndModel(rows);
+
                 List<Site> sites = siteRepository.findAll();
                 for (Site site : sites) {
-                    List<DeviceWithoutSerialSummaryResponse> typeSummaries = new ArrayList<>();
-                    for (DeviceType t : types) {
-                        List<Model> models = modelRepository.findByType(t);
-                        int typeTotal = 0;
-                        List<DeviceWithoutSerialSummaryResponse.ModelQuantity> modelQuantities = new ArrayList<>();
-                        for (Model model : models) {
-                            if (modelId != null && !model.getModelId().equals(modelId))
-                                continue;
-                            int quantity = 0;
-                            switch (status) {
-                                case IN_STOCK -> quantity = deviceWarehouseRepository
-                                        .sumStockBySite_Type_Model(site.getSiteId(), t, model.getModelId());
-
-                                case IN_FLOOR -> quantity = deviceFloorRepository
-                                        .sumDeviceBySite_Type_Model(site.getSiteId(), t, model.getModelId());
-
-                                case E_WASTE -> quantity = transactionDetailRepository
-                                        .sumEWasteBySite_Type_Model(site.getSiteId(), t, model.getModelId());
-
-                            }
-                            if (quantity > 0) {
-                                DeviceWithoutSerialSummaryResponse.ModelQuantity mq = new DeviceWithoutSerialSummaryResponse.ModelQuantity();
-                                mq.setModelId(model.getModelId());
-                                mq.setModelName(model.getModelName());
-                                mq.setQuantity(quantity);
-                                modelQuantities.add(mq);
-                                typeTotal += quantity;
-                            }
-                        }
-                        if (typeTotal > 0) {
-                            DeviceWithoutSerialSummaryResponse summary = new DeviceWithoutSerialSummaryResponse();
-                            summary.setType(t);
-                            summary.setTotal(typeTotal);
-                            summary.setModels(modelQuantities);
-                            typeSummaries.add(summary);
-                        }
-                    }
+                    List<DeviceWithoutSerialSummaryResponse> typeSummaries = buildWithoutSerialTypeSummaries(
+                            types, modelsByType, modelId,
+                            quantityBySite.getOrDefault(site.getSiteId(), Collections.emptyMap()));
                     if (!typeSummaries.isEmpty()) {
                         SiteDeviceWithoutSerialSummaryResponse siteSummary = new SiteDeviceWithoutSerialSummaryResponse();
                         siteSummary.setSiteId(site.getSiteId());
@@ -126,47 +105,14 @@ public class ReportServiceImpl implements ReportService {
 
             }
             default -> {
-                List<DeviceWithoutSerialSummaryResponse> typeSummaries = new ArrayList<>();
-                for (DeviceType t : types) {
-                    List<Model> models = modelRepository.findByType(t);
-                    int typeTotal = 0;
-                    List<DeviceWithoutSerialSummaryResponse.ModelQuantity> modelQuantities = new ArrayList<>();
-                    for (Model model : models) {
-                        if (modelId != null && !model.getModelId().equals(modelId))
-                            continue;
-                        int quantity = 0;
-                        switch (status) {
-                            case ASSIGNED -> quantity = deviceUserRepository
-                                    .sumDeviceAssignedByType_Model(t, model.getModelId());
-                            case ON_THE_MOVE -> quantity = transactionDetailRepository
-                                    .sumOnTheMove(t, model.getModelId());
-                            case DISPOSED -> quantity = transactionDetailRepository
-                                    .sumDisposedByType_Model(t, model.getModelId());
-                            case REPAIR -> {
-                                int repairIn = transactionDetailRepository
-                                        .sumReturnFromRepair(t, model.getModelId());
-                                int repairOut = transactionDetailRepository
-                                        .sumRepair(t, model.getModelId());
-                                quantity = repairOut - repairIn;
-                            }
-                        }
-                        if (quantity > 0) {
-                            DeviceWithoutSerialSummaryResponse.ModelQuantity mq = new DeviceWithoutSerialSummaryResponse.ModelQuantity();
-                            mq.setModelId(model.getModelId());
-                            mq.setModelName(model.getModelName());
-                            mq.setQuantity(quantity);
-                            modelQuantities.add(mq);
-                            typeTotal += quantity;
-                        }
-                    }
-                    if (typeTotal > 0) {
-                        DeviceWithoutSerialSummaryResponse summary = new DeviceWithoutSerialSummaryResponse();
-                        summary.setType(t);
-                        summary.setTotal(typeTotal);
-                        summary.setModels(modelQuantities);
-                        typeSummaries.add(summary);
-                    }
+                // Các status còn lại không gắn site: cộng dồn theo model
+                Map<Integer, Integer> quantityByModel = new HashMap<>();
+                for (Object[] row : rows) {
+                    quantityByModel.merge((Integer) row[2], ((Number) row[3]).intValue(), Integer::sum);
                 }
+
+                List<DeviceWithoutSerialSummaryResponse> typeSummaries = buildWithoutSerialTypeSummaries(
+                        types, modelsByType, modelId, quantityByModel);
                 if (!typeSummaries.isEmpty()) {
                     SiteDeviceWithoutSerialSummaryResponse siteSummary = new SiteDeviceWithoutSerialSummaryResponse();
                     siteSummary.setSiteId(null);
@@ -180,99 +126,152 @@ public class ReportServiceImpl implements ReportService {
         return result;
     }
 
+    // Dựng cây type -> model từ map quantity đã gom nhóm, giữ nguyên thứ tự type/model như trước
+    private List<DeviceWithoutSerialSummaryResponse> buildWithoutSerialTypeSummaries(List<DeviceType> types,
+            Map<DeviceType, List<Model>> modelsByType, Integer modelId, Map<Integer, Integer> quantityByModel) {
+        List<DeviceWithoutSerialSummaryResponse> typeSummaries = new ArrayList<>();
+        if (quantityByModel.isEmpty())
+            return typeSummaries;
+
+        for (DeviceType t : types) {
+            int typeTotal = 0;
+            List<DeviceWithoutSerialSummaryResponse.ModelQuantity> modelQuantities = new ArrayList<>();
+            for (Model model : modelsByType.getOrDefault(t, Collections.emptyList())) {
+                if (modelId != null && !model.getModelId().equals(modelId))
+                    continue;
+                int quantity = quantityByModel.getOrDefault(model.getModelId(), 0);
+                if (quantity > 0) {
+                    DeviceWithoutSerialSummaryResponse.ModelQuantity mq = new DeviceWithoutSerialSummaryResponse.ModelQuantity();
+                    mq.setModelId(model.getModelId());
+                    mq.setModelName(model.getModelName());
+                    mq.setQuantity(quantity);
+                    modelQuantities.add(mq);
+                    typeTotal += quantity;
+                }
+            }
+            if (typeTotal > 0) {
+                DeviceWithoutSerialSummaryResponse summary = new DeviceWithoutSerialSummaryResponse();
+                summary.setType(t);
+                summary.setTotal(typeTotal);
+                summary.setModels(modelQuantities);
+                typeSummaries.add(summary);
+            }
+        }
+        return typeSummaries;
+    }
+
+    // Load model một lần, nhóm theo type (giữ thứ tự như findByType)
+    private Map<DeviceType, List<Model>> getModelsByType(DeviceType type) {
+        List<Model> models = (type != null) ? modelRepository.findByType(type) : modelRepository.findAll();
+        return models.stream()
+                .collect(Collectors.groupingBy(Model::getType, LinkedHashMap::new, Collectors.toList()));
+    }
+
+    // Row dạng [siteId, type, modelId, quantity] -> siteId -> (modelId -> quantity)
+    private Map<Integer, Map<Integer, Integer>> toQuantityBySiteAndModel(List<Object[]> rows) {
+        Map<Integer, Map<Integer, Integer>> result = new HashMap<>();
+        for (Object[] row : rows) {
+            result.computeIfAbsent((Integer) row[0], k -> new HashMap<>())
+                    .merge((Integer) row[2], ((Number) row[3]).intValue(), Integer::sum);
+        }
+        return result;
+    }
+
+    // Row dạng [type, modelId, siteId, count] -> modelId -> (siteId -> count)
+    private Map<Integer, Map<Integer, Integer>> toCountBySiteOfModel(List<Object[]> rows) {
+        Map<Integer, Map<Integer, Integer>> result = new HashMap<>();
+        for (Object[] row : rows) {
+            result.computeIfAbsent((Integer) row[1], k -> new HashMap<>())
+                    .merge((Integer) row[2], ((Number) row[3]).intValue(), Integer::sum);
+        }
+        return result;
+    }
+
+    // Row dạng [type, modelId, quantity] -> modelId -> quantity
+    private Map<Integer, Integer> toQuantityByModel(List<Object[]> rows) {
+        Map<Integer, Integer> result = new HashMap<>();
+        for (Object[] row : rows) {
+            result.merge((Integer) row[1], ((Number) row[2]).intValue(), Integer::sum);
+        }
+        return result;
+    }
+
     @Override
     public List<TypeSummaryResponse> getWithSerialSummary(Integer siteId, DeviceStatus status,
             Integer floorId, Integer ownerId, Integer accountId, DeviceType type, Integer modelId,
             Boolean isOutOfWarranty, String ageRange) {
         List<DeviceType> types = (type != null) ? List.of(type) : Arrays.asList(DeviceType.values());
-        List<Site> sites = (siteId == null) ? siteRepository.findAll()
-                : Collections.singletonList(siteRepository.findById(siteId).orElse(null));
         List<TypeSummaryResponse> typeSummaries = new ArrayList<>();
 
         LocalDate[] dateRange = getDateRangeFromAgeRange(ageRange);
         LocalDate startDate = dateRange[0];
         LocalDate endDate = dateRange[1];
 
+        // Chỉ IN_STOCK, IN_FLOOR và E_WASTE mới có siteSummaries
+        boolean groupBySite = status == DeviceStatus.IN_STOCK || status == DeviceStatus.IN_FLOOR
+                || status == DeviceStatus.E_WASTE;
+
+        // Một query GROUP BY (type, model[, site]) thay vì một count cho mỗi model x site
+        Map<Integer, Map<Integer, Integer>> countBySiteOfModel = new HashMap<>();
+        Map<Integer, Integer> countByModel = new HashMap<>();
+        switch (status) {
+            case IN_STOCK -> countBySiteOfModel = toCountBySiteOfModel(
+                    deviceRepository.countAssetInStockGroupByType_Model_Site(
+                            siteId, type, modelId, isOutOfWarranty, startDate, endDate));
+            case IN_FLOOR -> countBySiteOfModel = toCountBySiteOfModel(
+                    deviceRepository.countAssetInFloorGroupByType_Model_Site(
+                            siteId, ownerId, accountId, floorId, type, modelId, isOutOfWarranty, startDate, endDate));
+            case E_WASTE -> countBySiteOfModel = toCountBySiteOfModel(
+                    deviceRepository.countAssetEWasteGroupByType_Model_Site(
+                            siteId, type, modelId, isOutOfWarranty, startDate, endDate));
+            default -> countByModel = toQuantityByModel(
+                    deviceRepository.countAssetByStatusGroupByType_Model(
+                            status, type, modelId, isOutOfWarranty, startDate, endDate));
+        }
+        if (countBySiteOfModel.isEmpty() && countByModel.isEmpty())
+            return typeSummaries;
+
+        List<Site> sites = Collections.emptyList();
+        if (groupBySite) {
+            sites = (siteId == null) ? siteRepository.findAll()
+                    : siteRepository.findById(siteId).map(List::of).orElse(Collections.emptyList());
+        }
+        Map<DeviceType, List<Model>> modelsByType = getModelsByType(type);
+
         for (DeviceType t : types) {
-            if (type != null && !t.equals(type)) {
-                continue; // Bỏ qua nếu type là null
-            }
-            List<Model> models = modelRepository.findByType(t);
             int typeTotal = 0;
             List<ModelSummaryResponse> modelSummaries = new ArrayList<>();
-            for (Model model : models) {
+            for (Model model : modelsByType.getOrDefault(t, Collections.emptyList())) {
                 if (modelId != null && !model.getModelId().equals(modelId))
                     continue;
                 int modelTotal = 0;
                 List<SiteSummaryResponse> siteSummaries = new ArrayList<>();
-                switch (status) {
-                    case IN_STOCK -> {
-                        for (Site site : sites) {
-                            if (siteId != null && !site.getSiteId().equals(siteId))
-                                continue;
-                            int quantity = deviceRepository.countAssetInStock(
-                                    site.getSiteId(), t, model.getModelId(), isOutOfWarranty, startDate, endDate);
-                            if (quantity > 0) {
-                                SiteSummaryResponse siteSummary = new SiteSummaryResponse();
-                                siteSummary.setSiteId(site.getSiteId());
-                                siteSummary.setSiteName(site.getSiteName());
-                                siteSummary.setTotal(quantity);
-                                siteSummaries.add(siteSummary);
-                                modelTotal += quantity;
-                            }
-                        }
-                    }
-                    case IN_FLOOR -> {
-                        for (Site site : sites) {
-                            if (siteId != null && !site.getSiteId().equals(siteId))
-                                continue;
-                            int quantity = deviceRepository.countAssetInFloor(
-                                    site.getSiteId(), ownerId, accountId, floorId, t, model.getModelId(),
-                                    isOutOfWarranty, startDate, endDate);
-                            if (quantity > 0) {
-                                SiteSummaryResponse siteSummary = new SiteSummaryResponse();
-                                siteSummary.setSiteId(site.getSiteId());
-                                siteSummary.setSiteName(site.getSiteName());
-                                siteSummary.setTotal(quantity);
-                                siteSummaries.add(siteSummary);
-                                modelTotal += quantity;
-                            }
-                        }
-                    }
-
-                    case E_WASTE -> {
-                        for (Site site : sites) {
-                            if (siteId != null && !site.getSiteId().equals(siteId))
-                                continue;
-                            int quantity = deviceRepository.countAssetEWaste(
-                                    site.getSiteId(), t, model.getModelId(), isOutOfWarranty, startDate, endDate);
-                            if (quantity > 0) {
-                                SiteSummaryResponse siteSummary = new SiteSummaryResponse();
-                                siteSummary.setSiteId(site.getSiteId());
-                                siteSummary.setSiteName(site.getSiteName());
-                                siteSummary.setTotal(quantity);
-                                siteSummaries.add(siteSummary);
-                                modelTotal += quantity;
-                            }
-                        }
-                    }
-
-                    default -> {
-                        int quantity = deviceRepository.countAssetByStatus(status, t,
-                                model.getModelId(), isOutOfWarranty, startDate, endDate);
+                if (groupBySite) {
+                    Map<Integer, Integer> countBySite = countBySiteOfModel
+                            .getOrDefault(model.getModelId(), Collections.emptyMap());
+                    for (Site site : sites) {
+                        int quantity = countBySite.getOrDefault(site.getSiteId(), 0);
                         if (quantity > 0) {
+                            SiteSummaryResponse siteSummary = new SiteSummaryResponse();
+                            siteSummary.setSiteId(site.getSiteId());
+                            siteSummary.setSiteName(site.getSiteName());
+                            siteSummary.setTotal(quantity);
+                            siteSummaries.add(siteSummary);
                             modelTotal += quantity;
                         }
                     }
+                } else {
+                    int quantity = countByModel.getOrDefault(model.getModelId(), 0);
+                    if (quantity > 0) {
+                        modelTotal += quantity;
+                    }
                 }
                 if (modelTotal > 0) {
                     ModelSummaryResponse modelSummary = new ModelSummaryResponse();
                     modelSummary.setModelId(model.getModelId());
                     modelSummary.setModelName(model.getModelName());
                     modelSummary.setTotal(modelTotal);
-                    // Chỉ IN_STOCK và IN_FLOOR mới có siteSummaries
-                    if (status == DeviceStatus.IN_STOCK || status == DeviceStatus.IN_FLOOR
-                            || status == DeviceStatus.E_WASTE) {
+                    if (groupBySite) {
                         modelSummary.setSites(siteSummaries);
                     }
                     modelSummaries.add(modelSummary);
@@ -295,143 +294,103 @@ public class ReportServiceImpl implements ReportService {
             Integer ownerId, Integer accountId, DeviceType type, Integer modelId, Boolean isOutOfWarranty,
             String ageRange) {
 
+        try (Stream<Device> devices = streamDevicesForReport(siteId, status, floorId, ownerId, accountId, type,
+                modelId, isOutOfWarranty, ageRange)) {
+            Iterator<Device> iterator = devices.iterator();
+            List<DeviceResponse> result = new ArrayList<>();
+            for (List<DeviceResponse> chunk = mapNextChunk(iterator); !chunk.isEmpty(); chunk = mapNextChunk(iterator)) {
+                result.addAll(chunk);
+            }
+            return result;
+        }
+    }
+
+    private Stream<Device> streamDevicesForReport(Integer siteId, DeviceStatus status, Integer floorId,
+            Integer ownerId, Integer accountId, DeviceType type, Integer modelId, Boolean isOutOfWarranty,
+            String ageRange) {
+
         LocalDate[] dateRange = getDateRangeFromAgeRange(ageRange);
         LocalDate startDate = dateRange[0];
         LocalDate endDate = dateRange[1];
 
-        List<Device> devices = new ArrayList<>();
-
         // Nếu status = null, lấy tất cả devices với các filter khác
         if (status == null) {
-            devices = deviceRepository.findAllDevicesForReport(siteId, floorId, ownerId, accountId, type, modelId,
+            return deviceRepository.findAllDevicesForReport(siteId, floorId, ownerId, accountId, type, modelId,
                     isOutOfWarranty, startDate, endDate);
-        } else {
-            switch (status) {
-                case IN_STOCK ->
-                    devices = deviceRepository.findDevicesInStockForReport(siteId, type, modelId, isOutOfWarranty,
-                            startDate, endDate);
-
-                case IN_FLOOR ->
-                    devices = deviceRepository.findDevicesInFloorForReport(siteId, floorId, ownerId, accountId, type,
-                            modelId, isOutOfWarranty, startDate, endDate);
-
-                case E_WASTE ->
-                    devices = deviceRepository.findDevicesEWasteForReport(siteId, type, modelId, isOutOfWarranty,
-                            startDate,
-                            endDate);
-
-                default ->
-                    devices = deviceRepository.findDevicesStatusForReport(status, type, modelId, isOutOfWarranty,
-                            startDate,
-                            endDate);
-            }
         }
-
-        return devices.stream()
-                .map(deviceMapper::toDeviceResponse)
-                .collect(Collectors.toList());
-
+        return switch (status) {
+            case IN_STOCK ->
+                deviceRepository.findDevicesInStockForReport(siteId, type, modelId, isOutOfWarranty,
+                        startDate, endDate);
+
+            case IN_FLOOR ->
+                deviceRepository.findDevicesInFloorForReport(siteId, floorId, ownerId, accountId, type,
+                        modelId, isOutOfWarranty, startDate, endDate);
+
+            case E_WASTE ->
+                deviceRepository.findDevicesEWasteForReport(siteId, type, modelId, isOutOfWarranty,
+                        startDate,
+                        endDate);
+
+            default ->
+                deviceRepository.findDevicesStatusForReport(status, type, modelId, isOutOfWarranty,
+                        startDate,
+                        endDate);
+        };
     }
 
     @Override
     public List<SiteTypeChartResponse> getSiteTypeChartWithSerial(DeviceStatus status) {
-        // Định nghĩa main type có serial
-        Set<DeviceType> mainTypes = Set.of(
-                DeviceType.MONITOR, DeviceType.DESKTOP, DeviceType.LAPTOP,
-                DeviceType.IMAC, DeviceType.MACBOOK, DeviceType.MAC_MINI);
-        List<SiteTypeChartResponse> result = new ArrayList<>();
-
-        List<Site> sites = siteRepository.findAll();
-        List<Device> devices = deviceRepository.findAllBySerialNumberIsNotNull();
-
-        switch (status) {
-            case IN_STOCK, IN_FLOOR, E_WASTE -> {
-                for (Site site : sites) {
-                    List<SiteTypeChartResponse.TypeCount> typeCounts = new ArrayList<>();
-                    int otherCount = 0;
-                    for (DeviceType type : mainTypes) {
-                        int count = (int) devices.parallelStream()
-                                .filter(d -> d.getModel().getType() == type
-                                        && d.getStatus() == status
-                                        && ((d.getCurrentWarehouse() != null
-                                                && d.getCurrentWarehouse()
-                                                        .getSite()
-                                                        .getSiteId()
-                                                        .equals(site.getSiteId()))
-                                                || (d.getCurrentFloor() != null
-                                                        && d.getCurrentFloor()
-                                                                .getSite()
-                                                                .getSiteId()
-                                                                .equals(site.getSiteId()))))
-                                .count();
-                        typeCounts.add(SiteTypeChartResponse.TypeCount.builder()
-                                .type(type.name())
-                                .count(count)
-                                .build());
-                    }
-                    // Đếm OTHER
-                    otherCount = (int) devices.stream()
-                            .filter(d -> !mainTypes.contains(d.getModel().getType())
-                                    && d.getStatus() == status
-                                    && ((d.getCurrentWarehouse() != null
-                                            && d.getCurrentWarehouse()
-                                                    .getSite()
-                                                    .getSiteId()
-                                                    .equals(site.getSiteId()))
-                                            || (d.getCurrentFloor() != null
-                                                    && d
-                                                            .getCurrentFloor()
-                                                            .getSite()
-                                                            .getSiteId()
-                                                            .equals(site.getSiteId()))))
-                            .count();
-                    typeCounts.add(SiteTypeChartResponse.TypeCount.builder()
-                            .type("OTHER")
-                            .count(otherCount)
-                            .build());
-                    result.add(SiteTypeChartResponse.builder()
-                            .siteId(site.getSiteId())
-                            .siteName(site.getSiteName())
-                            .typeCounts(typeCounts)
-                            .build());
-                }
-            }
-            default -> {
-                List<SiteTypeChartResponse.TypeCount> typeCounts = new ArrayList<>();
-
-                for (DeviceType type : mainTypes) {
-                    int count = (int) devices.stream()
-                            .filter(d -> d.getModel().getType() == type
-                                    && d.getStatus() == status)
-                            .count();
-                    typeCounts.add(SiteTypeChartResponse.TypeCount.builder()
-                            .type(type.name())
-                            .count(count)
-                            .build());
-
-                }
-                // Đếm OTHER
-                int otherCount = (int) devices.stream()
-                        .filter(d -> !mainTypes.contains(d.getModel().getType())
-                                && d.getStatus() == status)
-                        .count();
-                typeCounts.add(SiteTypeChartResponse.TypeCount.builder()
-                        .type("OTHER")
-                        .count(otherCount)
-                        .build());
-
-                result.add(SiteTypeChartResponse.builder()
-                        .siteId(null) // Không phân theo site với các trạng thái này
-                        .siteName("All Sites")
-                        .typeCounts(typeCounts)
-                        .build());
-            }
+        boolean groupBySite = status == DeviceStatus.IN_STOCK || status == DeviceStatus.IN_FLOOR
+                || status == DeviceStatus.E_WASTE;
+
+        // Một query GROUP BY (site, type) trên bảng rollup, type ngoài main type gộp luôn vào OTHER
+        Map<Integer, Map<String, Integer>> countBySite = new HashMap<>();
+        for (Object[] row : deviceCountRollupRepository.sumGroupBySite_Type(status, true)) {
+            DeviceType type = (DeviceType) row[1];
+            String typeKey = CHART_MAIN_TYPES_WITH_SERIAL.contains(type) ? type.name() : CHART_OTHER_TYPE;
+            Integer siteKey = groupBySite ? (Integer) row[0] : null;
+            countBySite.computeIfAbsent(siteKey, k -> new HashMap<>())
+                    .merge(typeKey, ((Number) row[2]).intValue(), Integer::sum);
+        }
 
+        List<SiteTypeChartResponse> result = new ArrayList<>();
+        if (!groupBySite) {
+            result.add(SiteTypeChartResponse.builder()
+                    .siteId(null) // Không phân theo site với các trạng thái này
+                    .siteName("All Sites")
+                    .typeCounts(toChartTypeCounts(countBySite.getOrDefault(null, Collections.emptyMap())))
+                    .build());
+            return result;
         }
 
+        for (Site site : siteRepository.findAll()) {
+            result.add(SiteTypeChartResponse.builder()
+                    .siteId(site.getSiteId())
+                    .siteName(site.getSiteName())
+                    .typeCounts(toChartTypeCounts(
+                            countBySite.getOrDefault(site.getSiteId(), Collections.emptyMap())))
+                    .build());
+        }
         return result;
     }
 
+    // Main type theo thứ tự cố định, OTHER luôn ở cuối (kể cả khi bằng 0)
+    private List<SiteTypeChartResponse.TypeCount> toChartTypeCounts(Map<String, Integer> countByType) {
+        List<SiteTypeChartResponse.TypeCount> typeCounts = new ArrayList<>();
+        for (DeviceType type : CHART_MAIN_TYPES_WITH_SERIAL) {
+            typeCounts.add(SiteTypeChartResponse.TypeCount.builder()
+                    .type(type.name())
+                    .count(countByType.getOrDefault(type.name(), 0))
+                    .build());
+        }
+        typeCounts.add(SiteTypeChartResponse.TypeCount.builder()
+                .type(CHART_OTHER_TYPE)
+                .count(countByType.getOrDefault(CHART_OTHER_TYPE, 0))
+                .build());
+        return typeCounts;
+    }
+
     @Override
     public List<SiteTypeChartResponse> getSiteTypeChartWithoutSerial(DeviceStatus status) {
         Set<DeviceType> mainTypes = Set.of(
@@ -565,15 +524,15 @@ public class ReportServiceImpl implements ReportService {
     }
 
     @Override
-    public byte[] generateDeviceListCsv(Integer siteId, DeviceStatus status, Integer floorId, Integer ownerId,
-            Integer accountId, DeviceType type, Integer modelId, Boolean isOutOfWarranty, String ageRange) {
-        List<DeviceResponse> devices = getDeviceListForReport(siteId, status, floorId, ownerId, accountId, type,
-                modelId, isOutOfWarranty, ageRange);
-
-        StringBuilder csvContent = new StringBuilder();
+    @Transactional(readOnly = true)
+    public void writeDeviceListCsv(OutputStream outputStream, Integer siteId, DeviceStatus status, Integer floorId,
+            Integer ownerId, Integer accountId, DeviceType type, Integer modelId, Boolean isOutOfWarranty,
+            String ageRange) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8),
+                CSV_BUFFER_SIZE);
 
         // CSV Header
-        csvContent.append("Device ID,Serial Number,Device Name,Host Name,Seat Number,PO ID,Purchase Date,")
+        writer.append("Device ID,Serial Number,Device Name,Host Name,Seat Number,PO ID,Purchase Date,")
                 .append("Model ID,Model Name,Device Type,")
                 .append("User EID,User Full Name,")
                 .append("Floor ID,Floor Name,")
@@ -581,37 +540,62 @@ public class ReportServiceImpl implements ReportService {
                 .append("Site ID,Site Name,")
                 .append("Status,Description\n");
 
-        // CSV Data
-        for (DeviceResponse device : devices) {
-            csvContent.append(escapeCsvValue(device.getDeviceId())).append(",")
-                    .append(escapeCsvValue(device.getSerialNumber())).append(",")
-                    .append(escapeCsvValue(device.getDeviceName())).append(",")
-                    .append(escapeCsvValue(device.getHostName())).append(",")
-                    .append(escapeCsvValue(device.getSeatNumber())).append(",")
-                    .append(escapeCsvValue(device.getPoId())).append(",")
-                    .append(escapeCsvValue(device.getPurchaseDate() != null ? device.getPurchaseDate().toString() : ""))
-                    .append(",")
-                    .append(escapeCsvValue(device.getModel() != null ? device.getModel().getModelId() : "")).append(",")
-                    .append(escapeCsvValue(device.getModel() != null ? device.getModel().getModelName() : ""))
-                    .append(",")
-                    .append(escapeCsvValue(device.getModel() != null ? device.getModel().getType() : "")).append(",")
-                    .append(escapeCsvValue(device.getUser() != null ? device.getUser().getEid() : "")).append(",")
-                    .append(escapeCsvValue(device.getUser() != null ? device.getUser().getFullName() : "")).append(",")
-                    .append(escapeCsvValue(device.getFloor() != null ? device.getFloor().getFloorId() : "")).append(",")
-                    .append(escapeCsvValue(device.getFloor() != null ? device.getFloor().getFloorName() : ""))
-                    .append(",")
-                    .append(escapeCsvValue(device.getWarehouse() != null ? device.getWarehouse().getWarehouseId() : ""))
-                    .append(",")
-                    .append(escapeCsvValue(
-                            device.getWarehouse() != null ? device.getWarehouse().getWarehouseName() : ""))
-                    .append(",")
-                    .append(escapeCsvValue(device.getSite() != null ? device.getSite().getSiteId() : "")).append(",")
-                    .append(escapeCsvValue(device.getSite() != null ? device.getSite().getSiteName() : "")).append(",")
-                    .append(escapeCsvValue(device.getStatus())).append(",")
-                    .append(escapeCsvValue(device.getDescription())).append("\n");
+        // CSV Data: đọc từng lô qua cursor và ghi thẳng ra output, không giữ toàn bộ danh sách trong bộ nhớ
+        int rows = 0;
+        try (Stream<Device> devices = streamDevicesForReport(siteId, status, floorId, ownerId, accountId, type,
+                modelId, isOutOfWarranty, ageRange)) {
+            Iterator<Device> iterator = devices.iterator();
+            for (List<DeviceResponse> chunk = mapNextChunk(iterator); !chunk.isEmpty(); chunk = mapNextChunk(iterator)) {
+                for (DeviceResponse device : chunk) {
+                    appendCsvRow(writer, device);
+                }
+                // Dọn persistence context định kỳ để bộ nhớ không tăng theo số dòng
+                rows += chunk.size();
+                if (rows % CSV_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
         }
+        writer.flush();
+        log.info("[REPORT][CSV] Exported {} devices", rows);
+    }
+
+    // Đọc trước một lô rồi mới map: poDetails còn lazy của cả lô được nạp chung một query thay vì từng dòng
+    private List<DeviceResponse> mapNextChunk(Iterator<Device> iterator) {
+        List<Device> chunk = new ArrayList<>(REPORT_MAP_CHUNK);
+        while (chunk.size() < REPORT_MAP_CHUNK && iterator.hasNext()) {
+            chunk.add(iterator.next());
+        }
+        return chunk.stream().map(deviceMapper::toDeviceResponse).toList();
+    }
 
-        return csvContent.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+    private void appendCsvRow(Writer writer, DeviceResponse device) throws IOException {
+        writer.append(escapeCsvValue(device.getDeviceId())).append(",")
+                .append(escapeCsvValue(device.getSerialNumber())).append(",")
+                .append(escapeCsvValue(device.getDeviceName())).append(",")
+                .append(escapeCsvValue(device.getHostName())).append(",")
+                .append(escapeCsvValue(device.getSeatNumber())).append(",")
+                .append(escapeCsvValue(device.getPoId())).append(",")
+                .append(escapeCsvValue(device.getPurchaseDate() != null ? device.getPurchaseDate().toString() : ""))
+                .append(",")
+                .append(escapeCsvValue(device.getModel() != null ? device.getModel().getModelId() : "")).append(",")
+                .append(escapeCsvValue(device.getModel() != null ? device.getModel().getModelName() : ""))
+                .append(",")
+                .append(escapeCsvValue(device.getModel() != null ? device.getModel().getType() : "")).append(",")
+                .append(escapeCsvValue(device.getUser() != null ? device.getUser().getEid() : "")).append(",")
+                .append(escapeCsvValue(device.getUser() != null ? device.getUser().getFullName() : "")).append(",")
+                .append(escapeCsvValue(device.getFloor() != null ? device.getFloor().getFloorId() : "")).append(",")
+                .append(escapeCsvValue(device.getFloor() != null ? device.getFloor().getFloorName() : ""))
+                .append(",")
+                .append(escapeCsvValue(device.getWarehouse() != null ? device.getWarehouse().getWarehouseId() : ""))
+                .append(",")
+                .append(escapeCsvValue(
+                        device.getWarehouse() != null ? device.getWarehouse().getWarehouseName() : ""))
+                .append(",")
+                .append(escapeCsvValue(device.getSite() != null ? device.getSite().getSiteId() : "")).append(",")
+                .append(escapeCsvValue(device.getSite() != null ? device.getSite().getSiteName() : "")).append(",")
+                .append(escapeCsvValue(device.getStatus())).append(",")
+                .append(escapeCsvValue(device.getDescription())).append("\n");
     }
 
     private String escapeCsvValue(Object value) {
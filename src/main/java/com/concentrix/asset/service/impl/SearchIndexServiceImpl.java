@@ -0,0 +1,372 @@
+package com.concentrix.asset.service.impl;
+
+import com.concentrix.asset.entity.Device;
+import com.concentrix.asset.entity.User;
+import com.concentrix.asset.repository.DeviceRepository;
+import com.concentrix.asset.repository.UserRepository;
+import com.concentrix.asset.service.SearchIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index theo trigram (n = 3) cho global search, giữ hoàn toàn trong bộ nhớ.
+ * - User: eid, email, fullName, sso, msa.
+ * - Device: serialNumber, deviceName, hostName, seatNumber, modelName.
+ * Query >= 3 ký tự: giao các posting list rồi kiểm tra lại bằng contains trên ứng viên;
+ * query ngắn hơn: quét các field đã lowercase trong bộ nhớ (không chạm DB).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
+public class SearchIndexServiceImpl implements SearchIndexService {
+    static final int GRAM = 3;
+
+    UserRepository userRepository;
+    DeviceRepository deviceRepository;
+
+    NgramIndex<String> userIndex = new NgramIndex<>();
+    NgramIndex<Integer> deviceIndex = new NgramIndex<>();
+
+    @Override
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+
+        Map<String, String[]> users = new LinkedHashMap<>();
+        for (Object[] row : userRepository.findAllSearchFields()) {
+            users.put((String) row[0], userFields((String) row[0], (String) row[1], (String) row[2],
+                    (String) row[3], (String) row[4]));
+        }
+        userIndex.replaceAll(users);
+
+        Map<Integer, String[]> devices = new LinkedHashMap<>();
+        for (Object[] row : deviceRepository.findAllSearchFields()) {
+            devices.put((Integer) row[0], deviceFields(row));
+        }
+        deviceIndex.replaceAll(devices);
+
+        log.info("[SEARCH INDEX] Indexed {} users, {} devices in {} ms",
+                users.size(), devices.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void indexUser(User user) {
+        String[] fields = userFields(user.getEid(), user.getEmail(), user.getFullName(), user.getSso(), user.getMsa());
+        String eid = user.getEid();
+        afterCommit(() -> userIndex.put(eid, fields));
+    }
+
+    @Override
+    public void removeUser(User user) {
+        String eid = user.getEid();
+        afterCommit(() -> userIndex.remove(eid));
+    }
+
+    @Override
+    public void indexDevice(Device device) {
+        String modelName = device.getModel() != null ? device.getModel().getModelName() : null;
+        String[] fields = deviceFields(new Object[]{device.getDeviceId(), device.getSerialNumber(),
+                device.getDeviceName(), device.getHostName(), device.getSeatNumber(), modelName});
+        Integer deviceId = device.getDeviceId();
+        afterCommit(() -> deviceIndex.put(deviceId, fields));
+    }
+
+    @Override
+    public void removeDevice(Device device) {
+        Integer deviceId = device.getDeviceId();
+        afterCommit(() -> deviceIndex.remove(deviceId));
+    }
+
+    @Override
+    public void reindexDevicesOfModel(Integer modelId) {
+        Map<Integer, String[]> devices = new HashMap<>();
+        for (Object[] row : deviceRepository.findSearchFieldsByModelId(modelId)) {
+            devices.put((Integer) row[0], deviceFields(row));
+        }
+        afterCommit(() -> devices.forEach(deviceIndex::put));
+    }
+
+    @Override
+    public List<String> searchUserIds(String query, int limit) {
+        return userIndex.search(normalize(query), limit);
+    }
+
+    @Override
+    public List<Integer> searchDeviceIds(String query, int limit) {
+        return deviceIndex.search(normalize(query), limit);
+    }
+
+    private static String[] userFields(String eid, String email, String fullName, String sso, String msa) {
+        return new String[]{normalize(eid), normalize(email), normalize(fullName), normalize(sso), normalize(msa)};
+    }
+
+    // row: [deviceId, serialNumber, deviceName, hostName, seatNumber, modelName]
+    private static String[] deviceFields(Object[] row) {
+        String[] fields = new String[row.length - 1];
+        for (int i = 1; i < row.length; i++) {
+            fields[i - 1] = normalize((String) row[i]);
+        }
+        return fields;
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    // Thay đổi chưa commit (hoặc bị rollback) không được xuất hiện trong kết quả search
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class NgramIndex<K extends Comparable<K>> {
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        // docId tăng dần khi thêm mới nên mỗi posting list luôn được sắp xếp tăng dần
+        final Map<K, Integer> docIdByKey = new HashMap<>();
+        final List<K> keys = new ArrayList<>();
+        final List<String[]> fields = new ArrayList<>();
+        final Map<String, IntList> postings = new HashMap<>();
+        int removed;
+
+        void replaceAll(Map<K, String[]> docs) {
+            lock.writeLock().lock();
+            try {
+                clear();
+                docs.forEach(this::add);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void put(K key, String[] docFields) {
+            if (key == null) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                Integer docId = docIdByKey.get(key);
+                if (docId != null) {
+                    // Phần lớn update (đổi status, vị trí, ...) không đổi các field được index
+                    if (Arrays.equals(fields.get(docId), docFields)) {
+                        return;
+                    }
+                    delete(docId);
+                }
+                add(key, docFields);
+                compactIfNeeded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(K key) {
+            lock.writeLock().lock();
+            try {
+                Integer docId = docIdByKey.get(key);
+                if (docId != null) {
+                    delete(docId);
+                    compactIfNeeded();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        List<K> search(String q, int limit) {
+            if (q == null || limit <= 0) {
+                return List.of();
+            }
+            // Phần tử đầu heap là kết quả kém nhất trong top-K hiện tại
+            PriorityQueue<Hit<K>> top = new PriorityQueue<>(Comparator.<Hit<K>>naturalOrder().reversed());
+            lock.readLock().lock();
+            try {
+                if (q.length() < GRAM) {
+                    for (int docId = 0; docId < keys.size(); docId++) {
+                        collect(docId, q, limit, top);
+                    }
+                } else {
+                    IntList candidates = candidates(q);
+                    for (int i = 0; i < candidates.size; i++) {
+                        collect(candidates.values[i], q, limit, top);
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            List<Hit<K>> hits = new ArrayList<>(top);
+            Collections.sort(hits);
+            return hits.stream().map(hit -> hit.key).toList();
+        }
+
+        private void collect(int docId, String q, int limit, PriorityQueue<Hit<K>> top) {
+            K key = keys.get(docId);
+            if (key == null) {
+                return;
+            }
+            Hit<K> hit = null;
+            for (String field : fields.get(docId)) {
+                if (field == null) {
+                    continue;
+                }
+                int rank = field.equals(q) ? 3 : field.startsWith(q) ? 2 : field.contains(q) ? 1 : 0;
+                if (rank > 0 && (hit == null || rank > hit.rank
+                        || (rank == hit.rank && field.length() < hit.length))) {
+                    hit = new Hit<>(key, rank, field.length());
+                }
+            }
+            if (hit == null) {
+                return;
+            }
+            if (top.size() < limit) {
+                top.add(hit);
+            } else if (hit.compareTo(top.peek()) < 0) {
+                top.poll();
+                top.add(hit);
+            }
+        }
+
+        // Giao các posting list, bắt đầu từ list ngắn nhất
+        private IntList candidates(String q) {
+            List<IntList> lists = new ArrayList<>();
+            for (String gram : grams(q)) {
+                IntList list = postings.get(gram);
+                if (list == null) {
+                    return new IntList();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+
+            IntList result = lists.get(0).copy();
+            for (int i = 1; i < lists.size() && result.size > 0; i++) {
+                result.retainAll(lists.get(i));
+            }
+            return result;
+        }
+
+        private void add(K key, String[] docFields) {
+            int docId = keys.size();
+            keys.add(key);
+            fields.add(docFields);
+            docIdByKey.put(key, docId);
+
+            Set<String> docGrams = new HashSet<>();
+            for (String field : docFields) {
+                if (field != null) {
+                    docGrams.addAll(grams(field));
+                }
+            }
+            for (String gram : docGrams) {
+                postings.computeIfAbsent(gram, g -> new IntList()).add(docId);
+            }
+        }
+
+        // Chỉ đánh dấu xoá, posting list được dọn lại khi compact
+        private void delete(int docId) {
+            docIdByKey.remove(keys.get(docId));
+            keys.set(docId, null);
+            fields.set(docId, null);
+            removed++;
+        }
+
+        private void compactIfNeeded() {
+            if (removed < 1000 || removed < docIdByKey.size()) {
+                return;
+            }
+            Map<K, String[]> live = new LinkedHashMap<>();
+            for (int docId = 0; docId < keys.size(); docId++) {
+                if (keys.get(docId) != null) {
+                    live.put(keys.get(docId), fields.get(docId));
+                }
+            }
+            clear();
+            live.forEach(this::add);
+        }
+
+        private void clear() {
+            docIdByKey.clear();
+            keys.clear();
+            fields.clear();
+            postings.clear();
+            removed = 0;
+        }
+
+        private static Set<String> grams(String value) {
+            Set<String> grams = new HashSet<>();
+            for (int i = 0; i + GRAM <= value.length(); i++) {
+                grams.add(value.substring(i, i + GRAM));
+            }
+            return grams;
+        }
+    }
+
+    // Thứ tự: khớp chính xác > khớp đầu chuỗi > chứa; cùng mức thì field ngắn hơn (sát query hơn) đứng trước
+    private record Hit<K extends Comparable<K>>(K key, int rank, int length) implements Comparable<Hit<K>> {
+        @Override
+        public int compareTo(Hit<K> other) {
+            if (rank != other.rank) {
+                return Integer.compare(other.rank, rank);
+            }
+            if (length != other.length) {
+                return Integer.compare(length, other.length);
+            }
+            return key.compareTo(other.key);
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        IntList copy() {
+            IntList copy = new IntList();
+            copy.values = Arrays.copyOf(values, Math.max(size, 1));
+            copy.size = size;
+            return copy;
+        }
+
+        // Giao hai list đã sắp xếp tăng dần, ghi đè kết quả vào list hiện tại
+        void retainAll(IntList other) {
+            int i = 0, j = 0, n = 0;
+            while (i < size && j < other.size) {
+                int a = values[i], b = other.values[j];
+                if (a == b) {
+                    values[n++] = a;
+                    i++;
+                    j++;
+                } else if (a < b) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            size = n;
+        }
+    }
+}
@@ -9,12 +9,17 @@ import com.concentrix.asset.mapper.DeviceMapper;
 import com.concentrix.asset.mapper.UserMapper;
 import com.concentrix.asset.repository.DeviceRepository;
 import com.concentrix.asset.repository.UserRepository;
+import com.concentrix.asset.service.SearchIndexService;
 import com.concentrix.asset.service.SearchService;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -24,18 +29,23 @@ public class SearchServiceImpl implements SearchService {
     DeviceRepository deviceRepository;
     UserMapper userMapper;
     DeviceMapper deviceMapper;
+    SearchIndexService searchIndexService;
+
+    static final int MAX_LIMIT = 200;
 
     /**
      * Global search for both User and Device.
-     * - Tìm kiếm theo từ khóa (query) trên các trường: email, eid, fullName, sso, msa (User) và serialNumber (Device).
-     * - Trả về danh sách user và device phù hợp, map sang DTO chuẩn cho FE.
-     * - Kết quả trả về gồm: tổng số kết quả, danh sách UserResponse, danh sách DeviceResponse.
+     * - Tìm kiếm theo từ khóa (query) trên các trường: email, eid, fullName, sso, msa (User) và
+     *   serialNumber, deviceName, hostName, seatNumber, modelName (Device) qua search index trong bộ nhớ.
+     * - Mỗi loại trả về tối đa limit kết quả, đã xếp hạng (khớp chính xác > khớp đầu chuỗi > chứa).
+     * - Chỉ load từ DB các user/device nằm trong top-K.
      *
      * @param query Từ khóa tìm kiếm (có thể là email, eid, serial, tên thiết bị, model, ...)
+     * @param limit Số kết quả tối đa cho mỗi loại (user, device)
      * @return SearchResultResponse gồm users và devices phù hợp
      */
     @Override
-    public SearchResultResponse search(String query) {
+    public SearchResultResponse search(String query, int limit) {
         if (query == null || query.trim().isEmpty()) {
             return SearchResultResponse.builder()
                     .total(0)
@@ -43,26 +53,28 @@ public class SearchServiceImpl implements SearchService {
                     .devices(List.of())
                     .build();
         }
-        String q = query.trim().toLowerCase();
+        int k = Math.max(1, Math.min(limit, MAX_LIMIT));
 
-        // 1. Tìm kiếm user theo các trường: email, eid, fullName, sso, msa
-        List<User> users = userRepository.findAll().stream()
-                .filter(u -> (u.getEmail() != null && u.getEmail().toLowerCase().contains(q)) ||
-                        (u.getEid() != null && u.getEid().toLowerCase().contains(q)) ||
-                        (u.getFullName() != null && u.getFullName().toLowerCase().contains(q)) ||
-                        (u.getSso() != null && u.getSso().toLowerCase().contains(q)) ||
-                        (u.getMsa() != null && u.getMsa().toLowerCase().contains(q)))
-                .toList();
+        // 1. Lấy eid/deviceId đã xếp hạng từ index
+        List<String> eids = searchIndexService.searchUserIds(query, k);
+        List<Integer> deviceIds = searchIndexService.searchDeviceIds(query, k);
 
-        // 2. Tìm kiếm device theo các trường: serialNumber, deviceName, modelName
-        List<Device> devices = deviceRepository.searchDevices(q);
+        // 2. Load các entity tương ứng, giữ nguyên thứ tự xếp hạng
+        Map<String, User> userById = userRepository.findAllById(eids).stream()
+                .collect(Collectors.toMap(User::getEid, Function.identity()));
+        Map<Integer, Device> deviceById = deviceRepository.findAllById(deviceIds).stream()
+                .collect(Collectors.toMap(Device::getDeviceId, Function.identity()));
 
         // 3. Map kết quả sang DTO chuẩn cho FE
-        List<UserResponse> userResponses = users.stream()
+        List<UserResponse> userResponses = eids.stream()
+                .map(userById::get)
+                .filter(Objects::nonNull)
                 .map(userMapper::toUserResponse)
                 .toList();
 
-        List<DeviceResponse> deviceResponses = devices.stream()
+        List<DeviceResponse> deviceResponses = deviceIds.stream()
+                .map(deviceById::get)
+                .filter(Objects::nonNull)
                 .map(deviceMapper::toDeviceResponse)
                 .toList();
 
@@ -73,4 +85,4 @@ public class SearchServiceImpl implements SearchService {
                 .devices(deviceResponses)
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.concentrix.asset.service.impl;
 
+import com.concentrix.asset.config.CacheConfig;
 import com.concentrix.asset.dto.request.CreateSiteRequest;
 import com.concentrix.asset.dto.request.UpdateSiteRequest;
 import com.concentrix.asset.dto.response.SiteResponse;
@@ -12,6 +13,7 @@ import com.concentrix.asset.service.SiteService;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -37,6 +39,7 @@ public class SiteServiceImpl implements SiteService {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.SITES, allEntries = true)
     public SiteResponse createSite(CreateSiteRequest request) {
 
         if (siteRepository.findBySiteName(request.getSiteName()).isPresent()) {
@@ -49,6 +52,7 @@ public class SiteServiceImpl implements SiteService {
     }
 
     @Override
+    @CacheEvict(cacheNames = {CacheConfig.SITES, CacheConfig.WAREHOUSES, CacheConfig.FLOORS}, allEntries = true)
     public SiteResponse updateSite(UpdateSiteRequest request) {
         Site site = siteRepository.findById(request.getSiteId())
                 .orElseThrow(() -> new CustomException(ErrorCode.SITE_NOT_FOUND, request.getSiteId()));
@@ -65,6 +69,7 @@ public class SiteServiceImpl implements SiteService {
     }
 
     @Override
+    @CacheEvict(cacheNames = {CacheConfig.SITES, CacheConfig.WAREHOUSES, CacheConfig.FLOORS}, allEntries = true)
     public void deleteSite(Integer id) {
         siteRepository.deleteById(id);
     }
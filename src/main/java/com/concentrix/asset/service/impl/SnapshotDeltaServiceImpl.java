@@ -0,0 +1,266 @@
+package com.concentrix.asset.service.impl;
+
+import com.concentrix.asset.entity.SnapshotCheckpoint;
+import com.concentrix.asset.entity.SnapshotDeviceDelta;
+import com.concentrix.asset.enums.DeviceStatus;
+import com.concentrix.asset.repository.DeviceRepository;
+import com.concentrix.asset.repository.SnapshotCheckpointRepository;
+import com.concentrix.asset.repository.SnapshotDeviceDeltaRepository;
+import com.concentrix.asset.repository.SnapshotDeviceRepository;
+import com.concentrix.asset.service.SnapshotDeltaService;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Lưu lịch sử snapshot dạng delta log + checkpoint định kỳ.
+ * - Delta: mỗi ngày chỉ ghi các thiết bị có status/site khác snapshot trước (hoặc mới xuất hiện / biến mất).
+ * - Checkpoint: toàn bộ trạng thái tại một ngày, lưu theo cột và nén (deflate):
+ *   [số thiết bị][bitset deviceId][từ điển status][cột status: 1 byte/thiết bị][cột siteId: varint/thiết bị],
+ *   các cột theo thứ tự deviceId tăng dần.
+ * - Dựng lại ngày D = checkpoint gần nhất <= D + các delta sau checkpoint đến D.
+ * - Chuyển từ chế độ full: lần ghi đầu tiên lấy snapshot đầy đủ gần nhất làm checkpoint gốc,
+ *   các ngày trước checkpoint đầu tiên vẫn đọc từ snapshot_device.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
+public class SnapshotDeltaServiceImpl implements SnapshotDeltaService {
+
+    // Số dòng delta mỗi JDBC batch (và mỗi lần flush/clear)
+    static final int INSERT_BATCH_SIZE = 1000;
+
+    DeviceRepository deviceRepository;
+    SnapshotDeviceRepository snapshotDeviceRepository;
+    SnapshotDeviceDeltaRepository snapshotDeviceDeltaRepository;
+    SnapshotCheckpointRepository snapshotCheckpointRepository;
+    EntityManager entityManager;
+
+    @NonFinal
+    @Value("${app.snapshot.checkpoint-interval-days}")
+    int checkpointIntervalDays;
+
+    @Override
+    public int record(LocalDate date) {
+        long start = System.currentTimeMillis();
+
+        // Chạy lại trong cùng ngày: bỏ delta cũ của ngày đó, so sánh lại với snapshot hôm trước
+        snapshotDeviceDeltaRepository.deleteByChangeDate(date);
+        seedFromFullSnapshot(date);
+        Map<Integer, DeviceState> previous = reconstruct(date.minusDays(1));
+        Map<Integer, DeviceState> current = currentStates();
+
+        List<SnapshotDeviceDelta> deltas = new ArrayList<>();
+        current.forEach((deviceId, state) -> {
+            if (!state.equals(previous.get(deviceId))) {
+                deltas.add(toDelta(deviceId, date, state));
+            }
+        });
+        for (Integer deviceId : previous.keySet()) {
+            if (!current.containsKey(deviceId)) {
+                deltas.add(toDelta(deviceId, date, new DeviceState(null, null)));
+            }
+        }
+        persistDeltas(deltas);
+
+        Optional<SnapshotCheckpoint> lastCheckpoint = snapshotCheckpointRepository
+                .findFirstByCheckpointDateLessThanEqualOrderByCheckpointDateDesc(date);
+        boolean checkpointDue = lastCheckpoint.isEmpty()
+                || lastCheckpoint.get().getCheckpointDate().equals(date)
+                || !lastCheckpoint.get().getCheckpointDate().plusDays(checkpointIntervalDays).isAfter(date);
+        if (checkpointDue) {
+            snapshotCheckpointRepository.save(SnapshotCheckpoint.builder()
+                    .checkpointDate(date)
+                    .deviceCount(current.size())
+                    .data(encode(current))
+                    .build());
+        }
+
+        log.info("[SNAPSHOT][DELTA] {}: {} devices, {} changes, checkpoint={}, {} ms",
+                date, current.size(), deltas.size(), checkpointDue, System.currentTimeMillis() - start);
+        return deltas.size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Integer, DeviceState> reconstruct(LocalDate date) {
+        Optional<SnapshotCheckpoint> checkpoint = snapshotCheckpointRepository
+                .findFirstByCheckpointDateLessThanEqualOrderByCheckpointDateDesc(date);
+
+        // Trước checkpoint đầu tiên chưa có delta log: đọc snapshot đầy đủ của đúng ngày đó (như chế độ full)
+        if (checkpoint.isEmpty()) {
+            return toStates(snapshotDeviceRepository.findStatesByDate(date));
+        }
+
+        Map<Integer, DeviceState> states = decode(checkpoint.get().getData());
+        for (Object[] row : snapshotDeviceDeltaRepository.findChangesBetween(checkpoint.get().getCheckpointDate(), date)) {
+            Integer deviceId = (Integer) row[0];
+            DeviceStatus status = (DeviceStatus) row[1];
+            if (status == null) {
+                states.remove(deviceId);
+            } else {
+                states.put(deviceId, new DeviceState(status, (Integer) row[2]));
+            }
+        }
+        return states;
+    }
+
+    // Lần ghi delta đầu tiên (chưa có checkpoint nào): lấy snapshot đầy đủ gần nhất trước date làm checkpoint gốc,
+    // để delta của ngày đầu chỉ gồm thay đổi so với snapshot đó thay vì toàn bộ thiết bị
+    private void seedFromFullSnapshot(LocalDate date) {
+        if (snapshotCheckpointRepository.count() > 0) {
+            return;
+        }
+        LocalDate fullDate = snapshotDeviceRepository.findLatestSnapshotDate(date.minusDays(1));
+        if (fullDate == null) {
+            return;
+        }
+        Map<Integer, DeviceState> states = toStates(snapshotDeviceRepository.findStatesByDate(fullDate));
+        snapshotCheckpointRepository.save(SnapshotCheckpoint.builder()
+                .checkpointDate(fullDate)
+                .deviceCount(states.size())
+                .data(encode(states))
+                .build());
+        log.info("[SNAPSHOT][DELTA] Seeded checkpoint {} from the full snapshot ({} devices)", fullDate, states.size());
+    }
+
+    // Khoá gán tay nên saveAll sẽ merge (SELECT từng dòng trước khi INSERT): persist và gửi INSERT theo lô
+    private void persistDeltas(List<SnapshotDeviceDelta> deltas) {
+        Session session = entityManager.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(Math.min(Math.max(deltas.size(), 1), INSERT_BATCH_SIZE));
+        try {
+            for (int i = 0; i < deltas.size(); i++) {
+                entityManager.persist(deltas.get(i));
+                if ((i + 1) % INSERT_BATCH_SIZE == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+    }
+
+    private Map<Integer, DeviceState> currentStates() {
+        return toStates(deviceRepository.findSnapshotStates());
+    }
+
+    // row: [deviceId, status, siteId]
+    private static Map<Integer, DeviceState> toStates(List<Object[]> rows) {
+        Map<Integer, DeviceState> states = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            states.put((Integer) row[0], new DeviceState((DeviceStatus) row[1], (Integer) row[2]));
+        }
+        return states;
+    }
+
+    private SnapshotDeviceDelta toDelta(Integer deviceId, LocalDate date, DeviceState state) {
+        return SnapshotDeviceDelta.builder()
+                .deviceId(deviceId)
+                .changeDate(date)
+                .status(state.status())
+                .siteId(state.siteId())
+                .build();
+    }
+
+    // ================== Checkpoint codec ==================
+
+    static byte[] encode(Map<Integer, DeviceState> states) {
+        int[] deviceIds = states.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        BitSet presence = new BitSet();
+        for (int deviceId : deviceIds) {
+            presence.set(deviceId);
+        }
+        // Ghi tên status thay vì ordinal để checkpoint cũ vẫn đọc được khi enum thay đổi thứ tự
+        DeviceStatus[] dictionary = DeviceStatus.values();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeInt(deviceIds.length);
+            byte[] bits = presence.toByteArray();
+            out.writeInt(bits.length);
+            out.write(bits);
+
+            out.writeByte(dictionary.length);
+            for (DeviceStatus status : dictionary) {
+                out.writeUTF(status.name());
+            }
+            for (int deviceId : deviceIds) {
+                DeviceStatus status = states.get(deviceId).status();
+                out.writeByte(status == null ? -1 : status.ordinal());
+            }
+            for (int deviceId : deviceIds) {
+                Integer siteId = states.get(deviceId).siteId();
+                writeVarInt(out, siteId == null ? 0 : siteId);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode snapshot checkpoint", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Map<Integer, DeviceState> decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+            int count = in.readInt();
+            byte[] bits = new byte[in.readInt()];
+            in.readFully(bits);
+            BitSet presence = BitSet.valueOf(bits);
+
+            DeviceStatus[] dictionary = new DeviceStatus[in.readUnsignedByte()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = DeviceStatus.valueOf(in.readUTF());
+            }
+            int[] deviceIds = presence.stream().toArray();
+            DeviceStatus[] statuses = new DeviceStatus[count];
+            for (int i = 0; i < count; i++) {
+                byte code = in.readByte();
+                statuses[i] = code < 0 ? null : dictionary[code];
+            }
+
+            Map<Integer, DeviceState> states = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                int siteId = readVarInt(in);
+                states.put(deviceIds[i], new DeviceState(statuses[i], siteId == 0 ? null : siteId));
+            }
+            return states;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode snapshot checkpoint", e);
+        }
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
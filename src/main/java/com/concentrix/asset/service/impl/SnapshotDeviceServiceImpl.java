@@ -3,16 +3,20 @@ package com.concentrix.asset.service.impl;
 import com.concentrix.asset.dto.response.CompareDataResponse;
 import com.concentrix.asset.dto.response.DeviceChangeItem;
 import com.concentrix.asset.dto.response.DeviceChangesResponse;
-import com.concentrix.asset.entity.Device;
+import com.concentrix.asset.entity.Site;
 import com.concentrix.asset.entity.SnapshotDevice;
 import com.concentrix.asset.enums.DeviceStatus;
 import com.concentrix.asset.enums.DeviceType;
 import com.concentrix.asset.repository.DeviceRepository;
+import com.concentrix.asset.repository.SiteRepository;
 import com.concentrix.asset.repository.SnapshotDeviceRepository;
+import com.concentrix.asset.service.SnapshotDeltaService;
 import com.concentrix.asset.service.SnapshotDeviceService;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,27 +33,37 @@ public class SnapshotDeviceServiceImpl implements SnapshotDeviceService {
 
     DeviceRepository deviceRepository;
     SnapshotDeviceRepository snapshotDeviceRepository;
+    SnapshotDeltaService snapshotDeltaService;
+    SiteRepository siteRepository;
+
+    static final String MODE_DELTA = "delta";
+    static final int IN_CLAUSE_BATCH_SIZE = 1000;
+    // Các status gắn với site (chỉ các status này mới lọc theo site khi so sánh)
+    static final Set<DeviceStatus> SITE_STATUSES = EnumSet.of(
+            DeviceStatus.E_WASTE, DeviceStatus.IN_STOCK, DeviceStatus.IN_FLOOR);
+
+    // full: mỗi đêm lưu toàn bộ thiết bị có serial vào snapshot_device
+    // delta: chỉ lưu thay đổi (snapshot_device_delta) + checkpoint định kỳ (snapshot_checkpoint)
+    @NonFinal
+    @Value("${app.snapshot.mode}")
+    String snapshotMode;
 
     @Override
-    public void snapshotDataDevice() {
-
-        List<SnapshotDevice> snapshotList = new ArrayList<>();
-
-        List<Device> devices = deviceRepository.findAllBySerialNumberIsNotNull();
-        for (Device device : devices) {
-            SnapshotDevice snapshotDevice = SnapshotDevice.builder()
-                    .snapshotDate(LocalDate.now())
-                    .device(device)
-                    .status(device.getStatus())
-                    .site(
-                            device.getCurrentWarehouse() != null
-                                    ? device.getCurrentWarehouse().getSite()
-                                    : (device.getCurrentFloor() != null ? device.getCurrentFloor().getSite() : null))
-                    .build();
-            snapshotList.add(snapshotDevice);
+    public int snapshotDataDevice() {
+        if (isDeltaMode()) {
+            return snapshotDeltaService.record(LocalDate.now());
         }
-        snapshotDeviceRepository.saveAll(snapshotList);
 
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+
+        // Chạy lại trong cùng ngày: xoá snapshot cũ của ngày đó rồi chụp lại
+        int deleted = snapshotDeviceRepository.deleteBySnapshotDate(today);
+        int inserted = snapshotDeviceRepository.insertSnapshotFromDevices(today);
+
+        log.info("[SNAPSHOT][FULL] {}: {} rows written ({} replaced), {} ms",
+                today, inserted, deleted, System.currentTimeMillis() - start);
+        return inserted;
     }
 
     @Override
@@ -57,6 +71,10 @@ public class SnapshotDeviceServiceImpl implements SnapshotDeviceService {
                     DeviceStatus status, DeviceType type) {
 
         try {
+            if (isDeltaMode()) {
+                return getDataCompareFromDelta(fromDate, toDate, groupBy, siteId, status, type);
+            }
+
             // Query dữ liệu cho thời điểm fromDate
             List<SnapshotDevice> fromSnapshotDevices = snapshotDeviceRepository.getSnapshotDevicesByDate(fromDate, siteId, status,
                     type);
@@ -83,16 +101,24 @@ public class SnapshotDeviceServiceImpl implements SnapshotDeviceService {
                                                  DeviceStatus status, DeviceType type) {
 
         try {
-            // Query dữ liệu cho thời điểm fromDate
-            List<SnapshotDevice> fromSnapshotDevices = getSnapshotDevicesByDate(fromDate, siteId, status, type);
-
-            // Query dữ liệu cho thời điểm toDate
-            List<SnapshotDevice> toSnapshotDevices = getSnapshotDevicesByDate(toDate, siteId, status, type);
-
-            // Tính toán thiết bị được thêm/bớt
-            List<DeviceChangeItem> addedDevices = findAddedDevices(fromSnapshotDevices, toSnapshotDevices);
-
-            List<DeviceChangeItem> removedDevices = findRemovedDevices(fromSnapshotDevices, toSnapshotDevices);
+            List<DeviceChangeItem> addedDevices;
+            List<DeviceChangeItem> removedDevices;
+            if (isDeltaMode()) {
+                Map<Integer, SnapshotDeltaService.DeviceState> from = filterStates(
+                        snapshotDeltaService.reconstruct(fromDate), siteId, status, type, true);
+                Map<Integer, SnapshotDeltaService.DeviceState> to = filterStates(
+                        snapshotDeltaService.reconstruct(toDate), siteId, status, type, true);
+                addedDevices = toDeviceChangeItems(to, from.keySet());
+                removedDevices = toDeviceChangeItems(from, to.keySet());
+            } else {
+                // Thiết bị được thêm: có ở toDate, không có ở fromDate (tính trong DB)
+                addedDevices = toDeviceChangeItems(
+                        snapshotDeviceRepository.findDevicesMissingInOtherSnapshot(toDate, fromDate, siteId, status, type));
+
+                // Thiết bị bị bớt: có ở fromDate, không có ở toDate
+                removedDevices = toDeviceChangeItems(
+                        snapshotDeviceRepository.findDevicesMissingInOtherSnapshot(fromDate, toDate, siteId, status, type));
+            }
 
             // Tính tổng số
             int totalAdded = addedDevices.size();
@@ -118,30 +144,6 @@ public class SnapshotDeviceServiceImpl implements SnapshotDeviceService {
         }
     }
 
-    private List<SnapshotDevice> getSnapshotDevicesByDate(
-            LocalDate date,
-            Integer siteId,
-            DeviceStatus status,
-            DeviceType type) {
-        return snapshotDeviceRepository.findAll().stream()
-                // Lọc theo ngày snapshot
-                .filter(snapshot -> date != null && date.equals(snapshot.getSnapshotDate()))
-                // Lọc theo site nếu có
-                .filter(snapshot -> siteId == null ||
-                        (snapshot.getSite() != null &&
-                                siteId.equals(snapshot.getSite().getSiteId())))
-                // Lọc theo status nếu có
-                .filter(snapshot -> status == null ||
-                        status.equals(snapshot.getStatus()))
-                // Lọc theo type nếu có
-                .filter(snapshot -> type == null ||
-                        (snapshot.getDevice() != null &&
-                                snapshot.getDevice().getModel() != null &&
-                                type.equals(snapshot.getDevice().getModel().getType())))
-                .collect(Collectors.toList());
-    }
-
-
     private CompareDataResponse calculateComparisonData(List<SnapshotDevice> fromDevices,
                     List<SnapshotDevice> toDevices,
                     LocalDate fromDate,
@@ -200,41 +202,141 @@ public class SnapshotDeviceServiceImpl implements SnapshotDeviceService {
         };
     }
 
-    private List<DeviceChangeItem> findAddedDevices(List<SnapshotDevice> fromDevices,
-                                                   List<SnapshotDevice> toDevices) {
-        Set<String> fromSerials = fromDevices.stream()
-                .map(snapshot -> snapshot.getDevice().getSerialNumber())
-                .collect(Collectors.toSet());
-
-        return toDevices.stream()
-                .filter(toDevice -> !fromSerials.contains(toDevice.getDevice().getSerialNumber()))
-                .map(this::convertToDeviceChangeItem)
-                .collect(Collectors.toList());
+    // row: [serialNumber, deviceName, modelName, type, status, siteName]
+    private List<DeviceChangeItem> toDeviceChangeItems(List<Object[]> rows) {
+        List<DeviceChangeItem> items = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            items.add(DeviceChangeItem.builder()
+                    .serialNumber((String) row[0])
+                    .deviceName((String) row[1])
+                    .modelName(row[2] != null ? (String) row[2] : "N/A")
+                    .type(row[3] != null ? row[3].toString() : "N/A")
+                    .status(row[4] != null ? row[4].toString() : "N/A")
+                    .siteName(row[5] != null ? (String) row[5] : "N/A")
+                    .build());
+        }
+        return items;
     }
 
-    private List<DeviceChangeItem> findRemovedDevices(List<SnapshotDevice> fromDevices,
-                                                     List<SnapshotDevice> toDevices) {
-        Set<String> toSerials = toDevices.stream()
-                .map(snapshot -> snapshot.getDevice().getSerialNumber())
-                .collect(Collectors.toSet());
+    // ================== Chế độ delta ==================
 
-        return fromDevices.stream()
-                .filter(fromDevice -> !toSerials.contains(fromDevice.getDevice().getSerialNumber()))
-                .map(this::convertToDeviceChangeItem)
-                .collect(Collectors.toList());
+    private boolean isDeltaMode() {
+        return MODE_DELTA.equalsIgnoreCase(snapshotMode);
     }
 
-    private DeviceChangeItem convertToDeviceChangeItem(SnapshotDevice snapshot) {
-        Device device = snapshot.getDevice();
-        String siteName = snapshot.getSite() != null ? snapshot.getSite().getSiteName() : "N/A";
-
-        return DeviceChangeItem.builder()
-                .serialNumber(device.getSerialNumber())
-                .deviceName(device.getDeviceName())
-                .modelName(device.getModel() != null ? device.getModel().getModelName() : "N/A")
-                .type(device.getModel() != null ? device.getModel().getType().toString() : "N/A")
-                .status(snapshot.getStatus() != null ? snapshot.getStatus().toString() : "N/A")
-                .siteName(siteName)
+    private CompareDataResponse getDataCompareFromDelta(LocalDate fromDate, LocalDate toDate, String groupBy,
+                                                        Integer siteId, DeviceStatus status, DeviceType type) {
+        Map<Integer, DeviceType> typeById = getDeviceTypes();
+        Map<Integer, String> siteNameById = getSiteNames();
+
+        Map<String, Long> fromCounts = groupAndCount(filterStates(snapshotDeltaService.reconstruct(fromDate),
+                siteId, status, type, false), typeById, siteNameById, groupBy);
+        Map<String, Long> toCounts = groupAndCount(filterStates(snapshotDeltaService.reconstruct(toDate),
+                siteId, status, type, false), typeById, siteNameById, groupBy);
+
+        Set<String> allGroups = new HashSet<>();
+        allGroups.addAll(fromCounts.keySet());
+        allGroups.addAll(toCounts.keySet());
+
+        Map<String, List<Integer>> datasets = new HashMap<>();
+        for (String group : allGroups) {
+            long fromCount = fromCounts.getOrDefault(group, 0L);
+            long toCount = toCounts.getOrDefault(group, 0L);
+            datasets.put(group, Arrays.asList((int) fromCount, (int) toCount));
+        }
+
+        return CompareDataResponse.builder()
+                .fromDate(fromDate)
+                .toDate(toDate)
+                .datasets(datasets)
                 .build();
     }
+
+    // Cùng điều kiện lọc với chế độ full:
+    // strictSite = true như getDeviceChanges, false như query getSnapshotDevicesByDate
+    // (chỉ lọc site khi status rỗng hoặc là status gắn với site)
+    private Map<Integer, SnapshotDeltaService.DeviceState> filterStates(
+            Map<Integer, SnapshotDeltaService.DeviceState> states, Integer siteId, DeviceStatus status,
+            DeviceType type, boolean strictSite) {
+        boolean filterSite = siteId != null && (strictSite || status == null || SITE_STATUSES.contains(status));
+        Map<Integer, DeviceType> typeById = type != null ? getDeviceTypes() : Collections.emptyMap();
+
+        Map<Integer, SnapshotDeltaService.DeviceState> result = new HashMap<>();
+        states.forEach((deviceId, state) -> {
+            if (filterSite && !siteId.equals(state.siteId()))
+                return;
+            if (status != null && status != state.status())
+                return;
+            if (type != null && type != typeById.get(deviceId))
+                return;
+            result.put(deviceId, state);
+        });
+        return result;
+    }
+
+    private Map<String, Long> groupAndCount(Map<Integer, SnapshotDeltaService.DeviceState> states,
+                                            Map<Integer, DeviceType> typeById, Map<Integer, String> siteNameById,
+                                            String groupBy) {
+        String group = groupBy != null ? groupBy.toLowerCase() : "";
+        Map<String, Long> counts = new HashMap<>();
+        states.forEach((deviceId, state) -> {
+            String key = switch (group) {
+                case "site" -> state.siteId() != null && siteNameById.containsKey(state.siteId())
+                        ? siteNameById.get(state.siteId()) : "No Site";
+                case "status" -> state.status() != null ? state.status().toString() : "No Status";
+                case "type" -> typeById.containsKey(deviceId) ? typeById.get(deviceId).toString() : "No Type";
+                default -> "All";
+            };
+            counts.merge(key, 1L, Long::sum);
+        });
+        return counts;
+    }
+
+    // Thiết bị có trong states nhưng không có trong otherDeviceIds, theo thứ tự deviceId
+    private List<DeviceChangeItem> toDeviceChangeItems(Map<Integer, SnapshotDeltaService.DeviceState> states,
+                                                       Set<Integer> otherDeviceIds) {
+        List<Integer> deviceIds = states.keySet().stream()
+                .filter(deviceId -> !otherDeviceIds.contains(deviceId))
+                .sorted()
+                .toList();
+        if (deviceIds.isEmpty())
+            return new ArrayList<>();
+
+        Map<Integer, String> siteNameById = getSiteNames();
+        Map<Integer, Object[]> infoById = new HashMap<>();
+        for (int i = 0; i < deviceIds.size(); i += IN_CLAUSE_BATCH_SIZE) {
+            List<Integer> batch = deviceIds.subList(i, Math.min(i + IN_CLAUSE_BATCH_SIZE, deviceIds.size()));
+            for (Object[] row : deviceRepository.findSnapshotInfoByIds(batch)) {
+                infoById.put((Integer) row[0], row);
+            }
+        }
+
+        // Cùng dạng dòng với query chế độ full: [serialNumber, deviceName, modelName, type, status, siteName]
+        List<Object[]> rows = new ArrayList<>(deviceIds.size());
+        for (Integer deviceId : deviceIds) {
+            Object[] info = infoById.get(deviceId);
+            if (info == null)
+                continue;
+            SnapshotDeltaService.DeviceState state = states.get(deviceId);
+            String siteName = state.siteId() != null ? siteNameById.get(state.siteId()) : null;
+            rows.add(new Object[]{info[1], info[2], info[3], info[4], state.status(), siteName});
+        }
+        return toDeviceChangeItems(rows);
+    }
+
+    private Map<Integer, DeviceType> getDeviceTypes() {
+        Map<Integer, DeviceType> typeById = new HashMap<>();
+        for (Object[] row : deviceRepository.findDeviceTypes()) {
+            typeById.put((Integer) row[0], (DeviceType) row[1]);
+        }
+        return typeById;
+    }
+
+    private Map<Integer, String> getSiteNames() {
+        Map<Integer, String> siteNameById = new HashMap<>();
+        for (Site site : siteRepository.findAll()) {
+            siteNameById.put(site.getSiteId(), site.getSiteName());
+        }
+        return siteNameById;
+    }
 }
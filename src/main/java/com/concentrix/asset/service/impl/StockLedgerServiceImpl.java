@@ -0,0 +1,82 @@
+package com.concentrix.asset.service.impl;
+
+import com.concentrix.asset.entity.Device;
+import com.concentrix.asset.entity.Floor;
+import com.concentrix.asset.entity.User;
+import com.concentrix.asset.entity.Warehouse;
+import com.concentrix.asset.exception.CustomException;
+import com.concentrix.asset.exception.ErrorCode;
+import com.concentrix.asset.repository.DeviceFloorRepository;
+import com.concentrix.asset.repository.DeviceUserRepository;
+import com.concentrix.asset.repository.DeviceWarehouseRepository;
+import com.concentrix.asset.service.StockLedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Service
+@Transactional
+@RequiredArgsConstructor
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
+public class StockLedgerServiceImpl implements StockLedgerService {
+
+    DeviceWarehouseRepository deviceWarehouseRepository;
+    DeviceFloorRepository deviceFloorRepository;
+    DeviceUserRepository deviceUserRepository;
+
+    @Override
+    public void takeFromWarehouse(Device device, Warehouse warehouse, int quantity) {
+        if (deviceWarehouseRepository.decrementIfAvailable(warehouse.getWarehouseId(), device.getDeviceId(), quantity) > 0) {
+            return;
+        }
+        // Không update được dòng nào: đọc lại để báo lỗi đúng loại (chưa có trong kho / không đủ)
+        Optional<Integer> current = deviceWarehouseRepository.findQuantity(warehouse.getWarehouseId(), device.getDeviceId());
+        if (current.isEmpty()) {
+            throw new CustomException(ErrorCode.DEVICE_NOT_FOUND_IN_WAREHOUSE,
+                    device.getModel().getModelName(), warehouse.getWarehouseName());
+        }
+        throw new CustomException(ErrorCode.STOCK_OUT, device.getModel().getModelName(), current.get());
+    }
+
+    @Override
+    public void addToWarehouse(Device device, Warehouse warehouse, int quantity) {
+        deviceWarehouseRepository.increment(warehouse.getWarehouseId(), device.getDeviceId(), quantity);
+    }
+
+    @Override
+    public void takeFromFloor(Device device, Floor floor, int quantity) {
+        if (deviceFloorRepository.decrementIfAvailable(floor.getFloorId(), device.getDeviceId(), quantity) > 0) {
+            return;
+        }
+        if (deviceFloorRepository.findQuantity(floor.getFloorId(), device.getDeviceId()).isEmpty()) {
+            throw new CustomException(ErrorCode.DEVICE_NOT_FOUND_IN_FLOOR,
+                    device.getModel().getModelName(), floor.getFloorName());
+        }
+        throw new CustomException(ErrorCode.DEVICE_NOT_ENOUGH_IN_FLOOR,
+                device.getModel().getModelName(), floor.getFloorName());
+    }
+
+    @Override
+    public void addToFloor(Device device, Floor floor, int quantity) {
+        deviceFloorRepository.increment(floor.getFloorId(), device.getDeviceId(), quantity);
+    }
+
+    @Override
+    public void takeFromUser(Device device, User user, int quantity) {
+        if (deviceUserRepository.decrementIfAvailable(user.getEid(), device.getDeviceId(), quantity) > 0) {
+            return;
+        }
+        if (deviceUserRepository.findQuantity(user.getEid(), device.getDeviceId()).isEmpty()) {
+            throw new CustomException(ErrorCode.INVALID_DEVICE_USER, device.getModel().getModelName());
+        }
+        throw new CustomException(ErrorCode.RETURN_QUANTITY_EXCEEDS_BORROWED, device.getModel().getModelName());
+    }
+
+    @Override
+    public void addToUser(Device device, User user, int quantity) {
+        deviceUserRepository.increment(user.getEid(), device.getDeviceId(), quantity);
+    }
+}
@@ -0,0 +1,185 @@
+package com.concentrix.asset.service.impl;
+
+import com.concentrix.asset.entity.InvalidatedToken;
+import com.concentrix.asset.repository.InvalidatedTokenRepository;
+import com.concentrix.asset.service.TokenRevocationService;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tập token đã thu hồi trong bộ nhớ: bloom filter trả lời nhanh "chắc chắn chưa thu hồi" cho phần lớn token,
+ * map jti -> expiry xác nhận chính xác khi bloom filter báo có thể đã thu hồi.
+ * Trước khi nạp xong lúc khởi động thì kiểm tra thẳng trên DB.
+ * Giả định chạy một instance: thu hồi từ instance khác chỉ được thấy sau lần reload/purge kế tiếp.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    static final int MIN_CAPACITY = 1024;
+    static final double FALSE_POSITIVE_RATE = 0.01;
+
+    InvalidatedTokenRepository invalidatedTokenRepository;
+
+    Map<String, Long> expiryByTokenId = new ConcurrentHashMap<>();
+    Object writeLock = new Object();
+
+    @NonFinal
+    volatile BloomFilter bloomFilter = new BloomFilter(MIN_CAPACITY, FALSE_POSITIVE_RATE);
+
+    @NonFinal
+    volatile boolean loaded;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void reload() {
+        long now = System.currentTimeMillis();
+        synchronized (writeLock) {
+            expiryByTokenId.clear();
+            for (InvalidatedToken token : invalidatedTokenRepository.findAll()) {
+                long expiry = token.getExpiryTime() != null ? token.getExpiryTime().getTime() : Long.MAX_VALUE;
+                if (expiry > now) {
+                    expiryByTokenId.put(token.getId(), expiry);
+                }
+            }
+            rebuildBloomFilter();
+            loaded = true;
+        }
+        log.info("[TOKEN REVOCATION] Loaded {} revoked tokens", expiryByTokenId.size());
+    }
+
+    @Override
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null) {
+            return false;
+        }
+        if (!loaded) {
+            return invalidatedTokenRepository.existsById(tokenId);
+        }
+        return bloomFilter.mightContain(tokenId) && expiryByTokenId.containsKey(tokenId);
+    }
+
+    @Override
+    @Transactional
+    public void revoke(String tokenId, Date expiryTime) {
+        invalidatedTokenRepository.save(InvalidatedToken.builder()
+                .id(tokenId)
+                .expiryTime(expiryTime)
+                .build());
+        add(tokenId, expiryTime != null ? expiryTime.getTime() : Long.MAX_VALUE);
+
+        // Có hiệu lực ngay trong bộ nhớ; nếu transaction rollback thì bỏ ra để khớp với DB
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        expiryByTokenId.remove(tokenId);
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    @Transactional
+    public int purgeExpired() {
+        Date now = new Date();
+        int deleted = invalidatedTokenRepository.deleteAllByExpiryTimeBefore(now);
+        synchronized (writeLock) {
+            expiryByTokenId.values().removeIf(expiry -> expiry <= now.getTime());
+            // Bloom filter không xoá được phần tử nên dựng lại từ các token còn hạn
+            rebuildBloomFilter();
+        }
+        return deleted;
+    }
+
+    private void add(String tokenId, long expiry) {
+        synchronized (writeLock) {
+            expiryByTokenId.put(tokenId, expiry);
+            if (expiryByTokenId.size() > bloomFilter.capacity) {
+                rebuildBloomFilter();
+            } else {
+                bloomFilter.put(tokenId);
+            }
+        }
+    }
+
+    // Gọi khi đang giữ writeLock để không token nào bị thêm vào filter cũ trong lúc dựng filter mới
+    private void rebuildBloomFilter() {
+        BloomFilter filter = new BloomFilter(Math.max(MIN_CAPACITY, expiryByTokenId.size() * 2), FALSE_POSITIVE_RATE);
+        expiryByTokenId.keySet().forEach(filter::put);
+        bloomFilter = filter;
+    }
+
+    private static final class BloomFilter {
+        final int capacity;
+        final int bitCount;
+        final int hashCount;
+        final AtomicLongArray bits;
+
+        BloomFilter(int capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.bitCount = (int) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+            this.bits = new AtomicLongArray((bitCount + 63) / 64);
+        }
+
+        void put(String value) {
+            long hash = hash64(value);
+            for (int i = 0; i < hashCount; i++) {
+                int bit = index(hash, i);
+                long mask = 1L << bit;
+                long word;
+                do {
+                    word = bits.get(bit >>> 6);
+                } while ((word & mask) == 0 && !bits.compareAndSet(bit >>> 6, word, word | mask));
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash64(value);
+            for (int i = 0; i < hashCount; i++) {
+                int bit = index(hash, i);
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Double hashing: h1 + i * h2 từ hai nửa của hash 64 bit
+        private int index(long hash, int i) {
+            int combined = (int) hash + i * (int) (hash >>> 32);
+            return (combined & Integer.MAX_VALUE) % bitCount;
+        }
+
+        private static long hash64(String value) {
+            long h = 0x9E3779B97F4A7C15L;
+            for (int i = 0; i < value.length(); i++) {
+                h = mix(h ^ value.charAt(i));
+            }
+            return mix(h ^ value.length());
+        }
+
+        // Bước trộn của SplitMix64
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.concentrix.asset.service.impl;
+
+import com.concentrix.asset.dto.TransactionView;
+import com.concentrix.asset.dto.response.CursorPageResponse;
+import com.concentrix.asset.dto.response.TransactionItemsResponse;
+import com.concentrix.asset.entity.*;
+import com.concentrix.asset.enums.TransactionStatus;
+import com.concentrix.asset.enums.TransactionType;
+import com.concentrix.asset.exception.CustomException;
+import com.concentrix.asset.exception.ErrorCode;
+import com.concentrix.asset.repository.TransactionDetailRepository;
+import com.concentrix.asset.repository.TransactionImageRepository;
+import com.concentrix.asset.service.TransactionQueryService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Mỗi trang gồm đúng 4 query bất kể kích thước trang: header (tuple, LEFT JOIN các quan hệ cần tên),
+ * count, item của cả trang và ảnh của cả trang. Chế độ scroll bỏ query count.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
+public class TransactionQueryServiceImpl implements TransactionQueryService {
+
+    static final Sort SCROLL_SORT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("transactionId"));
+
+    EntityManager entityManager;
+    TransactionDetailRepository transactionDetailRepository;
+    TransactionImageRepository transactionImageRepository;
+
+    @Override
+    public Page<TransactionView> findAll(Specification<AssetTransaction> spec, Pageable pageable) {
+        List<TransactionView> content = pageable.isPaged()
+                ? fetch(spec, pageable.getSort(), (int) pageable.getOffset(), pageable.getPageSize())
+                : fetch(spec, pageable.getSort(), 0, -1);
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    /**
+     * Keyset theo (createdAt, transactionId) giảm dần: mỗi trang là một lần seek trên index,
+     * không OFFSET và không count.
+     */
+    @Override
+    public CursorPageResponse<TransactionView> scroll(Specification<AssetTransaction> spec, String cursor, int size) {
+        int limit = KeysetCursor.limit(size);
+        String[] position = KeysetCursor.decode(cursor, 2);
+        Specification<AssetTransaction> seek = spec;
+        if (position != null) {
+            LocalDateTime createdAt;
+            try {
+                createdAt = LocalDateTime.parse(position[0]);
+            } catch (DateTimeParseException e) {
+                throw new CustomException(ErrorCode.INVALID_CURSOR, cursor);
+            }
+            Integer transactionId = KeysetCursor.parseInt(position[1], cursor);
+            seek = spec.and((root, query, cb) -> cb.or(
+                    cb.lessThan(root.get("createdAt"), createdAt),
+                    cb.and(cb.equal(root.get("createdAt"), createdAt),
+                            cb.lessThan(root.get("transactionId"), transactionId))));
+        }
+        List<TransactionView> rows = fetch(seek, SCROLL_SORT, 0, limit + 1);
+        return KeysetCursor.page(rows, limit, view -> new Object[]{view.getCreatedAt(), view.getTransactionId()});
+    }
+
+    // Header (tuple, LEFT JOIN các quan hệ cần tên) rồi nạp items/ảnh của cả trang; max < 0 là không giới hạn
+    private List<TransactionView> fetch(Specification<AssetTransaction> spec, Sort sort, int first, int max) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<AssetTransaction> root = query.from(AssetTransaction.class);
+        Join<AssetTransaction, Warehouse> fromWarehouse = root.join("fromWarehouse", JoinType.LEFT);
+        Join<AssetTransaction, Warehouse> toWarehouse = root.join("toWarehouse", JoinType.LEFT);
+        Join<AssetTransaction, Floor> fromFloor = root.join("fromFloor", JoinType.LEFT);
+        Join<AssetTransaction, Floor> toFloor = root.join("toFloor", JoinType.LEFT);
+        Join<AssetTransaction, User> userUse = root.join("userUse", JoinType.LEFT);
+        Join<AssetTransaction, User> createdBy = root.join("createdBy", JoinType.LEFT);
+        Join<AssetTransaction, User> confirmedBy = root.join("confirmedBy", JoinType.LEFT);
+
+        query.multiselect(
+                root.get("transactionId"), root.get("transactionType"), root.get("transactionStatus"),
+                root.get("createdAt"), root.get("updatedAt"), root.get("note"), root.get("returnDate"),
+                fromWarehouse.get("warehouseId"), fromWarehouse.get("warehouseName"),
+                toWarehouse.get("warehouseId"), toWarehouse.get("warehouseName"),
+                fromFloor.get("floorId"), fromFloor.get("floorName"),
+                toFloor.get("floorId"), toFloor.get("floorName"),
+                userUse.get("eid"), userUse.get("fullName"),
+                createdBy.get("eid"), createdBy.get("fullName"),
+                confirmedBy.get("eid"), confirmedBy.get("fullName"));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query).setFirstResult(first);
+        if (max >= 0) {
+            typedQuery.setMaxResults(max);
+        }
+
+        Map<Integer, TransactionView> views = new LinkedHashMap<>();
+        for (Tuple row : typedQuery.getResultList()) {
+            TransactionView view = TransactionView.builder()
+                    .transactionId(row.get(0, Integer.class))
+                    .transactionType(row.get(1, TransactionType.class))
+                    .transactionStatus(row.get(2, TransactionStatus.class))
+                    .createdAt(row.get(3, LocalDateTime.class))
+                    .updatedAt(row.get(4, LocalDateTime.class))
+                    .note(row.get(5, String.class))
+                    .returnDate(row.get(6, LocalDate.class))
+                    .fromWarehouse(warehouse(row, 7))
+                    .toWarehouse(warehouse(row, 9))
+                    .fromFloor(floor(row, 11))
+                    .toFloor(floor(row, 13))
+                    .userUse(user(row, 15))
+                    .createdBy(user(row, 17))
+                    .confirmedBy(user(row, 19))
+                    .items(new ArrayList<>())
+                    .images(new ArrayList<>())
+                    .build();
+            views.put(view.getTransactionId(), view);
+        }
+
+        if (!views.isEmpty()) {
+            for (Object[] row : transactionDetailRepository.findItemRowsByTransactionIdIn(views.keySet())) {
+                views.get((Integer) row[0]).getItems().add(TransactionItemsResponse.builder()
+                        .deviceId((Integer) row[1])
+                        .deviceName((String) row[2])
+                        .modelName((String) row[3])
+                        .serialNumber((String) row[4])
+                        .quantity((Integer) row[5])
+                        .build());
+            }
+            for (Object[] row : transactionImageRepository.findImageNamesByTransactionIdIn(views.keySet())) {
+                views.get((Integer) row[0]).getImages().add((String) row[1]);
+            }
+        }
+
+        return new ArrayList<>(views.values());
+    }
+
+    private long count(Specification<AssetTransaction> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<AssetTransaction> root = query.from(AssetTransaction.class);
+        query.select(cb.count(root));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static TransactionView.WarehouseRef warehouse(Tuple row, int index) {
+        Integer id = row.get(index, Integer.class);
+        return id == null ? null : new TransactionView.WarehouseRef(id, row.get(index + 1, String.class));
+    }
+
+    private static TransactionView.FloorRef floor(Tuple row, int index) {
+        Integer id = row.get(index, Integer.class);
+        return id == null ? null : new TransactionView.FloorRef(id, row.get(index + 1, String.class));
+    }
+
+    private static TransactionView.UserRef user(Tuple row, int index) {
+        String eid = row.get(index, String.class);
+        return eid == null ? null : new TransactionView.UserRef(eid, row.get(index + 1, String.class));
+    }
+}
@@ -3,6 +3,7 @@ package com.concentrix.asset.service.impl;
 import com.concentrix.asset.dto.request.CreateUserRequest;
 import com.concentrix.asset.dto.request.UpdateUserRequest;
 import com.concentrix.asset.dto.request.UserImportRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.TransactionItemsResponse;
 import com.concentrix.asset.dto.response.TransactionResponse;
 import com.concentrix.asset.dto.response.UserResponse;
@@ -16,20 +17,27 @@ import com.concentrix.asset.mapper.UserMapper;
 import com.concentrix.asset.repository.TransactionRepository;
 import com.concentrix.asset.repository.UserRepository;
 import com.concentrix.asset.service.UserService;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
 @Slf4j
@@ -43,11 +51,16 @@ public class UserServiceImpl implements UserService {
     TransactionRepository transactionRepository;
     TransactionMapper transactionMapper;
     PasswordEncoder passwordEncoder;
+    EntityManager entityManager;
 
     @NonFinal
     @Value("${app.password.default}")
     String defaultPassword;
 
+    @NonFinal
+    @Value("${app.workday.import.chunk-size}")
+    int importChunkSize;
+
     @Override
     public UserResponse getUserById(String eid) {
         User user = userRepository.findById(eid)
@@ -112,7 +125,27 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Page<UserResponse> filterUser(String search, Role role, Integer accountId, Pageable pageable) {
-        return userRepository.findAll((root, query, cb) -> {
+        return userRepository.findAll(filterSpecification(search, role, accountId), pageable)
+                .map(userMapper::toUserResponse);
+    }
+
+    // Phân trang keyset theo eid tăng dần, không OFFSET và không count
+    @Override
+    public CursorPageResponse<UserResponse> scrollUser(String search, Role role, Integer accountId, String cursor, int size) {
+        int limit = KeysetCursor.limit(size);
+        String[] position = KeysetCursor.decode(cursor, 1);
+        Specification<User> spec = filterSpecification(search, role, accountId);
+        if (position != null) {
+            String lastEid = position[0];
+            spec = spec.and((root, query, cb) -> cb.greaterThan(root.get("eid"), lastEid));
+        }
+        List<User> users = userRepository.findBy(spec, q -> q.sortBy(Sort.by("eid")).limit(limit + 1).all());
+        return KeysetCursor.page(users, limit, user -> new Object[]{user.getEid()})
+                .map(userMapper::toUserResponse);
+    }
+
+    private Specification<User> filterSpecification(String search, Role role, Integer accountId) {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
             if (search != null && !search.isEmpty()) {
                 String like = "%" + search.trim().toLowerCase() + "%";
@@ -129,7 +162,7 @@ public class UserServiceImpl implements UserService {
                 predicates.add(cb.equal(root.get("account").get("accountId"), accountId));
             }
             return cb.and(predicates.toArray(new Predicate[0]));
-        }, pageable).map(userMapper::toUserResponse);
+        };
     }
 
     @Override
@@ -143,35 +176,123 @@ public class UserServiceImpl implements UserService {
     public Map<String, Object> importUsers(List<UserImportRequest> importRequests) {
         int created = 0;
         int updated = 0;
-        List<User> users = new ArrayList<>();
-
-        for (UserImportRequest req : importRequests) {
-            if (req.getEid() == null || req.getEmail() == null)
-                continue;
-
-            // Nếu eid đã tồn tại: cập nhật các trường ánh xạ
-            var userOpt = userRepository.findById(req.getEid());
-
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                user = userMapper.updateUser(user, req);
-                users.add(user);
-                updated++;
-            } else {
-                User user = userMapper.toUserWD(req);
-                users.add(user);
-                created++;
+        int unchanged = 0;
+        List<String> rejectedEids = new ArrayList<>();
+        long prefetchMs = 0;
+        long writeMs = 0;
+
+        // Bật JDBC batch cho session hiện tại để INSERT/UPDATE của import được gửi theo lô
+        Session session = entityManager.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(importChunkSize);
+        try {
+            for (int from = 0; from < importRequests.size(); from += importChunkSize) {
+                List<UserImportRequest> chunk = importRequests.subList(from,
+                        Math.min(from + importChunkSize, importRequests.size()));
+
+                // Load toàn bộ user đã tồn tại của chunk bằng một query
+                long start = System.currentTimeMillis();
+                Set<String> eids = new HashSet<>();
+                chunk.forEach(req -> {
+                    if (req.getEid() != null) eids.add(req.getEid());
+                });
+                Map<String, User> existing = new HashMap<>();
+                userRepository.findAllById(eids).forEach(user -> existing.put(user.getEid(), user));
+                prefetchMs += System.currentTimeMillis() - start;
+
+                start = System.currentTimeMillis();
+                for (UserImportRequest req : chunk) {
+                    if (req.getEid() == null || req.getEmail() == null) {
+                        rejectedEids.add(req.getEid());
+                        continue;
+                    }
+                    try {
+                        User user = existing.get(req.getEid());
+                        if (user == null) {
+                            // eid gán tay nên persist thay vì save (save sẽ merge và SELECT lại từng dòng)
+                            user = userMapper.toUserWD(req);
+                            entityManager.persist(user);
+                            existing.put(user.getEid(), user);
+                            created++;
+                        } else if (importHash(user, req).equals(importHash(user, null))) {
+                            // Các field ánh xạ từ Workday không đổi: bỏ qua, không map lại account
+                            unchanged++;
+                        } else {
+                            userMapper.updateUser(user, req);
+                            updated++;
+                        }
+                    } catch (CustomException e) {
+                        // Ví dụ MSA client chưa có account tương ứng: bỏ qua dòng này, không huỷ cả lần import
+                        log.warn("[USER][IMPORT] Rejected {}: {}", req.getEid(), e.getMessage());
+                        rejectedEids.add(req.getEid());
+                    }
+                }
+                entityManager.flush();
+                entityManager.clear();
+                writeMs += System.currentTimeMillis() - start;
             }
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
         }
 
-        userRepository.saveAll(users);
-
         Map<String, Object> result = new HashMap<>();
         result.put("created", created);
         result.put("updated", updated);
+        result.put("unchanged", unchanged);
+        result.put("rejected", rejectedEids.size());
+        result.put("rejectedEids", rejectedEids);
+        result.put("prefetchMs", prefetchMs);
+        result.put("writeMs", writeMs);
         return result;
     }
 
+    @Override
+    public int deactivateUsers(Collection<String> eids) {
+        List<String> list = new ArrayList<>(eids);
+        int deactivated = 0;
+        for (int from = 0; from < list.size(); from += importChunkSize) {
+            deactivated += userRepository.deactivateAllByEidIn(list.subList(from, Math.min(from + importChunkSize, list.size())));
+        }
+        return deactivated;
+    }
+
+    // Hash các field mà UserMapper.updateUser(User, UserImportRequest) ghi vào User (account suy ra từ msaClient).
+    // Field null trong request không ghi đè (IGNORE) nên lấy giá trị hiện tại; req == null cho ra hash của chính user
+    private static String importHash(User user, UserImportRequest req) {
+        return contentHash(
+                pick(req == null ? null : req.getFullName(), user.getFullName()),
+                pick(req == null ? null : req.getJobTitle(), user.getJobTitle()),
+                pick(req == null ? null : req.getEmail(), user.getEmail()),
+                pick(req == null ? null : req.getSso(), user.getSso()),
+                pick(req == null ? null : req.getMsa(), user.getMsa()),
+                pick(req == null ? null : req.getLocation(), user.getLocation()),
+                pick(req == null ? null : req.getCompany(), user.getCompany()),
+                pick(req == null ? null : req.getCostCenter(), user.getCostCenter()),
+                pick(req == null ? null : req.getMsaClient(), user.getMsaClient()),
+                pick(req == null ? null : req.getMsaProgram(), user.getMsaProgram()),
+                pick(req == null ? null : req.getManagerEmail(), user.getManagerEmail()),
+                pick(req == null ? null : req.getIsActive(), user.isActive()),
+                pick(req == null ? null : req.getRole(), user.getRole()));
+    }
+
+    private static Object pick(Object value, Object current) {
+        return value != null ? value : current;
+    }
+
+    static String contentHash(Object... values) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object value : values) {
+                // Phân biệt null với chuỗi rỗng, và ngăn cách field để "ab"+"c" khác "a"+"bc"
+                digest.update(value == null ? new byte[]{0} : String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0x1F);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Override
     public List<TransactionResponse> getUserTransactions(String eid) {
 
@@ -188,7 +309,7 @@ public class UserServiceImpl implements UserService {
     }
 
     public List<TransactionItemsResponse> getUserTransactionItems(Integer transactionId) {
-        AssetTransaction transaction = transactionRepository.findById(transactionId)
+        AssetTransaction transaction = transactionRepository.findDetailByTransactionId(transactionId)
                 .orElseThrow(() -> new CustomException(ErrorCode.TRANSACTION_NOT_FOUND, transactionId));
         return transaction.getDetails().stream()
                 .map(transactionMapper::toTransactionItemsResponse)
@@ -1,5 +1,6 @@
 package com.concentrix.asset.service.impl;
 
+import com.concentrix.asset.config.CacheConfig;
 import com.concentrix.asset.dto.request.CreateVendorRequest;
 import com.concentrix.asset.dto.request.UpdateVendorRequest;
 import com.concentrix.asset.dto.response.VendorResponse;
@@ -10,6 +11,7 @@ import com.concentrix.asset.mapper.VendorMapper;
 import com.concentrix.asset.repository.VendorRepository;
 import com.concentrix.asset.service.VendorService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -41,6 +43,7 @@ public class VendorServiceImpl implements VendorService {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.VENDORS, allEntries = true)
     public VendorResponse updateVendor(UpdateVendorRequest request) {
         Vendor vendor = vendorRepository.findById(request.getVendorId())
                 .orElseThrow(() -> new CustomException(ErrorCode.VENDOR_NOT_FOUND, request.getVendorId()));
@@ -1,5 +1,6 @@
 package com.concentrix.asset.service.impl;
 
+import com.concentrix.asset.config.CacheConfig;
 import com.concentrix.asset.dto.request.CreateWarehouseRequest;
 import com.concentrix.asset.dto.request.UpdateWarehouseRequest;
 import com.concentrix.asset.dto.response.WarehouseResponse;
@@ -8,10 +9,12 @@ import com.concentrix.asset.exception.CustomException;
 import com.concentrix.asset.exception.ErrorCode;
 import com.concentrix.asset.mapper.WarehouseMapper;
 import com.concentrix.asset.repository.WarehouseRepository;
+import com.concentrix.asset.service.DeviceCountRollupService;
 import com.concentrix.asset.service.WarehouseService;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -19,6 +22,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.Objects;
+
 @Slf4j
 @Service
 @Transactional
@@ -28,6 +33,7 @@ public class WarehouseServiceImpl implements WarehouseService {
 
     WarehouseRepository warehouseRepository;
     WarehouseMapper warehouseMapper;
+    DeviceCountRollupService deviceCountRollupService;
 
 
     @Override
@@ -49,13 +55,19 @@ public class WarehouseServiceImpl implements WarehouseService {
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.WAREHOUSES, allEntries = true)
     public WarehouseResponse updateWarehouse(UpdateWarehouseRequest request) {
         Warehouse warehouse = warehouseRepository.findById(request.getWarehouseId())
                 .orElseThrow(() -> new CustomException(ErrorCode.WAREHOUSE_NOT_FOUND, request.getWarehouseId()));
+        Integer oldSiteId = warehouse.getSite() != null ? warehouse.getSite().getSiteId() : null;
 
         warehouseMapper.updateWarehouse(warehouse, request);
 
         warehouse = warehouseRepository.save(warehouse);
+        // Rollup lưu site_id trong khoá: đổi site của kho thì chuyển bucket theo cùng transaction
+        if (!Objects.equals(oldSiteId, warehouse.getSite() != null ? warehouse.getSite().getSiteId() : null)) {
+            deviceCountRollupService.relocateWarehouse(warehouse);
+        }
 
         return warehouseMapper.toWarehouseResponse(warehouse);
     }
@@ -0,0 +1,107 @@
+package com.concentrix.asset.service.impl;
+
+import com.concentrix.asset.entity.WorkdayImportFile;
+import com.concentrix.asset.entity.WorkdayRowFingerprint;
+import com.concentrix.asset.repository.WorkdayImportFileRepository;
+import com.concentrix.asset.repository.WorkdayRowFingerprintRepository;
+import com.concentrix.asset.service.WorkdayFingerprintService;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+@Service
+@Transactional
+@RequiredArgsConstructor
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
+public class WorkdayFingerprintServiceImpl implements WorkdayFingerprintService {
+
+    // Giới hạn số phần tử trong một mệnh đề IN
+    static final int IN_CHUNK_SIZE = 1000;
+
+    WorkdayImportFileRepository workdayImportFileRepository;
+    WorkdayRowFingerprintRepository workdayRowFingerprintRepository;
+    EntityManager entityManager;
+
+    @NonFinal
+    @Value("${app.workday.import.chunk-size}")
+    int importChunkSize;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> findLastFileHash() {
+        return workdayImportFileRepository.findFirstByOrderByIdDesc().map(WorkdayImportFile::getFileHash);
+    }
+
+    @Override
+    public void recordFile(String fileName, String fileHash, int rowCount) {
+        workdayImportFileRepository.save(WorkdayImportFile.builder()
+                .fileName(fileName)
+                .fileHash(fileHash)
+                .rowCount(rowCount)
+                .build());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, String> findRowHashes(Collection<String> eids) {
+        Map<String, String> hashes = new HashMap<>();
+        workdayRowFingerprintRepository.findAllById(eids)
+                .forEach(fingerprint -> hashes.put(fingerprint.getEid(), fingerprint.getRowHash()));
+        return hashes;
+    }
+
+    @Override
+    public void saveRowHashes(Map<String, String> rowHashes) {
+        // Batch theo chunk import; trả lại batch size cũ vì session có thể đang dùng chung với transaction gọi
+        Session session = entityManager.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(Math.min(Math.max(rowHashes.size(), 1), importChunkSize));
+        try {
+            Map<String, WorkdayRowFingerprint> existing = new HashMap<>();
+            workdayRowFingerprintRepository.findAllById(rowHashes.keySet())
+                    .forEach(fingerprint -> existing.put(fingerprint.getEid(), fingerprint));
+            rowHashes.forEach((eid, hash) -> {
+                WorkdayRowFingerprint fingerprint = existing.get(eid);
+                if (fingerprint != null) {
+                    fingerprint.setRowHash(hash);
+                } else {
+                    // eid gán tay: persist trực tiếp để không phải SELECT lại như save/merge
+                    entityManager.persist(WorkdayRowFingerprint.builder().eid(eid).rowHash(hash).build());
+                }
+            });
+            // Flush trước khi trả lại batch size, nếu không lúc commit sẽ ghi từng dòng
+            entityManager.flush();
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> findMissingEids(Set<String> currentEids) {
+        return workdayRowFingerprintRepository.findAllEids().stream()
+                .filter(eid -> !currentEids.contains(eid))
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countRowHashes() {
+        return workdayRowFingerprintRepository.count();
+    }
+
+    @Override
+    public void deleteRowHashes(Collection<String> eids) {
+        List<String> list = new ArrayList<>(eids);
+        for (int from = 0; from < list.size(); from += IN_CHUNK_SIZE) {
+            workdayRowFingerprintRepository.deleteAllByEidIn(list.subList(from, Math.min(from + IN_CHUNK_SIZE, list.size())));
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.concentrix.asset.service.impl;
 import com.concentrix.asset.dto.request.UserImportRequest;
 import com.concentrix.asset.service.EmailService;
 import com.concentrix.asset.service.UserService;
+import com.concentrix.asset.service.WorkdayFingerprintService;
 import com.concentrix.asset.service.WorkdayService;
 import jakarta.mail.MessagingException;
 import lombok.AccessLevel;
@@ -15,10 +16,13 @@ import org.springframework.stereotype.Service;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -32,6 +36,7 @@ public class WorkdayServiceImpl implements WorkdayService {
 
     UserService userService;
     EmailService emailService;
+    WorkdayFingerprintService workdayFingerprintService;
 
     @NonFinal
     @Value("${app.path.upload.workday}")
@@ -41,6 +46,14 @@ public class WorkdayServiceImpl implements WorkdayService {
     @Value("${app.notification.system-alert-email}")
     String alertSystemEmail;
 
+    @NonFinal
+    @Value("${app.workday.import.chunk-size}")
+    int chunkSize;
+
+    @NonFinal
+    @Value("${app.workday.import.max-deactivate-ratio}")
+    double maxDeactivateRatio;
+
     private static Map<String, Integer> index(String[] headers) {
         return IntStream.range(0, headers.length)
                 .boxed()
@@ -73,7 +86,8 @@ public class WorkdayServiceImpl implements WorkdayService {
         List<String> parts = new ArrayList<>();
         StringBuilder current = new StringBuilder();
         boolean inQuotes = false;
-        for (char c : line.toCharArray()) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
             if (c == '"') {
                 inQuotes = !inQuotes;
             } else if (c == ',' && !inQuotes) {
@@ -106,11 +120,7 @@ public class WorkdayServiceImpl implements WorkdayService {
     @Override
     public Map<String, Object> importFromWorkday() throws MessagingException {
         return resolveLatestCsv()
-                .map(csv -> {
-                    List<UserImportRequest> users = parseCsv(csv);
-                    log.info("[WORKDAY][IMPORT] Parsed {} users from {}", users.size(), csv);
-                    return userService.importUsers(users);
-                })
+                .map(this::importCsv)
                 .orElseGet(() -> {
                     log.error("[WORKDAY][IMPORT] No Workday CSV found in folder: {}", workdayFolder);
                     return Map.of("status", "FAILED", "reason", "No CSV found");
@@ -147,48 +157,199 @@ public class WorkdayServiceImpl implements WorkdayService {
         }
     }
 
-    private List<UserImportRequest> parseCsv(Path csvPath) {
+    // Đọc file theo từng chunk, mỗi chunk được upsert trong một transaction riêng (UserService.importUsers)
+    // nên bộ nhớ chỉ giữ tối đa chunkSize dòng (cộng tập eid để tìm nhân viên đã rời khỏi file).
+    // File giống hệt lần import trước thì bỏ qua; dòng có hash giống lần trước thì không chạm vào bảng user
+    private Map<String, Object> importCsv(Path csvPath) {
+        long start = System.currentTimeMillis();
+        String fileHash = fileHash(csvPath);
+        if (fileHash.equals(workdayFingerprintService.findLastFileHash().orElse(null))) {
+            log.info("[WORKDAY][IMPORT] {} is unchanged since the last import, skipped", csvPath);
+            return Map.of("status", "SKIPPED", "reason", "File unchanged");
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("created", 0);
+        result.put("updated", 0);
+        result.put("unchanged", 0);
+        result.put("rejected", 0);
+        Set<String> eids = new HashSet<>();
+        int rows = 0;
+        int rejected = 0;
+        int chunks = 0;
+        long importMs = 0;
+
         try (BufferedReader br = Files.newBufferedReader(csvPath, StandardCharsets.UTF_8)) {
             String headerLine = br.readLine();
             if (headerLine == null) {
-                return List.of();
+                return result;
+            }
+
+            Columns columns = new Columns(index(splitSemicolon(headerLine)));
+            List<UserImportRequest> chunk = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                rows++;
+                UserImportRequest req = toUserRequest(line, columns);
+                if (req.getEid() == null || req.getEmail() == null) { // chỉ giữ record hợp lệ
+                    rejected++;
+                    continue;
+                }
+                eids.add(req.getEid());
+                chunk.add(req);
+                if (chunk.size() >= chunkSize) {
+                    importMs += importChunk(chunk, result);
+                    chunks++;
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importMs += importChunk(chunk, result);
+                chunks++;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read Workday CSV: " + e.getMessage(), e);
+        }
+
+        merge(result, Map.of("rejected", rejected));
+
+        // Nhân viên đã import ở các lần trước nhưng không còn trong file: chuyển sang inactive
+        // (file không có dòng hợp lệ nào thì coi như file lỗi, không deactivate)
+        int deactivated = 0;
+        boolean deactivationAborted = false;
+        if (!eids.isEmpty()) {
+            List<String> missing = workdayFingerprintService.findMissingEids(eids);
+            long known = workdayFingerprintService.countRowHashes();
+            if (!missing.isEmpty() && missing.size() > known * maxDeactivateRatio) {
+                // File thiếu quá nhiều nhân viên (export lỗi, cắt cụt...): không deactivate, không ghi nhận file
+                // để lần chạy sau xử lý lại khi đã có file đúng hoặc đã nới giới hạn
+                deactivationAborted = true;
+                log.error("[WORKDAY][IMPORT] {} would deactivate {} of {} known users, above the limit of {}%, deactivation aborted",
+                        csvPath, missing.size(), known, maxDeactivateRatio * 100);
+                emailService.sendEmail(alertSystemEmail,
+                        "Workday Import",
+                        "Deactivation aborted: " + csvPath.getFileName() + " would deactivate " + missing.size()
+                                + " of " + known + " users (limit " + maxDeactivateRatio * 100 + "%)",
+                        null,
+                        null,
+                        "workday-deactivation-aborted:" + fileHash);
+            } else {
+                deactivated = userService.deactivateUsers(missing);
+                workdayFingerprintService.deleteRowHashes(missing);
             }
+        }
+        result.put("deactivated", deactivated);
+        if (deactivationAborted) {
+            result.put("status", "DEACTIVATION_ABORTED");
+        } else {
+            workdayFingerprintService.recordFile(csvPath.getFileName().toString(), fileHash, rows);
+        }
 
-            String[] headers = splitSemicolon(headerLine);
+        long totalMs = System.currentTimeMillis() - start;
+        result.put("rows", rows);
+        result.put("chunks", chunks);
+        result.put("parseMs", totalMs - importMs);
+        result.put("totalMs", totalMs);
+        log.info("[WORKDAY][IMPORT] {} rows from {} in {} chunks: {}", rows, csvPath, chunks, result);
+        return result;
+    }
+
+    private long importChunk(List<UserImportRequest> chunk, Map<String, Object> result) {
+        long start = System.currentTimeMillis();
+        Map<String, String> rowHashes = new HashMap<>();
+        chunk.forEach(req -> rowHashes.put(req.getEid(), rowHash(req)));
+        Map<String, String> lastHashes = workdayFingerprintService.findRowHashes(rowHashes.keySet());
 
-            Map<String, Integer> idx = index(headers);
+        List<UserImportRequest> changed = chunk.stream()
+                .filter(req -> !rowHashes.get(req.getEid()).equals(lastHashes.get(req.getEid())))
+                .toList();
+        merge(result, Map.of("unchanged", chunk.size() - changed.size()));
+        if (!changed.isEmpty()) {
+            Map<String, Object> chunkResult = userService.importUsers(changed);
+            merge(result, chunkResult);
+
+            Map<String, String> changedHashes = new HashMap<>();
+            changed.forEach(req -> changedHashes.put(req.getEid(), rowHashes.get(req.getEid())));
+            // Dòng bị từ chối không lưu fingerprint để lần import sau xử lý lại
+            ((List<?>) chunkResult.getOrDefault("rejectedEids", List.of())).forEach(changedHashes::remove);
+            workdayFingerprintService.saveRowHashes(changedHashes);
+        }
+        return System.currentTimeMillis() - start;
+    }
 
-            return br.lines()
-                    .filter(line -> !line.isBlank())
-                    .map(line -> toUserRequest(line, idx))
-                    .filter(req -> req.getEid() != null && req.getEmail() != null) // giữ record hợp lệ
-                    .toList();
+    private static String rowHash(UserImportRequest req) {
+        return UserServiceImpl.contentHash(req.getEid(), req.getFullName(), req.getJobTitle(), req.getEmail(),
+                req.getSso(), req.getMsa(), req.getMsaClient(), req.getMsaProgram(), req.getCompany(),
+                req.getCostCenter(), req.getLocation(), req.getManagerEmail(), req.getIsActive());
+    }
 
+    private static String fileHash(Path csvPath) {
+        try (InputStream in = Files.newInputStream(csvPath)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
         } catch (IOException e) {
             throw new RuntimeException("Failed to read Workday CSV: " + e.getMessage(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 
-    private UserImportRequest toUserRequest(String line, Map<String, Integer> idx) {
+    // Cộng dồn các giá trị số (count, thời gian) của từng chunk
+    private static void merge(Map<String, Object> total, Map<String, Object> chunkResult) {
+        chunkResult.forEach((key, value) -> {
+            if (value instanceof Number number) {
+                total.merge(key, number, (a, b) -> ((Number) a).longValue() + ((Number) b).longValue());
+            }
+        });
+    }
+
+    private UserImportRequest toUserRequest(String line, Columns columns) {
         String[] cols = splitSemicolon(line);
 
         UserImportRequest req = new UserImportRequest();
-        req.setEid(get(cols, findIndex(idx, "EMPLOYEE_NUMBER", "EMPLOYEE ID", "WORKER ID")));
-        req.setFullName(get(cols, findIndex(idx, "FULL_NAME", "FULL NAME")));
-        req.setJobTitle(get(cols, findIndex(idx, "JOB TITLE", "TITLE", "JOBTITLE")));
-        String email = get(cols, findIndex(idx, "EMAIL WORK", "EMAIL", "EMAIL - WORK"));
+        req.setEid(get(cols, columns.eid()));
+        req.setFullName(get(cols, columns.fullName()));
+        req.setJobTitle(get(cols, columns.jobTitle()));
+        String email = get(cols, columns.email());
         req.setEmail(email);
         req.setSso(email != null && email.contains("@") ? email.substring(0, email.indexOf('@')) : null);
-        req.setMsa(get(cols, findIndex(idx, "MSA")));
-        req.setMsaClient(get(cols, findIndex(idx, "MSA CLIENT", "CLIENT")));
-        req.setMsaProgram(get(cols, findIndex(idx, "MSA PROGRAM", "PROGRAM")));
-        req.setCompany(get(cols, findIndex(idx, "COMPANY")));
-        req.setCostCenter(get(cols, findIndex(idx, "COST CENTER ID", "COST CENTER")));
-        req.setLocation(get(cols, findIndex(idx, "LOCATION NAME", "LOCATION")));
-        req.setManagerEmail(get(cols, findIndex(idx, "SUPERVISOR EMAIL ID", "MANAGER EMAIL")));
-        String status = get(cols, findIndex(idx, "EMPLOYEE STATUS", "STATUS", "EMPLOYEESTATUS"));
+        req.setMsa(get(cols, columns.msa()));
+        req.setMsaClient(get(cols, columns.msaClient()));
+        req.setMsaProgram(get(cols, columns.msaProgram()));
+        req.setCompany(get(cols, columns.company()));
+        req.setCostCenter(get(cols, columns.costCenter()));
+        req.setLocation(get(cols, columns.location()));
+        req.setManagerEmail(get(cols, columns.managerEmail()));
+        String status = get(cols, columns.status());
         req.setIsActive(status == null || status.equalsIgnoreCase("Active"));
 
         return req;
     }
+
+    // Vị trí các cột, tính một lần từ header thay vì tra lại cho từng dòng
+    private record Columns(int eid, int fullName, int jobTitle, int email, int msa, int msaClient, int msaProgram,
+                           int company, int costCenter, int location, int managerEmail, int status) {
+        Columns(Map<String, Integer> idx) {
+            this(findIndex(idx, "EMPLOYEE_NUMBER", "EMPLOYEE ID", "WORKER ID"),
+                    findIndex(idx, "FULL_NAME", "FULL NAME"),
+                    findIndex(idx, "JOB TITLE", "TITLE", "JOBTITLE"),
+                    findIndex(idx, "EMAIL WORK", "EMAIL", "EMAIL - WORK"),
+                    findIndex(idx, "MSA"),
+                    findIndex(idx, "MSA CLIENT", "CLIENT"),
+                    findIndex(idx, "MSA PROGRAM", "PROGRAM"),
+                    findIndex(idx, "COMPANY"),
+                    findIndex(idx, "COST CENTER ID", "COST CENTER"),
+                    findIndex(idx, "LOCATION NAME", "LOCATION"),
+                    findIndex(idx, "SUPERVISOR EMAIL ID", "MANAGER EMAIL"),
+                    findIndex(idx, "EMPLOYEE STATUS", "STATUS", "EMPLOYEESTATUS"));
+        }
+    }
 }
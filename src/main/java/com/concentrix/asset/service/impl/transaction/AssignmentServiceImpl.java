@@ -4,6 +4,7 @@ import com.concentrix.asset.dto.request.CreateAssignmentRequest;
 import com.concentrix.asset.dto.request.LaptopBadgeRequest;
 import com.concentrix.asset.dto.response.AssetHandoverResponse;
 import com.concentrix.asset.dto.response.AssignmentResponse;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.entity.*;
 import com.concentrix.asset.enums.DeviceStatus;
 import com.concentrix.asset.enums.TransactionType;
@@ -11,7 +12,11 @@ import com.concentrix.asset.exception.CustomException;
 import com.concentrix.asset.exception.ErrorCode;
 import com.concentrix.asset.mapper.AssignmentMapper;
 import com.concentrix.asset.repository.*;
+import com.concentrix.asset.service.DeviceCountRollupService;
+import com.concentrix.asset.service.DeviceLookupService;
 import com.concentrix.asset.service.EmailService;
+import com.concentrix.asset.service.StockLedgerService;
+import com.concentrix.asset.service.TransactionQueryService;
 import com.concentrix.asset.service.UserService;
 import com.concentrix.asset.service.transaction.AssignmentService;
 import jakarta.mail.MessagingException;
@@ -23,6 +28,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -48,13 +54,15 @@ import java.util.Objects;
 public class AssignmentServiceImpl implements AssignmentService {
 
     TransactionRepository transactionRepository;
+    TransactionQueryService transactionQueryService;
     AssignmentMapper assignmentMapper;
     DeviceRepository deviceRepository;
-    DeviceWarehouseRepository deviceWarehouseRepository;
+    DeviceLookupService deviceLookupService;
     UserService userService;
-    DeviceUserRepository deviceUserRepository;
     TransactionImageRepository transactionImageRepository;
     EmailService emailService;
+    DeviceCountRollupService deviceCountRollupService;
+    StockLedgerService stockLedgerService;
 
     @NonFinal
     @Value("${app.path.upload.handover}")
@@ -76,7 +84,7 @@ public class AssignmentServiceImpl implements AssignmentService {
     @Override
     public AssignmentResponse getAssignmentById(Integer assignmentId) {
 
-        AssetTransaction transaction = transactionRepository.findById(assignmentId).orElseThrow(
+        AssetTransaction transaction = transactionRepository.findDetailByTransactionId(assignmentId).orElseThrow(
                 () -> new CustomException(ErrorCode.TRANSACTION_NOT_FOUND, assignmentId));
 
         return assignmentMapper.toAssignmentResponse(transaction);
@@ -94,12 +102,14 @@ public class AssignmentServiceImpl implements AssignmentService {
         // Gom các serialNumber không tìm thấy vào một list
         List<String> serialNotFound = new ArrayList<>();
         AssetTransaction finalTransaction = transaction;
+        // Resolve toàn bộ serial/model của request bằng query IN thay vì một query cho mỗi item
+        DeviceLookupService.DeviceLookup lookup = deviceLookupService.resolve(request.getItems());
         List<TransactionDetail> details = request.getItems().stream()
                 .map(item -> {
                     final Device device;
                     if (item.getSerialNumber() != null && !item.getSerialNumber().isEmpty()) {
                         // Tìm device theo serial number - gom lỗi vào list
-                        device = deviceRepository.findBySerialNumber(item.getSerialNumber().trim())
+                        device = lookup.findBySerialNumber(item.getSerialNumber().trim())
                                 .orElse(null);
                         if (device == null) {
                             serialNotFound.add(item.getSerialNumber());
@@ -107,7 +117,7 @@ public class AssignmentServiceImpl implements AssignmentService {
                         }
                     } else if (item.getModelId() != null) {
                         // Tìm device theo modelId - báo lỗi từng cái
-                        device = deviceRepository.findFirstByModel_ModelId(item.getModelId())
+                        device = lookup.findFirstByModelId(item.getModelId())
                                 .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND,
                                         "Model ID: " + item.getModelId()));
                     } else {
@@ -138,13 +148,20 @@ public class AssignmentServiceImpl implements AssignmentService {
     }
 
     @Override
-    public Page<AssignmentResponse> filterAssignments(
-            String search,
-            LocalDate fromDate,
-            LocalDate toDate,
-            Pageable pageable) {
+    public Page<AssignmentResponse> filterAssignments(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable) {
+        return transactionQueryService.findAll(filterSpecification(search, fromDate, toDate), pageable)
+                .map(assignmentMapper::toAssignmentResponse);
+    }
+
+    @Override
+    public CursorPageResponse<AssignmentResponse> scrollAssignments(String search, LocalDate fromDate, LocalDate toDate,
+            String cursor, int size) {
+        return transactionQueryService.scroll(filterSpecification(search, fromDate, toDate), cursor, size)
+                .map(assignmentMapper::toAssignmentResponse);
+    }
 
-        return transactionRepository.findAll((root, query, cb) -> {
+    private Specification<AssetTransaction> filterSpecification(String search, LocalDate fromDate, LocalDate toDate) {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
             // Chỉ lấy transaction type = ASSIGNMENT
@@ -172,12 +189,12 @@ public class AssignmentServiceImpl implements AssignmentService {
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
-        }, pageable).map(assignmentMapper::toAssignmentResponse);
+        };
     }
 
     @Override
     public AssetHandoverResponse getAssetHandoverByAssignmentId(Integer assignmentId) {
-        AssetTransaction assignment = transactionRepository.findById(assignmentId)
+        AssetTransaction assignment = transactionRepository.findHandoverByTransactionId(assignmentId)
                 .orElseThrow(() -> new CustomException(ErrorCode.ASSIGNMENT_NOT_FOUND));
 
         // Kiểm tra xem có phải là ASSIGNMENT transaction không
@@ -299,10 +316,11 @@ public class AssignmentServiceImpl implements AssignmentService {
                 .toList();
 
         List<Device> devices = new ArrayList<>();
+        DeviceLookupService.DeviceLookup lookup = deviceLookupService.resolve(request.getListSerial(), List.of());
 
         // Kiểm tra từng serial trong listSerial
         for (String serial : request.getListSerial()) {
-            Device device = deviceRepository.findBySerialNumber(serial)
+            Device device = lookup.findBySerialNumber(serial)
                     .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND, serial));
 
             // Nếu serial không nằm trong transaction details → báo lỗi
@@ -356,43 +374,24 @@ public class AssignmentServiceImpl implements AssignmentService {
             return; // Nếu invalid thì không update
         }
 
+        deviceCountRollupService.removeSerialDevice(device);
         device.setStatus(DeviceStatus.ASSIGNED);
         device.setCurrentUser(transaction.getUserUse());
         device.setCurrentWarehouse(null);
         device.setCurrentFloor(null);
         deviceRepository.save(device);
+        deviceCountRollupService.addSerialDevice(device);
     }
 
     private void processDeviceWithoutSerial(Device device, TransactionDetail detail, AssetTransaction transaction) {
-        Integer deviceId = device.getDeviceId();
-        Integer fromWarehouseId = transaction.getFromWarehouse().getWarehouseId();
         Integer qty = detail.getQuantity();
 
-        DeviceWarehouse fromStock = deviceWarehouseRepository
-                .findByWarehouse_WarehouseIdAndDevice_DeviceId(fromWarehouseId, deviceId)
-                .orElseThrow(() -> new CustomException(
-                        ErrorCode.DEVICE_NOT_FOUND_IN_WAREHOUSE,
-                        device.getModel().getModelName(),
-                        transaction.getFromWarehouse().getWarehouseName()));
-
-        if (fromStock.getQuantity() < qty) {
-            throw new CustomException(ErrorCode.STOCK_OUT, device.getModel().getModelName(), fromStock.getQuantity());
-        }
-
-        fromStock.setQuantity(fromStock.getQuantity() - qty);
-        deviceWarehouseRepository.save(fromStock);
+        stockLedgerService.takeFromWarehouse(device, transaction.getFromWarehouse(), qty);
+        deviceCountRollupService.adjustInWarehouse(device, DeviceStatus.IN_STOCK, transaction.getFromWarehouse(), -qty);
 
         // Cập nhật DeviceUser
-        DeviceUser deviceUser = deviceUserRepository
-                .findByDevice_DeviceIdAndUser_Eid(deviceId, transaction.getUserUse().getEid())
-                .orElseGet(() -> DeviceUser.builder()
-                        .device(device)
-                        .user(transaction.getUserUse())
-                        .quantity(0)
-                        .build());
-
-        deviceUser.setQuantity(deviceUser.getQuantity() + qty);
-        deviceUserRepository.save(deviceUser);
+        stockLedgerService.addToUser(device, transaction.getUserUse(), qty);
+        deviceCountRollupService.adjust(device, DeviceStatus.ASSIGNED, qty);
     }
 
     public String buildLaptopBadgeHtmlTemplate(AssetTransaction transaction, List<Device> devices) {
@@ -1,6 +1,7 @@
 package com.concentrix.asset.service.impl.transaction;
 
 import com.concentrix.asset.dto.request.CreateDisposalRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.DisposalResponse;
 import com.concentrix.asset.entity.*;
 import com.concentrix.asset.enums.DeviceStatus;
@@ -12,6 +13,10 @@ import com.concentrix.asset.repository.DeviceRepository;
 import com.concentrix.asset.repository.DeviceWarehouseRepository;
 import com.concentrix.asset.repository.TransactionRepository;
 import com.concentrix.asset.repository.UserRepository;
+import com.concentrix.asset.service.DeviceCountRollupService;
+import com.concentrix.asset.service.DeviceLookupService;
+import com.concentrix.asset.service.StockLedgerService;
+import com.concentrix.asset.service.TransactionQueryService;
 import com.concentrix.asset.service.transaction.DisposalService;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +24,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -34,14 +40,18 @@ import java.util.stream.Collectors;
 @FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
 public class DisposalServiceImpl implements DisposalService {
     TransactionRepository transactionRepository;
+    TransactionQueryService transactionQueryService;
     DisposalMapper disposalMapper;
     UserRepository userRepository;
     DeviceRepository deviceRepository;
+    DeviceLookupService deviceLookupService;
     DeviceWarehouseRepository deviceWarehouseRepository;
+    DeviceCountRollupService deviceCountRollupService;
+    StockLedgerService stockLedgerService;
 
     @Override
     public DisposalResponse getDisposalById(Integer disposalId) {
-        AssetTransaction transaction = transactionRepository.findById(disposalId).orElseThrow(
+        AssetTransaction transaction = transactionRepository.findDetailByTransactionId(disposalId).orElseThrow(
                 () -> new CustomException(ErrorCode.TRANSACTION_NOT_FOUND, disposalId));
         return disposalMapper.toDisposalResponse(transaction);
     }
@@ -70,18 +80,20 @@ public class DisposalServiceImpl implements DisposalService {
         List<String> serialNotFound = new ArrayList<>();
         List<String> serialInvalid = new ArrayList<>();
         final AssetTransaction finalTransaction = transaction;
+        // Resolve toàn bộ serial/model của request bằng query IN thay vì một query cho mỗi item
+        DeviceLookupService.DeviceLookup lookup = deviceLookupService.resolve(request.getItems());
         List<TransactionDetail> details = request.getItems().stream()
                 .map(item -> {
                     final Device device;
                     if (item.getSerialNumber() != null && !item.getSerialNumber().isEmpty()) {
-                        device = deviceRepository.findBySerialNumber(item.getSerialNumber())
+                        device = lookup.findBySerialNumber(item.getSerialNumber())
                                 .orElse(null);
                         if (device == null) {
                             serialNotFound.add(item.getSerialNumber());
                             return null;
                         }
                     } else if (item.getModelId() != null) {
-                        device = deviceRepository.findFirstByModel_ModelId(item.getModelId())
+                        device = lookup.findFirstByModelId(item.getModelId())
                                 .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND,
                                         "Model ID: " + item.getModelId()));
                     } else {
@@ -143,12 +155,23 @@ public class DisposalServiceImpl implements DisposalService {
     }
 
     @Override
-    public Page<DisposalResponse> filterDisposals(String search, LocalDate fromDate, LocalDate toDate,
-                                                  Pageable pageable) {
+    public Page<DisposalResponse> filterDisposals(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable) {
+        return transactionQueryService.findAll(filterSpecification(search, fromDate, toDate), pageable)
+                .map(disposalMapper::toDisposalResponse);
+    }
+
+    @Override
+    public CursorPageResponse<DisposalResponse> scrollDisposals(String search, LocalDate fromDate, LocalDate toDate,
+            String cursor, int size) {
+        return transactionQueryService.scroll(filterSpecification(search, fromDate, toDate), cursor, size)
+                .map(disposalMapper::toDisposalResponse);
+    }
+
+    private Specification<AssetTransaction> filterSpecification(String search, LocalDate fromDate, LocalDate toDate) {
         if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
             throw new CustomException(ErrorCode.INVALID_DATE_RANGE);
         }
-        return transactionRepository.findAll((root, query, cb) -> {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
             predicates.add(cb.equal(root.get("transactionType"), TransactionType.DISPOSAL));
 
@@ -169,7 +192,7 @@ public class DisposalServiceImpl implements DisposalService {
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
-        }, pageable).map(disposalMapper::toDisposalResponse);
+        };
     }
 
     private User getCurrentUser() {
@@ -185,25 +208,19 @@ public class DisposalServiceImpl implements DisposalService {
             boolean hasSerial = device.getSerialNumber() != null && !device.getSerialNumber().isEmpty();
 
             if (hasSerial) {
+                deviceCountRollupService.removeSerialDevice(device);
                 device.setStatus(DeviceStatus.DISPOSED);
                 device.setCurrentWarehouse(null);
                 device.setCurrentUser(null);
                 device.setCurrentFloor(null);
                 deviceRepository.save(device);
+                deviceCountRollupService.addSerialDevice(device);
             } else {
-                Integer deviceId = device.getDeviceId();
-                Integer fromWarehouseId = transaction.getFromWarehouse().getWarehouseId();
                 Integer qty = detail.getQuantity();
-                DeviceWarehouse fromStock = deviceWarehouseRepository
-                        .findByWarehouse_WarehouseIdAndDevice_DeviceId(fromWarehouseId, deviceId)
-                        .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND_IN_WAREHOUSE,
-                                device.getModel().getModelName(),
-                                transaction.getFromWarehouse().getWarehouseName()));
-                if (fromStock.getQuantity() < qty) {
-                    throw new CustomException(ErrorCode.STOCK_OUT, device.getModel().getModelName(), fromStock.getQuantity());
-                }
-                fromStock.setQuantity(fromStock.getQuantity() - qty);
-                deviceWarehouseRepository.save(fromStock);
+                stockLedgerService.takeFromWarehouse(device, transaction.getFromWarehouse(), qty);
+                deviceCountRollupService.adjustInWarehouse(device, DeviceStatus.IN_STOCK,
+                        transaction.getFromWarehouse(), -qty);
+                deviceCountRollupService.adjust(device, DeviceStatus.DISPOSED, qty);
             }
         }
     }
@@ -1,6 +1,7 @@
 package com.concentrix.asset.service.impl.transaction;
 
 import com.concentrix.asset.dto.request.CreateEWasteRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.EWasteResponse;
 import com.concentrix.asset.entity.*;
 import com.concentrix.asset.enums.TransactionType;
@@ -11,6 +12,10 @@ import com.concentrix.asset.repository.DeviceRepository;
 import com.concentrix.asset.repository.DeviceWarehouseRepository;
 import com.concentrix.asset.repository.TransactionRepository;
 import com.concentrix.asset.repository.UserRepository;
+import com.concentrix.asset.service.DeviceCountRollupService;
+import com.concentrix.asset.service.DeviceLookupService;
+import com.concentrix.asset.service.StockLedgerService;
+import com.concentrix.asset.service.TransactionQueryService;
 import com.concentrix.asset.service.transaction.EWasteService;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +23,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -37,14 +43,18 @@ import java.util.stream.Collectors;
 @FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
 public class EWasteServiceImpl implements EWasteService {
     TransactionRepository transactionRepository;
+    TransactionQueryService transactionQueryService;
     EWasteMapper ewasteMapper;
     UserRepository userRepository;
     DeviceRepository deviceRepository;
+    DeviceLookupService deviceLookupService;
     DeviceWarehouseRepository deviceWarehouseRepository;
+    DeviceCountRollupService deviceCountRollupService;
+    StockLedgerService stockLedgerService;
 
     @Override
     public EWasteResponse getEWasteById(Integer ewasteId) {
-        AssetTransaction transaction = transactionRepository.findById(ewasteId).orElseThrow(
+        AssetTransaction transaction = transactionRepository.findDetailByTransactionId(ewasteId).orElseThrow(
                 () -> new CustomException(ErrorCode.TRANSACTION_NOT_FOUND, ewasteId));
         return ewasteMapper.toEWasteResponse(transaction);
     }
@@ -73,18 +83,20 @@ public class EWasteServiceImpl implements EWasteService {
         java.util.List<String> serialNotFound = new java.util.ArrayList<>();
         java.util.List<String> serialInvalid = new java.util.ArrayList<>();
         final AssetTransaction finalTransaction = transaction;
+        // Resolve toàn bộ serial/model của request bằng query IN thay vì một query cho mỗi item
+        DeviceLookupService.DeviceLookup lookup = deviceLookupService.resolve(request.getItems());
         List<TransactionDetail> details = request.getItems().stream()
                 .map(item -> {
                     final Device device;
                     if (item.getSerialNumber() != null && !item.getSerialNumber().isEmpty()) {
-                        device = deviceRepository.findBySerialNumber(item.getSerialNumber())
+                        device = lookup.findBySerialNumber(item.getSerialNumber())
                                 .orElse(null);
                         if (device == null) {
                             serialNotFound.add(item.getSerialNumber());
                             return null;
                         }
                     } else if (item.getModelId() != null) {
-                        device = deviceRepository.findFirstByModel_ModelId(item.getModelId())
+                        device = lookup.findFirstByModelId(item.getModelId())
                                 .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND,
                                         "Model ID: " + item.getModelId()));
                     } else {
@@ -147,10 +159,22 @@ public class EWasteServiceImpl implements EWasteService {
 
     @Override
     public Page<EWasteResponse> filterEWastes(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable) {
+        return transactionQueryService.findAll(filterSpecification(search, fromDate, toDate), pageable)
+                .map(ewasteMapper::toEWasteResponse);
+    }
+
+    @Override
+    public CursorPageResponse<EWasteResponse> scrollEWastes(String search, LocalDate fromDate, LocalDate toDate,
+            String cursor, int size) {
+        return transactionQueryService.scroll(filterSpecification(search, fromDate, toDate), cursor, size)
+                .map(ewasteMapper::toEWasteResponse);
+    }
+
+    private Specification<AssetTransaction> filterSpecification(String search, LocalDate fromDate, LocalDate toDate) {
         if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
             throw new CustomException(ErrorCode.INVALID_DATE_RANGE);
         }
-        return transactionRepository.findAll((root, query, cb) -> {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
             predicates.add(cb.equal(root.get("transactionType"), TransactionType.E_WASTE));
             if (search != null && !search.trim().isEmpty()) {
@@ -170,7 +194,7 @@ public class EWasteServiceImpl implements EWasteService {
                 predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), toDateTime));
             }
             return cb.and(predicates.toArray(new Predicate[0]));
-        }, pageable).map(ewasteMapper::toEWasteResponse);
+        };
     }
 
     private User getCurrentUser() {
@@ -185,25 +209,20 @@ public class EWasteServiceImpl implements EWasteService {
             boolean hasSerial = device.getSerialNumber() != null && !device.getSerialNumber().isEmpty();
             if (hasSerial) {
                 // Serial: chỉ update Device, không động vào DeviceWarehouse
+                deviceCountRollupService.removeSerialDevice(device);
                 device.setStatus(com.concentrix.asset.enums.DeviceStatus.E_WASTE);
                 device.setCurrentWarehouse(transaction.getFromWarehouse()); // Cập nhật kho hiện tại
                 device.setCurrentUser(null);
                 device.setCurrentFloor(null);
                 deviceRepository.save(device);
+                deviceCountRollupService.addSerialDevice(device);
             } else {
-                Integer deviceId = device.getDeviceId();
-                Integer fromWarehouseId = transaction.getFromWarehouse().getWarehouseId();
                 Integer qty = detail.getQuantity();
-                DeviceWarehouse fromStock = deviceWarehouseRepository
-                        .findByWarehouse_WarehouseIdAndDevice_DeviceId(fromWarehouseId, deviceId)
-                        .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND_IN_WAREHOUSE,
-                                device.getModel().getModelName(),
-                                transaction.getFromWarehouse().getWarehouseName()));
-                if (fromStock.getQuantity() < qty) {
-                    throw new CustomException(ErrorCode.STOCK_OUT, device.getModel().getModelName(), fromStock.getQuantity());
-                }
-                fromStock.setQuantity(fromStock.getQuantity() - qty);
-                deviceWarehouseRepository.save(fromStock);
+                stockLedgerService.takeFromWarehouse(device, transaction.getFromWarehouse(), qty);
+                deviceCountRollupService.adjustInWarehouse(device, com.concentrix.asset.enums.DeviceStatus.IN_STOCK,
+                        transaction.getFromWarehouse(), -qty);
+                deviceCountRollupService.adjustInWarehouse(device, com.concentrix.asset.enums.DeviceStatus.E_WASTE,
+                        transaction.getFromWarehouse(), qty);
             }
         }
     }
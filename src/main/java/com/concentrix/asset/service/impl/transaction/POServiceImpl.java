@@ -9,7 +9,10 @@ import com.concentrix.asset.exception.CustomException;
 import com.concentrix.asset.exception.ErrorCode;
 import com.concentrix.asset.mapper.POMapper;
 import com.concentrix.asset.repository.*;
+import com.concentrix.asset.service.DeviceCountRollupService;
+import com.concentrix.asset.service.DeviceLookupService;
 import com.concentrix.asset.service.DeviceService;
+import com.concentrix.asset.service.StockLedgerService;
 import com.concentrix.asset.service.UserService;
 import com.concentrix.asset.service.transaction.POService;
 import jakarta.persistence.criteria.Predicate;
@@ -23,8 +26,10 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Service
@@ -37,11 +42,13 @@ public class POServiceImpl implements POService {
     PORepository poRepository;
     POMapper poMapper;
     DeviceRepository deviceRepository;
+    DeviceLookupService deviceLookupService;
     ModelRepository modelRepository;
-    DeviceWarehouseRepository deviceWarehouseRepository;
     UserRepository userRepository;
     UserService userService;
     DeviceService deviceService;
+    DeviceCountRollupService deviceCountRollupService;
+    StockLedgerService stockLedgerService;
 
     @Override
     public POResponse createPO(CreatePORequest createPORequest) {
@@ -66,13 +73,31 @@ public class POServiceImpl implements POService {
             }
         }
 
+        // Load model và device của toàn bộ item một lần thay vì query theo từng item
+        Set<Integer> modelIds = new HashSet<>();
+        createPORequest.getItems().forEach(item -> modelIds.add(item.getModelId()));
+        Map<Integer, Model> models = new HashMap<>();
+        modelRepository.findAllById(modelIds).forEach(model -> models.put(model.getModelId(), model));
+        for (POItem item : createPORequest.getItems()) {
+            if (!models.containsKey(item.getModelId())) {
+                throw new CustomException(ErrorCode.MODEL_NOT_FOUND, item.getModelId());
+            }
+        }
+
+        DeviceLookupService.DeviceLookup lookup = deviceLookupService.resolve(serialSet, modelIds);
+        List<String> serialExisted = serialSet.stream()
+                .filter(serial -> lookup.findBySerialNumber(serial).isPresent())
+                .toList();
+        if (!serialExisted.isEmpty()) {
+            throw new CustomException(ErrorCode.DEVICE_ALREADY_EXISTS, String.join(",", serialExisted));
+        }
+
         PurchaseOrder purchaseOrder = poMapper.toPurchaseOrder(createPORequest);
         purchaseOrder.setCreatedBy(currentUser);
         purchaseOrder = poRepository.save(purchaseOrder);
 
         for (POItem item : createPORequest.getItems()) {
-            Model model = modelRepository.findById(item.getModelId())
-                    .orElseThrow(() -> new CustomException(ErrorCode.MODEL_NOT_FOUND, item.getModelId()));
+            Model model = models.get(item.getModelId());
 
             if (model.getType().hasSerial()) {
                 if (item.getSerialNumber() != null && !item.getSerialNumber().isBlank()) {
@@ -81,12 +106,12 @@ public class POServiceImpl implements POService {
                     throw new CustomException(ErrorCode.MODEL_MISSING_SERIAL_NUMBER, model.getModelName());
                 }
             } else {
-                handleDeviceWithoutSerial(item, model, purchaseOrder);
+                handleDeviceWithoutSerial(item, model, purchaseOrder, lookup);
             }
         }
 
-        poRepository.save(purchaseOrder);
-
+        // purchaseOrder đã managed: PODetail mới được persist theo cascade khi flush và INSERT theo lô.
+        // Gọi save() lần nữa sẽ merge từng PODetail (khoá ghép gán sẵn) và SELECT riêng cho mỗi dòng
         return poMapper.toPOResponse(purchaseOrder);
     }
 
@@ -122,9 +147,6 @@ public class POServiceImpl implements POService {
     }
 
     private void handleDeviceWithSerial(POItem item, Model model, PurchaseOrder purchaseOrder) {
-        if (deviceRepository.findBySerialNumber(item.getSerialNumber()).isPresent()) {
-            throw new CustomException(ErrorCode.DEVICE_ALREADY_EXISTS, item.getSerialNumber());
-        }
         Device device = Device.builder()
                 .serialNumber(item.getSerialNumber())
                 .model(model)
@@ -137,19 +159,23 @@ public class POServiceImpl implements POService {
 
         device.setHostName(deviceService.generateHostNameForLaptop(device));
         deviceRepository.save(device);
+        deviceCountRollupService.addSerialDevice(device);
 
         createPODetail(purchaseOrder, device, 1);
     }
 
-    private void handleDeviceWithoutSerial(POItem item, Model model, PurchaseOrder purchaseOrder) {
-        Device device = deviceRepository.findFirstByModel_ModelId(model.getModelId())
+    private void handleDeviceWithoutSerial(POItem item, Model model, PurchaseOrder purchaseOrder,
+                                           DeviceLookupService.DeviceLookup lookup) {
+        Device device = lookup.findFirstByModelId(model.getModelId())
                 .orElseGet(() -> {
                     Device newDevice = Device.builder()
                             .model(model)
                             .deviceName(item.getDeviceName())
                             .status(DeviceStatus.IN_STOCK)
                             .build();
-                    return deviceRepository.save(newDevice);
+                    newDevice = deviceRepository.save(newDevice);
+                    lookup.addModelDevice(newDevice);
+                    return newDevice;
                 });
 
         log.info("[POServiceImpl] Device found or created: {}", device.getDeviceId());
@@ -168,22 +194,8 @@ public class POServiceImpl implements POService {
     }
 
     private void createDeviceWarehouse(Warehouse warehouse, Device device, Integer quantity) {
-        Integer warehouseId = warehouse.getWarehouseId();
-        Integer deviceId = device.getDeviceId();
-        DeviceWarehouse deviceWarehouse = deviceWarehouseRepository
-                .findByWarehouse_WarehouseIdAndDevice_DeviceId(warehouseId, deviceId)
-                .orElse(null);
-        if (deviceWarehouse != null) {
-            deviceWarehouse.setQuantity(deviceWarehouse.getQuantity() + quantity);
-            deviceWarehouseRepository.save(deviceWarehouse);
-        } else {
-            deviceWarehouse = DeviceWarehouse.builder()
-                    .warehouse(warehouse)
-                    .device(device)
-                    .quantity(quantity)
-                    .build();
-            deviceWarehouseRepository.save(deviceWarehouse);
-        }
+        stockLedgerService.addToWarehouse(device, warehouse, quantity);
+        deviceCountRollupService.adjustInWarehouse(device, DeviceStatus.IN_STOCK, warehouse, quantity);
     }
 
 }
\ No newline at end of file
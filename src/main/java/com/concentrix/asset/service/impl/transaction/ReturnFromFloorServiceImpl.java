@@ -1,6 +1,7 @@
 package com.concentrix.asset.service.impl.transaction;
 
 import com.concentrix.asset.dto.request.CreateReturnFromFloorRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.ReturnFromFloorResponse;
 import com.concentrix.asset.entity.*;
 import com.concentrix.asset.enums.DeviceStatus;
@@ -9,6 +10,10 @@ import com.concentrix.asset.exception.CustomException;
 import com.concentrix.asset.exception.ErrorCode;
 import com.concentrix.asset.mapper.ReturnFromFloorMapper;
 import com.concentrix.asset.repository.*;
+import com.concentrix.asset.service.DeviceCountRollupService;
+import com.concentrix.asset.service.DeviceLookupService;
+import com.concentrix.asset.service.StockLedgerService;
+import com.concentrix.asset.service.TransactionQueryService;
 import com.concentrix.asset.service.transaction.ReturnFromFloorService;
 import jakarta.persistence.criteria.Predicate;
 import lombok.AccessLevel;
@@ -17,6 +22,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,16 +39,18 @@ import java.util.stream.Collectors;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class ReturnFromFloorServiceImpl implements ReturnFromFloorService {
     TransactionRepository transactionRepository;
+    TransactionQueryService transactionQueryService;
     ReturnFromFloorMapper returnFromFloorMapper;
     DeviceRepository deviceRepository;
-    DeviceWarehouseRepository deviceWarehouseRepository;
+    DeviceLookupService deviceLookupService;
     UserRepository userRepository;
-    DeviceFloorRepository deviceFloorRepository;
+    DeviceCountRollupService deviceCountRollupService;
+    StockLedgerService stockLedgerService;
 
 
     @Override
     public ReturnFromFloorResponse getReturnFromFloorById(Integer returnFromFloorId) {
-        AssetTransaction transaction = transactionRepository.findById(returnFromFloorId).orElseThrow(
+        AssetTransaction transaction = transactionRepository.findDetailByTransactionId(returnFromFloorId).orElseThrow(
                 () -> new CustomException(ErrorCode.TRANSACTION_NOT_FOUND, returnFromFloorId));
         return returnFromFloorMapper.toReturnFromFloorResponse(transaction);
     }
@@ -71,13 +79,15 @@ public class ReturnFromFloorServiceImpl implements ReturnFromFloorService {
         List<String> serialNotFound = new ArrayList<>();
         List<String> serialInvalid = new ArrayList<>();
 
+        // Resolve toàn bộ serial/model của request bằng query IN thay vì một query cho mỗi item
+        DeviceLookupService.DeviceLookup lookup = deviceLookupService.resolve(request.getItems());
         List<TransactionDetail> details = request.getItems().stream()
                 .map(item -> {
                     Device device = null;
 
                     // Trường hợp có serialNumber
                     if (item.getSerialNumber() != null && !item.getSerialNumber().isEmpty()) {
-                        Optional<Device> optionalDevice = deviceRepository.findBySerialNumber(item.getSerialNumber());
+                        Optional<Device> optionalDevice = lookup.findBySerialNumber(item.getSerialNumber());
                         if (optionalDevice.isEmpty()) {
                             serialNotFound.add(item.getSerialNumber());
                             return null;
@@ -100,7 +110,7 @@ public class ReturnFromFloorServiceImpl implements ReturnFromFloorService {
 
                     } else if (item.getModelId() != null) {
                         // Trường hợp không có serial nhưng có modelId
-                        Optional<Device> optionalDevice = deviceRepository.findFirstByModel_ModelId(item.getModelId());
+                        Optional<Device> optionalDevice = lookup.findFirstByModelId(item.getModelId());
                         if (optionalDevice.isEmpty()) {
                             serialNotFound.add("Model ID: " + item.getModelId());
                             return null;
@@ -142,12 +152,22 @@ public class ReturnFromFloorServiceImpl implements ReturnFromFloorService {
 
     @Override
     public Page<ReturnFromFloorResponse> filterReturnFromFloors(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable) {
+        return transactionQueryService.findAll(filterSpecification(search, fromDate, toDate), pageable)
+                .map(returnFromFloorMapper::toReturnFromFloorResponse);
+    }
 
+    @Override
+    public CursorPageResponse<ReturnFromFloorResponse> scrollReturnFromFloors(String search, LocalDate fromDate, LocalDate toDate,
+            String cursor, int size) {
+        return transactionQueryService.scroll(filterSpecification(search, fromDate, toDate), cursor, size)
+                .map(returnFromFloorMapper::toReturnFromFloorResponse);
+    }
+
+    private Specification<AssetTransaction> filterSpecification(String search, LocalDate fromDate, LocalDate toDate) {
         if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
             throw new CustomException(ErrorCode.INVALID_DATE_RANGE);
         }
-
-        return transactionRepository.findAll((root, query, cb) -> {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
             predicates.add(cb.equal(root.get("transactionType"), TransactionType.RETURN_FROM_FLOOR));
             if (search != null && !search.trim().isEmpty()) {
@@ -168,9 +188,7 @@ public class ReturnFromFloorServiceImpl implements ReturnFromFloorService {
                 predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), toDateTime));
             }
             return cb.and(predicates.toArray(new Predicate[0]));
-        }, pageable).map(returnFromFloorMapper::toReturnFromFloorResponse);
-
-
+        };
     }
 
     private User getCurrentUser() {
@@ -185,42 +203,25 @@ public class ReturnFromFloorServiceImpl implements ReturnFromFloorService {
             boolean hasSerial = device.getSerialNumber() != null && !device.getSerialNumber().isEmpty();
             if (hasSerial) {
                 // Serial: chỉ update Device, không động vào DeviceWarehouse
+                deviceCountRollupService.removeSerialDevice(device);
                 device.setStatus(DeviceStatus.IN_STOCK);
                 device.setCurrentWarehouse(transaction.getToWarehouse());
                 device.setCurrentFloor(null);
                 device.setHostName(null);
                 device.setSeatNumber(null);
                 deviceRepository.save(device);
+                deviceCountRollupService.addSerialDevice(device);
             } else {
-                Integer deviceId = device.getDeviceId();
                 Integer qty = detail.getQuantity();
 
                 //Trừ từ DeviceFloor
-                DeviceFloor deviceFloor = deviceFloorRepository
-                        .findByDevice_DeviceIdAndFloor_FloorId(deviceId, transaction.getFromFloor().getFloorId())
-                        .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND_IN_FLOOR,
-                                device.getModel().getModelName(),
-                                transaction.getFromFloor().getFloorName()));
-
-                if (deviceFloor.getQuantity() < qty) {
-                    throw new CustomException(ErrorCode.DEVICE_NOT_ENOUGH_IN_FLOOR,
-                            device.getModel().getModelName(),
-                            transaction.getFromFloor().getFloorName());
-                }
-
-                deviceFloor.setQuantity(deviceFloor.getQuantity() - qty);
-                deviceFloorRepository.save(deviceFloor);
+                stockLedgerService.takeFromFloor(device, transaction.getFromFloor(), qty);
+                deviceCountRollupService.adjustInFloor(device, transaction.getFromFloor(), -qty);
 
                 // Cộng về DeviceWarehouse
-                DeviceWarehouse toStock = deviceWarehouseRepository
-                        .findByWarehouse_WarehouseIdAndDevice_DeviceId(transaction.getToWarehouse().getWarehouseId(), deviceId)
-                        .orElseGet(() -> DeviceWarehouse.builder()
-                                .device(device)
-                                .warehouse(transaction.getToWarehouse())
-                                .quantity(0)
-                                .build());
-                toStock.setQuantity(toStock.getQuantity() + qty);
-                deviceWarehouseRepository.save(toStock);
+                stockLedgerService.addToWarehouse(device, transaction.getToWarehouse(), qty);
+                deviceCountRollupService.adjustInWarehouse(device, DeviceStatus.IN_STOCK,
+                        transaction.getToWarehouse(), qty);
             }
         }
     }
@@ -1,6 +1,7 @@
 package com.concentrix.asset.service.impl.transaction;
 
 import com.concentrix.asset.dto.request.CreateReturnFromRepairRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.ReturnFromRepairResponse;
 import com.concentrix.asset.entity.*;
 import com.concentrix.asset.enums.TransactionType;
@@ -8,6 +9,10 @@ import com.concentrix.asset.exception.CustomException;
 import com.concentrix.asset.exception.ErrorCode;
 import com.concentrix.asset.mapper.ReturnFromRepairMapper;
 import com.concentrix.asset.repository.*;
+import com.concentrix.asset.service.DeviceCountRollupService;
+import com.concentrix.asset.service.DeviceLookupService;
+import com.concentrix.asset.service.StockLedgerService;
+import com.concentrix.asset.service.TransactionQueryService;
 import com.concentrix.asset.service.transaction.ReturnFromRepairService;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +20,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -31,15 +37,18 @@ import java.util.List;
 @FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
 public class ReturnFromRepairServiceImpl implements ReturnFromRepairService {
     TransactionRepository transactionRepository;
+    TransactionQueryService transactionQueryService;
     ReturnFromRepairMapper returnFromRepairMapper;
     UserRepository userRepository;
     DeviceRepository deviceRepository;
-    DeviceWarehouseRepository deviceWarehouseRepository;
+    DeviceLookupService deviceLookupService;
     TransactionDetailRepository transactionDetailRepository;
+    DeviceCountRollupService deviceCountRollupService;
+    StockLedgerService stockLedgerService;
 
     @Override
     public ReturnFromRepairResponse getReturnFromRepairById(Integer returnId) {
-        AssetTransaction transaction = transactionRepository.findById(returnId).orElseThrow(
+        AssetTransaction transaction = transactionRepository.findDetailByTransactionId(returnId).orElseThrow(
                 () -> new CustomException(ErrorCode.TRANSACTION_NOT_FOUND, returnId));
         return returnFromRepairMapper.toReturnFromRepairResponse(transaction);
     }
@@ -65,10 +74,11 @@ public class ReturnFromRepairServiceImpl implements ReturnFromRepairService {
         java.util.List<TransactionDetail> details = new java.util.ArrayList<>();
         java.util.List<String> serialNotFound = new java.util.ArrayList<>();
         java.util.List<String> serialInvalid = new java.util.ArrayList<>();
+        DeviceLookupService.DeviceLookup lookup = deviceLookupService.resolve(serialQtyMap.keySet(), modelQtyMap.keySet());
 
         // Xử lý các device có serial number
         for (java.util.Map.Entry<String, Integer> entry : serialQtyMap.entrySet()) {
-            Device device = deviceRepository.findBySerialNumber(entry.getKey())
+            Device device = lookup.findBySerialNumber(entry.getKey())
                     .orElse(null);
             if (device == null) {
                 serialNotFound.add(entry.getKey());
@@ -91,7 +101,7 @@ public class ReturnFromRepairServiceImpl implements ReturnFromRepairService {
 
         // Xử lý các device theo modelId
         for (java.util.Map.Entry<Integer, Integer> entry : modelQtyMap.entrySet()) {
-            Device device = deviceRepository.findFirstByModel_ModelId(entry.getKey())
+            Device device = lookup.findFirstByModelId(entry.getKey())
                     .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND, "Model ID: " + entry.getKey()));
             TransactionDetail detail = new TransactionDetail();
             detail.setDevice(device);
@@ -117,10 +127,22 @@ public class ReturnFromRepairServiceImpl implements ReturnFromRepairService {
 
     @Override
     public Page<ReturnFromRepairResponse> filterReturnFromRepairs(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable) {
+        return transactionQueryService.findAll(filterSpecification(search, fromDate, toDate), pageable)
+                .map(returnFromRepairMapper::toReturnFromRepairResponse);
+    }
+
+    @Override
+    public CursorPageResponse<ReturnFromRepairResponse> scrollReturnFromRepairs(String search, LocalDate fromDate, LocalDate toDate,
+            String cursor, int size) {
+        return transactionQueryService.scroll(filterSpecification(search, fromDate, toDate), cursor, size)
+                .map(returnFromRepairMapper::toReturnFromRepairResponse);
+    }
+
+    private Specification<AssetTransaction> filterSpecification(String search, LocalDate fromDate, LocalDate toDate) {
         if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
             throw new CustomException(ErrorCode.INVALID_DATE_RANGE);
         }
-        return transactionRepository.findAll((root, query, cb) -> {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
             predicates.add(cb.equal(root.get("transactionType"), TransactionType.RETURN_FROM_REPAIR));
             if (search != null && !search.isEmpty()) {
@@ -140,7 +162,7 @@ public class ReturnFromRepairServiceImpl implements ReturnFromRepairService {
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
-        }, pageable).map(returnFromRepairMapper::toReturnFromRepairResponse);
+        };
     }
 
     private User getCurrentUser() {
@@ -156,27 +178,19 @@ public class ReturnFromRepairServiceImpl implements ReturnFromRepairService {
             boolean hasSerial = device.getSerialNumber() != null && !device.getSerialNumber().isEmpty();
             if (hasSerial) {
                 // Chuẩn hóa: chỉ update Device, không động vào DeviceWarehouse
+                deviceCountRollupService.removeSerialDevice(device);
                 device.setStatus(com.concentrix.asset.enums.DeviceStatus.IN_STOCK);
                 device.setCurrentWarehouse(transaction.getToWarehouse());
                 device.setCurrentUser(null);
                 device.setCurrentFloor(null);
                 deviceRepository.save(device);
+                deviceCountRollupService.addSerialDevice(device);
             } else {
-                Integer deviceId = device.getDeviceId();
-                Integer toWarehouseId = transaction.getToWarehouse().getWarehouseId();
                 Integer qty = detail.getQuantity();
-                DeviceWarehouse toStock = deviceWarehouseRepository
-                        .findByWarehouse_WarehouseIdAndDevice_DeviceId(toWarehouseId, deviceId)
-                        .orElse(null);
-                if (toStock == null) {
-                    toStock = new DeviceWarehouse();
-                    toStock.setDevice(device);
-                    toStock.setWarehouse(transaction.getToWarehouse());
-                    toStock.setQuantity(qty);
-                } else {
-                    toStock.setQuantity(toStock.getQuantity() + qty);
-                }
-                deviceWarehouseRepository.save(toStock);
+                stockLedgerService.addToWarehouse(device, transaction.getToWarehouse(), qty);
+                deviceCountRollupService.adjustInWarehouse(device, com.concentrix.asset.enums.DeviceStatus.IN_STOCK,
+                        transaction.getToWarehouse(), qty);
+                deviceCountRollupService.adjust(device, com.concentrix.asset.enums.DeviceStatus.REPAIR, -qty);
             }
         }
     }
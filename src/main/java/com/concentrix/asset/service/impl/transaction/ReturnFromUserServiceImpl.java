@@ -2,6 +2,7 @@ package com.concentrix.asset.service.impl.transaction;
 
 import com.concentrix.asset.dto.request.CreateReturnFromUserRequest;
 import com.concentrix.asset.dto.response.AssetHandoverResponse;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.ReturnFromUserResponse;
 import com.concentrix.asset.entity.*;
 import com.concentrix.asset.enums.DeviceStatus;
@@ -11,6 +12,10 @@ import com.concentrix.asset.exception.ErrorCode;
 import com.concentrix.asset.mapper.AssignmentMapper;
 import com.concentrix.asset.mapper.ReturnFromUserMapper;
 import com.concentrix.asset.repository.*;
+import com.concentrix.asset.service.DeviceCountRollupService;
+import com.concentrix.asset.service.DeviceLookupService;
+import com.concentrix.asset.service.StockLedgerService;
+import com.concentrix.asset.service.TransactionQueryService;
 import com.concentrix.asset.service.transaction.ReturnFromUserService;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
@@ -20,6 +25,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -42,14 +48,16 @@ import java.util.*;
 @FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
 public class ReturnFromUserServiceImpl implements ReturnFromUserService {
     TransactionRepository transactionRepository;
+    TransactionQueryService transactionQueryService;
     ReturnFromUserMapper returnFromUserMapper;
     UserRepository userRepository;
     DeviceRepository deviceRepository;
-    DeviceWarehouseRepository deviceWarehouseRepository;
+    DeviceLookupService deviceLookupService;
     TransactionDetailRepository transactionDetailRepository;
     AssignmentMapper assignmentMapper;
-    DeviceUserRepository deviceUserRepository;
     TransactionImageRepository transactionImageRepository;
+    DeviceCountRollupService deviceCountRollupService;
+    StockLedgerService stockLedgerService;
 
     @NonFinal
     @Value("${app.path.upload.handover}")
@@ -57,7 +65,7 @@ public class ReturnFromUserServiceImpl implements ReturnFromUserService {
 
     @Override
     public ReturnFromUserResponse getReturnFromUserById(Integer returnId) {
-        AssetTransaction transaction = transactionRepository.findById(returnId).orElseThrow(
+        AssetTransaction transaction = transactionRepository.findDetailByTransactionId(returnId).orElseThrow(
                 () -> new CustomException(ErrorCode.TRANSACTION_NOT_FOUND, returnId));
         return returnFromUserMapper.toReturnFromUserResponse(transaction);
     }
@@ -86,18 +94,20 @@ public class ReturnFromUserServiceImpl implements ReturnFromUserService {
         java.util.List<String> serialNotFound = new java.util.ArrayList<>();
         java.util.List<String> serialInvalid = new java.util.ArrayList<>();
         AssetTransaction finalTransaction = transaction;
+        // Resolve toàn bộ serial/model của request bằng query IN thay vì một query cho mỗi item
+        DeviceLookupService.DeviceLookup lookup = deviceLookupService.resolve(request.getItems());
         List<TransactionDetail> details = request.getItems().stream()
                 .map(item -> {
                     final Device device;
                     if (item.getSerialNumber() != null && !item.getSerialNumber().isEmpty()) {
-                        device = deviceRepository.findBySerialNumber(item.getSerialNumber())
+                        device = lookup.findBySerialNumber(item.getSerialNumber())
                                 .orElse(null);
                         if (device == null) {
                             serialNotFound.add(item.getSerialNumber());
                             return null;
                         }
                     } else if (item.getModelId() != null) {
-                        device = deviceRepository.findFirstByModel_ModelId(item.getModelId())
+                        device = lookup.findFirstByModelId(item.getModelId())
                                 .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND,
                                         "Model ID: " + item.getModelId()));
                     } else {
@@ -166,12 +176,23 @@ public class ReturnFromUserServiceImpl implements ReturnFromUserService {
     }
 
     @Override
-    public Page<ReturnFromUserResponse> filterReturnFromUsers(String search, LocalDate fromDate, LocalDate toDate,
-            Pageable pageable) {
+    public Page<ReturnFromUserResponse> filterReturnFromUsers(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable) {
+        return transactionQueryService.findAll(filterSpecification(search, fromDate, toDate), pageable)
+                .map(returnFromUserMapper::toReturnFromUserResponse);
+    }
+
+    @Override
+    public CursorPageResponse<ReturnFromUserResponse> scrollReturnFromUsers(String search, LocalDate fromDate, LocalDate toDate,
+            String cursor, int size) {
+        return transactionQueryService.scroll(filterSpecification(search, fromDate, toDate), cursor, size)
+                .map(returnFromUserMapper::toReturnFromUserResponse);
+    }
+
+    private Specification<AssetTransaction> filterSpecification(String search, LocalDate fromDate, LocalDate toDate) {
         if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
             throw new CustomException(ErrorCode.INVALID_DATE_RANGE);
         }
-        return transactionRepository.findAll((root, query, cb) -> {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
             predicates.add(cb.equal(root.get("transactionType"), TransactionType.RETURN_FROM_USER));
             if (search != null && !search.isEmpty()) {
@@ -194,7 +215,7 @@ public class ReturnFromUserServiceImpl implements ReturnFromUserService {
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
-        }, pageable).map(returnFromUserMapper::toReturnFromUserResponse);
+        };
     }
 
     private User getCurrentUser() {
@@ -210,51 +231,31 @@ public class ReturnFromUserServiceImpl implements ReturnFromUserService {
             boolean hasSerial = device.getSerialNumber() != null && !device.getSerialNumber().isEmpty();
             if (hasSerial) {
                 // Serial: update Device về IN_STOCK, clear user, set warehouse
+                deviceCountRollupService.removeSerialDevice(device);
                 device.setStatus(DeviceStatus.IN_STOCK);
                 device.setCurrentUser(null);
                 device.setCurrentWarehouse(transaction.getToWarehouse());
                 device.setCurrentFloor(null);
                 deviceRepository.save(device);
+                deviceCountRollupService.addSerialDevice(device);
             } else {
                 // Non-serial
                 // Cộng số lượng vào kho đích
-                Integer deviceId = device.getDeviceId();
-                Integer toWarehouseId = transaction.getToWarehouse().getWarehouseId();
                 Integer qty = detail.getQuantity();
-                DeviceWarehouse toStock = deviceWarehouseRepository
-                        .findByWarehouse_WarehouseIdAndDevice_DeviceId(toWarehouseId, deviceId)
-                        .orElse(null);
-                if (toStock == null) {
-                    toStock = new DeviceWarehouse();
-                    toStock.setDevice(device);
-                    toStock.setWarehouse(transaction.getToWarehouse());
-                    toStock.setQuantity(qty);
-                } else {
-                    toStock.setQuantity(toStock.getQuantity() + qty);
-                }
-                deviceWarehouseRepository.save(toStock);
+                stockLedgerService.addToWarehouse(device, transaction.getToWarehouse(), qty);
+                deviceCountRollupService.adjustInWarehouse(device, DeviceStatus.IN_STOCK,
+                        transaction.getToWarehouse(), qty);
 
                 // Cập nhật số lượng mượn của user
-                DeviceUser deviceUser = deviceUserRepository
-                        .findByDevice_DeviceIdAndUser_Eid(deviceId, transaction.getUserUse().getEid())
-                        .orElseThrow(() -> new CustomException(ErrorCode.INVALID_DEVICE_USER,
-                                device.getModel().getModelName()));
-
-                if (deviceUser.getQuantity() < qty) {
-                    throw new CustomException(ErrorCode.RETURN_QUANTITY_EXCEEDS_BORROWED,
-                            device.getModel().getModelName());
-                } else {
-                    deviceUser.setQuantity(deviceUser.getQuantity() - qty);
-                    deviceUserRepository.save(deviceUser);
-                }
-
+                stockLedgerService.takeFromUser(device, transaction.getUserUse(), qty);
+                deviceCountRollupService.adjust(device, DeviceStatus.ASSIGNED, -qty);
             }
         }
     }
 
     @Override
     public AssetHandoverResponse getAssetHandoverForm(Integer id) {
-        AssetTransaction transaction = transactionRepository.findById(id)
+        AssetTransaction transaction = transactionRepository.findHandoverByTransactionId(id)
                 .orElseThrow(() -> new CustomException(ErrorCode.TRANSACTION_NOT_FOUND, id));
 
         if (transaction.getTransactionType() != TransactionType.RETURN_FROM_USER) {
@@ -1,6 +1,7 @@
 package com.concentrix.asset.service.impl.transaction;
 
 import com.concentrix.asset.dto.request.CreateTransferFloorRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.TransferFloorResponse;
 import com.concentrix.asset.entity.*;
 import com.concentrix.asset.enums.DeviceStatus;
@@ -9,7 +10,11 @@ import com.concentrix.asset.exception.CustomException;
 import com.concentrix.asset.exception.ErrorCode;
 import com.concentrix.asset.mapper.TransferFloorMapper;
 import com.concentrix.asset.repository.*;
+import com.concentrix.asset.service.DeviceCountRollupService;
+import com.concentrix.asset.service.DeviceLookupService;
 import com.concentrix.asset.service.DeviceService;
+import com.concentrix.asset.service.StockLedgerService;
+import com.concentrix.asset.service.TransactionQueryService;
 import com.concentrix.asset.service.transaction.TransferFloorService;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
@@ -17,6 +22,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,16 +39,19 @@ import java.util.*;
 @FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
 public class TransferFloorServiceImpl implements TransferFloorService {
     TransactionRepository transactionRepository;
+    TransactionQueryService transactionQueryService;
     TransferFloorMapper transferFloorMapper;
     DeviceRepository deviceRepository;
+    DeviceLookupService deviceLookupService;
     FloorRepository floorRepository;
     UserRepository userRepository;
     DeviceService deviceService;
-    DeviceFloorRepository deviceFloorRepository;
+    DeviceCountRollupService deviceCountRollupService;
+    StockLedgerService stockLedgerService;
 
     @Override
     public TransferFloorResponse getTransferFloorById(Integer transferFloorId) {
-        AssetTransaction transaction = transactionRepository.findById(transferFloorId).orElseThrow(
+        AssetTransaction transaction = transactionRepository.findDetailByTransactionId(transferFloorId).orElseThrow(
                 () -> new CustomException(ErrorCode.TRANSACTION_NOT_FOUND, transferFloorId));
         return transferFloorMapper.toTransferFloorResponse(transaction);
     }
@@ -85,18 +94,20 @@ public class TransferFloorServiceImpl implements TransferFloorService {
         List<String> serialNotFound = new ArrayList<>();
         List<String> serialInvalid = new ArrayList<>();
         final AssetTransaction finalTransaction = transaction;
+        // Resolve toàn bộ serial/model của request bằng query IN thay vì một query cho mỗi item
+        DeviceLookupService.DeviceLookup lookup = deviceLookupService.resolve(request.getItems());
         List<TransactionDetail> details = request.getItems().stream()
                 .map(item -> {
                     final Device device;
                     if (item.getSerialNumber() != null && !item.getSerialNumber().isEmpty()) {
-                        device = deviceRepository.findBySerialNumber(item.getSerialNumber())
+                        device = lookup.findBySerialNumber(item.getSerialNumber())
                                 .orElse(null);
                         if (device == null) {
                             serialNotFound.add(item.getSerialNumber());
                             return null;
                         }
                     } else if (item.getModelId() != null) {
-                        device = deviceRepository.findFirstByModel_ModelId(item.getModelId())
+                        device = lookup.findFirstByModelId(item.getModelId())
                                 .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND,
                                         "Model ID: " + item.getModelId()));
                     } else {
@@ -144,10 +155,22 @@ public class TransferFloorServiceImpl implements TransferFloorService {
 
     @Override
     public Page<TransferFloorResponse> filterTransferFloors(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable) {
+        return transactionQueryService.findAll(filterSpecification(search, fromDate, toDate), pageable)
+                .map(transferFloorMapper::toTransferFloorResponse);
+    }
+
+    @Override
+    public CursorPageResponse<TransferFloorResponse> scrollTransferFloors(String search, LocalDate fromDate, LocalDate toDate,
+            String cursor, int size) {
+        return transactionQueryService.scroll(filterSpecification(search, fromDate, toDate), cursor, size)
+                .map(transferFloorMapper::toTransferFloorResponse);
+    }
+
+    private Specification<AssetTransaction> filterSpecification(String search, LocalDate fromDate, LocalDate toDate) {
         if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
             throw new CustomException(ErrorCode.INVALID_DATE_RANGE);
         }
-        return transactionRepository.findAll((root, query, cb) -> {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
             predicates.add(cb.equal(root.get("transactionType"), TransactionType.TRANSFER_FLOOR));
             if (search != null && !search.isEmpty()) {
@@ -168,7 +191,7 @@ public class TransferFloorServiceImpl implements TransferFloorService {
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
-        }, pageable).map(transferFloorMapper::toTransferFloorResponse);
+        };
     }
 
     private User getCurrentUser() {
@@ -183,32 +206,17 @@ public class TransferFloorServiceImpl implements TransferFloorService {
             Device device = detail.getDevice();
             boolean hasSerial = device.getSerialNumber() != null && !device.getSerialNumber().isEmpty();
             if (hasSerial) {
+                deviceCountRollupService.removeSerialDevice(device);
                 device.setCurrentFloor(transaction.getToFloor());
                 device.setHostName(deviceService.generateHostNameForDesktop(device, transaction.getToFloor()));
                 device.setSeatNumber(null);
                 deviceRepository.save(device);
+                deviceCountRollupService.addSerialDevice(device);
             } else {
-                DeviceFloor deviceFloorTo = deviceFloorRepository
-                        .findByDevice_DeviceIdAndFloor_FloorId(device.getDeviceId(), transaction.getToFloor().getFloorId())
-                        .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND_IN_FLOOR, device.getModel().getModelName(), transaction.getFromFloor().getFloorName()));
-
-                if (deviceFloorTo.getQuantity() < detail.getQuantity()) {
-                    throw new CustomException(ErrorCode.DEVICE_NOT_ENOUGH_IN_FLOOR, device.getModel().getModelName(), deviceFloorTo.getFloor().getFloorName());
-                } else {
-                    deviceFloorTo.setQuantity(deviceFloorTo.getQuantity() - detail.getQuantity());
-                }
-
-                DeviceFloor deviceFloorFrom = deviceFloorRepository
-                        .findByDevice_DeviceIdAndFloor_FloorId(device.getDeviceId(), transaction.getFromFloor().getFloorId())
-                        .orElseGet(() -> DeviceFloor.builder()
-                                .device(device)
-                                .floor(transaction.getFromFloor())
-                                .quantity(0)
-                                .build()
-                        );
-                deviceFloorFrom.setQuantity(deviceFloorFrom.getQuantity() + detail.getQuantity());
-                deviceFloorRepository.save(deviceFloorFrom);
-                deviceFloorRepository.save(deviceFloorTo);
+                stockLedgerService.takeFromFloor(device, transaction.getToFloor(), detail.getQuantity());
+                stockLedgerService.addToFloor(device, transaction.getFromFloor(), detail.getQuantity());
+                deviceCountRollupService.adjustInFloor(device, transaction.getToFloor(), -detail.getQuantity());
+                deviceCountRollupService.adjustInFloor(device, transaction.getFromFloor(), detail.getQuantity());
             }
         }
     }
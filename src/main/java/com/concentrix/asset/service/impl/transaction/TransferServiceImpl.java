@@ -1,6 +1,7 @@
 package com.concentrix.asset.service.impl.transaction;
 
 import com.concentrix.asset.dto.request.CreateTransferRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.TransferResponse;
 import com.concentrix.asset.entity.*;
 import com.concentrix.asset.enums.DeviceStatus;
@@ -11,7 +12,11 @@ import com.concentrix.asset.exception.CustomException;
 import com.concentrix.asset.exception.ErrorCode;
 import com.concentrix.asset.mapper.TransferMapper;
 import com.concentrix.asset.repository.*;
+import com.concentrix.asset.service.DeviceCountRollupService;
+import com.concentrix.asset.service.DeviceLookupService;
 import com.concentrix.asset.service.EmailService;
+import com.concentrix.asset.service.StockLedgerService;
+import com.concentrix.asset.service.TransactionQueryService;
 import com.concentrix.asset.service.UserService;
 import com.concentrix.asset.service.transaction.TransferService;
 import jakarta.persistence.criteria.Predicate;
@@ -22,6 +27,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -40,13 +46,16 @@ import java.util.Objects;
 public class TransferServiceImpl implements TransferService {
 
     TransactionRepository transactionRepository;
+    TransactionQueryService transactionQueryService;
     TransferMapper transferMapper;
     DeviceRepository deviceRepository;
-    DeviceWarehouseRepository deviceWarehouseRepository;
+    DeviceLookupService deviceLookupService;
     WarehouseRepository warehouseRepository;
     UserService userService;
     EmailService emailService;
     UserRepository userRepository;
+    DeviceCountRollupService deviceCountRollupService;
+    StockLedgerService stockLedgerService;
 
     @Value("${app.notification.owner-email}")
     @NonFinal
@@ -59,7 +68,7 @@ public class TransferServiceImpl implements TransferService {
     @Override
     public TransferResponse getTransferById(Integer transferId) {
 
-        AssetTransaction transaction = transactionRepository.findById(transferId).orElseThrow(
+        AssetTransaction transaction = transactionRepository.findDetailByTransactionId(transferId).orElseThrow(
                 () -> new CustomException(ErrorCode.TRANSACTION_NOT_FOUND, transferId));
 
         return transferMapper.toTransferResponse(transaction);
@@ -85,18 +94,20 @@ public class TransferServiceImpl implements TransferService {
         // Gom các serialNumber không tìm thấy vào một list
         List<String> serialNotFound = new java.util.ArrayList<>();
         AssetTransaction finalTransaction = transaction;
+        // Resolve toàn bộ serial/model của request bằng query IN thay vì một query cho mỗi item
+        DeviceLookupService.DeviceLookup lookup = deviceLookupService.resolve(request.getItems());
         List<TransactionDetail> details = request.getItems().stream()
                 .map(item -> {
                     final Device device;
                     if (item.getSerialNumber() != null && !item.getSerialNumber().isEmpty()) {
-                        device = deviceRepository.findBySerialNumber(item.getSerialNumber())
+                        device = lookup.findBySerialNumber(item.getSerialNumber())
                                 .orElse(null);
                         if (device == null) {
                             serialNotFound.add(item.getSerialNumber());
                             return null;
                         }
                     } else if (item.getModelId() != null) {
-                        device = deviceRepository.findFirstByModel_ModelId(item.getModelId())
+                        device = lookup.findFirstByModelId(item.getModelId())
                                 .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND,
                                         "Model ID: " + item.getModelId()));
                     } else {
@@ -131,7 +142,7 @@ public class TransferServiceImpl implements TransferService {
 
     @Override
     public void approveTransfer(Integer transactionId) {
-        AssetTransaction transaction = transactionRepository.findById(transactionId)
+        AssetTransaction transaction = transactionRepository.findDetailByTransactionId(transactionId)
                 .orElseThrow(() -> new CustomException(ErrorCode.TRANSACTION_NOT_FOUND, transactionId));
 
         if (transaction.getTransactionType() != TransactionType.TRANSFER_SITE) {
@@ -160,7 +171,7 @@ public class TransferServiceImpl implements TransferService {
     }
 
     public void confirmTransfer(Integer transactionId) {
-        AssetTransaction transaction = transactionRepository.findById(transactionId)
+        AssetTransaction transaction = transactionRepository.findDetailByTransactionId(transactionId)
                 .orElseThrow(() -> new CustomException(ErrorCode.TRANSACTION_NOT_FOUND, transactionId));
 
         if (transaction.getTransactionType() != TransactionType.TRANSFER_SITE) {
@@ -183,38 +194,41 @@ public class TransferServiceImpl implements TransferService {
         for (TransactionDetail detail : transaction.getDetails()) {
             Device device = detail.getDevice();
             if (device.getSerialNumber() != null && !device.getSerialNumber().isEmpty()) {
+                deviceCountRollupService.removeSerialDevice(device);
                 device.setStatus(DeviceStatus.IN_STOCK);
                 device.setCurrentWarehouse(transaction.getToWarehouse());
                 deviceRepository.save(device);
+                deviceCountRollupService.addSerialDevice(device);
             } else {
                 // Cộng vào toWarehouse khi xác nhận đối với non-serial device
-                Integer deviceId = device.getDeviceId();
-                Integer toWarehouseId = transaction.getToWarehouse().getWarehouseId();
                 Integer qty = detail.getQuantity();
-                DeviceWarehouse toStock = deviceWarehouseRepository
-                        .findByWarehouse_WarehouseIdAndDevice_DeviceId(toWarehouseId, deviceId)
-                        .orElse(null);
-                if (toStock == null) {
-                    toStock = new DeviceWarehouse();
-                    toStock.setDevice(device);
-                    toStock.setWarehouse(transaction.getToWarehouse());
-                    toStock.setQuantity(0);
-                }
-                toStock.setQuantity(toStock.getQuantity() + qty);
-                deviceWarehouseRepository.save(toStock);
+                stockLedgerService.addToWarehouse(device, transaction.getToWarehouse(), qty);
+                deviceCountRollupService.adjustInWarehouse(device, DeviceStatus.IN_STOCK,
+                        transaction.getToWarehouse(), qty);
+                deviceCountRollupService.adjust(device, DeviceStatus.ON_THE_MOVE, -qty);
             }
         }
         transactionRepository.save(transaction);
     }
 
     @Override
-    public Page<TransferResponse> filterTransfers(String search, LocalDate fromDate, LocalDate toDate,
-                                                  Pageable pageable) {
+    public Page<TransferResponse> filterTransfers(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable) {
+        return transactionQueryService.findAll(filterSpecification(search, fromDate, toDate), pageable)
+                .map(transferMapper::toTransferResponse);
+    }
+
+    @Override
+    public CursorPageResponse<TransferResponse> scrollTransfers(String search, LocalDate fromDate, LocalDate toDate,
+            String cursor, int size) {
+        return transactionQueryService.scroll(filterSpecification(search, fromDate, toDate), cursor, size)
+                .map(transferMapper::toTransferResponse);
+    }
+
+    private Specification<AssetTransaction> filterSpecification(String search, LocalDate fromDate, LocalDate toDate) {
         if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
             throw new CustomException(ErrorCode.INVALID_DATE_RANGE);
         }
-
-        return transactionRepository.findAll((root, query, cb) -> {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
             predicates.add(cb.equal(root.get("transactionType"), TransactionType.TRANSFER_SITE));
@@ -237,14 +251,16 @@ public class TransferServiceImpl implements TransferService {
                 predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), toDateTime));
             }
             return cb.and(predicates.toArray(new Predicate[0]));
-        }, pageable).map(transferMapper::toTransferResponse);
+        };
     }
 
     @Override
     public Page<TransferResponse> filterTransfersSitePending(Pageable pageable) {
 
-        return transactionRepository.findPendingOrApprovedTransfers(pageable)
-                .map(transferMapper::toTransferResponse);
+        return transactionQueryService.findAll((root, query, cb) -> cb.and(
+                cb.equal(root.get("transactionType"), TransactionType.TRANSFER_SITE),
+                root.get("transactionStatus").in(TransactionStatus.PENDING, TransactionStatus.APPROVED)
+        ), pageable).map(transferMapper::toTransferResponse);
     }
 
     private void updateDeviceAndWarehousesForTransfer(AssetTransaction transaction) {
@@ -260,29 +276,20 @@ public class TransferServiceImpl implements TransferService {
                     serialInvalid.add(device.getSerialNumber());
                     continue;
                 }
+                deviceCountRollupService.removeSerialDevice(device);
                 device.setStatus(DeviceStatus.ON_THE_MOVE);
                 device.setCurrentWarehouse(null);
                 device.setCurrentFloor(null);
                 device.setCurrentUser(null);
                 deviceRepository.save(device);
+                deviceCountRollupService.addSerialDevice(device);
             } else {
-                Integer deviceId = device.getDeviceId();
-                Integer fromWarehouseId = transaction.getFromWarehouse().getWarehouseId();
                 Integer qty = detail.getQuantity();
-                DeviceWarehouse fromStock = deviceWarehouseRepository
-                        .findByWarehouse_WarehouseIdAndDevice_DeviceId(fromWarehouseId, deviceId)
-                        .orElse(null);
-                if (fromStock == null) {
-                    throw new CustomException(ErrorCode.DEVICE_NOT_FOUND_IN_WAREHOUSE,
-                            device.getModel().getModelName(),
-                            transaction.getFromWarehouse().getWarehouseName());
-                }
-                if (fromStock.getQuantity() < qty) {
-                    throw new CustomException(ErrorCode.STOCK_OUT, device.getModel().getModelName(), fromStock.getQuantity());
-                }
-                fromStock.setQuantity(fromStock.getQuantity() - qty);
-                deviceWarehouseRepository.save(fromStock);
+                stockLedgerService.takeFromWarehouse(device, transaction.getFromWarehouse(), qty);
+                deviceCountRollupService.adjustInWarehouse(device, DeviceStatus.IN_STOCK,
+                        transaction.getFromWarehouse(), -qty);
                 // Không cộng vào toWarehouse ở bước tạo transfer
+                deviceCountRollupService.adjust(device, DeviceStatus.ON_THE_MOVE, qty);
             }
         }
         if (!serialInvalid.isEmpty()) {
@@ -1,6 +1,7 @@
 package com.concentrix.asset.service.impl.transaction;
 
 import com.concentrix.asset.dto.request.CreateUseFloorRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.UseFloorResponse;
 import com.concentrix.asset.entity.*;
 import com.concentrix.asset.enums.DeviceStatus;
@@ -9,7 +10,11 @@ import com.concentrix.asset.exception.CustomException;
 import com.concentrix.asset.exception.ErrorCode;
 import com.concentrix.asset.mapper.UseFloorMapper;
 import com.concentrix.asset.repository.*;
+import com.concentrix.asset.service.DeviceCountRollupService;
+import com.concentrix.asset.service.DeviceLookupService;
 import com.concentrix.asset.service.DeviceService;
+import com.concentrix.asset.service.StockLedgerService;
+import com.concentrix.asset.service.TransactionQueryService;
 import com.concentrix.asset.service.transaction.UseFloorService;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
@@ -17,6 +22,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,18 +38,21 @@ import java.util.*;
 @FieldDefaults(level = lombok.AccessLevel.PRIVATE, makeFinal = true)
 public class UseFloorServiceImpl implements UseFloorService {
     TransactionRepository transactionRepository;
+    TransactionQueryService transactionQueryService;
     UseFloorMapper useFloorMapper;
     DeviceRepository deviceRepository;
+    DeviceLookupService deviceLookupService;
     DeviceWarehouseRepository deviceWarehouseRepository;
     FloorRepository floorRepository;
     UserRepository userRepository;
     WarehouseRepository warehouseRepository;
     DeviceService deviceService;
-    DeviceFloorRepository deviceFloorRepository;
+    DeviceCountRollupService deviceCountRollupService;
+    StockLedgerService stockLedgerService;
 
     @Override
     public UseFloorResponse getUseFloorById(Integer useFloorId) {
-        AssetTransaction transaction = transactionRepository.findById(useFloorId).orElseThrow(
+        AssetTransaction transaction = transactionRepository.findDetailByTransactionId(useFloorId).orElseThrow(
                 () -> new CustomException(ErrorCode.TRANSACTION_NOT_FOUND, useFloorId));
         return useFloorMapper.toUseFloorResponse(transaction);
     }
@@ -82,18 +91,20 @@ public class UseFloorServiceImpl implements UseFloorService {
         java.util.List<String> serialNotFound = new java.util.ArrayList<>();
         java.util.List<String> serialInvalid = new java.util.ArrayList<>();
         final AssetTransaction finalTransaction = transaction;
+        // Resolve toàn bộ serial/model của request bằng query IN thay vì một query cho mỗi item
+        DeviceLookupService.DeviceLookup lookup = deviceLookupService.resolve(request.getItems());
         List<TransactionDetail> details = request.getItems().stream()
                 .map(item -> {
                     final Device device;
                     if (item.getSerialNumber() != null && !item.getSerialNumber().isEmpty()) {
-                        device = deviceRepository.findBySerialNumber(item.getSerialNumber())
+                        device = lookup.findBySerialNumber(item.getSerialNumber())
                                 .orElse(null);
                         if (device == null) {
                             serialNotFound.add(item.getSerialNumber());
                             return null;
                         }
                     } else if (item.getModelId() != null) {
-                        device = deviceRepository.findFirstByModel_ModelId(item.getModelId())
+                        device = lookup.findFirstByModelId(item.getModelId())
                                 .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND,
                                         "Model ID: " + item.getModelId()));
                     } else {
@@ -157,10 +168,22 @@ public class UseFloorServiceImpl implements UseFloorService {
 
     @Override
     public Page<UseFloorResponse> filterUseFloors(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable) {
+        return transactionQueryService.findAll(filterSpecification(search, fromDate, toDate), pageable)
+                .map(useFloorMapper::toUseFloorResponse);
+    }
+
+    @Override
+    public CursorPageResponse<UseFloorResponse> scrollUseFloors(String search, LocalDate fromDate, LocalDate toDate,
+            String cursor, int size) {
+        return transactionQueryService.scroll(filterSpecification(search, fromDate, toDate), cursor, size)
+                .map(useFloorMapper::toUseFloorResponse);
+    }
+
+    private Specification<AssetTransaction> filterSpecification(String search, LocalDate fromDate, LocalDate toDate) {
         if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
             throw new CustomException(ErrorCode.INVALID_DATE_RANGE);
         }
-        return transactionRepository.findAll((root, query, cb) -> {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
             predicates.add(cb.equal(root.get("transactionType"), TransactionType.USE_FLOOR));
             if (search != null && !search.isEmpty()) {
@@ -181,7 +204,7 @@ public class UseFloorServiceImpl implements UseFloorService {
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
-        }, pageable).map(useFloorMapper::toUseFloorResponse);
+        };
     }
 
     private User getCurrentUser() {
@@ -199,39 +222,23 @@ public class UseFloorServiceImpl implements UseFloorService {
 
             if (hasSerial) {
                 // Serial: chỉ update Device, không động vào DeviceWarehouse
+                deviceCountRollupService.removeSerialDevice(device);
                 device.setStatus(DeviceStatus.IN_FLOOR);
                 device.setCurrentFloor(transaction.getToFloor());
                 device.setCurrentWarehouse(null);
                 device.setCurrentUser(null);
                 device.setHostName(deviceService.generateHostNameForDesktop(device, transaction.getToFloor()));
                 deviceRepository.save(device);
+                deviceCountRollupService.addSerialDevice(device);
             } else {
-                Integer deviceId = device.getDeviceId();
-                Integer fromWarehouseId = transaction.getFromWarehouse().getWarehouseId();
                 Integer qty = detail.getQuantity();
-                DeviceWarehouse fromStock = deviceWarehouseRepository
-                        .findByWarehouse_WarehouseIdAndDevice_DeviceId(fromWarehouseId, deviceId)
-                        .orElseThrow(() -> new CustomException(ErrorCode.DEVICE_NOT_FOUND_IN_WAREHOUSE,
-                                device.getModel().getModelName(),
-                                transaction.getFromWarehouse().getWarehouseName()));
-                if (fromStock.getQuantity() < qty) {
-                    throw new CustomException(ErrorCode.STOCK_OUT, device.getModel().getModelName(), fromStock.getQuantity());
-                }
-                fromStock.setQuantity(fromStock.getQuantity() - qty);
-                deviceWarehouseRepository.save(fromStock);
-
-                // Cập nhật vào DeviceFloor
-                // Nếu không có thì tạo mới
-                DeviceFloor deviceFloor = deviceFloorRepository
-                        .findByDevice_DeviceIdAndFloor_FloorId(deviceId, transaction.getToFloor().getFloorId())
-                        .orElseGet(() -> DeviceFloor.builder()
-                                .device(device)
-                                .floor(transaction.getToFloor())
-                                .quantity(0)
-                                .build()
-                        );
-                deviceFloor.setQuantity(deviceFloor.getQuantity() + qty);
-                deviceFloorRepository.save(deviceFloor);
+                stockLedgerService.takeFromWarehouse(device, transaction.getFromWarehouse(), qty);
+                deviceCountRollupService.adjustInWarehouse(device, DeviceStatus.IN_STOCK,
+                        transaction.getFromWarehouse(), -qty);
+
+                // Cộng vào DeviceFloor, tạo mới nếu chưa có
+                stockLedgerService.addToFloor(device, transaction.getToFloor(), qty);
+                deviceCountRollupService.adjustInFloor(device, transaction.getToFloor(), qty);
             }
         }
     }
@@ -4,6 +4,7 @@ import com.concentrix.asset.dto.request.CreateAssignmentRequest;
 import com.concentrix.asset.dto.request.LaptopBadgeRequest;
 import com.concentrix.asset.dto.response.AssetHandoverResponse;
 import com.concentrix.asset.dto.response.AssignmentResponse;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import jakarta.mail.MessagingException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -20,6 +21,8 @@ public interface AssignmentService {
 
     Page<AssignmentResponse> filterAssignments(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable);
 
+    CursorPageResponse<AssignmentResponse> scrollAssignments(String search, LocalDate fromDate, LocalDate toDate, String cursor, int size);
+
     AssetHandoverResponse getAssetHandoverByAssignmentId(Integer assignmentId);
 
     void uploadImage(Integer assignmentId, List<MultipartFile> images);
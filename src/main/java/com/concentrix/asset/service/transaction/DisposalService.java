@@ -1,6 +1,7 @@
 package com.concentrix.asset.service.transaction;
 
 import com.concentrix.asset.dto.request.CreateDisposalRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.DisposalResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -13,4 +14,6 @@ public interface DisposalService {
     DisposalResponse createDisposal(CreateDisposalRequest request);
 
     Page<DisposalResponse> filterDisposals(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable);
+
+    CursorPageResponse<DisposalResponse> scrollDisposals(String search, LocalDate fromDate, LocalDate toDate, String cursor, int size);
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.concentrix.asset.service.transaction;
 
 import com.concentrix.asset.dto.request.CreateEWasteRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.EWasteResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -13,4 +14,6 @@ public interface EWasteService {
     EWasteResponse createEWaste(CreateEWasteRequest request);
 
     Page<EWasteResponse> filterEWastes(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable);
+
+    CursorPageResponse<EWasteResponse> scrollEWastes(String search, LocalDate fromDate, LocalDate toDate, String cursor, int size);
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.concentrix.asset.service.transaction;
 
 import com.concentrix.asset.dto.request.CreateRepairRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.RepairResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -15,4 +16,6 @@ public interface RepairService {
 
     Page<RepairResponse> filterRepairs(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable);
 
+    CursorPageResponse<RepairResponse> scrollRepairs(String search, LocalDate fromDate, LocalDate toDate, String cursor, int size);
+
 }
\ No newline at end of file
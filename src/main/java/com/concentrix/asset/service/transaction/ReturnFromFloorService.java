@@ -1,6 +1,7 @@
 package com.concentrix.asset.service.transaction;
 
 import com.concentrix.asset.dto.request.CreateReturnFromFloorRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.ReturnFromFloorResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -13,4 +14,6 @@ public interface ReturnFromFloorService {
     ReturnFromFloorResponse createReturnFromFloor(CreateReturnFromFloorRequest request);
 
     Page<ReturnFromFloorResponse> filterReturnFromFloors(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable);
+
+    CursorPageResponse<ReturnFromFloorResponse> scrollReturnFromFloors(String search, LocalDate fromDate, LocalDate toDate, String cursor, int size);
 }
\ No newline at end of file
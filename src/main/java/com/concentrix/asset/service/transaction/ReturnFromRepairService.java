@@ -1,6 +1,7 @@
 package com.concentrix.asset.service.transaction;
 
 import com.concentrix.asset.dto.request.CreateReturnFromRepairRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.ReturnFromRepairResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -13,4 +14,6 @@ public interface ReturnFromRepairService {
     ReturnFromRepairResponse createReturnFromRepair(CreateReturnFromRepairRequest request);
 
     Page<ReturnFromRepairResponse> filterReturnFromRepairs(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable);
+
+    CursorPageResponse<ReturnFromRepairResponse> scrollReturnFromRepairs(String search, LocalDate fromDate, LocalDate toDate, String cursor, int size);
 }
\ No newline at end of file
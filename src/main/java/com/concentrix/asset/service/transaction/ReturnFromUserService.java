@@ -2,6 +2,7 @@ package com.concentrix.asset.service.transaction;
 
 import com.concentrix.asset.dto.request.CreateReturnFromUserRequest;
 import com.concentrix.asset.dto.response.AssetHandoverResponse;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.ReturnFromUserResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -18,6 +19,8 @@ public interface ReturnFromUserService {
     Page<ReturnFromUserResponse> filterReturnFromUsers(String search, LocalDate fromDate,
             LocalDate toDate, Pageable pageable);
 
+    CursorPageResponse<ReturnFromUserResponse> scrollReturnFromUsers(String search, LocalDate fromDate, LocalDate toDate, String cursor, int size);
+
     AssetHandoverResponse getAssetHandoverForm(Integer id);
 
     void uploadImage(Integer returnId, List<MultipartFile> images);
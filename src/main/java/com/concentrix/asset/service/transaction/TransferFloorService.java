@@ -1,6 +1,7 @@
 package com.concentrix.asset.service.transaction;
 
 import com.concentrix.asset.dto.request.CreateTransferFloorRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.TransferFloorResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -13,4 +14,6 @@ public interface TransferFloorService {
     TransferFloorResponse createTransferFloor(CreateTransferFloorRequest request);
 
     Page<TransferFloorResponse> filterTransferFloors(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable);
+
+    CursorPageResponse<TransferFloorResponse> scrollTransferFloors(String search, LocalDate fromDate, LocalDate toDate, String cursor, int size);
 }
\ No newline at end of file
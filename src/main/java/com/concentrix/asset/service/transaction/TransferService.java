@@ -1,6 +1,7 @@
 package com.concentrix.asset.service.transaction;
 
 import com.concentrix.asset.dto.request.CreateTransferRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.TransferResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -15,6 +16,8 @@ public interface TransferService {
 
     Page<TransferResponse> filterTransfers(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable);
 
+    CursorPageResponse<TransferResponse> scrollTransfers(String search, LocalDate fromDate, LocalDate toDate, String cursor, int size);
+
     void approveTransfer(Integer transactionId);
 
     void confirmTransfer(Integer transferId);
@@ -1,6 +1,7 @@
 package com.concentrix.asset.service.transaction;
 
 import com.concentrix.asset.dto.request.CreateUseFloorRequest;
+import com.concentrix.asset.dto.response.CursorPageResponse;
 import com.concentrix.asset.dto.response.UseFloorResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -13,4 +14,6 @@ public interface UseFloorService {
     UseFloorResponse createUseFloor(CreateUseFloorRequest request);
 
     Page<UseFloorResponse> filterUseFloors(String search, LocalDate fromDate, LocalDate toDate, Pageable pageable);
+
+    CursorPageResponse<UseFloorResponse> scrollUseFloors(String search, LocalDate fromDate, LocalDate toDate, String cursor, int size);
 }
\ No newline at end of file
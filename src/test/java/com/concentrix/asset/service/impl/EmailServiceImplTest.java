@@ -0,0 +1,379 @@
+package com.concentrix.asset.service.impl;
+
+import com.concentrix.asset.entity.EmailOutbox;
+import com.concentrix.asset.entity.Site;
+import com.concentrix.asset.enums.EmailStatus;
+import com.concentrix.asset.repository.EmailOutboxRepository;
+import com.concentrix.asset.repository.SiteRepository;
+import com.concentrix.asset.service.EmailOutboxService;
+import com.concentrix.asset.service.EmailService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Outbox gửi qua một SMTP server giả chạy trong cùng process:
+ * người nhận @invalid.example bị từ chối vĩnh viễn (550), @busy.example bị từ chối tạm thời (451).
+ */
+@SpringBootTest(properties = {
+        // DB riêng: không để job outbox của context test khác nhận email của test này
+        "spring.datasource.url=jdbc:h2:mem:ams_mail_test;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE",
+        "spring.mail.host=127.0.0.1",
+        "spring.mail.properties.mail.smtp.auth=false",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "spring.mail.properties.mail.smtp.starttls.required=false",
+        // Job chỉ chạy một lần lúc khởi động, test tự gọi dispatchDue
+        "app.mail.outbox.poll-interval=3600000",
+        "app.mail.outbox.per-recipient-per-minute=4",
+        "app.mail.outbox.max-attempts=4",
+        "app.mail.outbox.retry-delay=1m",
+        "app.mail.outbox.max-retry-delay=3m",
+        "app.mail.outbox.lease=10m"
+})
+@ActiveProfiles("test")
+class EmailServiceImplTest {
+
+    static final SmtpStandIn SMTP = SmtpStandIn.start();
+
+    @Autowired
+    EmailService emailService;
+    @Autowired
+    EmailOutboxService emailOutboxService;
+    @Autowired
+    EmailOutboxRepository emailOutboxRepository;
+    @Autowired
+    SiteRepository siteRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    NamedParameterJdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void smtpPort(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.port", SMTP::port);
+    }
+
+    @AfterAll
+    static void stopSmtp() throws IOException {
+        SMTP.close();
+    }
+
+    @BeforeEach
+    void clearOutbox() {
+        emailOutboxRepository.deleteAll();
+        SMTP.received.clear();
+    }
+
+    @Test
+    void dedupKeySkipsAlreadyQueuedEmail() {
+        String to = recipient("example.com");
+        String dedupKey = "REMIND_RETURN:" + to;
+
+        emailService.sendEmail(to, "Reminder", "<p>1</p>", null, null, dedupKey);
+        emailService.sendEmail(to, "Reminder", "<p>2</p>", null, null, dedupKey);
+
+        assertThat(emailOutboxRepository.findAll()).singleElement()
+                .satisfies(email -> assertThat(email.getBody()).isEqualTo("<p>1</p>"));
+
+        // Hai job cùng vượt qua bước kiểm tra existsByDedupKey: lần ghi sau bị bỏ qua, không lỗi unique
+        jdbcTemplate.update(EmailServiceImpl.ENQUEUE_SQL, new MapSqlParameterSource()
+                .addValue("dedupKey", dedupKey)
+                .addValue("recipients", to)
+                .addValue("cc", null)
+                .addValue("bcc", null)
+                .addValue("subject", "Reminder")
+                .addValue("body", "<p>3</p>")
+                .addValue("now", LocalDateTime.now()));
+        assertThat(emailOutboxRepository.findAll()).singleElement()
+                .satisfies(email -> assertThat(email.getBody()).isEqualTo("<p>1</p>"));
+    }
+
+    @Test
+    void longCcListIsQueued() {
+        List<String> cc = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            cc.add(recipient("example.com"));
+        }
+
+        emailService.sendEmail(recipient("example.com"), "Transfer approved", "<p>ok</p>", cc, null, null);
+
+        assertThat(emailOutboxRepository.findAll()).singleElement()
+                .satisfies(email -> assertThat(email.getCc()).hasSizeGreaterThan(1000).isEqualTo(String.join(",", cc)));
+    }
+
+    @Test
+    void failedQueueingDoesNotRollBackTheCallerTransaction() {
+        String siteName = "SITE-" + UUID.randomUUID();
+
+        // Nghiệp vụ bắt lỗi gửi email như các service đang làm: transaction của nghiệp vụ vẫn phải commit
+        transactionTemplate.executeWithoutResult(status -> {
+            siteRepository.save(Site.builder().siteName(siteName).build());
+            assertThatThrownBy(() -> emailService.sendEmail(
+                    recipient("example.com"), "x".repeat(600), "<p>too long</p>", null, null, null))
+                    .isInstanceOf(DataAccessException.class);
+            emailService.sendEmail(recipient("example.com"), "After failure", "<p>ok</p>", null, null, null);
+        });
+
+        assertThat(siteRepository.findAll()).extracting(Site::getSiteName).contains(siteName);
+        assertThat(emailOutboxRepository.findAll()).singleElement()
+                .satisfies(email -> assertThat(email.getSubject()).isEqualTo("After failure"));
+
+        // Vẫn cùng transaction với nghiệp vụ: nghiệp vụ rollback thì email cũng không được xếp hàng
+        transactionTemplate.executeWithoutResult(status -> {
+            emailService.sendEmail(recipient("example.com"), "Rolled back", "<p>no</p>", null, null, null);
+            status.setRollbackOnly();
+        });
+        assertThat(emailOutboxRepository.findAll()).extracting(EmailOutbox::getSubject).containsExactly("After failure");
+    }
+
+    @Test
+    void leasedEmailIsNotClaimedAgainUntilTheLeaseExpires() {
+        String to = recipient("example.com");
+        Long id = queue(to, "Lease");
+
+        LocalDateTime before = LocalDateTime.now();
+        assertThat(emailOutboxService.claimDue(10)).extracting(EmailOutbox::getId).containsExactly(id);
+        EmailOutbox claimed = emailOutboxRepository.findById(id).orElseThrow();
+        assertThat(claimed.getStatus()).isEqualTo(EmailStatus.SENDING);
+        assertThat(claimed.getLockedUntil()).isBetween(before.plusMinutes(10), LocalDateTime.now().plusMinutes(10));
+
+        // Worker đang giữ: lần quét khác không nhận lại
+        assertThat(emailOutboxService.claimDue(10)).isEmpty();
+        assertThat(emailService.dispatchDue()).isZero();
+
+        // Worker chết giữa chừng: email vẫn SENDING nhưng lease đã hết hạn
+        claimed.setLockedUntil(LocalDateTime.now().minusSeconds(1));
+        emailOutboxRepository.save(claimed);
+
+        assertThat(emailService.dispatchDue()).isEqualTo(1);
+        EmailOutbox sent = emailOutboxRepository.findById(id).orElseThrow();
+        assertThat(sent.getStatus()).isEqualTo(EmailStatus.SENT);
+        assertThat(sent.getAttempts()).isEqualTo(1);
+        assertThat(sent.getLockedUntil()).isNull();
+        assertThat(SMTP.subjectsSentTo(to)).containsExactly("Lease");
+    }
+
+    @Test
+    void temporaryFailuresBackOffExponentiallyUpToTheCapThenDeadLetter() {
+        Long id = queue(recipient("busy.example"), "Backoff");
+
+        // retry-delay 1m nhân đôi mỗi lần, tối đa 3m; lần thử thứ 4 (max-attempts) chuyển sang DEAD
+        for (Duration expectedDelay : List.of(Duration.ofMinutes(1), Duration.ofMinutes(2), Duration.ofMinutes(3))) {
+            LocalDateTime before = LocalDateTime.now();
+            assertThat(emailService.dispatchDue()).isZero();
+            EmailOutbox email = emailOutboxRepository.findById(id).orElseThrow();
+
+            assertThat(email.getStatus()).isEqualTo(EmailStatus.PENDING);
+            assertThat(email.getLastError()).isNotBlank();
+            assertThat(email.getNextAttemptAt())
+                    .isBetween(before.plus(expectedDelay), LocalDateTime.now().plus(expectedDelay));
+
+            // Tua tới lúc đến hạn retry
+            emailOutboxService.defer(id, LocalDateTime.now());
+        }
+
+        assertThat(emailService.dispatchDue()).isZero();
+        EmailOutbox dead = emailOutboxRepository.findById(id).orElseThrow();
+        assertThat(dead.getStatus()).isEqualTo(EmailStatus.DEAD);
+        assertThat(dead.getAttempts()).isEqualTo(4);
+    }
+
+    @Test
+    void invalidAddressIsDeadLetteredWithoutRetryAndDoesNotFailTheSession() {
+        String invalid = recipient("invalid.example");
+        String valid = recipient("example.com");
+        Long invalidId = queue(invalid, "Invalid");
+        Long validId = queue(valid, "Valid");
+
+        assertThat(emailService.dispatchDue()).isEqualTo(1);
+
+        EmailOutbox dead = emailOutboxRepository.findById(invalidId).orElseThrow();
+        assertThat(dead.getStatus()).isEqualTo(EmailStatus.DEAD);
+        assertThat(dead.getAttempts()).isEqualTo(1);
+        assertThat(dead.getLastError()).isNotBlank();
+        assertThat(emailOutboxRepository.findById(validId).orElseThrow().getStatus()).isEqualTo(EmailStatus.SENT);
+        assertThat(SMTP.subjectsSentTo(invalid)).isEmpty();
+        assertThat(SMTP.subjectsSentTo(valid)).containsExactly("Valid");
+    }
+
+    @Test
+    void perRecipientRateLimitDefersTheExcessWithoutCountingAnAttempt() {
+        String to = recipient("example.com");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ids.add(queue(to, "Rate " + i));
+        }
+
+        LocalDateTime before = LocalDateTime.now();
+        assertThat(emailService.dispatchDue()).isEqualTo(4);
+
+        assertThat(SMTP.subjectsSentTo(to)).hasSize(4);
+        List<EmailOutbox> deferred = emailOutboxRepository.findAllById(ids).stream()
+                .filter(email -> email.getStatus() != EmailStatus.SENT)
+                .toList();
+        assertThat(deferred).hasSize(2).allSatisfy(email -> {
+            assertThat(email.getStatus()).isEqualTo(EmailStatus.PENDING);
+            assertThat(email.getAttempts()).isZero();
+            // Chờ tới khi lượt gửi cũ nhất ra khỏi cửa sổ 1 phút
+            assertThat(email.getNextAttemptAt()).isBetween(before.plusSeconds(59), LocalDateTime.now().plusSeconds(61));
+        });
+
+        // Chưa đến hạn nên lần quét ngay sau đó không gửi thêm
+        assertThat(emailService.dispatchDue()).isZero();
+        assertThat(SMTP.subjectsSentTo(to)).hasSize(4);
+    }
+
+    private Long queue(String to, String subject) {
+        emailService.sendEmail(to, subject, "<p>" + subject + "</p>", null, null, null);
+        return emailOutboxRepository.findAll().stream()
+                .filter(email -> email.getSubject().equals(subject))
+                .findFirst()
+                .orElseThrow()
+                .getId();
+    }
+
+    // Người nhận riêng cho mỗi test vì giới hạn tần suất được giữ trong bean suốt context
+    private static String recipient(String domain) {
+        return UUID.randomUUID().toString().substring(0, 8) + "@" + domain;
+    }
+
+    record Received(List<String> recipients, String subject) {
+    }
+
+    // SMTP tối thiểu đủ cho JavaMail: EHLO, MAIL, RCPT, DATA, RSET, NOOP, QUIT
+    static final class SmtpStandIn implements Closeable {
+
+        final ServerSocket serverSocket;
+        final Queue<Received> received = new ConcurrentLinkedQueue<>();
+
+        private SmtpStandIn(ServerSocket serverSocket) {
+            this.serverSocket = serverSocket;
+        }
+
+        static SmtpStandIn start() {
+            try {
+                SmtpStandIn smtp = new SmtpStandIn(new ServerSocket(0, 50, InetAddress.getLoopbackAddress()));
+                Thread acceptor = new Thread(smtp::acceptLoop, "smtp-stand-in");
+                acceptor.setDaemon(true);
+                acceptor.start();
+                return smtp;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        List<String> subjectsSentTo(String recipient) {
+            return received.stream()
+                    .filter(message -> message.recipients().contains(recipient))
+                    .map(Received::subject)
+                    .toList();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    Thread session = new Thread(() -> serve(socket), "smtp-stand-in-session");
+                    session.setDaemon(true);
+                    session.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                 Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+                reply(out, "220 localhost ESMTP stand-in");
+                List<String> recipients = new ArrayList<>();
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase();
+                    if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                        reply(out, "250 localhost");
+                    } else if (command.startsWith("MAIL FROM")) {
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    } else if (command.startsWith("RCPT TO")) {
+                        String address = line.substring(line.indexOf('<') + 1, line.lastIndexOf('>'));
+                        if (address.endsWith("@invalid.example")) {
+                            reply(out, "550 5.1.1 No such user");
+                        } else if (address.endsWith("@busy.example")) {
+                            reply(out, "451 4.3.0 Try again later");
+                        } else {
+                            recipients.add(address);
+                            reply(out, "250 OK");
+                        }
+                    } else if (command.equals("DATA")) {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        String subject = null;
+                        boolean headers = true;
+                        while (!(line = in.readLine()).equals(".")) {
+                            if (line.isEmpty()) {
+                                headers = false;
+                            } else if (headers && line.startsWith("Subject: ")) {
+                                subject = line.substring("Subject: ".length());
+                            }
+                        }
+                        received.add(new Received(List.copyOf(recipients), subject));
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    } else if (command.equals("RSET")) {
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    } else if (command.equals("NOOP")) {
+                        reply(out, "250 OK");
+                    } else if (command.equals("QUIT")) {
+                        reply(out, "221 Bye");
+                        return;
+                    } else {
+                        reply(out, "502 Command not implemented");
+                    }
+                }
+            } catch (IOException e) {
+                // Client đóng kết nối
+            }
+        }
+
+        private static void reply(Writer out, String line) throws IOException {
+            out.write(line + "\r\n");
+            out.flush();
+        }
+    }
+}
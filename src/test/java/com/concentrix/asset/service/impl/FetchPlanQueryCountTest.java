@@ -0,0 +1,202 @@
+package com.concentrix.asset.service.impl;
+
+import com.concentrix.asset.entity.*;
+import com.concentrix.asset.enums.DeviceStatus;
+import com.concentrix.asset.enums.DeviceType;
+import com.concentrix.asset.enums.Role;
+import com.concentrix.asset.enums.TransactionStatus;
+import com.concentrix.asset.enums.TransactionType;
+import com.concentrix.asset.repository.*;
+import com.concentrix.asset.service.DeviceService;
+import com.concentrix.asset.service.ReportService;
+import com.concentrix.asset.service.transaction.AssignmentService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Số câu SQL của từng use case phải cố định, không tăng theo số dòng: mỗi thiết bị trong fixture
+ * có model, site, kho/sàn và người dùng riêng, nên một quan hệ LAZY bị nạp lẻ (N+1) sẽ làm lệch con số.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class FetchPlanQueryCountTest {
+
+    static final int DEVICES = 6;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    AssignmentService assignmentService;
+    @Autowired
+    DeviceService deviceService;
+    @Autowired
+    ReportService reportService;
+    @Autowired
+    AccountRepository accountRepository;
+    @Autowired
+    SiteRepository siteRepository;
+    @Autowired
+    WarehouseRepository warehouseRepository;
+    @Autowired
+    FloorRepository floorRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    ModelRepository modelRepository;
+    @Autowired
+    DeviceRepository deviceRepository;
+    @Autowired
+    VendorRepository vendorRepository;
+    @Autowired
+    PORepository poRepository;
+    @Autowired
+    TransactionRepository transactionRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    String key;
+    List<Device> devices;
+    List<User> users;
+    List<Warehouse> warehouses;
+    AssetTransaction assignment;
+
+    // Cả fixture trong một transaction để chi tiết PO/phiếu cascade theo thiết bị đang managed
+    @BeforeEach
+    void createFixture() {
+        transactionTemplate.executeWithoutResult(status -> persistFixture());
+    }
+
+    private void persistFixture() {
+        key = UUID.randomUUID().toString().substring(0, 8);
+        Account account = accountRepository.save(Account.builder().accountName("ACC-" + key).build());
+
+        devices = new ArrayList<>();
+        users = new ArrayList<>();
+        warehouses = new ArrayList<>();
+        for (int i = 0; i < DEVICES; i++) {
+            String name = key + "-" + i;
+            Site site = siteRepository.save(Site.builder().siteName("SITE-" + name).build());
+            Warehouse warehouse = warehouseRepository.save(Warehouse.builder().warehouseName("WH-" + name).site(site).build());
+            Floor floor = floorRepository.save(Floor.builder().floorName("FL-" + name).site(site).account(account).build());
+            User user = userRepository.save(User.builder()
+                    .eid("E-" + name)
+                    .fullName("User " + name)
+                    .email(name + "@example.com")
+                    .sso(name)
+                    .role(Role.OTHER)
+                    .isActive(true)
+                    .site(site)
+                    .account(account)
+                    .build());
+            Model model = modelRepository.save(Model.builder().modelName("LAPTOP-" + name).type(DeviceType.LAPTOP).build());
+
+            // Lần lượt trong kho, tại sàn, đang cấp cho người dùng
+            Device.DeviceBuilder device = Device.builder()
+                    .serialNumber("SN-" + name)
+                    .deviceName("Laptop " + name)
+                    .model(model);
+            switch (i % 3) {
+                case 0 -> device.status(DeviceStatus.IN_STOCK).currentWarehouse(warehouse);
+                case 1 -> device.status(DeviceStatus.IN_FLOOR).currentFloor(floor);
+                default -> device.status(DeviceStatus.ASSIGNED).currentUser(user);
+            }
+            devices.add(deviceRepository.save(device.build()));
+            users.add(user);
+            warehouses.add(warehouse);
+        }
+
+        Vendor vendor = vendorRepository.save(Vendor.builder().vendorName("VENDOR-" + key).build());
+        PurchaseOrder po = PurchaseOrder.builder()
+                .poId("PO-" + key)
+                .vendor(vendor)
+                .warehouse(warehouses.get(0))
+                .createdBy(users.get(0))
+                .build();
+        devices.forEach(device -> po.getPoDetails().add(PODetail.builder().purchaseOrder(po).device(device).quantity(1).build()));
+        poRepository.save(po);
+
+        // Cấp phát toàn bộ thiết bị rồi trả lại và chuyển kho thiết bị đầu tiên: lịch sử di chuyển có nhiều bên liên quan
+        assignment = saveTransaction(TransactionType.ASSIGNMENT, users.get(0), users.get(1), warehouses.get(0), null, devices);
+        saveTransaction(TransactionType.RETURN_FROM_USER, users.get(2), users.get(1), null, warehouses.get(1), devices.subList(0, 1));
+        saveTransaction(TransactionType.TRANSFER_SITE, users.get(3), null, warehouses.get(1), warehouses.get(2), devices.subList(0, 1));
+    }
+
+    // Phiếu + các bên liên quan + chi tiết -> thiết bị -> model trong một query, thêm một query cho danh sách ảnh
+    @Test
+    void transactionDetail() {
+        assertThat(countStatements(() -> assignmentService.getAssignmentById(assignment.getTransactionId())))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void handoverForm() {
+        assertThat(countStatements(() -> assignmentService.getAssetHandoverByAssignmentId(assignment.getTransactionId())))
+                .isEqualTo(1);
+    }
+
+    // Một query projection gộp phiếu và PO
+    @Test
+    void movementHistory() {
+        String serialNumber = devices.get(0).getSerialNumber();
+        assertThat(countStatements(() -> deviceService.getDeviceMovementHistoryBySerial(serialNumber)))
+                .isEqualTo(1);
+        assertThat(countStatements(() -> deviceService.scrollDeviceMovementHistory(serialNumber, null, 2)))
+                .isEqualTo(1);
+    }
+
+    // Thiết bị theo entity graph Device.response, thêm một batch poDetails cho mỗi chunk 100 dòng
+    @Test
+    void reportRows() {
+        assertThat(countStatements(() -> reportService.getDeviceListForReport(
+                null, null, null, null, null, null, null, null, null)))
+                .isEqualTo(2);
+    }
+
+    // Như report; trang đầu ít hơn page size nên không cần query count
+    @Test
+    void devicePageAndScroll() {
+        assertThat(countStatements(() -> deviceService.filterDevices(key, null, null, null, PageRequest.of(0, 50))))
+                .isEqualTo(2);
+        assertThat(countStatements(() -> deviceService.scrollDevices(key, null, null, null, null, 50)))
+                .isEqualTo(2);
+    }
+
+    private AssetTransaction saveTransaction(TransactionType type, User createdBy, User userUse,
+                                             Warehouse fromWarehouse, Warehouse toWarehouse, List<Device> items) {
+        AssetTransaction transaction = AssetTransaction.builder()
+                .transactionType(type)
+                .transactionStatus(TransactionStatus.CONFIRMED)
+                .createdBy(createdBy)
+                .userUse(userUse)
+                .fromWarehouse(fromWarehouse)
+                .toWarehouse(toWarehouse)
+                .build();
+        transaction.setDetails(items.stream()
+                .map(device -> TransactionDetail.builder().transaction(transaction).device(device).quantity(1).build())
+                .toList());
+        return transactionRepository.save(transaction);
+    }
+
+    // Số câu lệnh JDBC được prepare trong lúc gọi, cả transaction của service
+    private long countStatements(Supplier<?> call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertThat(call.get()).isNotNull();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,151 @@
+package com.concentrix.asset.service.impl;
+
+import com.concentrix.asset.entity.Device;
+import com.concentrix.asset.entity.Model;
+import com.concentrix.asset.entity.Site;
+import com.concentrix.asset.entity.Warehouse;
+import com.concentrix.asset.enums.DeviceStatus;
+import com.concentrix.asset.enums.DeviceType;
+import com.concentrix.asset.repository.*;
+import com.concentrix.asset.service.SnapshotDeltaService;
+import com.concentrix.asset.service.SnapshotDeltaService.DeviceState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Chuyển từ chế độ full sang delta: lịch sử snapshot_device cũ vẫn đọc được,
+ * và lần ghi delta đầu tiên chỉ ghi thay đổi so với snapshot đầy đủ gần nhất.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SnapshotDeltaServiceImplTest {
+
+    static final LocalDate OLD_FULL = LocalDate.of(2020, 1, 1);
+    static final LocalDate LAST_FULL = LocalDate.of(2020, 1, 3);
+    static final LocalDate FIRST_DELTA = LocalDate.of(2020, 1, 6);
+
+    @Autowired
+    SnapshotDeltaService snapshotDeltaService;
+    @Autowired
+    SnapshotDeviceRepository snapshotDeviceRepository;
+    @Autowired
+    SnapshotDeviceDeltaRepository snapshotDeviceDeltaRepository;
+    @Autowired
+    SnapshotCheckpointRepository snapshotCheckpointRepository;
+    @Autowired
+    DeviceRepository deviceRepository;
+    @Autowired
+    ModelRepository modelRepository;
+    @Autowired
+    SiteRepository siteRepository;
+    @Autowired
+    WarehouseRepository warehouseRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    String key;
+    Model model;
+    Warehouse warehouse;
+
+    @BeforeEach
+    void clearSnapshots() {
+        snapshotDeviceDeltaRepository.deleteAll();
+        snapshotCheckpointRepository.deleteAll();
+        snapshotDeviceRepository.deleteAll();
+
+        key = UUID.randomUUID().toString().substring(0, 8);
+        Site site = siteRepository.save(Site.builder().siteName("SITE-" + key).build());
+        warehouse = warehouseRepository.save(Warehouse.builder().warehouseName("WH-" + key).site(site).build());
+        model = modelRepository.save(Model.builder().modelName("LAPTOP-" + key).type(DeviceType.LAPTOP).build());
+    }
+
+    @Test
+    void switchingToDeltaKeepsFullHistoryAndRecordsOnlyChanges() {
+        Device kept = saveDevice("KEPT", DeviceStatus.IN_STOCK);
+        Device assigned = saveDevice("ASSIGNED", DeviceStatus.IN_STOCK);
+        takeFullSnapshot(OLD_FULL);
+        Device added = saveDevice("ADDED", DeviceStatus.IN_STOCK);
+        takeFullSnapshot(LAST_FULL);
+        Map<Integer, DeviceState> oldFull = fullSnapshot(OLD_FULL);
+        Map<Integer, DeviceState> lastFull = fullSnapshot(LAST_FULL);
+
+        // Sau lần chụp full cuối: một thiết bị được cấp phát, một thiết bị mới nhập kho
+        assigned.setStatus(DeviceStatus.ASSIGNED);
+        assigned.setCurrentWarehouse(null);
+        deviceRepository.save(assigned);
+        Device purchased = saveDevice("PURCHASED", DeviceStatus.IN_STOCK);
+
+        int deltas = snapshotDeltaService.record(FIRST_DELTA);
+
+        // Checkpoint gốc lấy từ snapshot full gần nhất nên ngày đầu chỉ có 2 thay đổi, không phải toàn bộ thiết bị
+        assertThat(deltas).isEqualTo(2);
+        assertThat(snapshotCheckpointRepository.findAll()).singleElement()
+                .satisfies(checkpoint -> assertThat(checkpoint.getCheckpointDate()).isEqualTo(LAST_FULL));
+
+        // Trước checkpoint đầu tiên: đọc từ snapshot_device, kể cả ngày không có snapshot (rỗng như chế độ full)
+        assertThat(snapshotDeltaService.reconstruct(OLD_FULL)).isEqualTo(oldFull).doesNotContainKey(added.getDeviceId());
+        assertThat(snapshotDeltaService.reconstruct(OLD_FULL.plusDays(1))).isEmpty();
+        assertThat(snapshotDeltaService.reconstruct(LAST_FULL.plusDays(1))).isEqualTo(lastFull);
+
+        Map<Integer, DeviceState> today = snapshotDeltaService.reconstruct(FIRST_DELTA);
+        assertThat(today).isEqualTo(currentStates());
+        assertThat(today.get(kept.getDeviceId())).isEqualTo(lastFull.get(kept.getDeviceId()));
+        assertThat(today.get(assigned.getDeviceId())).isEqualTo(new DeviceState(DeviceStatus.ASSIGNED, null));
+        assertThat(today).containsKey(purchased.getDeviceId());
+    }
+
+    @Test
+    void firstRecordWithoutAnyFullSnapshotStartsFromTheWholeFleet() {
+        saveDevice("FRESH", DeviceStatus.IN_STOCK);
+        Map<Integer, DeviceState> current = currentStates();
+
+        assertThat(snapshotDeltaService.record(FIRST_DELTA)).isEqualTo(current.size());
+        assertThat(snapshotDeltaService.reconstruct(FIRST_DELTA)).isEqualTo(current);
+        assertThat(snapshotDeltaService.reconstruct(FIRST_DELTA.minusDays(1))).isEmpty();
+
+        // Chạy lại trong ngày: không có thay đổi nào so với hôm trước bị nhân đôi
+        assertThat(snapshotDeltaService.record(FIRST_DELTA)).isEqualTo(current.size());
+        assertThat(snapshotDeltaService.reconstruct(FIRST_DELTA)).isEqualTo(current);
+    }
+
+    private Device saveDevice(String name, DeviceStatus status) {
+        return deviceRepository.save(Device.builder()
+                .serialNumber("SN-" + key + "-" + name)
+                .deviceName(name + " " + key)
+                .model(model)
+                .status(status)
+                .currentWarehouse(warehouse)
+                .build());
+    }
+
+    private void takeFullSnapshot(LocalDate date) {
+        transactionTemplate.executeWithoutResult(status -> snapshotDeviceRepository.insertSnapshotFromDevices(date));
+    }
+
+    private Map<Integer, DeviceState> fullSnapshot(LocalDate date) {
+        return toStates(snapshotDeviceRepository.findStatesByDate(date));
+    }
+
+    private Map<Integer, DeviceState> currentStates() {
+        return toStates(deviceRepository.findSnapshotStates());
+    }
+
+    private static Map<Integer, DeviceState> toStates(Iterable<Object[]> rows) {
+        Map<Integer, DeviceState> states = new HashMap<>();
+        for (Object[] row : rows) {
+            states.put((Integer) row[0], new DeviceState((DeviceStatus) row[1], (Integer) row[2]));
+        }
+        return states;
+    }
+}
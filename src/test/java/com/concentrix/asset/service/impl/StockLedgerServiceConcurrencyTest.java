@@ -0,0 +1,183 @@
+package com.concentrix.asset.service.impl;
+
+import com.concentrix.asset.entity.*;
+import com.concentrix.asset.enums.DeviceType;
+import com.concentrix.asset.enums.Role;
+import com.concentrix.asset.exception.CustomException;
+import com.concentrix.asset.exception.ErrorCode;
+import com.concentrix.asset.repository.*;
+import com.concentrix.asset.service.StockLedgerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nhiều luồng cùng trừ/cộng một dòng tồn kho (DeviceWarehouse/DeviceFloor/DeviceUser):
+ * không được trừ quá số đang có và không được mất lượt cập nhật nào.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class StockLedgerServiceConcurrencyTest {
+
+    static final int THREADS = 16;
+
+    enum Location { WAREHOUSE, FLOOR, USER }
+
+    @Autowired
+    StockLedgerService stockLedgerService;
+    @Autowired
+    SiteRepository siteRepository;
+    @Autowired
+    WarehouseRepository warehouseRepository;
+    @Autowired
+    FloorRepository floorRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    ModelRepository modelRepository;
+    @Autowired
+    DeviceRepository deviceRepository;
+    @Autowired
+    DeviceWarehouseRepository deviceWarehouseRepository;
+    @Autowired
+    DeviceFloorRepository deviceFloorRepository;
+    @Autowired
+    DeviceUserRepository deviceUserRepository;
+
+    Device device;
+    Warehouse warehouse;
+    Floor floor;
+    User user;
+
+    // Mỗi test dùng một bộ site/kho/sàn/user/thiết bị riêng nên không phụ thuộc thứ tự chạy
+    @BeforeEach
+    void createFixture() {
+        String key = UUID.randomUUID().toString().substring(0, 8);
+        Site site = siteRepository.save(Site.builder().siteName("SITE-" + key).build());
+        warehouse = warehouseRepository.save(Warehouse.builder().warehouseName("WH-" + key).site(site).build());
+        floor = floorRepository.save(Floor.builder().floorName("FL-" + key).site(site).build());
+        user = userRepository.save(User.builder()
+                .eid("E-" + key)
+                .fullName("Stock Tester " + key)
+                .email(key + "@example.com")
+                .role(Role.OTHER)
+                .isActive(true)
+                .build());
+        Model model = modelRepository.save(Model.builder().modelName("MOUSE-" + key).type(DeviceType.MOUSE).build());
+        device = deviceRepository.save(Device.builder().deviceName("Mouse " + key).model(model).build());
+    }
+
+    // Tồn 100, 200 lượt trừ 1 song song: đúng 100 lượt thành công, 100 lượt báo hết hàng, tồn cuối = 0
+    @ParameterizedTest
+    @EnumSource(Location.class)
+    void parallelTakesNeverOversell(Location location) throws Exception {
+        add(location, 100);
+
+        Outcome outcome = runInParallel(200, i -> take(location, 1));
+
+        assertThat(outcome.succeeded()).isEqualTo(200 - 100);
+        assertThat(outcome.failures()).containsOnlyKeys(outOfStockCode(location));
+        assertThat(outcome.failures().get(outOfStockCode(location))).isEqualTo(100);
+        assertThat(quantity(location)).isEqualTo(0);
+    }
+
+    // Tồn đủ cho mọi lượt trừ nên mọi lượt phải thành công và tồn cuối phải đúng tuyệt đối
+    @ParameterizedTest
+    @EnumSource(Location.class)
+    void parallelTakesAndAddsLoseNoUpdate(Location location) throws Exception {
+        add(location, 1000);
+
+        // 400 lượt trừ 2 xen kẽ 400 lượt cộng 3
+        Outcome outcome = runInParallel(800, i -> {
+            if (i % 2 == 0) {
+                take(location, 2);
+            } else {
+                add(location, 3);
+            }
+        });
+
+        assertThat(outcome.succeeded()).isEqualTo(800);
+        assertThat(outcome.failures()).isEmpty();
+        assertThat(quantity(location)).isEqualTo(1000 - 400 * 2 + 400 * 3);
+    }
+
+    private void take(Location location, int quantity) {
+        switch (location) {
+            case WAREHOUSE -> stockLedgerService.takeFromWarehouse(device, warehouse, quantity);
+            case FLOOR -> stockLedgerService.takeFromFloor(device, floor, quantity);
+            case USER -> stockLedgerService.takeFromUser(device, user, quantity);
+        }
+    }
+
+    private void add(Location location, int quantity) {
+        switch (location) {
+            case WAREHOUSE -> stockLedgerService.addToWarehouse(device, warehouse, quantity);
+            case FLOOR -> stockLedgerService.addToFloor(device, floor, quantity);
+            case USER -> stockLedgerService.addToUser(device, user, quantity);
+        }
+    }
+
+    private int quantity(Location location) {
+        return (switch (location) {
+            case WAREHOUSE -> deviceWarehouseRepository.findQuantity(warehouse.getWarehouseId(), device.getDeviceId());
+            case FLOOR -> deviceFloorRepository.findQuantity(floor.getFloorId(), device.getDeviceId());
+            case USER -> deviceUserRepository.findQuantity(user.getEid(), device.getDeviceId());
+        }).orElseThrow();
+    }
+
+    private static ErrorCode outOfStockCode(Location location) {
+        return switch (location) {
+            case WAREHOUSE -> ErrorCode.STOCK_OUT;
+            case FLOOR -> ErrorCode.DEVICE_NOT_ENOUGH_IN_FLOOR;
+            case USER -> ErrorCode.RETURN_QUANTITY_EXCEEDS_BORROWED;
+        };
+    }
+
+    record Outcome(int succeeded, Map<ErrorCode, Integer> failures) {
+    }
+
+    // Chạy `operations` lượt trên THREADS luồng, các luồng cùng xuất phát sau một cổng chờ
+    private static Outcome runInParallel(int operations, IntConsumer operation) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        Map<ErrorCode, Integer> failures = new ConcurrentHashMap<>();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < operations; i++) {
+                int index = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        operation.accept(index);
+                        succeeded.incrementAndGet();
+                    } catch (CustomException e) {
+                        failures.merge(e.getErrorCode(), 1, Integer::sum);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            // Lỗi khác CustomException (deadlock, lock timeout, ...) làm test fail tại đây
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Outcome(succeeded.get(), Map.copyOf(failures));
+    }
+}
@@ -0,0 +1,102 @@
+package com.concentrix.asset.service.impl;
+
+import com.concentrix.asset.repository.InvalidatedTokenRepository;
+import com.concentrix.asset.service.TokenRevocationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Kết quả isRevoked phải chính xác tuyệt đối: bloom filter chỉ được dùng để loại nhanh,
+ * mọi trường hợp bloom filter báo "có thể" đều phải được xác nhận lại bằng map.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TokenRevocationServiceImplTest {
+
+    static final long ONE_HOUR = 60 * 60 * 1000L;
+
+    @Autowired
+    TokenRevocationService tokenRevocationService;
+    @Autowired
+    InvalidatedTokenRepository invalidatedTokenRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Test
+    void answersExactlyIncludingBloomFalsePositives() {
+        List<String> revoked = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String tokenId = UUID.randomUUID().toString();
+            tokenRevocationService.revoke(tokenId, inOneHour());
+            revoked.add(tokenId);
+        }
+
+        assertThat(revoked).allMatch(tokenRevocationService::isRevoked);
+
+        // Với tỉ lệ false positive ~1%, 100k token chưa thu hồi chắc chắn có token lọt qua bloom filter
+        int bloomFalsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            String tokenId = UUID.randomUUID().toString();
+            if (bloomMightContain(tokenId)) {
+                bloomFalsePositives++;
+            }
+            assertThat(tokenRevocationService.isRevoked(tokenId)).as(tokenId).isFalse();
+        }
+        assertThat(bloomFalsePositives).isPositive();
+    }
+
+    @Test
+    void rollbackRemovesTheRevocation() {
+        String tokenId = UUID.randomUUID().toString();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            tokenRevocationService.revoke(tokenId, inOneHour());
+            // Có hiệu lực ngay trong transaction đang chạy
+            assertThat(tokenRevocationService.isRevoked(tokenId)).isTrue();
+            status.setRollbackOnly();
+        });
+
+        assertThat(invalidatedTokenRepository.existsById(tokenId)).isFalse();
+        assertThat(tokenRevocationService.isRevoked(tokenId)).isFalse();
+    }
+
+    @Test
+    void purgeExpiredEvictsOnlyExpiredTokens() {
+        String expired = UUID.randomUUID().toString();
+        String live = UUID.randomUUID().toString();
+        tokenRevocationService.revoke(expired, new Date(System.currentTimeMillis() - ONE_HOUR));
+        tokenRevocationService.revoke(live, inOneHour());
+        assertThat(tokenRevocationService.isRevoked(expired)).isTrue();
+
+        int deleted = tokenRevocationService.purgeExpired();
+
+        assertThat(deleted).isPositive();
+        assertThat(invalidatedTokenRepository.existsById(expired)).isFalse();
+        assertThat(tokenRevocationService.isRevoked(expired)).isFalse();
+        assertThat(invalidatedTokenRepository.existsById(live)).isTrue();
+        assertThat(tokenRevocationService.isRevoked(live)).isTrue();
+    }
+
+    private static Date inOneHour() {
+        return new Date(System.currentTimeMillis() + ONE_HOUR);
+    }
+
+    // Hỏi thẳng bloom filter hiện tại của bean (bỏ qua proxy @Transactional)
+    private boolean bloomMightContain(String tokenId) {
+        Object service = AopTestUtils.getTargetObject(tokenRevocationService);
+        Object bloomFilter = ReflectionTestUtils.getField(service, "bloomFilter");
+        return Boolean.TRUE.equals(ReflectionTestUtils.invokeMethod(bloomFilter, "mightContain", tokenId));
+    }
+}